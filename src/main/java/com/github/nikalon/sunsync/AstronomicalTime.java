@@ -0,0 +1,81 @@
+package com.github.nikalon.sunsync;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+class AstronomicalTime {
+    // Quantities derived from a single instant (UT) which are shared by the Sun and Moon calculations. They are
+    // computed only once per instant and then passed around, instead of converting the same date to a Julian date
+    // over and over again.
+
+    private static final double UNIX_EPOCH_JULIAN_DATE = 2440587.5; // 1970 January 1.0
+    private static final double J2000_JULIAN_DATE = 2451545.0;      // 2000 January 1.5
+    private static final double EPOCH_JULIAN_DATE = 2455196.5;      // 2010 January 0.0, the epoch used by the Sun and Moon
+    private static final double SECONDS_PER_DAY = 86400.0;
+
+    public final double julianDate;
+    public final double daysSinceEpoch;   // Days elapsed since January 0.0 2010
+    public final double julianCenturies;  // Julian centuries elapsed since J2000.0 (T)
+    public final double obliquity;        // Mean obliquity of the ecliptic, in degrees
+
+    // Greenwich Sidereal Time at 0h UT of the same date, in hours (T0)
+    public final double greenwichSiderealTimeAtMidnight;
+
+    private final long epochDay;
+    private final double dayFraction;
+
+    private AstronomicalTime(long epochDay, double dayFraction) {
+        this.epochDay = epochDay;
+        this.dayFraction = dayFraction;
+        this.julianDate = UNIX_EPOCH_JULIAN_DATE + epochDay + dayFraction;
+        this.daysSinceEpoch = this.julianDate - EPOCH_JULIAN_DATE;
+        this.julianCenturies = (this.julianDate - J2000_JULIAN_DATE) / 36525.0;
+
+        // Obliquity
+        double T = this.julianCenturies;
+        double DE = (46.815 * T - 0.0006 * T * T + 0.00181 * T * T * T) / 3600.0;
+        this.obliquity = 23.439292 - DE;
+
+        // The sidereal time is always referred to the start of the day
+        double T0 = ((UNIX_EPOCH_JULIAN_DATE + epochDay) - J2000_JULIAN_DATE) / 36525.0;
+        this.greenwichSiderealTimeAtMidnight = Helper.modulo((6.697374558 + (2400.051336 * T0) + (0.000025862 * T0 * T0)), 24);
+    }
+
+    static AstronomicalTime of(double gDay, int gMonth, int gYear) {
+        // The day may contain a fraction of a day. Day 0 is the last day of the previous month, just as in
+        // Helper.GreenwichToJulianDate().
+        double wholeDays = Math.floor(gDay);
+        long epochDay = LocalDate.of(gYear, gMonth, 1).toEpochDay() + ((long) wholeDays) - 1;
+        return new AstronomicalTime(epochDay, gDay - wholeDays);
+    }
+
+    static AstronomicalTime of(LocalDateTime dateTime) {
+        // Sub-second precision is ignored
+        double dayFraction = dateTime.toLocalTime().toSecondOfDay() / SECONDS_PER_DAY;
+        return new AstronomicalTime(dateTime.toLocalDate().toEpochDay(), dayFraction);
+    }
+
+    static AstronomicalTime ofEpochSecond(long epochSecond) {
+        // Seconds since the UNIX epoch (UTC)
+        long epochDay = Math.floorDiv(epochSecond, 86400L);
+        return new AstronomicalTime(epochDay, Math.floorMod(epochSecond, 86400L) / SECONDS_PER_DAY);
+    }
+
+    static AstronomicalTime of(LocalDate date) {
+        return new AstronomicalTime(date.toEpochDay(), 0.0);
+    }
+
+    LocalDate date() {
+        // Date (UT) of this instant
+        return LocalDate.ofEpochDay(this.epochDay);
+    }
+
+    double universalTimeHours() {
+        return this.dayFraction * 24.0;
+    }
+
+    double greenwichSiderealTime() {
+        // Greenwich Sidereal Time of this instant, in hours
+        return Helper.modulo(this.greenwichSiderealTimeAtMidnight + universalTimeHours() * 1.002737909, 24);
+    }
+}
@@ -0,0 +1,31 @@
+package com.github.nikalon.sunsync;
+
+import java.time.LocalDate;
+
+import com.github.nikalon.sunsync.Sun.GeographicCoordinate;
+import com.github.nikalon.sunsync.Sun.LatitudeBand;
+import com.github.nikalon.sunsync.Sun.SolarEvents;
+
+interface AstronomyEngine {
+    /*
+    The astronomical calculations that drive the time synchronization. Every engine is listed in AstronomyEngines, and
+    the one in use is chosen with the "astronomy_engine" option. They trade precision for CPU time: each engine declares
+    the error of its sunrise and sunset times, which EphemerisDifferentialTest checks against a high precision
+    reference, so the fastest engine that is precise enough can be picked at startup.
+
+    Engines are called from the main thread and from the background task of /timesync forecast, so they must not keep
+    any state between calls.
+    */
+
+    String getName();
+
+    double getMaxErrorMinutes(); // 99th percentile of the error of sunrise and sunset times below 65° of latitude
+
+    LatitudeBand latitudeBand(double latitude, LocalDate date);
+
+    double moonPhase(AstronomicalTime time); // Same as Moon.phase()
+
+    default SolarEvents solarEvents(GeographicCoordinate location, LocalDate date) {
+        return latitudeBand(location.latitude, date).solarEvents(location.longitude);
+    }
+}
@@ -0,0 +1,100 @@
+package com.github.nikalon.sunsync;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.github.nikalon.sunsync.Sun.GeographicCoordinate;
+
+class AstronomyEngines {
+    // The engines of the plugin, and the startup calibration that picks the fastest one that is precise enough.
+    static final String AUTO = "auto";
+
+    private static final int CALIBRATION_ROUNDS = 5;
+    private static final int CALIBRATION_SAMPLES = 400;
+    private static final LocalDate CALIBRATION_FIRST_DATE = LocalDate.of(2024, 1, 1);
+
+    // Every engine of the plugin, the default one first
+    private static final List<AstronomyEngine> ENGINES = List.of(new ClassicAstronomyEngine(), new PreciseAstronomyEngine());
+    private static volatile long calibrationChecksum; // Keeps the JIT from removing the calibrated calls
+
+    private AstronomyEngines() {} // Disallow instantiation
+
+    static List<AstronomyEngine> available() {
+        return ENGINES;
+    }
+
+    static AstronomyEngine find(String name) {
+        // Returns null if there is no engine with that name
+        for (var engine : available()) {
+            if (engine.getName().equals(name)) return engine;
+        }
+        return null;
+    }
+
+    static Calibration calibrate(double maxErrorMinutes) {
+        // Times the engines that are precise enough and takes the fastest one. If none is precise enough, the most
+        // precise engine is taken.
+        var nanosPerDay = new LinkedHashMap<String, Double>();
+        AstronomyEngine fastest = null;
+        double fastestNanos = Double.POSITIVE_INFINITY;
+        for (var engine : available()) {
+            if (engine.getMaxErrorMinutes() > maxErrorMinutes) continue;
+
+            double nanos = measure(engine);
+            nanosPerDay.put(engine.getName(), nanos);
+            if (nanos < fastestNanos) {
+                fastest = engine;
+                fastestNanos = nanos;
+            }
+        }
+
+        if (fastest != null) {
+            return new Calibration(fastest, true, nanosPerDay);
+        }
+
+        AstronomyEngine mostPrecise = null;
+        for (var engine : available()) {
+            if (mostPrecise == null || engine.getMaxErrorMinutes() < mostPrecise.getMaxErrorMinutes()) mostPrecise = engine;
+        }
+        return new Calibration(mostPrecise, false, nanosPerDay);
+    }
+
+    private static double measure(AstronomyEngine engine) {
+        // Best time of a few rounds, in nanoseconds per solar events of a day. The first rounds also warm up the JIT.
+        long checksum = 0;
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < CALIBRATION_ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < CALIBRATION_SAMPLES; i++) {
+                var location = GeographicCoordinate.fromDecimalDegrees(-60.0 + (i * 7) % 120, -180.0 + (i * 13) % 360);
+                checksum += engine.solarEvents(location, CALIBRATION_FIRST_DATE.plusDays(i)).noonEpochSecond;
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        calibrationChecksum += checksum;
+        return best / (double) CALIBRATION_SAMPLES;
+    }
+
+    static class Calibration {
+        public final AstronomyEngine engine;
+        public final boolean isPreciseEnough; // false if no engine meets the accuracy bound
+        public final Map<String, Double> nanosPerDay; // Only the engines that were timed
+
+        Calibration(AstronomyEngine engine, boolean isPreciseEnough, Map<String, Double> nanosPerDay) {
+            this.engine = engine;
+            this.isPreciseEnough = isPreciseEnough;
+            this.nanosPerDay = nanosPerDay;
+        }
+
+        public String toString() {
+            var timings = new StringBuilder();
+            for (var entry : nanosPerDay.entrySet()) {
+                if (timings.length() > 0) timings.append(", ");
+                timings.append(String.format("%s %.0f ns", entry.getKey(), entry.getValue()));
+            }
+            return String.format("%s (%s)", engine.getName(), timings.length() > 0 ? timings : "no engine is precise enough");
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.github.nikalon.sunsync;
+
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+
+public final class CelestialEvent extends Event {
+    // Called on the main thread when the time of a notable astronomical event is reached: equinoxes, solstices,
+    // eclipses and supermoons, from 2000 to 2100. Eclipses are announced at their greatest phase wherever the server
+    // is, even if they can't be seen from there.
+    private static final HandlerList HANDLERS = new HandlerList();
+
+    public enum Kind {
+        // The order is part of the format of events.bin, so new kinds must be added at the end
+        MARCH_EQUINOX("March equinox"),
+        JUNE_SOLSTICE("June solstice"),
+        SEPTEMBER_EQUINOX("September equinox"),
+        DECEMBER_SOLSTICE("December solstice"),
+        PARTIAL_SOLAR_ECLIPSE("partial solar eclipse"),
+        ANNULAR_SOLAR_ECLIPSE("annular solar eclipse"),
+        TOTAL_SOLAR_ECLIPSE("total solar eclipse"),
+        PENUMBRAL_LUNAR_ECLIPSE("penumbral lunar eclipse"),
+        PARTIAL_LUNAR_ECLIPSE("partial lunar eclipse"),
+        TOTAL_LUNAR_ECLIPSE("total lunar eclipse"),
+        SUPERMOON("supermoon");
+
+        static final Kind[] KINDS = values(); // values() copies the array on every call
+
+        private final String description;
+
+        Kind(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public boolean isEclipse() {
+            return this.ordinal() >= PARTIAL_SOLAR_ECLIPSE.ordinal() && this.ordinal() <= TOTAL_LUNAR_ECLIPSE.ordinal();
+        }
+    }
+
+    private final Kind kind;
+    private final long epochSecond;
+    private final SkySnapshot snapshot;
+
+    CelestialEvent(Kind kind, long epochSecond, SkySnapshot snapshot) {
+        this.kind = kind;
+        this.epochSecond = epochSecond;
+        this.snapshot = snapshot;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public long getEpochSecond() {
+        // Time of the event, in seconds since the UNIX epoch. It's accurate to a few minutes.
+        return epochSecond;
+    }
+
+    public SkySnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    @Override
+    public HandlerList getHandlers() {
+        return HANDLERS;
+    }
+
+    public static HandlerList getHandlerList() {
+        return HANDLERS;
+    }
+}
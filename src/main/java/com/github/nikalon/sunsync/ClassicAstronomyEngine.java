@@ -0,0 +1,31 @@
+package com.github.nikalon.sunsync;
+
+import java.time.LocalDate;
+
+import com.github.nikalon.sunsync.Sun.LatitudeBand;
+
+final class ClassicAstronomyEngine implements AstronomyEngine {
+    // The formulas of Sun and Moon: the position of the Sun is taken once at midday and used for every event of the
+    // day. The fastest engine, and the one used by default.
+    static final String NAME = "classic";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public double getMaxErrorMinutes() {
+        return 7.0;
+    }
+
+    @Override
+    public LatitudeBand latitudeBand(double latitude, LocalDate date) {
+        return Sun.latitudeBand(latitude, date);
+    }
+
+    @Override
+    public double moonPhase(AstronomicalTime time) {
+        return Moon.phase(time);
+    }
+}
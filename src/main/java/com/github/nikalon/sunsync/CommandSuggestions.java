@@ -0,0 +1,92 @@
+package com.github.nikalon.sunsync;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class CommandSuggestions {
+    // Tab completion of the /timesync command. Clients ask for suggestions on every key typed, so nothing is allocated:
+    // the same list is filled and returned every time.
+    //
+    // Ok, this code is fragile. If I add more parameters and I forget to update this class no suggestions will we
+    // shown. But I don't have 200 commands yet. A more complex solution is not needed for now.
+    private final List<String> suggestions = new ArrayList<String>(50); // Used as return value for parameter suggestions
+    private final List<String> parameterList = List.of(
+        "location",
+        "syncIntervalSec",
+        "clock",
+        "debugMode",
+        "moon",
+        "forecast",
+        "events",
+        "drift",
+        "sky"
+    );
+    private final List<String> parameterListDebugMode = List.of(
+        "location",
+        "syncIntervalSec",
+        "clock",
+        "debugMode",
+        "moon",
+        "forecast",
+        "events",
+        "drift",
+        "continue",
+        "pause",
+        "sky"
+    );
+    private final List<String> playerParameterList = List.of("sky"); // Available to players that are not operators
+    private final List <String> locationParameters = List.of("auto");
+    private final List<String> clockParameters = List.of("default", "warp");
+    private final List<String> debugModeParameters = List.of("true", "false");
+    private final List<String> skyParameters = List.of("on", "off", "location", "auto", "offset", "reset");
+
+    List<String> suggest(boolean isOp, boolean debugMode, String[] args) {
+        // Players that are not operators only have the sky parameter
+        this.suggestions.clear();
+
+        var searchPattern = "";
+        if (args.length == 1) {
+            searchPattern = args[0];
+            if (! isOp) {
+                add(this.playerParameterList);
+            } else if (debugMode) {
+                add(this.parameterListDebugMode);
+            } else {
+                add(this.parameterList);
+            }
+        } else if (args.length == 2 && args[0].equals("sky")) {
+            searchPattern = args[1];
+            add(this.skyParameters);
+        } else if (! isOp) {
+            // No suggestions
+        } else if (args.length == 2 && args[0].equals("location")) {
+            searchPattern = args[1];
+            add(this.locationParameters);
+        } else if (args.length == 2 && args[0].equals("clock")) {
+            searchPattern = args[1];
+            add(this.clockParameters);
+        } else if (args.length == 2 && args[0].equals("debugMode")) {
+            searchPattern = args[1];
+            add(this.debugModeParameters);
+        }
+
+        // Filter suggestions in the case that the user has already typed any characters
+        if (! searchPattern.isEmpty()) {
+            for (int i = this.suggestions.size() - 1; i >= 0; i--) {
+                var suggestion = this.suggestions.get(i);
+                if (! suggestion.startsWith(searchPattern)) {
+                    this.suggestions.remove(i);
+                }
+            }
+        }
+
+        return this.suggestions;
+    }
+
+    private void add(List<String> parameters) {
+        // ArrayList.addAll() would copy the parameters into a new array first
+        for (int i = 0; i < parameters.size(); i++) {
+            this.suggestions.add(parameters.get(i));
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.github.nikalon.sunsync;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
 
@@ -10,19 +12,79 @@ class Configuration {
     private static final long SYNCHRONIZATION_INTERVAL_MIN_VALUE = 1L;
     private static final long SYNCHRONIZATION_INTERVAL_MAX_VALUE = 1800L;
     private static final boolean DEBUG_MODE_DEFAULT = false;
+    private static final String SHARED_STATE_FILE_DEFAULT = "";
+    private static final String GEOIP_DATABASE_DEFAULT = "";
+    private static final boolean JFR_EVENTS_DEFAULT = true;
+    private static final boolean SNAP_LOCATIONS_TO_REGIONS_DEFAULT = false;
+    private static final boolean SUPPRESS_REDUNDANT_TIME_PACKETS_DEFAULT = false;
+    private static final long TIME_PACKET_KEEPALIVE_SECONDS_DEFAULT = 30;
+    private static final long TIME_PACKET_KEEPALIVE_SECONDS_MIN_VALUE = 1;
+    private static final long TIME_PACKET_KEEPALIVE_SECONDS_MAX_VALUE = 600;
+    private static final boolean STAGGERED_WORLD_UPDATES_DEFAULT = false;
+    private static final int WORLD_UPDATES_PER_TICK_DEFAULT = 10;
+    private static final int WORLD_UPDATES_PER_TICK_MIN_VALUE = 1;
+    private static final int WORLD_UPDATES_PER_TICK_MAX_VALUE = 10000;
+    private static final int WORLD_UPDATE_BUDGET_MICROS_DEFAULT = 500;
+    private static final int WORLD_UPDATE_BUDGET_MICROS_MIN_VALUE = 0;
+    private static final int WORLD_UPDATE_BUDGET_MICROS_MAX_VALUE = 50000;
+    private static final int METRICS_PORT_DEFAULT = 0;
+    private static final int METRICS_PORT_MIN_VALUE = 0;
+    private static final int METRICS_PORT_MAX_VALUE = 65535;
+    private static final int JFR_PACKET_SAMPLE_RATE_DEFAULT = 100;
+    private static final int JFR_PACKET_SAMPLE_RATE_MIN_VALUE = 1;
+    private static final int JFR_PACKET_SAMPLE_RATE_MAX_VALUE = 1_000_000;
+    static final String SKY_MAPPING_EVENTS = "events";
+    static final String SKY_MAPPING_ELEVATION = "elevation";
+    private static final String SKY_MAPPING_DEFAULT = SKY_MAPPING_EVENTS;
+    private static final String ASTRONOMY_ENGINE_DEFAULT = ClassicAstronomyEngine.NAME;
+    private static final double ASTRONOMY_MAX_ERROR_MINUTES_DEFAULT = 5.0;
+    private static final double ASTRONOMY_MAX_ERROR_MINUTES_MIN_VALUE = 0.1;
+    private static final double ASTRONOMY_MAX_ERROR_MINUTES_MAX_VALUE = 60.0;
     private static final Pattern REGEX_DECIMAL_DEGREES = Pattern.compile("(?<latitude>-?\\d+(?:\\.\\d+)?),?\\s+(?<longitude>-?\\d+(?:\\.\\d+)?)");
     private static final Pattern REGEX_SEXAGESIMAL_DEGREES = Pattern.compile("(?<LatDeg>\\d+)°(?: *(?<LatArcMin>\\d+)')?(?: *(?<LatArcSec>\\d+(?:\\.\\d+)?)\")? *(?<LatDirection>[NS]),?\\s+(?<LonDeg>\\d+)°(?: *(?<LonArcMin>\\d+)')?(?: *(?<LonArcSec>\\d+(?:\\.\\d+)?)\")? *(?<LonDirection>[EW])");
 
     private String location;
     private long syncIntervalSeconds;
     private boolean debugMode;
-    private GeographicCoordinate geographicCoordinates;
+    private boolean jfrEvents;
+    private boolean snapLocationsToRegions;
+    private boolean suppressRedundantTimePackets;
+    private long timePacketKeepaliveSeconds;
+    private boolean staggeredWorldUpdates;
+    private int worldUpdatesPerTick;
+    private int worldUpdateBudgetMicros;
+    private int jfrPacketSampleRate;
+    private int metricsPort;
+    private String sharedStateFile;
+    private String skyMapping;
+    private String astronomyEngineName;
+    private double astronomyMaxErrorMinutes;
+    private AstronomyEngine astronomyEngine; // null until "auto" is calibrated
+    private AstronomyEngines.Calibration astronomyCalibration; // Only set for "auto"
+    private String geoIpDatabase;
+    private final Map<String, WorldProjection> worldProjections = new HashMap<>();
+    private GeographicCoordinate geographicCoordinates; // null until "auto" is resolved
 
    Configuration(Logger logger) {
         this.location = "auto";
-        this.geographicCoordinates = parseLocationOption(this.location);
+        this.geographicCoordinates = null; // Resolved on first use, the region table is only loaded if needed
         this.syncIntervalSeconds = SYNCHRONIZATION_INTERVAL_SECONDS_DEFAULT;
         this.debugMode = DEBUG_MODE_DEFAULT;
+        this.jfrEvents = JFR_EVENTS_DEFAULT;
+        this.snapLocationsToRegions = SNAP_LOCATIONS_TO_REGIONS_DEFAULT;
+        this.suppressRedundantTimePackets = SUPPRESS_REDUNDANT_TIME_PACKETS_DEFAULT;
+        this.timePacketKeepaliveSeconds = TIME_PACKET_KEEPALIVE_SECONDS_DEFAULT;
+        this.staggeredWorldUpdates = STAGGERED_WORLD_UPDATES_DEFAULT;
+        this.worldUpdatesPerTick = WORLD_UPDATES_PER_TICK_DEFAULT;
+        this.worldUpdateBudgetMicros = WORLD_UPDATE_BUDGET_MICROS_DEFAULT;
+        this.jfrPacketSampleRate = JFR_PACKET_SAMPLE_RATE_DEFAULT;
+        this.metricsPort = METRICS_PORT_DEFAULT;
+        this.sharedStateFile = SHARED_STATE_FILE_DEFAULT;
+        this.skyMapping = SKY_MAPPING_DEFAULT;
+        this.astronomyEngineName = ASTRONOMY_ENGINE_DEFAULT;
+        this.astronomyMaxErrorMinutes = ASTRONOMY_MAX_ERROR_MINUTES_DEFAULT;
+        this.astronomyEngine = AstronomyEngines.find(ASTRONOMY_ENGINE_DEFAULT);
+        this.geoIpDatabase = GEOIP_DATABASE_DEFAULT;
     }
 
     static long getSyncIntervalLowestValidValue() {
@@ -38,27 +100,30 @@ class Configuration {
     }
 
     GeographicCoordinate getGeographicCoordinates() {
+        if (this.geographicCoordinates == null) {
+            this.geographicCoordinates = parseLocationOption(this.location);
+        }
         return this.geographicCoordinates;
     }
 
     boolean setLocation(String newLocation) {
         if (isValidLocation(newLocation)) {
             this.location = newLocation;
-            this.geographicCoordinates = parseLocationOption(newLocation);
+            this.geographicCoordinates = newLocation.equals("auto") ? null : parseLocationOption(newLocation);
             return true;
         } else {
             return false;
         }
     }
 
-    private GeographicCoordinate parseLocationOption(String location) {
+    private static GeographicCoordinate parseLocationOption(String location) {
         if (location.equals("auto")) {
             // Automatically detect geographic coordinates based on some heuristics
             var systemRegion = System.getProperty("user.country");
             if (systemRegion == null) return GeographicCoordinate.defaultCoordinate();
 
             var defaultCoordinates = GeographicCoordinate.defaultCoordinate();
-            return Regions.REGIONS.getOrDefault(systemRegion, defaultCoordinates);
+            return Regions.getOrDefault(systemRegion, defaultCoordinates);
         } else {
             // Try parse as decimal degrees
             var decimalMatcher = REGEX_DECIMAL_DEGREES.matcher(location);
@@ -133,7 +198,13 @@ class Configuration {
         return null;
     }
 
-    private boolean isValidLocation(String location) {
+    static GeographicCoordinate parseCoordinates(String location) {
+        // Coordinates in any of the formats of the "location" option except "auto", or null if they are not valid
+        if (location.equals("auto") || ! isValidLocation(location)) return null;
+        return parseLocationOption(location);
+    }
+
+    private static boolean isValidLocation(String location) {
         if (location.equals("auto")) {
             return true;
         } else {
@@ -172,4 +243,245 @@ class Configuration {
     void setDebugMode(boolean mode) {
         this.debugMode = mode;
     }
+
+    static int getJfrPacketSampleRateLowestValidValue() {
+        return JFR_PACKET_SAMPLE_RATE_MIN_VALUE;
+    }
+
+    static int getJfrPacketSampleRateHighestValidValue() {
+        return JFR_PACKET_SAMPLE_RATE_MAX_VALUE;
+    }
+
+    static long getTimePacketKeepaliveSecondsLowestValidValue() {
+        return TIME_PACKET_KEEPALIVE_SECONDS_MIN_VALUE;
+    }
+
+    static long getTimePacketKeepaliveSecondsHighestValidValue() {
+        return TIME_PACKET_KEEPALIVE_SECONDS_MAX_VALUE;
+    }
+
+    static int getWorldUpdatesPerTickLowestValidValue() {
+        return WORLD_UPDATES_PER_TICK_MIN_VALUE;
+    }
+
+    static int getWorldUpdatesPerTickHighestValidValue() {
+        return WORLD_UPDATES_PER_TICK_MAX_VALUE;
+    }
+
+    static int getWorldUpdateBudgetMicrosLowestValidValue() {
+        return WORLD_UPDATE_BUDGET_MICROS_MIN_VALUE;
+    }
+
+    static int getWorldUpdateBudgetMicrosHighestValidValue() {
+        return WORLD_UPDATE_BUDGET_MICROS_MAX_VALUE;
+    }
+
+    static int getMetricsPortLowestValidValue() {
+        return METRICS_PORT_MIN_VALUE;
+    }
+
+    static int getMetricsPortHighestValidValue() {
+        return METRICS_PORT_MAX_VALUE;
+    }
+
+    int getMetricsPort() {
+        // 0 means that the metrics endpoint is disabled
+        return metricsPort;
+    }
+
+    boolean setMetricsPort(long port) {
+        if (port < METRICS_PORT_MIN_VALUE || port > METRICS_PORT_MAX_VALUE) {
+            return false;
+        } else {
+            this.metricsPort = (int) port;
+            return true;
+        }
+    }
+
+    boolean getJfrEvents() {
+        return jfrEvents;
+    }
+
+    void setJfrEvents(boolean enabled) {
+        this.jfrEvents = enabled;
+    }
+
+    boolean getSnapLocationsToRegions() {
+        return snapLocationsToRegions;
+    }
+
+    void setSnapLocationsToRegions(boolean enabled) {
+        this.snapLocationsToRegions = enabled;
+    }
+
+    boolean getSuppressRedundantTimePackets() {
+        return suppressRedundantTimePackets;
+    }
+
+    void setSuppressRedundantTimePackets(boolean enabled) {
+        this.suppressRedundantTimePackets = enabled;
+    }
+
+    boolean getStaggeredWorldUpdates() {
+        return staggeredWorldUpdates;
+    }
+
+    void setStaggeredWorldUpdates(boolean enabled) {
+        this.staggeredWorldUpdates = enabled;
+    }
+
+    int getWorldUpdatesPerTick() {
+        return worldUpdatesPerTick;
+    }
+
+    boolean setWorldUpdatesPerTick(long updates) {
+        if (updates >= WORLD_UPDATES_PER_TICK_MIN_VALUE && updates <= WORLD_UPDATES_PER_TICK_MAX_VALUE) {
+            this.worldUpdatesPerTick = (int) updates;
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    int getWorldUpdateBudgetMicros() {
+        // 0 means no limit
+        return worldUpdateBudgetMicros;
+    }
+
+    boolean setWorldUpdateBudgetMicros(long micros) {
+        if (micros >= WORLD_UPDATE_BUDGET_MICROS_MIN_VALUE && micros <= WORLD_UPDATE_BUDGET_MICROS_MAX_VALUE) {
+            this.worldUpdateBudgetMicros = (int) micros;
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    long getTimePacketKeepaliveSeconds() {
+        return timePacketKeepaliveSeconds;
+    }
+
+    boolean setTimePacketKeepaliveSeconds(long seconds) {
+        if (seconds >= TIME_PACKET_KEEPALIVE_SECONDS_MIN_VALUE && seconds <= TIME_PACKET_KEEPALIVE_SECONDS_MAX_VALUE) {
+            this.timePacketKeepaliveSeconds = seconds;
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    int getJfrPacketSampleRate() {
+        return jfrPacketSampleRate;
+    }
+
+    boolean setJfrPacketSampleRate(long rate) {
+        if (rate >= JFR_PACKET_SAMPLE_RATE_MIN_VALUE && rate <= JFR_PACKET_SAMPLE_RATE_MAX_VALUE) {
+            this.jfrPacketSampleRate = (int) rate;
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    String getSkyMapping() {
+        // SKY_MAPPING_EVENTS pins the real solar events to the Minecraft sky, SKY_MAPPING_ELEVATION follows the real
+        // elevation of the Sun
+        return skyMapping;
+    }
+
+    boolean setSkyMapping(String mapping) {
+        if (SKY_MAPPING_EVENTS.equals(mapping) || SKY_MAPPING_ELEVATION.equals(mapping)) {
+            this.skyMapping = mapping;
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    static double getAstronomyMaxErrorMinutesLowestValidValue() {
+        return ASTRONOMY_MAX_ERROR_MINUTES_MIN_VALUE;
+    }
+
+    static double getAstronomyMaxErrorMinutesHighestValidValue() {
+        return ASTRONOMY_MAX_ERROR_MINUTES_MAX_VALUE;
+    }
+
+    String getAstronomyEngineName() {
+        return astronomyEngineName;
+    }
+
+    AstronomyEngine getAstronomyEngine() {
+        if (this.astronomyEngine == null) {
+            // "auto" is calibrated on first use, so the engines are only timed when they are needed
+            this.astronomyCalibration = AstronomyEngines.calibrate(this.astronomyMaxErrorMinutes);
+            this.astronomyEngine = this.astronomyCalibration.engine;
+        }
+        return this.astronomyEngine;
+    }
+
+    AstronomyEngines.Calibration getAstronomyCalibration() {
+        // null unless the engine is "auto" and it was already calibrated
+        return astronomyCalibration;
+    }
+
+    boolean setAstronomyEngine(String name) {
+        // The name of an engine or "auto"
+        var engine = AstronomyEngines.AUTO.equals(name) ? null : AstronomyEngines.find(name);
+        if (engine == null && ! AstronomyEngines.AUTO.equals(name)) {
+            return false;
+        } else {
+            this.astronomyEngineName = name;
+            this.astronomyEngine = engine;
+            this.astronomyCalibration = null;
+            return true;
+        }
+    }
+
+    double getAstronomyMaxErrorMinutes() {
+        return astronomyMaxErrorMinutes;
+    }
+
+    boolean setAstronomyMaxErrorMinutes(double minutes) {
+        if (minutes >= ASTRONOMY_MAX_ERROR_MINUTES_MIN_VALUE && minutes <= ASTRONOMY_MAX_ERROR_MINUTES_MAX_VALUE) {
+            this.astronomyMaxErrorMinutes = minutes;
+            if (AstronomyEngines.AUTO.equals(this.astronomyEngineName)) {
+                this.astronomyEngine = null; // Calibrate again
+                this.astronomyCalibration = null;
+            }
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    String getSharedStateFile() {
+        // An empty string means that the time is not shared with other servers
+        return sharedStateFile;
+    }
+
+    void setSharedStateFile(String path) {
+        this.sharedStateFile = path == null ? SHARED_STATE_FILE_DEFAULT : path.trim();
+    }
+
+    String getGeoIpDatabase() {
+        // An empty string means that players do not get their own location
+        return geoIpDatabase;
+    }
+
+    void setGeoIpDatabase(String path) {
+        this.geoIpDatabase = path == null ? GEOIP_DATABASE_DEFAULT : path.trim();
+    }
+
+    WorldProjection getWorldProjection(String world) {
+        // Returns null if the world is not projected onto the globe
+        return worldProjections.get(world);
+    }
+
+    boolean setWorldProjection(String world, double blocksPerDegree, double originLatitude, double originLongitude) {
+        var projection = WorldProjection.of(blocksPerDegree, originLatitude, originLongitude);
+        if (projection == null) return false;
+
+        worldProjections.put(world, projection);
+        return true;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,260 @@
+package com.github.nikalon.sunsync;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+class DriftMonitor {
+    /*
+    Compares the time the plugin wants with the time the worlds and the clients actually have.
+
+    - Worlds: every time the synchronized time is applied to a world, the time of the world is compared with the time
+      applied the previous time. If the gamerule doDaylightCycle is set to true the world moved on by itself, as many
+      ticks as its age did, so both possibilities are accepted. Anything else was changed outside this plugin.
+    - Clients: the last time update packet sent to each player is recorded after every packet listener has run, and is
+      compared on every synchronization with the time the plugin would send them. The client can't be asked what it
+      shows, but it shows what it was sent last.
+
+    The drift of each sample, in ticks, goes into a ring buffer of primitives, so the percentiles are always about the
+    last samples and recording them doesn't allocate.
+
+    Changes of the world time from other plugins fire a TimeSkipEvent, which the plugin cancels. While the time is
+    applied by this class isApplyingTime() is true, so those events can be told apart from the ones of this plugin.
+    The blocked changes are counted by source.
+    */
+    static final int WORLD_SAMPLES = 1024;
+    static final int PLAYER_SAMPLES = 4096;
+    static final long NO_PACKET = Long.MIN_VALUE;
+
+    static class Samples {
+        // Last values of a ring buffer, and the count and sum of every value ever recorded
+        private final long[] values;
+        private final long[] sorted;
+        private int size;
+        private int next;
+        private long count;
+        private long sum;
+
+        Samples(int capacity) {
+            this.values = new long[capacity];
+            this.sorted = new long[capacity];
+        }
+
+        synchronized void record(long value) {
+            this.values[this.next] = value;
+            this.next = (this.next + 1) % this.values.length;
+            if (this.size < this.values.length) this.size++;
+            this.count++;
+            this.sum += value;
+        }
+
+        synchronized int size() {
+            return this.size;
+        }
+
+        synchronized long count() {
+            return this.count;
+        }
+
+        synchronized long sum() {
+            return this.sum;
+        }
+
+        synchronized long[] percentiles(double... percentiles) {
+            // Nearest-rank percentiles of the values in the buffer, each one between 0 and 1. All 0 if there are none.
+            long[] result = new long[percentiles.length];
+            if (this.size == 0) return result;
+
+            System.arraycopy(this.values, 0, this.sorted, 0, this.size);
+            Arrays.sort(this.sorted, 0, this.size);
+            for (int i = 0; i < percentiles.length; i++) {
+                int rank = (int) Math.ceil(percentiles[i] * this.size);
+                result[i] = this.sorted[Math.max(0, Math.min(this.size, rank) - 1)];
+            }
+            return result;
+        }
+    }
+
+    static class BlockedChanges {
+        final String source; // Name of a plugin, or of the reason given by the server
+        long count;
+        String lastWorld;
+        long lastSkipAmount;
+
+        BlockedChanges(String source) {
+            this.source = source;
+        }
+    }
+
+    private static class PlayerState {
+        // The time is written from the thread of the connection of the player and read from the main thread. A read
+        // of the time of an older packet only delays the sample until the next synchronization.
+        volatile long sentTime = NO_PACKET;
+        volatile long drift;
+        String name;
+    }
+
+    private final Samples worldDrift = new Samples(WORLD_SAMPLES);
+    private final Samples playerDrift = new Samples(PLAYER_SAMPLES);
+
+    // Time applied to each world and age of the world at that moment. Only used from the main thread.
+    private final Map<UUID, long[]> worlds = new HashMap<>();
+    private final Map<UUID, Long> worldDrifts = new ConcurrentHashMap<>(); // Drift found the last time the time was applied
+    private final Map<UUID, String> worldNames = new ConcurrentHashMap<>();
+    private final Map<UUID, PlayerState> players = new ConcurrentHashMap<>();
+    private final Map<String, BlockedChanges> blockedChanges = new HashMap<>(); // Guarded by itself
+    private boolean applyingTime;
+
+    void apply(World world, long fullTime) {
+        // Sets the time of the world, measuring first how far it is from the time set the previous time
+        UUID uid = world.getUID();
+        long[] state = this.worlds.get(uid);
+        if (state == null) {
+            state = new long[2];
+            this.worlds.put(uid, state);
+            this.worldNames.put(uid, world.getName());
+        } else {
+            long actual = world.getFullTime();
+            long elapsed = world.getGameTime() - state[1];
+            long drift = Math.min(Math.abs(actual - state[0]), Math.abs(actual - state[0] - elapsed));
+            this.worldDrift.record(drift);
+            if (drift != 0 || this.worldDrifts.containsKey(uid)) this.worldDrifts.put(uid, drift);
+        }
+
+        this.applyingTime = true;
+        try {
+            world.setFullTime(fullTime);
+        } finally {
+            this.applyingTime = false;
+        }
+        state[0] = fullTime;
+        state[1] = world.getGameTime();
+    }
+
+    boolean isApplyingTime() {
+        // True while this class changes the time of a world, which fires a TimeSkipEvent
+        return this.applyingTime;
+    }
+
+    void recordPacket(UUID player, long timeOfDay) {
+        // Called for every time update packet that is finally sent. It doesn't allocate after the first packet.
+        var state = this.players.get(player);
+        if (state == null) {
+            state = new PlayerState();
+            this.players.put(player, state);
+        }
+        state.sentTime = timeOfDay;
+    }
+
+    void forgetPlayer(UUID player) {
+        this.players.remove(player);
+    }
+
+    void samplePlayers(Collection<? extends Player> onlinePlayers, ToLongFunction<Player> intendedTime) {
+        // Compares the last time sent to each player with the time they should see, given by the function. Players
+        // whose intended time is TimePacketRewriter.NOT_REWRITTEN are not monitored.
+        for (var player : onlinePlayers) {
+            var state = this.players.get(player.getUniqueId());
+            if (state == null) continue;
+            long sent = state.sentTime;
+            long intended = intendedTime.applyAsLong(player);
+            if (sent == NO_PACKET || intended == TimePacketRewriter.NOT_REWRITTEN) continue;
+
+            // The sign only tells the client whether the Sun moves, so only the time of day is compared
+            long difference = Math.floorMod(Math.abs(sent) - Math.abs(intended), TimeSynchronizer.MINECRAFT_DAY_IN_TICKS);
+            long drift = Math.min(difference, TimeSynchronizer.MINECRAFT_DAY_IN_TICKS - difference);
+            this.playerDrift.record(drift);
+            state.drift = drift;
+            state.name = player.getName();
+        }
+    }
+
+    Samples getWorldDrift() {
+        return this.worldDrift;
+    }
+
+    Samples getPlayerDrift() {
+        return this.playerDrift;
+    }
+
+    List<Map.Entry<String, Long>> getWorstWorlds(int limit) {
+        // Worlds that had drifted the last time the time was applied to them, the worst first
+        var worst = new ArrayList<Map.Entry<String, Long>>();
+        this.worldDrifts.forEach((uid, drift) -> {
+            if (drift > 0) worst.add(Map.entry(this.worldNames.getOrDefault(uid, uid.toString()), drift));
+        });
+        return worst(worst, limit);
+    }
+
+    List<Map.Entry<String, Long>> getWorstPlayers(int limit) {
+        // Players whose client had drifted the last time they were sampled, the worst first
+        var worst = new ArrayList<Map.Entry<String, Long>>();
+        this.players.forEach((uuid, state) -> {
+            if (state.drift > 0 && state.name != null) worst.add(Map.entry(state.name, state.drift));
+        });
+        return worst(worst, limit);
+    }
+
+    private static List<Map.Entry<String, Long>> worst(List<Map.Entry<String, Long>> drifts, int limit) {
+        drifts.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+        return drifts.subList(0, Math.min(limit, drifts.size()));
+    }
+
+    boolean recordBlockedChange(String source, String world, long skipAmount) {
+        // Returns true the first time a change from the given source is blocked
+        synchronized (this.blockedChanges) {
+            var changes = this.blockedChanges.get(source);
+            boolean first = changes == null;
+            if (first) {
+                changes = new BlockedChanges(source);
+                this.blockedChanges.put(source, changes);
+            }
+            changes.count++;
+            changes.lastWorld = world;
+            changes.lastSkipAmount = skipAmount;
+            return first;
+        }
+    }
+
+    List<BlockedChanges> getBlockedChanges() {
+        // Copies, the sources with the most changes first
+        var copies = new ArrayList<BlockedChanges>();
+        synchronized (this.blockedChanges) {
+            for (var changes : this.blockedChanges.values()) {
+                var copy = new BlockedChanges(changes.source);
+                copy.count = changes.count;
+                copy.lastWorld = changes.lastWorld;
+                copy.lastSkipAmount = changes.lastSkipAmount;
+                copies.add(copy);
+            }
+        }
+        copies.sort(Comparator.comparingLong((BlockedChanges changes) -> changes.count).reversed());
+        return copies;
+    }
+
+    long getBlockedChangeCount() {
+        synchronized (this.blockedChanges) {
+            long count = 0;
+            for (var changes : this.blockedChanges.values()) count += changes.count;
+            return count;
+        }
+    }
+
+    static String findPlugin(Stream<Class<?>> callStack, Function<Class<?>, String> pluginName, String self) {
+        // Name of the first plugin in the call stack other than this one, or null if there is none. The function gives
+        // the name of the plugin that loaded a class, or null for classes of the server.
+        return callStack.map(pluginName).filter((name) -> name != null && ! name.equals(self)).findFirst().orElse(null);
+    }
+}
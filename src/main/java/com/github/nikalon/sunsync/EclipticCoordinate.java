@@ -10,16 +10,12 @@ class EclipticCoordinate {
         this.longitude = longitude;
     }
 
-    public EquatorialCoordinate toEquatorial(double gDay, int gMonth, int gYear) {
+    public EquatorialCoordinate toEquatorial(AstronomicalTime time) {
         double eclLatRad = Math.toRadians(this.latitude);
         double eclLongRad = Math.toRadians(this.longitude);
 
         // Mean obliquity of the ecliptic
-        double T = (Helper.GreenwichToJulianDate(gDay, gMonth, gYear) - 2451545.0) / 36525.0;
-
-        // Obliquity
-        double DE = (46.815 * T - 0.0006 * Math.pow(T, 2) + 0.00181 * Math.pow(T, 3)) / 3600.0;
-        double obliquityEclipticRad = Math.toRadians(23.439292 - DE);
+        double obliquityEclipticRad = Math.toRadians(time.obliquity);
 
         // Conversion
         double deltaRad = Math.asin(Math.sin(eclLatRad) * Math.cos(obliquityEclipticRad) +
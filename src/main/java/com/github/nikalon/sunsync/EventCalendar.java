@@ -0,0 +1,93 @@
+package com.github.nikalon.sunsync;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import com.github.nikalon.sunsync.CelestialEvent.Kind;
+
+class EventCalendar {
+    /*
+    Equinoxes, solstices, solar and lunar eclipses and supermoons from 2000 to 2100. They take too long to find at
+    runtime, so they are calculated once by EventCalendarGenerator (in the tests) and stored in the resource file
+    events.bin. See that class for how each event is found and for the format of the file.
+
+    The calendar is only loaded the first time it's used. Times are stored sorted as minutes since the UNIX epoch, so
+    the next event after any time is a binary search over a primitive array.
+    */
+    static final String RESOURCE = "/events.bin";
+    static final int MAGIC = 0x53534556; // "SSEV"
+    static final int VERSION = 1;
+    static final int FIRST_YEAR = 2000;
+    static final int LAST_YEAR = 2100;
+    private static final long SECONDS_PER_MINUTE = 60;
+
+    private EventCalendar() {} // Disallow instantiation
+
+    private static class Table {
+        // Loaded by the JVM on first use
+        static final Table INSTANCE = load();
+
+        final int[] epochMinutes;
+        final byte[] kinds;
+
+        Table(int[] epochMinutes, byte[] kinds) {
+            this.epochMinutes = epochMinutes;
+            this.kinds = kinds;
+        }
+
+        private static Table load() {
+            try (InputStream resource = EventCalendar.class.getResourceAsStream(RESOURCE)) {
+                if (resource == null) throw new IllegalStateException(String.format("Resource %s not found", RESOURCE));
+
+                var in = new DataInputStream(resource);
+                if (in.readInt() != MAGIC || in.readInt() != VERSION) throw new IllegalStateException(String.format("Resource %s is not valid", RESOURCE));
+
+                int count = in.readInt();
+                int[] epochMinutes = new int[count];
+                byte[] kinds = new byte[count];
+                for (int i = 0; i < count; i++) epochMinutes[i] = in.readInt();
+                in.readFully(kinds);
+                return new Table(epochMinutes, kinds);
+            } catch (IOException e) {
+                throw new IllegalStateException(String.format("Could not read resource %s", RESOURCE), e);
+            }
+        }
+    }
+
+    static int size() {
+        return Table.INSTANCE.epochMinutes.length;
+    }
+
+    static int indexAfter(long epochSecond) {
+        // Index of the first event strictly after the given time, or size() if there are no more events
+        var table = Table.INSTANCE;
+        long minute = Math.floorDiv(epochSecond, SECONDS_PER_MINUTE);
+        if (minute >= Integer.MAX_VALUE) return table.epochMinutes.length;
+        if (minute < Integer.MIN_VALUE) return 0;
+
+        int index = Arrays.binarySearch(table.epochMinutes, (int) minute);
+        if (index < 0) return -index - 1;
+
+        // Several events may happen in the same minute
+        while (index < table.epochMinutes.length && table.epochMinutes[index] == minute) index++;
+        return index;
+    }
+
+    static long epochSecond(int index) {
+        return Table.INSTANCE.epochMinutes[index] * SECONDS_PER_MINUTE;
+    }
+
+    static Kind kind(int index) {
+        return Kind.KINDS[Table.INSTANCE.kinds[index]];
+    }
+
+    static int next(long epochSecond, Kind kind) {
+        // Index of the next event of the given kind after the given time, or -1 if there are no more
+        for (int i = indexAfter(epochSecond); i < size(); i++) {
+            if (kind(i) == kind) return i;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,107 @@
+package com.github.nikalon.sunsync;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.github.nikalon.sunsync.SkySnapshot.MoonPhase;
+import com.github.nikalon.sunsync.Sun.GeographicCoordinate;
+import com.github.nikalon.sunsync.Sun.SolarEvents;
+
+class Forecast {
+    /*
+    Sunrise, sunset and Moon phase of a range of days at a location, for the /timesync forecast command. It's meant to
+    be computed off the main thread, in the background task of the command: a year takes a few milliseconds, but
+    nothing here touches the server. The days are computed one after another on that thread, so the forecast doesn't
+    compete with the rest of the server for the common pool.
+    */
+    static final int MIN_DAYS = 1;
+    static final int MAX_DAYS = 3660;
+    static final int LINES_PER_PAGE = 10;
+
+    final GeographicCoordinate location;
+    final LocalDate firstDate;
+    private final List<Day> days;
+
+    private Forecast(GeographicCoordinate location, LocalDate firstDate, List<Day> days) {
+        this.location = location;
+        this.firstDate = firstDate;
+        this.days = days;
+    }
+
+    static Forecast compute(AstronomyEngine engine, GeographicCoordinate location, LocalDate firstDate, int days) {
+        if (days < MIN_DAYS || days > MAX_DAYS) throw new IllegalArgumentException("Invalid number of days: " + days);
+
+        var computed = new ArrayList<Day>(days);
+        for (int i = 0; i < days; i++) {
+            computed.add(Day.compute(engine, location, firstDate.plusDays(i)));
+        }
+        return new Forecast(location, firstDate, computed);
+    }
+
+    int size() {
+        return this.days.size();
+    }
+
+    Day getDay(int index) {
+        return this.days.get(index);
+    }
+
+    int getPages() {
+        return (this.days.size() + LINES_PER_PAGE - 1) / LINES_PER_PAGE;
+    }
+
+    List<String> getPage(int page) {
+        // Pages start at 1. Returns an empty list if there is no such page.
+        var lines = new ArrayList<String>(LINES_PER_PAGE);
+        if (page < 1 || page > getPages()) return lines;
+
+        int first = (page - 1) * LINES_PER_PAGE;
+        for (int i = first; i < Math.min(first + LINES_PER_PAGE, this.days.size()); i++) {
+            lines.add(this.days.get(i).toString());
+        }
+        return lines;
+    }
+
+    static class Day {
+        public final LocalDate date;
+        public final long sunrise; // Seconds since the UNIX epoch (UTC), or SkySnapshot.NO_EVENT
+        public final long sunset;  // Seconds since the UNIX epoch (UTC), or SkySnapshot.NO_EVENT
+        public final boolean isPolarDay; // Only meaningful if there is no sunrise
+        public final double moonPhase; // Fraction of the lunar cycle at noon (UTC), from 0 (new Moon) to 1
+
+        private Day(LocalDate date, long sunrise, long sunset, boolean isPolarDay, double moonPhase) {
+            this.date = date;
+            this.sunrise = sunrise;
+            this.sunset = sunset;
+            this.isPolarDay = isPolarDay;
+            this.moonPhase = moonPhase;
+        }
+
+        static Day compute(AstronomyEngine engine, GeographicCoordinate location, LocalDate date) {
+            var events = engine.solarEvents(location, date);
+            double moonPhase = engine.moonPhase(AstronomicalTime.of(date.atTime(12, 0)));
+            if (! events.occurs(SolarEvents.SUNRISE_AND_SUNSET)) {
+                return new Day(date, SkySnapshot.NO_EVENT, SkySnapshot.NO_EVENT, events.isAlwaysAbove(SolarEvents.SUNRISE_AND_SUNSET), moonPhase);
+            }
+            return new Day(date, events.riseEpochSecond(SolarEvents.SUNRISE_AND_SUNSET), events.setEpochSecond(SolarEvents.SUNRISE_AND_SUNSET), false, moonPhase);
+        }
+
+        public String toString() {
+            String sun;
+            if (this.sunrise == SkySnapshot.NO_EVENT) {
+                sun = this.isPolarDay ? "The Sun does not set" : "The Sun does not rise";
+            } else {
+                long daylight = this.sunset - this.sunrise;
+                sun = String.format("Sunrise %s, sunset %s (%dh %02dm of daylight)", formatTime(this.sunrise), formatTime(this.sunset), daylight / 3600, daylight / 60 % 60);
+            }
+            return String.format("%s: %s. %s (%.2f)", this.date, sun, MoonPhase.of(this.moonPhase), this.moonPhase);
+        }
+
+        private static String formatTime(long epochSecond) {
+            return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC).toLocalTime().withSecond(0).toString();
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.github.nikalon.sunsync;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+class GeoIpIndex {
+    /*
+    Offline IPv4 geolocation database. It's loaded from a CSV file where each line contains an IP address range and
+    the coordinates of that range:
+
+        first address,last address,latitude,longitude
+
+    Addresses can be written either in dotted notation (1.2.3.4) or as unsigned integers (16909060), which covers the
+    CSV exports of the most common free databases. Lines that cannot be parsed (headers, comments, IPv6 ranges) are
+    skipped.
+
+    Ranges are stored in primitive arrays sorted by their first address, so a lookup is a binary search that does not
+    allocate anything. Addresses are stored with the sign bit flipped, so signed comparisons give the same order as
+    unsigned comparisons of the original addresses.
+    */
+    static final int NOT_FOUND = -1;
+
+    private final int[] rangeStarts;
+    private final int[] rangeEnds;
+    private final float[] latitudes;
+    private final float[] longitudes;
+    private final int skippedLines;
+
+    private GeoIpIndex(int[] rangeStarts, int[] rangeEnds, float[] latitudes, float[] longitudes, int skippedLines) {
+        this.rangeStarts = rangeStarts;
+        this.rangeEnds = rangeEnds;
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.skippedLines = skippedLines;
+    }
+
+    static GeoIpIndex load(Path csvFile) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(csvFile, StandardCharsets.UTF_8)) {
+            return load(reader);
+        }
+    }
+
+    static GeoIpIndex load(BufferedReader reader) throws IOException {
+        int capacity = 1024;
+        int count = 0;
+        int skipped = 0;
+        int[] starts = new int[capacity];
+        int[] ends = new int[capacity];
+        float[] lats = new float[capacity];
+        float[] lons = new float[capacity];
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            String[] columns = line.split(",");
+            if (columns.length < 4) {
+                skipped++;
+                continue;
+            }
+
+            long start = parseAddress(columns[0]);
+            long end = parseAddress(columns[1]);
+            float latitude;
+            float longitude;
+            try {
+                latitude = Float.parseFloat(unquote(columns[2]));
+                longitude = Float.parseFloat(unquote(columns[3]));
+            } catch (NumberFormatException e) {
+                skipped++;
+                continue;
+            }
+
+            if (start < 0 || end < start || latitude < -90 || latitude > 90 || longitude < -180 || longitude > 180) {
+                skipped++;
+                continue;
+            }
+
+            if (count == capacity) {
+                capacity *= 2;
+                starts = Arrays.copyOf(starts, capacity);
+                ends = Arrays.copyOf(ends, capacity);
+                lats = Arrays.copyOf(lats, capacity);
+                lons = Arrays.copyOf(lons, capacity);
+            }
+            starts[count] = flip((int) start);
+            ends[count] = flip((int) end);
+            lats[count] = latitude;
+            lons[count] = longitude;
+            count++;
+        }
+
+        // Sort ranges by their first address. Each key packs the first address in the upper half and the position of
+        // the range in the lower half, so the whole sort works on a single primitive array.
+        long[] keys = new long[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = ((long) starts[i] << 32) | i;
+        }
+        Arrays.sort(keys);
+
+        int[] sortedStarts = new int[count];
+        int[] sortedEnds = new int[count];
+        float[] sortedLats = new float[count];
+        float[] sortedLons = new float[count];
+        for (int i = 0; i < count; i++) {
+            int row = (int) keys[i];
+            sortedStarts[i] = starts[row];
+            sortedEnds[i] = ends[row];
+            sortedLats[i] = lats[row];
+            sortedLons[i] = lons[row];
+        }
+
+        return new GeoIpIndex(sortedStarts, sortedEnds, sortedLats, sortedLons, skipped);
+    }
+
+    int size() {
+        return this.rangeStarts.length;
+    }
+
+    int getSkippedLines() {
+        return this.skippedLines;
+    }
+
+    int find(int address) {
+        // Returns the index of the range that contains the given address, or NOT_FOUND
+        int key = flip(address);
+        int low = 0;
+        int high = this.rangeStarts.length - 1;
+        int candidate = NOT_FOUND;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (this.rangeStarts[middle] <= key) {
+                candidate = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+
+        if (candidate != NOT_FOUND && key <= this.rangeEnds[candidate]) {
+            return candidate;
+        }
+        return NOT_FOUND;
+    }
+
+    int find(InetAddress address) {
+        // Only IPv4 addresses are supported
+        if (! (address instanceof Inet4Address)) return NOT_FOUND;
+
+        byte[] bytes = address.getAddress();
+        int value = ((bytes[0] & 0xFF) << 24) | ((bytes[1] & 0xFF) << 16) | ((bytes[2] & 0xFF) << 8) | (bytes[3] & 0xFF);
+        return find(value);
+    }
+
+    double getLatitude(int index) {
+        return this.latitudes[index];
+    }
+
+    double getLongitude(int index) {
+        return this.longitudes[index];
+    }
+
+    private static int flip(int address) {
+        return address ^ Integer.MIN_VALUE;
+    }
+
+    private static String unquote(String value) {
+        value = value.trim();
+        if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            value = value.substring(1, value.length() - 1).trim();
+        }
+        return value;
+    }
+
+    static long parseAddress(String value) {
+        // Returns the address as an unsigned 32-bit value, or -1 if it's not valid
+        value = unquote(value);
+        if (value.isEmpty()) return -1;
+
+        if (value.indexOf('.') < 0) {
+            try {
+                long number = Long.parseLong(value);
+                return (number >= 0 && number <= 0xFFFFFFFFL) ? number : -1;
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+
+        String[] octets = value.split("\\.");
+        if (octets.length != 4) return -1;
+
+        long address = 0;
+        for (String octet : octets) {
+            try {
+                int number = Integer.parseInt(octet);
+                if (number < 0 || number > 255) return -1;
+                address = (address << 8) | number;
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+        return address;
+    }
+}
@@ -0,0 +1,91 @@
+package com.github.nikalon.sunsync;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.github.nikalon.sunsync.Sun.GeographicCoordinate;
+import com.github.nikalon.sunsync.Sun.LatitudeBand;
+import com.github.nikalon.sunsync.Sun.SolarEvents;
+
+class LatitudeBandCache {
+    /*
+    Solar events shared by all the locations at the same latitude. The expensive part of the calculation (the position
+    of the Sun and the length of the day and of each twilight) only depends on the latitude and the date, so it's
+    computed once per band of latitude and day. Each longitude is then derived from it with one conversion from
+    sidereal time, which makes the events of thousands of locations cost about one full calculation per band.
+
+    Bands have the same size as the cells of LocationTimeCache and locations are moved to the centre of their band, so
+    all the cells of a row share a band and get exactly the events they would get on their own.
+
+    Only the most recent days are kept, which is all TimeSynchronizer needs. It's only used from the main thread.
+
+    The bands are computed by the astronomy engine of the configuration, or by the classic engine if there is none.
+    Changing the engine forgets all the bands.
+    */
+    static final double BAND_SIZE_DEGREES = LocationTimeCache.CELL_SIZE_DEGREES;
+    private static final long KEPT_DAYS = 3; // Yesterday, today and tomorrow
+
+    private final Configuration configuration; // null to always use the classic engine
+    private final Map<Long, LatitudeBand> bands = new HashMap<>();
+    private AstronomyEngine engine; // Engine of the bands in the cache
+    private long newestEpochDay = Long.MIN_VALUE;
+    private long computedBands;
+
+    LatitudeBandCache() {
+        this(null);
+    }
+
+    LatitudeBandCache(Configuration configuration) {
+        this.configuration = configuration;
+    }
+
+    static int band(double latitude) {
+        return (int) Math.floor((latitude + 90.0) / BAND_SIZE_DEGREES);
+    }
+
+    static double bandLatitude(int band) {
+        // Latitude of the centre of the band
+        return Math.min((band + 0.5) * BAND_SIZE_DEGREES - 90.0, 90.0);
+    }
+
+    SolarEvents solarEvents(GeographicCoordinate location, LocalDate date) {
+        long epochDay = date.toEpochDay();
+        int band = band(location.latitude);
+        long key = ((long) band << 32) | (epochDay & 0xFFFFFFFFL);
+
+        var engine = this.configuration != null ? this.configuration.getAstronomyEngine() : AstronomyEngines.find(ClassicAstronomyEngine.NAME);
+        if (engine != this.engine) {
+            clear();
+            this.engine = engine;
+        }
+
+        var latitudeBand = this.bands.get(key);
+        if (latitudeBand == null) {
+            latitudeBand = engine.latitudeBand(bandLatitude(band), date);
+            this.bands.put(key, latitudeBand);
+            this.computedBands++;
+
+            if (epochDay > this.newestEpochDay) {
+                // A new day has started. Forget the days that are not needed anymore.
+                this.newestEpochDay = epochDay;
+                this.bands.values().removeIf((b) -> b.date.toEpochDay() <= epochDay - KEPT_DAYS);
+            }
+        }
+        return latitudeBand.solarEvents(location.longitude);
+    }
+
+    int size() {
+        return this.bands.size();
+    }
+
+    long getComputedBands() {
+        // Number of bands calculated so far, including the ones already forgotten
+        return this.computedBands;
+    }
+
+    void clear() {
+        this.bands.clear();
+        this.newestEpochDay = Long.MIN_VALUE;
+    }
+}
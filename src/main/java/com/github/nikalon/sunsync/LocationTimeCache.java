@@ -0,0 +1,135 @@
+package com.github.nikalon.sunsync;
+
+import java.time.Clock;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+import com.github.nikalon.sunsync.Sun.GeographicCoordinate;
+
+class LocationTimeCache {
+    /*
+    Minecraft time for players that have their own location. Players are grouped in cells of CELL_SIZE_DEGREES, so
+    players that are close to each other share the same sunrise and sunset calculations. A cell is removed as soon as
+    there are no players in it. Cells in the same row share the expensive part of the calculations through a
+    LatitudeBandCache.
+
+    With the option "snap_locations_to_regions" players are moved to the coordinates of the closest country, so all the
+    players of a country share one cell, at the cost of seeing the sky of the centre of their country.
+
+    The packet listener reads from this cache from the network threads, so the maps it reads are concurrent. Players
+    only move on the main thread, which is the only one that counts the players of each cell.
+    */
+    static final double CELL_SIZE_DEGREES = 0.25;
+
+    private final Configuration configuration;
+    private final SyncMetrics metrics;
+    private final Logger logger;
+    private final Map<UUID, Long> playerCells = new ConcurrentHashMap<>();
+    private final Map<Long, TimeSynchronizer> cells = new ConcurrentHashMap<>();
+    private final Map<Long, int[]> cellPlayers = new HashMap<>(); // Number of players in each cell
+    private final LatitudeBandCache bandCache;
+
+    LocationTimeCache(Configuration configuration, SyncMetrics metrics, Logger logger) {
+        this.configuration = configuration;
+        this.metrics = metrics;
+        this.logger = logger;
+        this.bandCache = new LatitudeBandCache(configuration);
+    }
+
+    static long cellKey(double latitude, double longitude) {
+        // Packs the row and the column of the cell into a single long
+        long row = (long) Math.floor((latitude + 90.0) / CELL_SIZE_DEGREES);
+        long column = (long) Math.floor(Helper.modulo(longitude + 180.0, 360.0) / CELL_SIZE_DEGREES);
+        return (row << 32) | column;
+    }
+
+    static GeographicCoordinate cellCentre(long key) {
+        double latitude = ((key >>> 32) + 0.5) * CELL_SIZE_DEGREES - 90.0;
+        double longitude = ((key & 0xFFFFFFFFL) + 0.5) * CELL_SIZE_DEGREES - 180.0;
+        return GeographicCoordinate.fromDecimalDegrees(Math.min(latitude, 90.0), longitude);
+    }
+
+    boolean setPlayerLocation(UUID player, double latitude, double longitude, Clock clock) {
+        // Moves the player to the cell of the given location. Nothing is calculated unless the player crosses the
+        // boundary of a cell, and even then the calculations are shared with the players already in the new cell.
+        // Returns true if the player changed cell.
+        if (this.configuration.getSnapLocationsToRegions()) {
+            int country = Regions.nearestCountry(latitude, longitude);
+            latitude = Regions.countryLatitude(country);
+            longitude = Regions.countryLongitude(country);
+        }
+        long key = cellKey(latitude, longitude);
+        Long previous = this.playerCells.get(player);
+        if (previous != null && previous == key) return false;
+
+        boolean cacheHit = this.cells.containsKey(key);
+        this.cells.computeIfAbsent(key, (k) -> {
+            var synchronizer = new TimeSynchronizer(this.configuration, this.logger, cellCentre(k), this.bandCache);
+            synchronizer.synchronize(SyncClock.epochSecond(clock));
+            return synchronizer;
+        });
+        this.playerCells.put(player, key);
+        this.cellPlayers.computeIfAbsent(key, (k) -> new int[1])[0]++;
+        if (previous != null) leaveCell(previous);
+        this.metrics.recordLocationCacheLookup(cacheHit);
+
+        if (this.configuration.getJfrEvents()) {
+            var event = new SyncEvents.LocationChange();
+            if (event.shouldCommit()) {
+                event.player = player.toString();
+                event.latitude = latitude;
+                event.longitude = longitude;
+                event.cacheHit = cacheHit;
+                event.commit();
+            }
+        }
+        return true;
+    }
+
+    void removePlayer(UUID player) {
+        Long previous = this.playerCells.remove(player);
+        if (previous != null) leaveCell(previous);
+    }
+
+    boolean hasLocation(UUID player) {
+        return this.playerCells.containsKey(player);
+    }
+
+    int size() {
+        return this.cells.size();
+    }
+
+    void synchronize(long nowSeconds) {
+        for (var synchronizer : this.cells.values()) synchronizer.synchronize(nowSeconds);
+    }
+
+    void invalidate() {
+        this.bandCache.clear();
+        this.cells.values().forEach(TimeSynchronizer::invalidate);
+    }
+
+    LatitudeBandCache getBandCache() {
+        return this.bandCache;
+    }
+
+    long getFullMinecraftTime(UUID player, long fallback) {
+        // Returns the time of the location of the player, or fallback if the player does not have a location
+        Long key = this.playerCells.get(player);
+        if (key == null) return fallback;
+
+        var synchronizer = this.cells.get(key);
+        if (synchronizer == null || ! synchronizer.isSynchronized()) return fallback;
+        return synchronizer.getFullMinecraftTime();
+    }
+
+    private void leaveCell(long key) {
+        // A player left the cell. It's removed with its last player.
+        int[] players = this.cellPlayers.get(key);
+        if (players != null && --players[0] > 0) return;
+        this.cellPlayers.remove(key);
+        this.cells.remove(key);
+    }
+}
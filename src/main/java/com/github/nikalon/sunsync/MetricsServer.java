@@ -0,0 +1,77 @@
+package com.github.nikalon.sunsync;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+class MetricsServer {
+    /*
+    Serves the metrics of the plugin in the Prometheus text format at http://127.0.0.1:<port>/metrics. It only listens on
+    the loopback interface and it runs on its own thread, so scrapes never wait for the server thread.
+    */
+    static final String PATH = "/metrics";
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private static final int STOP_DELAY_SECONDS = 0;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private MetricsServer(HttpServer server, ExecutorService executor) {
+        this.server = server;
+        this.executor = executor;
+    }
+
+    static MetricsServer start(int port, SyncMetrics metrics) throws IOException {
+        var server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        var executor = Executors.newSingleThreadExecutor((runnable) -> {
+            var thread = new Thread(runnable, "SunSync metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        server.createContext(PATH, (exchange) -> handle(exchange, metrics));
+        server.setExecutor(executor);
+        server.start();
+        return new MetricsServer(server, executor);
+    }
+
+    private static void handle(HttpExchange exchange, SyncMetrics metrics) throws IOException {
+        try (exchange) {
+            if (! exchange.getRequestMethod().equals("GET") && ! exchange.getRequestMethod().equals("HEAD")) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+
+            var text = new StringBuilder(4096);
+            metrics.writePrometheus(text);
+            byte[] body = text.toString().getBytes(StandardCharsets.UTF_8);
+
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            if (exchange.getRequestMethod().equals("HEAD")) {
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    int getPort() {
+        return this.server.getAddress().getPort();
+    }
+
+    void stop() {
+        this.server.stop(STOP_DELAY_SECONDS);
+        this.executor.shutdownNow();
+    }
+}
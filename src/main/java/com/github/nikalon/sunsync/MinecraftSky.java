@@ -0,0 +1,94 @@
+package com.github.nikalon.sunsync;
+
+class MinecraftSky {
+    /*
+    Position of the Sun in the Minecraft sky. The client computes a "celestial angle" from the time of day, as a
+    fraction of a full turn starting at midday:
+
+        x = frac(time / 24000 - 0.25)
+        celestial angle = (2x + 0.5 - cos(PI * x) / 2) / 3
+
+    So the Sun is at its highest at 6000 ticks and at its lowest at 18000 ticks. The curve is symmetric around midday,
+    so every time after midday has a twin before midday with the same elevation of the Sun.
+
+    The inverse (the time for a given elevation) has no closed form. duskTicks solves it by bisection, which is fine for
+    a handful of events per day, and ticksForElevation reads it from a table built once with a single sweep over the
+    curve, for callers that need it on every synchronization.
+    */
+    private static final double TICKS_PER_DAY = TimeSynchronizer.MINECRAFT_DAY_IN_TICKS;
+    private static final double MIDDAY_TICKS = 6000;
+    private static final double MIDNIGHT_TICKS = 18000;
+    private static final int BISECTION_ITERATIONS = 40;
+    private static final int TABLE_INTERVALS = 4096;
+    private static final int TABLE_SAMPLES_PER_INTERVAL = 8;
+
+    // Time between midday and midnight for TABLE_INTERVALS + 1 evenly spaced celestial angles from 0 to 0.5
+    private static final double[] DUSK_TICKS_BY_ANGLE = buildDuskTable();
+
+    private MinecraftSky() {} // Disallow instantiation
+
+    static double celestialAngle(double ticks) {
+        double x = Helper.modulo(ticks / TICKS_PER_DAY - 0.25, 1.0);
+        return (2.0 * x + 0.5 - Math.cos(Math.PI * x) / 2.0) / 3.0;
+    }
+
+    static double sunElevation(double ticks) {
+        // Elevation of the Sun over the horizon in degrees, from -90 (midnight) to 90 (midday)
+        double angle = celestialAngle(ticks);
+        return 90.0 - 360.0 * Math.min(angle, 1.0 - angle);
+    }
+
+    static double duskTicks(double elevation) {
+        // Time between midday and midnight when the Sun goes down through the given elevation
+        double low = MIDDAY_TICKS;
+        double high = MIDNIGHT_TICKS;
+        for (int i = 0; i < BISECTION_ITERATIONS; i++) {
+            double middle = (low + high) / 2.0;
+            if (sunElevation(middle) > elevation) low = middle;
+            else                                  high = middle;
+        }
+        return (low + high) / 2.0;
+    }
+
+    static double dawnTicks(double elevation) {
+        // Time between midnight and midday when the Sun goes up through the given elevation, in the range
+        // [18000, 30000)
+        return 2.0 * MIDDAY_TICKS + TICKS_PER_DAY - duskTicks(elevation);
+    }
+
+    static double ticksForElevation(double elevation, boolean rising) {
+        // Time of day, in the range [0, 24000), when the Sun goes up (before midday) or down (after midday) through the
+        // given elevation in degrees. Elevations out of [-90, 90] are clamped.
+        double angle = (90.0 - Math.max(-90.0, Math.min(90.0, elevation))) / 360.0;
+        double position = angle * 2.0 * TABLE_INTERVALS;
+        int index = Math.min((int) position, TABLE_INTERVALS - 1);
+        double fraction = position - index;
+        double dusk = DUSK_TICKS_BY_ANGLE[index] + (DUSK_TICKS_BY_ANGLE[index + 1] - DUSK_TICKS_BY_ANGLE[index]) * fraction;
+        double ticks = rising ? 2.0 * MIDDAY_TICKS + TICKS_PER_DAY - dusk : dusk;
+        return Helper.modulo(ticks, TICKS_PER_DAY);
+    }
+
+    private static double[] buildDuskTable() {
+        // The celestial angle grows monotonically from midday to midnight, so a single sweep finds every entry. Each
+        // one is interpolated between the two samples around it.
+        var table = new double[TABLE_INTERVALS + 1];
+        double step = (MIDNIGHT_TICKS - MIDDAY_TICKS) / (TABLE_INTERVALS * TABLE_SAMPLES_PER_INTERVAL);
+        double lowTicks = MIDDAY_TICKS;
+        double lowAngle = celestialAngle(MIDDAY_TICKS);
+        double highTicks = lowTicks;
+        double highAngle = lowAngle;
+        table[0] = MIDDAY_TICKS;
+        for (int i = 1; i < TABLE_INTERVALS; i++) {
+            double target = 0.5 * i / TABLE_INTERVALS;
+            while (highAngle < target) {
+                lowTicks = highTicks;
+                lowAngle = highAngle;
+                highTicks += step;
+                highAngle = celestialAngle(highTicks);
+            }
+            table[i] = lowTicks + (highTicks - lowTicks) * (target - lowAngle) / (highAngle - lowAngle);
+        }
+        table[TABLE_INTERVALS] = MIDNIGHT_TICKS;
+        return table;
+    }
+}
@@ -8,38 +8,90 @@ class Moon {
     // Returns the phase of the Moon as a normalized value between [0.0, 1.0), starting from a New Moon at value 0.0,
     // First Quarter at 0.25, Full Moon at 0.5 and Last Quarter at 0.75
     static double phase(LocalDateTime date) {
-        double hour = ((double) date.getHour()) / 24.0;
-        double minute = ((double) date.getMinute()) / 1440.0; // 1440 minutes in a full day
-        double second = ((double) date.getSecond()) / 86400.0; // 86400 seconds in a full day
-        double day = (double) date.getDayOfMonth() + hour + minute + second;
-        int month = date.getMonthValue();
-        int year = date.getYear();
-
-        final double l0 = 91.929336; // In degrees
-        final double P0 = 130.143076; // In degrees
-
-        double sunMeanAnomalyRad = Math.toRadians(Sun.meanAnomaly(day, month, year));
-        double sunEclipticLongitudeDeg = Sun.eclipticLongitude(day, month, year);
-
-        // The epoch is January 0.0 2010
-        double daysElapsedSinceEpoch = Helper.GreenwichToJulianDate(day, month, year) - Helper.GreenwichToJulianDate(0, 1, 2010);
-        double l = Helper.modulo(13.1763966*daysElapsedSinceEpoch + l0, 360); // Moon's mean longitude
-        double Mm = Helper.modulo(l - 0.1114041*daysElapsedSinceEpoch - P0, 360); // Moon's mean anomaly
-
-        double C = l - sunEclipticLongitudeDeg;
-        double Ev = 1.2739 * Math.sin(Math.toRadians(2*C - Mm)); // Corrections for eviction
-        double Ae = 0.1858 * Math.sin(sunMeanAnomalyRad); // Annual equation
-        double A3 = 0.37 * Math.sin(sunMeanAnomalyRad); // Third correction
-        double MPrimeMRad = Math.toRadians(Mm + Ev - Ae - A3); // Moon's corrected anomaly
-        double Ec = 6.2886 * Math.sin(MPrimeMRad); // Equation of the centre
-        double A4 = 0.214 * Math.sin(2*MPrimeMRad); // More corrections
-        double lPrime = l + Ev + Ec - Ae + A4; // Moon's corrected longitude
-        double V = 0.6583 * Math.sin(Math.toRadians( 2 * (lPrime - sunEclipticLongitudeDeg) )); // More corrections
-
-        double lPrimePrime = lPrime + V; // Moon's true orbital longitude
-
-        double moonAge = Helper.modulo(lPrimePrime - sunEclipticLongitudeDeg, 360.0) / 360.0;
+        return phase(AstronomicalTime.of(date));
+    }
+
+    static double phase(AstronomicalTime time) {
+        var orbit = new Orbit(time);
+        double moonAge = Helper.modulo(orbit.trueLongitude - orbit.sunEclipticLongitude, 360.0) / 360.0;
         return moonAge;
     }
 
+    static Position position(AstronomicalTime time) {
+        // Geocentric position of the Moon. Accurate to a few arcminutes, which is about one minute of time at
+        // moonrise and moonset.
+        final double N0 = 291.682547; // Mean longitude of the node at the epoch, in degrees
+        final double i = 5.145396; // Inclination of the orbit, in degrees
+        final double e = 0.054900; // Eccentricity of the orbit
+        final double P0 = 0.9507; // Horizontal parallax at a distance of one semi-major axis, in degrees
+        final double S0 = 0.2591; // Semi-diameter at a distance of one semi-major axis, in degrees
+
+        var orbit = new Orbit(time);
+        double N = Helper.modulo(N0 - 0.0529539*time.daysSinceEpoch, 360); // Ascending node's mean longitude
+        double NPrime = N - 0.16 * Math.sin(orbit.sunMeanAnomalyRad); // Corrected longitude of the node
+
+        double fromNodeRad = Math.toRadians(orbit.trueLongitude - NPrime);
+        double inclinationRad = Math.toRadians(i);
+        double y = Math.sin(fromNodeRad) * Math.cos(inclinationRad);
+        double x = Math.cos(fromNodeRad);
+        double eclipticLongitude = Helper.modulo(Math.toDegrees(Math.atan2(y, x)) + NPrime, 360);
+        double eclipticLatitude = Math.toDegrees(Math.asin(Math.sin(fromNodeRad) * Math.sin(inclinationRad)));
+        var equatorial = new EclipticCoordinate(eclipticLatitude, eclipticLongitude).toEquatorial(time);
+
+        // Distance in semi-major axes
+        double rho = (1 - e*e) / (1 + e * Math.cos(orbit.correctedAnomalyRad + Math.toRadians(orbit.equationOfCentre)));
+        return new Position(equatorial.rightAscension, equatorial.declination, P0 / rho, S0 / rho);
+    }
+
+    private static class Orbit {
+        // Quantities shared by the phase and the position of the Moon. The epoch is January 0.0 2010.
+        final double sunMeanAnomalyRad;
+        final double sunEclipticLongitude;
+        final double correctedAnomalyRad;
+        final double equationOfCentre;
+        final double trueLongitude; // Moon's true orbital longitude, in degrees
+
+        Orbit(AstronomicalTime time) {
+            final double l0 = 91.929336; // In degrees
+            final double P0 = 130.143076; // In degrees
+
+            double sunMeanAnomalyRad = Math.toRadians(Sun.meanAnomaly(time));
+            double sunEclipticLongitudeDeg = Sun.eclipticLongitude(time);
+
+            double daysElapsedSinceEpoch = time.daysSinceEpoch;
+            double l = Helper.modulo(13.1763966*daysElapsedSinceEpoch + l0, 360); // Moon's mean longitude
+            double Mm = Helper.modulo(l - 0.1114041*daysElapsedSinceEpoch - P0, 360); // Moon's mean anomaly
+
+            double C = l - sunEclipticLongitudeDeg;
+            double Ev = 1.2739 * Math.sin(Math.toRadians(2*C - Mm)); // Corrections for eviction
+            double Ae = 0.1858 * Math.sin(sunMeanAnomalyRad); // Annual equation
+            double A3 = 0.37 * Math.sin(sunMeanAnomalyRad); // Third correction
+            double MPrimeMRad = Math.toRadians(Mm + Ev - Ae - A3); // Moon's corrected anomaly
+            double Ec = 6.2886 * Math.sin(MPrimeMRad); // Equation of the centre
+            double A4 = 0.214 * Math.sin(2*MPrimeMRad); // More corrections
+            double lPrime = l + Ev + Ec - Ae + A4; // Moon's corrected longitude
+            double V = 0.6583 * Math.sin(Math.toRadians( 2 * (lPrime - sunEclipticLongitudeDeg) )); // More corrections
+
+            this.sunMeanAnomalyRad = sunMeanAnomalyRad;
+            this.sunEclipticLongitude = sunEclipticLongitudeDeg;
+            this.correctedAnomalyRad = MPrimeMRad;
+            this.equationOfCentre = Ec;
+            this.trueLongitude = lPrime + V;
+        }
+    }
+
+    static class Position {
+        // WARNING! No data validation is performed
+        public final double rightAscension;      // In hours
+        public final double declination;         // In degrees
+        public final double horizontalParallax;  // In degrees
+        public final double semiDiameter;        // In degrees
+
+        Position(double rightAscension, double declination, double horizontalParallax, double semiDiameter) {
+            this.rightAscension = rightAscension;
+            this.declination = declination;
+            this.horizontalParallax = horizontalParallax;
+            this.semiDiameter = semiDiameter;
+        }
+    }
 }
\ No newline at end of file
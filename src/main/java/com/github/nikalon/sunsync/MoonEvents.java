@@ -0,0 +1,195 @@
+package com.github.nikalon.sunsync;
+
+import java.time.LocalDate;
+
+import com.github.nikalon.sunsync.Sun.GeographicCoordinate;
+
+class MoonEvents {
+    /*
+    Moonrise and moonset of a day (UTC) at a fixed location.
+
+    The Moon moves too fast to use a single position per day like the Sun does, so its position is computed at every
+    hour of the day, from 0h to 24h UT (25 nodes). A change of sign of the altitude between two consecutive nodes
+    brackets an event, which is then refined with the false position method (Illinois variant) on the altitude. While
+    iterating, the position of the Moon is interpolated between the two nodes of the bracket instead of computed again,
+    and when the next day is solved the node at 24h is reused as the node at 0h. So a day costs 24 positions of the
+    Moon plus a few cheap evaluations of the altitude.
+
+    The altitude is topocentric: as seen from the surface of the Earth the Moon is lower than as seen from its centre,
+    by up to one degree (the parallax). An event happens when the upper limb of the Moon touches the horizon, after
+    the refraction of the atmosphere is taken into account.
+
+    An instance keeps its nodes between calls, so it must not be shared between threads.
+    */
+    static final long NONE = Long.MIN_VALUE; // The event does not happen in the given day
+
+    private static final int HOURS = 24;
+    private static final int NODES = HOURS + 1;
+    private static final long SECONDS_PER_HOUR = 3600;
+    private static final double SIDEREAL_HOURS_PER_HOUR = 1.00273790935;
+    private static final double REFRACTION = 0.5667; // In degrees, same as the one used for the Sun
+    private static final double TOLERANCE_SECONDS = 1.0;
+    private static final double TOLERANCE_DEGREES = 1e-4; // The Moon moves this much in less than a tenth of a second
+    private static final int MAX_ITERATIONS = 30;
+
+    private final double sinLatitude;
+    private final double cosLatitude;
+    private final double longitudeHours;
+
+    // Hourly nodes. Node i is at the epoch hour firstHour + i.
+    private long firstHour = NONE;
+    private final double[] localSiderealTime = new double[NODES]; // In hours
+    private final double[] rightAscension = new double[NODES];    // In hours
+    private final double[] declination = new double[NODES];       // In degrees
+    private final double[] parallax = new double[NODES];          // In degrees
+    private final double[] semiDiameter = new double[NODES];      // In degrees
+    private final double[] altitude = new double[NODES];          // Of the upper limb over the horizon, in degrees
+    private long positionEvaluations;
+
+    private LocalDate date;
+    private long riseEpochSecond = NONE;
+    private long setEpochSecond = NONE;
+
+    MoonEvents(GeographicCoordinate location) {
+        double latitudeRad = Math.toRadians(location.latitude);
+        this.sinLatitude = Math.sin(latitudeRad);
+        this.cosLatitude = Math.cos(latitudeRad);
+        this.longitudeHours = location.longitude / 15.0;
+    }
+
+    void compute(LocalDate date) {
+        long hour = date.toEpochDay() * HOURS;
+        if (hour != this.firstHour) {
+            int first = 0;
+            if (this.firstHour != NONE && hour == this.firstHour + HOURS) {
+                // The next day starts where the previous one ended
+                moveNode(HOURS, 0);
+                first = 1;
+            }
+
+            for (int i = first; i < NODES; i++) {
+                computeNode(i, hour + i);
+            }
+            this.firstHour = hour;
+        }
+
+        this.date = date;
+        this.riseEpochSecond = NONE;
+        this.setEpochSecond = NONE;
+        for (int i = 0; i < HOURS; i++) {
+            boolean aboveBefore = altitude[i] >= 0;
+            boolean aboveAfter = altitude[i + 1] >= 0;
+            if (aboveBefore == aboveAfter) continue;
+
+            // Only the first rise and the first set of the day are kept. The Moon rises and sets at most once a day,
+            // except very close to the poles.
+            if (aboveAfter && this.riseEpochSecond == NONE) {
+                this.riseEpochSecond = findEvent(i);
+            } else if (aboveBefore && this.setEpochSecond == NONE) {
+                this.setEpochSecond = findEvent(i);
+            }
+        }
+    }
+
+    LocalDate getDate() {
+        // Day of the last call to compute(), or null
+        return this.date;
+    }
+
+    long getRiseEpochSecond() {
+        // Seconds since the UNIX epoch (UTC), or NONE
+        return this.riseEpochSecond;
+    }
+
+    long getSetEpochSecond() {
+        // Seconds since the UNIX epoch (UTC), or NONE
+        return this.setEpochSecond;
+    }
+
+    boolean isAboveHorizonAtStartOfDay() {
+        // Tells whether the Moon is up at 0h UT. Together with the events, it tells whether the Moon stays up or down
+        // all day when it neither rises nor sets.
+        return this.altitude[0] >= 0;
+    }
+
+    long getPositionEvaluations() {
+        // Number of positions of the Moon computed so far
+        return this.positionEvaluations;
+    }
+
+    private void computeNode(int index, long epochHour) {
+        var time = AstronomicalTime.ofEpochSecond(epochHour * SECONDS_PER_HOUR);
+        var position = Moon.position(time);
+        this.positionEvaluations++;
+
+        localSiderealTime[index] = time.greenwichSiderealTime() + this.longitudeHours;
+        rightAscension[index] = position.rightAscension;
+        declination[index] = position.declination;
+        parallax[index] = position.horizontalParallax;
+        semiDiameter[index] = position.semiDiameter;
+        altitude[index] = upperLimbAltitude(localSiderealTime[index], rightAscension[index], declination[index], parallax[index], semiDiameter[index]);
+    }
+
+    private void moveNode(int from, int to) {
+        localSiderealTime[to] = localSiderealTime[from];
+        rightAscension[to] = rightAscension[from];
+        declination[to] = declination[from];
+        parallax[to] = parallax[from];
+        semiDiameter[to] = semiDiameter[from];
+        altitude[to] = altitude[from];
+    }
+
+    private double interpolatedAltitude(int node, double fraction) {
+        // Altitude at the given fraction of the hour that starts at the given node
+        double rightAscensionDelta = rightAscension[node + 1] - rightAscension[node];
+        if (rightAscensionDelta < -12) rightAscensionDelta += 24; // Wrapped around 24h
+
+        return upperLimbAltitude(
+            localSiderealTime[node] + SIDEREAL_HOURS_PER_HOUR * fraction,
+            rightAscension[node] + rightAscensionDelta * fraction,
+            declination[node] + (declination[node + 1] - declination[node]) * fraction,
+            parallax[node] + (parallax[node + 1] - parallax[node]) * fraction,
+            semiDiameter[node] + (semiDiameter[node + 1] - semiDiameter[node]) * fraction);
+    }
+
+    private double upperLimbAltitude(double localSiderealTime, double rightAscension, double declination, double parallax, double semiDiameter) {
+        double hourAngleRad = Math.toRadians((localSiderealTime - rightAscension) * 15.0);
+        double declinationRad = Math.toRadians(declination);
+        double altitudeSine = this.sinLatitude * Math.sin(declinationRad) + this.cosLatitude * Math.cos(declinationRad) * Math.cos(hourAngleRad);
+        double geocentricAltitudeRad = Math.asin(altitudeSine);
+
+        // Parallax in altitude, as seen from the surface of the Earth
+        double parallaxInAltitudeRad = Math.asin(Math.sin(Math.toRadians(parallax)) * Math.cos(geocentricAltitudeRad));
+        return Math.toDegrees(geocentricAltitudeRad - parallaxInAltitudeRad) + semiDiameter + REFRACTION;
+    }
+
+    private long findEvent(int node) {
+        // False position method (Illinois variant) in the hour that starts at the given node. The altitude changes sign
+        // in that hour.
+        double a = 0.0;
+        double b = 1.0;
+        double fa = altitude[node];
+        double fb = altitude[node + 1];
+        double c = a;
+        int side = 0;
+        for (int i = 0; i < MAX_ITERATIONS; i++) {
+            c = (a * fb - b * fa) / (fb - fa);
+            double fc = interpolatedAltitude(node, c);
+            if (Math.abs(fc) < TOLERANCE_DEGREES || (b - a) * SECONDS_PER_HOUR < TOLERANCE_SECONDS) break;
+
+            if ((fc >= 0) == (fb >= 0)) {
+                b = c;
+                fb = fc;
+                if (side == -1) fa /= 2; // Same end retained twice, so halve its weight to keep converging fast
+                side = -1;
+            } else {
+                a = c;
+                fa = fc;
+                if (side == 1) fb /= 2;
+                side = 1;
+            }
+        }
+
+        return (this.firstHour + node) * SECONDS_PER_HOUR + Math.round(c * SECONDS_PER_HOUR);
+    }
+}
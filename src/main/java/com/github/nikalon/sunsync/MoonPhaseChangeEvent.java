@@ -0,0 +1,42 @@
+package com.github.nikalon.sunsync;
+
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+
+import com.github.nikalon.sunsync.SkySnapshot.MoonPhase;
+
+public final class MoonPhaseChangeEvent extends Event {
+    // Called on the main thread once when the real Moon enters one of its eight phases
+    private static final HandlerList HANDLERS = new HandlerList();
+
+    private final MoonPhase from;
+    private final MoonPhase to;
+    private final SkySnapshot snapshot;
+
+    MoonPhaseChangeEvent(MoonPhase from, MoonPhase to, SkySnapshot snapshot) {
+        this.from = from;
+        this.to = to;
+        this.snapshot = snapshot;
+    }
+
+    public MoonPhase getFrom() {
+        return from;
+    }
+
+    public MoonPhase getTo() {
+        return to;
+    }
+
+    public SkySnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    @Override
+    public HandlerList getHandlers() {
+        return HANDLERS;
+    }
+
+    public static HandlerList getHandlerList() {
+        return HANDLERS;
+    }
+}
@@ -0,0 +1,111 @@
+package com.github.nikalon.sunsync;
+
+import java.nio.ByteBuffer;
+
+import com.github.nikalon.sunsync.Sun.GeographicCoordinate;
+
+class PlayerPreferences {
+    /*
+    Sky settings chosen by a player. It's immutable, so the packet listener can read it from the network threads while
+    the player changes it from the main thread.
+
+    Layout of the stored preferences (big-endian):
+    0   magic number
+    4   version
+    5   flags. Bit 0: opted out, bit 1: has a location
+    6   latitude in degrees (double)
+    14  longitude in degrees (double)
+    22  time offset in Minecraft ticks (int)
+    */
+    static final PlayerPreferences DEFAULT = new PlayerPreferences(false, null, 0);
+    static final int ENCODED_SIZE = 26;
+
+    private static final int MAGIC = 0x53535050;
+    private static final byte VERSION = 1;
+    private static final int FLAG_OPT_OUT = 1;
+    private static final int FLAG_LOCATION = 1 << 1;
+    private static final int TIME_OFFSET_MIN_VALUE = -12000;
+    private static final int TIME_OFFSET_MAX_VALUE = 12000;
+
+    public final boolean optOut;                // The player sees the vanilla day cycle
+    public final GeographicCoordinate location; // null to use the location of the world, the IP address or the server
+    public final int timeOffsetTicks;           // Added to the time of the day
+
+    private PlayerPreferences(boolean optOut, GeographicCoordinate location, int timeOffsetTicks) {
+        this.optOut = optOut;
+        this.location = location;
+        this.timeOffsetTicks = timeOffsetTicks;
+    }
+
+    static int getTimeOffsetLowestValidValue() {
+        return TIME_OFFSET_MIN_VALUE;
+    }
+
+    static int getTimeOffsetHighestValidValue() {
+        return TIME_OFFSET_MAX_VALUE;
+    }
+
+    static boolean isValidTimeOffset(long ticks) {
+        return ticks >= TIME_OFFSET_MIN_VALUE && ticks <= TIME_OFFSET_MAX_VALUE;
+    }
+
+    PlayerPreferences withOptOut(boolean optOut) {
+        return new PlayerPreferences(optOut, this.location, this.timeOffsetTicks);
+    }
+
+    PlayerPreferences withLocation(GeographicCoordinate location) {
+        return new PlayerPreferences(this.optOut, location, this.timeOffsetTicks);
+    }
+
+    PlayerPreferences withTimeOffset(int ticks) {
+        if (! isValidTimeOffset(ticks)) throw new IllegalArgumentException("Invalid time offset: " + ticks);
+        return new PlayerPreferences(this.optOut, this.location, ticks);
+    }
+
+    boolean isDefault() {
+        return ! this.optOut && this.location == null && this.timeOffsetTicks == 0;
+    }
+
+    long applyTimeOffset(long fullMinecraftTime) {
+        // Moves the time of the day without changing the day, so the Moon phase stays the same
+        if (this.timeOffsetTicks == 0) return fullMinecraftTime;
+        long timeOfDay = Math.floorMod(fullMinecraftTime, 24000L);
+        return fullMinecraftTime - timeOfDay + Math.floorMod(timeOfDay + this.timeOffsetTicks, 24000L);
+    }
+
+    byte[] encode() {
+        var buffer = ByteBuffer.allocate(ENCODED_SIZE);
+        buffer.putInt(MAGIC);
+        buffer.put(VERSION);
+        buffer.put((byte) ((this.optOut ? FLAG_OPT_OUT : 0) | (this.location != null ? FLAG_LOCATION : 0)));
+        buffer.putDouble(this.location != null ? this.location.latitude : 0.0);
+        buffer.putDouble(this.location != null ? this.location.longitude : 0.0);
+        buffer.putInt(this.timeOffsetTicks);
+        return buffer.array();
+    }
+
+    static PlayerPreferences decode(byte[] data) {
+        // Returns null if the data is not valid
+        if (data.length != ENCODED_SIZE) return null;
+
+        var buffer = ByteBuffer.wrap(data);
+        if (buffer.getInt() != MAGIC || buffer.get() != VERSION) return null;
+
+        int flags = buffer.get();
+        double latitude = buffer.getDouble();
+        double longitude = buffer.getDouble();
+        int timeOffset = buffer.getInt();
+        if (! isValidTimeOffset(timeOffset)) return null;
+
+        GeographicCoordinate location = null;
+        if ((flags & FLAG_LOCATION) != 0) {
+            if (! (latitude >= -90.0 && latitude <= 90.0 && longitude >= -180.0 && longitude <= 180.0)) return null;
+            location = GeographicCoordinate.fromDecimalDegrees(latitude, longitude);
+        }
+        return new PlayerPreferences((flags & FLAG_OPT_OUT) != 0, location, timeOffset);
+    }
+
+    public String toString() {
+        return String.format("%s, location %s, time offset %d ticks", this.optOut ? "vanilla cycle" : "real sky", this.location != null ? this.location : "not set", this.timeOffsetTicks);
+    }
+}
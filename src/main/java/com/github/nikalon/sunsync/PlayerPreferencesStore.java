@@ -0,0 +1,171 @@
+package com.github.nikalon.sunsync;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+class PlayerPreferencesStore implements AutoCloseable {
+    /*
+    Preferences of the players, one small binary file per player in the data folder. The disk is only touched from a
+    background thread: preferences are loaded when the player joins and changes are written behind, in batches. A
+    player that changes their preferences many times between two flushes is written only once.
+
+    The packet listener reads the preferences of online players from the network threads, so all maps are concurrent.
+    Players that are not loaded yet have the default preferences.
+    */
+    static final long FLUSH_INTERVAL_MILLISECONDS = 5000L;
+
+    private static final String FILE_EXTENSION = ".dat";
+
+    private final Path directory;
+    private final Logger logger;
+    private final Map<UUID, PlayerPreferences> preferences = new ConcurrentHashMap<>(); // Online players
+    private final Map<UUID, PlayerPreferences> pending = new ConcurrentHashMap<>(); // Changes not written yet
+    private final Map<UUID, Object> loading = new ConcurrentHashMap<>(); // Last load of each player not finished yet
+    private final ScheduledExecutorService executor;
+    private final AtomicLong reads = new AtomicLong();
+    private final AtomicLong writes = new AtomicLong();
+
+    PlayerPreferencesStore(Path directory, Logger logger) {
+        this.directory = directory;
+        this.logger = logger;
+        this.executor = Executors.newSingleThreadScheduledExecutor((runnable) -> {
+            var thread = new Thread(runnable, "SunSync preferences");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL_MILLISECONDS, FLUSH_INTERVAL_MILLISECONDS, TimeUnit.MILLISECONDS);
+    }
+
+    CompletableFuture<PlayerPreferences> load(UUID player) {
+        // Reads the preferences of a player that joined. A change that is not written yet wins over the file. If the
+        // player leaves before they are read, they are not kept.
+        var ticket = new Object();
+        this.loading.put(player, ticket);
+        return CompletableFuture.supplyAsync(() -> {
+            var changed = this.pending.get(player);
+            var loaded = changed != null ? changed : read(player);
+            // Atomic with the removal in unload(), so the preferences of a player that left are never put back
+            this.loading.computeIfPresent(player, (uuid, current) -> {
+                if (current != ticket) return current; // A later load of the same player
+                this.preferences.putIfAbsent(player, loaded);
+                return null;
+            });
+            return this.preferences.getOrDefault(player, loaded);
+        }, this.executor);
+    }
+
+    PlayerPreferences get(UUID player) {
+        return this.preferences.getOrDefault(player, PlayerPreferences.DEFAULT);
+    }
+
+    void set(UUID player, PlayerPreferences newPreferences) {
+        // Visible to the packet listener at once, written to disk in the next flush
+        this.preferences.put(player, newPreferences);
+        this.pending.put(player, newPreferences);
+    }
+
+    void unload(UUID player) {
+        // Changes that are not written yet are still written in the next flush. A load that is not finished yet is
+        // dropped first, so it can't put the preferences back.
+        this.loading.remove(player);
+        this.preferences.remove(player);
+    }
+
+    void flush() {
+        for (var entry : this.pending.entrySet()) {
+            var player = entry.getKey();
+            var written = entry.getValue();
+            try {
+                write(player, written);
+            } catch (IOException e) {
+                this.logger.warning(String.format("Could not save the sky preferences of player %s: %s", player, e.getMessage()));
+                continue; // Tried again in the next flush
+            }
+            // Keep the entry if it was changed again while it was being written
+            this.pending.remove(player, written);
+        }
+    }
+
+    int getPendingWrites() {
+        return this.pending.size();
+    }
+
+    long getReads() {
+        return this.reads.get();
+    }
+
+    long getWrites() {
+        return this.writes.get();
+    }
+
+    @Override
+    public void close() {
+        // Writes the pending changes before returning, so nothing is lost when the server stops
+        this.executor.shutdown();
+        try {
+            if (! this.executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                this.logger.warning("Timed out waiting for the sky preferences of the players to be loaded");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        this.preferences.clear();
+    }
+
+    private Path fileOf(UUID player) {
+        return this.directory.resolve(player + FILE_EXTENSION);
+    }
+
+    private PlayerPreferences read(UUID player) {
+        byte[] data;
+        try {
+            data = Files.readAllBytes(fileOf(player));
+        } catch (NoSuchFileException e) {
+            return PlayerPreferences.DEFAULT;
+        } catch (IOException e) {
+            this.logger.warning(String.format("Could not load the sky preferences of player %s: %s", player, e.getMessage()));
+            return PlayerPreferences.DEFAULT;
+        }
+        this.reads.incrementAndGet();
+
+        var decoded = PlayerPreferences.decode(data);
+        if (decoded == null) {
+            this.logger.warning(String.format("The sky preferences of player %s are corrupted, using the default ones", player));
+            return PlayerPreferences.DEFAULT;
+        }
+        return decoded;
+    }
+
+    private void write(UUID player, PlayerPreferences written) throws IOException {
+        // Players with the default preferences have no file. Others are written to a temporary file first, so a crash
+        // never leaves a half-written file behind.
+        var file = fileOf(player);
+        if (written.isDefault()) {
+            Files.deleteIfExists(file);
+        } else {
+            Files.createDirectories(this.directory);
+            var temporary = this.directory.resolve(player + FILE_EXTENSION + ".tmp");
+            Files.write(temporary, written.encode());
+            try {
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        this.writes.incrementAndGet();
+    }
+}
@@ -0,0 +1,132 @@
+package com.github.nikalon.sunsync;
+
+import java.time.LocalDate;
+
+import com.github.nikalon.sunsync.Sun.LatitudeBand;
+import com.github.nikalon.sunsync.Sun.SolarEvents;
+
+final class PreciseAstronomyEngine implements AstronomyEngine {
+    /*
+    Apparent position of the Sun from Jean Meeus, Astronomical Algorithms (2nd edition), chapter 25, with the upper limb
+    of the Sun at sunrise and sunset. Each rise and set is refined with the declination of the Sun at the time of the
+    event instead of the one at midday. The noon at Greenwich is moved to the noon of each meridian with the change of the
+    right ascension and of the length of the day, so latitude bands are still shared by all the meridians. It costs
+    about ten times more than the classic engine.
+
+    The Moon phase is the classic one, which is already within a thousandth of a cycle.
+    */
+    static final String NAME = "precise";
+
+    private static final double[] EVENT_ALTITUDE_SINES = {
+        Math.sin(Math.toRadians(-0.833)), // Sunrise and sunset: refraction plus the semidiameter of the Sun
+        Math.sin(Math.toRadians(-6)),     // Civil twilight
+        Math.sin(Math.toRadians(-12)),    // Nautical twilight
+        Math.sin(Math.toRadians(-18)),    // Astronomical twilight
+    };
+    private static final int EVENT_ITERATIONS = 2;
+    private static final double SECONDS_PER_HOUR_ANGLE_DEGREE = 240.0;
+    private static final double SECONDS_PER_CENTURY = 36525.0 * 86400.0;
+    private static final double HALF_DAY_CENTURIES = 0.5 / 36525.0;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public double getMaxErrorMinutes() {
+        return 0.5;
+    }
+
+    @Override
+    public LatitudeBand latitudeBand(double latitude, LocalDate date) {
+        AstronomicalTime time = AstronomicalTime.of(date.atTime(12, 0));
+        double T = time.julianCenturies;
+        double right_ascension = rightAscension(T);
+        double right_ascension_rate = Helper.modulo(rightAscension(T + 1.0 / 36525.0) - right_ascension, 24) / 24.0;
+
+        double phi_rad = Math.toRadians(latitude);
+        double sin_phi = Math.sin(phi_rad);
+        double cos_phi = Math.cos(phi_rad);
+        double delta_rad = Math.toRadians(declination(T));
+        double sin_phi_sin_delta = sin_phi * Math.sin(delta_rad);
+        double cos_phi_cos_delta = cos_phi * Math.cos(delta_rad);
+
+        long[] morning_seconds = new long[SolarEvents.LEVELS];
+        long[] evening_seconds = new long[SolarEvents.LEVELS];
+        double[] morning_drift = new double[SolarEvents.LEVELS];
+        double[] evening_drift = new double[SolarEvents.LEVELS];
+        for (int level = 0; level < SolarEvents.LEVELS; level++) {
+            double hour_angle_cosine = (EVENT_ALTITUDE_SINES[level] - sin_phi_sin_delta) / cos_phi_cos_delta;
+            if (hour_angle_cosine > 1) {
+                morning_seconds[level] = SolarEvents.ALWAYS_BELOW;
+                evening_seconds[level] = SolarEvents.ALWAYS_BELOW;
+            } else if (hour_angle_cosine < -1) {
+                morning_seconds[level] = SolarEvents.ALWAYS_ABOVE;
+                evening_seconds[level] = SolarEvents.ALWAYS_ABOVE;
+            } else {
+                double hour_angle = Math.toDegrees(Math.acos(hour_angle_cosine));
+                for (int side = -1; side <= 1; side += 2) {
+                    double seconds = refinedHalfDaySeconds(sin_phi, cos_phi, EVENT_ALTITUDE_SINES[level], T, hour_angle, side);
+                    double day_before = refinedHalfDaySeconds(sin_phi, cos_phi, EVENT_ALTITUDE_SINES[level], T - HALF_DAY_CENTURIES, hour_angle, side);
+                    double day_after = refinedHalfDaySeconds(sin_phi, cos_phi, EVENT_ALTITUDE_SINES[level], T + HALF_DAY_CENTURIES, hour_angle, side);
+                    (side < 0 ? morning_seconds : evening_seconds)[level] = Math.round(seconds);
+                    (side < 0 ? morning_drift : evening_drift)[level] = day_after - day_before;
+                }
+            }
+        }
+
+        return new LatitudeBand(date, time, right_ascension, right_ascension_rate, sin_phi_sin_delta, cos_phi_cos_delta,
+            morning_seconds, evening_seconds, morning_drift, evening_drift);
+    }
+
+    @Override
+    public double moonPhase(AstronomicalTime time) {
+        return Moon.phase(time);
+    }
+
+    private static double refinedHalfDaySeconds(double sinLatitude, double cosLatitude, double altitudeSine, double noonCenturies, double hourAngle, int side) {
+        // Time between the noon and the event on the given side (-1 for the morning, 1 for the evening). If the Sun
+        // stops crossing the altitude at the time of the event, the last crossing found is kept.
+        for (int i = 0; i < EVENT_ITERATIONS; i++) {
+            double T = noonCenturies + side * hourAngle * SECONDS_PER_HOUR_ANGLE_DEGREE / SECONDS_PER_CENTURY;
+            double delta_rad = Math.toRadians(declination(T));
+            double hour_angle_cosine = (altitudeSine - sinLatitude * Math.sin(delta_rad)) / (cosLatitude * Math.cos(delta_rad));
+            if (hour_angle_cosine > 1 || hour_angle_cosine < -1) break;
+            hourAngle = Math.toDegrees(Math.acos(hour_angle_cosine));
+        }
+        return hourAngle * SECONDS_PER_HOUR_ANGLE_DEGREE;
+    }
+
+    private static double apparentLongitude(double T) {
+        // Degrees
+        double L0 = 280.46646 + T * (36000.76983 + T * 0.0003032);
+        double M = Math.toRadians(357.52911 + T * (35999.05029 - 0.0001537 * T));
+        double C = Math.sin(M) * (1.914602 - T * (0.004817 + 0.000014 * T))
+                 + Math.sin(2 * M) * (0.019993 - 0.000101 * T)
+                 + Math.sin(3 * M) * 0.000289;
+        double omega = Math.toRadians(125.04 - 1934.136 * T);
+        return L0 + C - 0.00569 - 0.00478 * Math.sin(omega);
+    }
+
+    private static double obliquity(double T) {
+        // Degrees, corrected for nutation
+        double seconds = 21.448 - T * (46.8150 + T * (0.00059 - T * 0.001813));
+        double omega = Math.toRadians(125.04 - 1934.136 * T);
+        return 23.0 + (26.0 + seconds / 60.0) / 60.0 + 0.00256 * Math.cos(omega);
+    }
+
+    private static double declination(double T) {
+        // Degrees
+        double epsilon = Math.toRadians(obliquity(T));
+        double lambda = Math.toRadians(apparentLongitude(T));
+        return Math.toDegrees(Math.asin(Math.sin(epsilon) * Math.sin(lambda)));
+    }
+
+    private static double rightAscension(double T) {
+        // Hours
+        double epsilon = Math.toRadians(obliquity(T));
+        double lambda = Math.toRadians(apparentLongitude(T));
+        return Helper.modulo(Math.toDegrees(Math.atan2(Math.cos(epsilon) * Math.sin(lambda), Math.cos(lambda))) / 15.0, 24);
+    }
+}
@@ -1,477 +1,248 @@
-// This file was auto-generated by "regions.sh" script and is filled with data from Wikidata. DO NOT CHANGE MANUALLY.
-
 package com.github.nikalon.sunsync;
 
-import java.util.Hashtable;
-import java.util.Map;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Comparator;
 
 import com.github.nikalon.sunsync.Sun.GeographicCoordinate;
 
-public class Regions {
-    private static final int REGION_COUNT = 463;
-    public static final Map<String, GeographicCoordinate> REGIONS = new Hashtable<String, GeographicCoordinate>(REGION_COUNT){{
-        put("002", GeographicCoordinate.fromDecimalDegrees(21.09375, 7.1881));
-        put("003", GeographicCoordinate.fromDecimalDegrees(47.0, -105.0));
-        put("004", GeographicCoordinate.fromDecimalDegrees(33.0, 66.0));
-        put("005", GeographicCoordinate.fromDecimalDegrees(-21.0, -59.0));
-        put("008", GeographicCoordinate.fromDecimalDegrees(41.0, 20.0));
-        put("009", GeographicCoordinate.fromDecimalDegrees(-21.0, 166.0));
-        put("010", GeographicCoordinate.fromDecimalDegrees(-90.0, 0.0));
-        put("011", GeographicCoordinate.fromDecimalDegrees(12.0, 3.0));
-        put("012", GeographicCoordinate.fromDecimalDegrees(28.0, 1.0));
-        put("013", GeographicCoordinate.fromDecimalDegrees(12.0, -86.0));
-        put("014", GeographicCoordinate.fromDecimalDegrees(-1.300444, 36.84726));
-        put("015", GeographicCoordinate.fromDecimalDegrees(30.440741666, 9.681713888));
-        put("016", GeographicCoordinate.fromDecimalDegrees(-14.295833, -170.7075));
-        put("017", GeographicCoordinate.fromDecimalDegrees(2.223055555, 16.191138888));
-        put("018", GeographicCoordinate.fromDecimalDegrees(-25.879105555, 23.097577777));
-        put("019", GeographicCoordinate.fromDecimalDegrees(19.0, -96.0));
-        put("020", GeographicCoordinate.fromDecimalDegrees(42.558333333, 1.555277777));
-        put("024", GeographicCoordinate.fromDecimalDegrees(-12.35, 17.35));
-        put("028", GeographicCoordinate.fromDecimalDegrees(17.116666666, -61.85));
-        put("029", GeographicCoordinate.fromDecimalDegrees(15.0, -73.0));
-        put("030", GeographicCoordinate.fromDecimalDegrees(47.210277777, 102.847777777));
-        put("032", GeographicCoordinate.fromDecimalDegrees(-34.0, -64.0));
-        put("034", GeographicCoordinate.fromDecimalDegrees(26.9, 72.2));
-        put("035", GeographicCoordinate.fromDecimalDegrees(12.0, 105.1));
-        put("036", GeographicCoordinate.fromDecimalDegrees(-28.0, 137.0));
-        put("039", GeographicCoordinate.fromDecimalDegrees(41.093498, 15.017008));
-        put("040", GeographicCoordinate.fromDecimalDegrees(48.0, 14.0));
-        put("044", GeographicCoordinate.fromDecimalDegrees(25.0, -77.4));
-        put("048", GeographicCoordinate.fromDecimalDegrees(26.0675, 50.551111));
-        put("050", GeographicCoordinate.fromDecimalDegrees(24.016667, 89.866667));
-        put("053", GeographicCoordinate.fromDecimalDegrees(-30.0, 140.0));
-        put("054", GeographicCoordinate.fromDecimalDegrees(-7.449813888, 157.720169444));
-        put("056", GeographicCoordinate.fromDecimalDegrees(50.641111111, 4.668055555));
-        put("057", GeographicCoordinate.fromDecimalDegrees(12.0, 152.0));
-        put("061", GeographicCoordinate.fromDecimalDegrees(-16.852961, 148.40522));
-        put("064", GeographicCoordinate.fromDecimalDegrees(27.45, 90.5));
-        put("068", GeographicCoordinate.fromDecimalDegrees(-17.056869611, -64.991228611));
-        put("072", GeographicCoordinate.fromDecimalDegrees(-22.2, 23.7));
-        put("076", GeographicCoordinate.fromDecimalDegrees(-14.0, -53.0));
-        put("090", GeographicCoordinate.fromDecimalDegrees(-9.466666666, 159.816666666));
-        put("096", GeographicCoordinate.fromDecimalDegrees(4.4, 114.566667));
-        put("100", GeographicCoordinate.fromDecimalDegrees(42.75, 25.5));
-        put("104", GeographicCoordinate.fromDecimalDegrees(22.0, 96.0));
-        put("108", GeographicCoordinate.fromDecimalDegrees(-3.666667, 29.816667));
-        put("112", GeographicCoordinate.fromDecimalDegrees(53.528333333, 28.046666666));
-        put("116", GeographicCoordinate.fromDecimalDegrees(11.57, 104.91));
-        put("120", GeographicCoordinate.fromDecimalDegrees(7.0, 12.0));
-        put("124", GeographicCoordinate.fromDecimalDegrees(56.0, -109.0));
-        put("132", GeographicCoordinate.fromDecimalDegrees(15.916666666, -24.083333333));
-        put("140", GeographicCoordinate.fromDecimalDegrees(6.7, 20.9));
-        put("142", GeographicCoordinate.fromDecimalDegrees(43.681111111, 87.331111111));
-        put("143", GeographicCoordinate.fromDecimalDegrees(45.3, 63.9));
-        put("144", GeographicCoordinate.fromDecimalDegrees(7.0, 81.0));
-        put("145", GeographicCoordinate.fromDecimalDegrees(29.166667, 47.6));
-        put("148", GeographicCoordinate.fromDecimalDegrees(15.466667, 19.4));
-        put("150", GeographicCoordinate.fromDecimalDegrees(48.690959, 9.14062));
-        put("151", GeographicCoordinate.fromDecimalDegrees(49.0, 31.0));
-        put("152", GeographicCoordinate.fromDecimalDegrees(-33.0, -71.0));
-        put("154", GeographicCoordinate.fromDecimalDegrees(57.0, 14.0));
-        put("155", GeographicCoordinate.fromDecimalDegrees(47.409273, 2.536919));
-        put("156", GeographicCoordinate.fromDecimalDegrees(35.844722222, 103.451944444));
-        put("170", GeographicCoordinate.fromDecimalDegrees(4.0, -73.25));
-        put("174", GeographicCoordinate.fromDecimalDegrees(-12.3, 43.7));
-        put("178", GeographicCoordinate.fromDecimalDegrees(-0.75, 15.383330555));
-        put("180", GeographicCoordinate.fromDecimalDegrees(-2.88, 23.656111111));
-        put("184", GeographicCoordinate.fromDecimalDegrees(-21.233333333, -159.783333333));
-        put("188", GeographicCoordinate.fromDecimalDegrees(10.0, -84.0));
-        put("191", GeographicCoordinate.fromDecimalDegrees(45.25, 15.466667));
-        put("192", GeographicCoordinate.fromDecimalDegrees(22.0, -79.5));
-        put("196", GeographicCoordinate.fromDecimalDegrees(35.0, 33.0));
-        put("202", GeographicCoordinate.fromDecimalDegrees(-10.0, 23.0));
-        put("203", GeographicCoordinate.fromDecimalDegrees(49.5, 16.0));
-        put("204", GeographicCoordinate.fromDecimalDegrees(8.833333333, 2.183333333));
-        put("208", GeographicCoordinate.fromDecimalDegrees(56.0, 10.0));
-        put("212", GeographicCoordinate.fromDecimalDegrees(15.416667, -61.333333));
-        put("214", GeographicCoordinate.fromDecimalDegrees(18.8, -70.2));
-        put("218", GeographicCoordinate.fromDecimalDegrees(-1.0, -78.0));
-        put("222", GeographicCoordinate.fromDecimalDegrees(13.668889, -88.866111));
-        put("231", GeographicCoordinate.fromDecimalDegrees(9.0, 40.0));
-        put("232", GeographicCoordinate.fromDecimalDegrees(15.483333, 38.25));
-        put("233", GeographicCoordinate.fromDecimalDegrees(59.0, 26.0));
-        put("242", GeographicCoordinate.fromDecimalDegrees(-18.0, 178.0));
-        put("246", GeographicCoordinate.fromDecimalDegrees(65.0, 27.0));
-        put("250", GeographicCoordinate.fromDecimalDegrees(47.0, 2.0));
-        put("262", GeographicCoordinate.fromDecimalDegrees(11.8, 42.433333));
-        put("270", GeographicCoordinate.fromDecimalDegrees(13.5, -15.5));
-        put("276", GeographicCoordinate.fromDecimalDegrees(51.0, 10.0));
-        put("288", GeographicCoordinate.fromDecimalDegrees(8.03, -1.08));
-        put("296", GeographicCoordinate.fromDecimalDegrees(1.466666666, 173.033333333));
-        put("300", GeographicCoordinate.fromDecimalDegrees(38.5, 23.0));
-        put("308", GeographicCoordinate.fromDecimalDegrees(12.116667, -61.666667));
-        put("320", GeographicCoordinate.fromDecimalDegrees(15.5, -90.25));
-        put("324", GeographicCoordinate.fromDecimalDegrees(10.0, -11.0));
-        put("328", GeographicCoordinate.fromDecimalDegrees(5.733333, -59.316667));
-        put("332", GeographicCoordinate.fromDecimalDegrees(19.0, -72.8));
-        put("340", GeographicCoordinate.fromDecimalDegrees(14.633333, -86.816667));
-        put("348", GeographicCoordinate.fromDecimalDegrees(47.0, 19.0));
-        put("352", GeographicCoordinate.fromDecimalDegrees(65.0, -19.0));
-        put("356", GeographicCoordinate.fromDecimalDegrees(22.8, 83.0));
-        put("360", GeographicCoordinate.fromDecimalDegrees(-2.0, 118.0));
-        put("364", GeographicCoordinate.fromDecimalDegrees(32.0, 53.0));
-        put("368", GeographicCoordinate.fromDecimalDegrees(33.0, 43.0));
-        put("372", GeographicCoordinate.fromDecimalDegrees(53.0, -8.0));
-        put("376", GeographicCoordinate.fromDecimalDegrees(31.0, 35.0));
-        put("380", GeographicCoordinate.fromDecimalDegrees(42.5, 12.5));
-        put("384", GeographicCoordinate.fromDecimalDegrees(8.0, -6.0));
-        put("388", GeographicCoordinate.fromDecimalDegrees(18.18, -77.4));
-        put("392", GeographicCoordinate.fromDecimalDegrees(35.0, 136.0));
-        put("398", GeographicCoordinate.fromDecimalDegrees(48.0, 68.0));
-        put("400", GeographicCoordinate.fromDecimalDegrees(31.2, 36.5));
-        put("404", GeographicCoordinate.fromDecimalDegrees(0.1, 38.0));
-        put("408", GeographicCoordinate.fromDecimalDegrees(40.0, 127.0));
-        put("410", GeographicCoordinate.fromDecimalDegrees(36.0, 128.0));
-        put("417", GeographicCoordinate.fromDecimalDegrees(41.0, 75.0));
-        put("418", GeographicCoordinate.fromDecimalDegrees(18.2, 104.1));
-        put("422", GeographicCoordinate.fromDecimalDegrees(33.833333, 35.766667));
-        put("426", GeographicCoordinate.fromDecimalDegrees(-29.55, 28.25));
-        put("428", GeographicCoordinate.fromDecimalDegrees(57.0, 25.0));
-        put("430", GeographicCoordinate.fromDecimalDegrees(6.533333, -9.75));
-        put("434", GeographicCoordinate.fromDecimalDegrees(27.0, 17.0));
-        put("438", GeographicCoordinate.fromDecimalDegrees(47.145, 9.553889));
-        put("440", GeographicCoordinate.fromDecimalDegrees(55.2, 24.0));
-        put("450", GeographicCoordinate.fromDecimalDegrees(-20.0, 47.0));
-        put("454", GeographicCoordinate.fromDecimalDegrees(-13.0, 34.0));
-        put("458", GeographicCoordinate.fromDecimalDegrees(3.7805111, 102.314361666));
-        put("462", GeographicCoordinate.fromDecimalDegrees(4.18, 73.51));
-        put("466", GeographicCoordinate.fromDecimalDegrees(17.0, -4.0));
-        put("470", GeographicCoordinate.fromDecimalDegrees(35.883333333, 14.5));
-        put("478", GeographicCoordinate.fromDecimalDegrees(21.0, -11.0));
-        put("484", GeographicCoordinate.fromDecimalDegrees(23.0, -102.0));
-        put("496", GeographicCoordinate.fromDecimalDegrees(46.0, 105.0));
-        put("499", GeographicCoordinate.fromDecimalDegrees(42.766667, 19.216667));
-        put("504", GeographicCoordinate.fromDecimalDegrees(32.0, -6.0));
-        put("508", GeographicCoordinate.fromDecimalDegrees(-19.0, 35.0));
-        put("512", GeographicCoordinate.fromDecimalDegrees(21.0, 57.0));
-        put("516", GeographicCoordinate.fromDecimalDegrees(-23.0, 17.0));
-        put("520", GeographicCoordinate.fromDecimalDegrees(-0.5275, 166.935));
-        put("524", GeographicCoordinate.fromDecimalDegrees(28.0, 84.0));
-        put("528", GeographicCoordinate.fromDecimalDegrees(52.316666666, 5.55));
-        put("533", GeographicCoordinate.fromDecimalDegrees(12.51106253, -69.97422388));
-        put("534", GeographicCoordinate.fromDecimalDegrees(18.031944444, -63.067777777));
-        put("548", GeographicCoordinate.fromDecimalDegrees(-16.633330555, 168.016669444));
-        put("554", GeographicCoordinate.fromDecimalDegrees(-41.2, 174.0));
-        put("558", GeographicCoordinate.fromDecimalDegrees(13.0, -85.0));
-        put("562", GeographicCoordinate.fromDecimalDegrees(17.0, 10.0));
-        put("566", GeographicCoordinate.fromDecimalDegrees(9.0, 8.0));
-        put("570", GeographicCoordinate.fromDecimalDegrees(-19.05, -169.916666666));
-        put("578", GeographicCoordinate.fromDecimalDegrees(65.0, 11.0));
-        put("580", GeographicCoordinate.fromDecimalDegrees(16.705, 145.78));
-        put("583", GeographicCoordinate.fromDecimalDegrees(6.916666666, 158.183333333));
-        put("584", GeographicCoordinate.fromDecimalDegrees(9.82, 169.29));
-        put("585", GeographicCoordinate.fromDecimalDegrees(7.466667, 134.55));
-        put("586", GeographicCoordinate.fromDecimalDegrees(30.0, 71.0));
-        put("598", GeographicCoordinate.fromDecimalDegrees(-6.3, 147.0));
-        put("600", GeographicCoordinate.fromDecimalDegrees(-23.5, -58.0));
-        put("604", GeographicCoordinate.fromDecimalDegrees(-9.4, -76.0));
-        put("608", GeographicCoordinate.fromDecimalDegrees(12.0, 123.0));
-        put("616", GeographicCoordinate.fromDecimalDegrees(52.0, 19.0));
-        put("620", GeographicCoordinate.fromDecimalDegrees(38.7, -9.183333333));
-        put("624", GeographicCoordinate.fromDecimalDegrees(12.0, -15.0));
-        put("626", GeographicCoordinate.fromDecimalDegrees(-8.966667, 125.75));
-        put("634", GeographicCoordinate.fromDecimalDegrees(25.269535, 51.212767));
-        put("638", GeographicCoordinate.fromDecimalDegrees(-21.114444444, 55.5325));
-        put("642", GeographicCoordinate.fromDecimalDegrees(46.0, 25.0));
-        put("646", GeographicCoordinate.fromDecimalDegrees(-2.0, 30.0));
-        put("659", GeographicCoordinate.fromDecimalDegrees(17.271666666, -62.666669444));
-        put("662", GeographicCoordinate.fromDecimalDegrees(13.883333333, -60.966666666));
-        put("670", GeographicCoordinate.fromDecimalDegrees(12.9, -61.233333333));
-        put("678", GeographicCoordinate.fromDecimalDegrees(0.316667, 6.6));
-        put("682", GeographicCoordinate.fromDecimalDegrees(23.716667, 44.116667));
-        put("686", GeographicCoordinate.fromDecimalDegrees(14.366667, -14.283333));
-        put("690", GeographicCoordinate.fromDecimalDegrees(-7.1, 52.766667));
-        put("694", GeographicCoordinate.fromDecimalDegrees(8.5, -12.1));
-        put("702", GeographicCoordinate.fromDecimalDegrees(1.3, 103.8));
-        put("703", GeographicCoordinate.fromDecimalDegrees(49.0, 20.0));
-        put("704", GeographicCoordinate.fromDecimalDegrees(16.0, 108.0));
-        put("705", GeographicCoordinate.fromDecimalDegrees(46.0, 15.0));
-        put("706", GeographicCoordinate.fromDecimalDegrees(6.0, 47.0));
-        put("710", GeographicCoordinate.fromDecimalDegrees(-29.0, 24.0));
-        put("716", GeographicCoordinate.fromDecimalDegrees(-19.0, 30.0));
-        put("724", GeographicCoordinate.fromDecimalDegrees(40.2, -3.5));
-        put("728", GeographicCoordinate.fromDecimalDegrees(7.0, 30.0));
-        put("729", GeographicCoordinate.fromDecimalDegrees(15.0, 32.0));
-        put("752", GeographicCoordinate.fromDecimalDegrees(61.0, 15.0));
-        put("756", GeographicCoordinate.fromDecimalDegrees(46.798562, 8.231973));
-        put("760", GeographicCoordinate.fromDecimalDegrees(35.216667, 38.583333));
-        put("762", GeographicCoordinate.fromDecimalDegrees(38.583333, 71.366667));
-        put("764", GeographicCoordinate.fromDecimalDegrees(14.0, 101.0));
-        put("768", GeographicCoordinate.fromDecimalDegrees(8.25, 1.183333));
-        put("780", GeographicCoordinate.fromDecimalDegrees(10.666666666, -61.516666666));
-        put("784", GeographicCoordinate.fromDecimalDegrees(24.4, 54.3));
-        put("788", GeographicCoordinate.fromDecimalDegrees(34.0, 10.0));
-        put("792", GeographicCoordinate.fromDecimalDegrees(39.0, 36.0));
-        put("795", GeographicCoordinate.fromDecimalDegrees(39.0, 60.0));
-        put("798", GeographicCoordinate.fromDecimalDegrees(-7.475, 178.005556));
-        put("800", GeographicCoordinate.fromDecimalDegrees(1.28, 32.39));
-        put("807", GeographicCoordinate.fromDecimalDegrees(41.65, 21.716667));
-        put("818", GeographicCoordinate.fromDecimalDegrees(27.0, 29.0));
-        put("826", GeographicCoordinate.fromDecimalDegrees(54.6, -2.0));
-        put("830", GeographicCoordinate.fromDecimalDegrees(49.43, -2.35));
-        put("831", GeographicCoordinate.fromDecimalDegrees(49.45, -2.583333333));
-        put("832", GeographicCoordinate.fromDecimalDegrees(49.19, -2.11));
-        put("834", GeographicCoordinate.fromDecimalDegrees(-6.306944444, 34.853888888));
-        put("840", GeographicCoordinate.fromDecimalDegrees(39.828175, -98.5795));
-        put("854", GeographicCoordinate.fromDecimalDegrees(12.266667, -2.066667));
-        put("858", GeographicCoordinate.fromDecimalDegrees(-33.0, -56.0));
-        put("860", GeographicCoordinate.fromDecimalDegrees(41.0, 66.0));
-        put("862", GeographicCoordinate.fromDecimalDegrees(8.0, -67.0));
-        put("882", GeographicCoordinate.fromDecimalDegrees(-13.745, -172.2175));
-        put("887", GeographicCoordinate.fromDecimalDegrees(15.5, 48.0));
-        put("894", GeographicCoordinate.fromDecimalDegrees(-14.0, 28.0));
-        put("AD", GeographicCoordinate.fromDecimalDegrees(42.558333333, 1.555277777));
-        put("AE", GeographicCoordinate.fromDecimalDegrees(24.4, 54.3));
-        put("AF", GeographicCoordinate.fromDecimalDegrees(33.0, 66.0));
-        put("AG", GeographicCoordinate.fromDecimalDegrees(17.116666666, -61.85));
-        put("AI", GeographicCoordinate.fromDecimalDegrees(18.227222222, -63.048888888));
-        put("AL", GeographicCoordinate.fromDecimalDegrees(41.0, 20.0));
-        put("AM", GeographicCoordinate.fromDecimalDegrees(40.383333, 44.95));
-        put("AO", GeographicCoordinate.fromDecimalDegrees(-12.35, 17.35));
-        put("AQ", GeographicCoordinate.fromDecimalDegrees(-90.0, 0.0));
-        put("AR", GeographicCoordinate.fromDecimalDegrees(-34.0, -64.0));
-        put("AS", GeographicCoordinate.fromDecimalDegrees(-14.295833, -170.7075));
-        put("AT", GeographicCoordinate.fromDecimalDegrees(48.0, 14.0));
-        put("AU", GeographicCoordinate.fromDecimalDegrees(-28.0, 137.0));
-        put("AW", GeographicCoordinate.fromDecimalDegrees(12.51106253, -69.97422388));
-        put("AX", GeographicCoordinate.fromDecimalDegrees(60.25, 20.0));
-        put("AZ", GeographicCoordinate.fromDecimalDegrees(40.3, 47.7));
-        put("BA", GeographicCoordinate.fromDecimalDegrees(44.0, 18.0));
-        put("BB", GeographicCoordinate.fromDecimalDegrees(13.17, -59.5525));
-        put("BD", GeographicCoordinate.fromDecimalDegrees(24.016667, 89.866667));
-        put("BE", GeographicCoordinate.fromDecimalDegrees(50.641111111, 4.668055555));
-        put("BF", GeographicCoordinate.fromDecimalDegrees(12.266667, -2.066667));
-        put("BG", GeographicCoordinate.fromDecimalDegrees(42.75, 25.5));
-        put("BH", GeographicCoordinate.fromDecimalDegrees(26.0675, 50.551111));
-        put("BI", GeographicCoordinate.fromDecimalDegrees(-3.666667, 29.816667));
-        put("BJ", GeographicCoordinate.fromDecimalDegrees(8.833333333, 2.183333333));
-        put("BL", GeographicCoordinate.fromDecimalDegrees(17.897728, -62.8342438));
-        put("BM", GeographicCoordinate.fromDecimalDegrees(32.32, -64.74));
-        put("BN", GeographicCoordinate.fromDecimalDegrees(4.4, 114.566667));
-        put("BO", GeographicCoordinate.fromDecimalDegrees(-17.056869611, -64.991228611));
-        put("BQ", GeographicCoordinate.fromDecimalDegrees(12.183333333, -68.233333333));
-        put("BR", GeographicCoordinate.fromDecimalDegrees(-14.0, -53.0));
-        put("BS", GeographicCoordinate.fromDecimalDegrees(25.0, -77.4));
-        put("BT", GeographicCoordinate.fromDecimalDegrees(27.45, 90.5));
-        put("BV", GeographicCoordinate.fromDecimalDegrees(-54.42, 3.36));
-        put("BW", GeographicCoordinate.fromDecimalDegrees(-22.2, 23.7));
-        put("BY", GeographicCoordinate.fromDecimalDegrees(53.528333333, 28.046666666));
-        put("BZ", GeographicCoordinate.fromDecimalDegrees(17.066666666, -88.7));
-        put("CA", GeographicCoordinate.fromDecimalDegrees(56.0, -109.0));
-        put("CC", GeographicCoordinate.fromDecimalDegrees(-12.1175, 96.895));
-        put("CD", GeographicCoordinate.fromDecimalDegrees(-2.88, 23.656111111));
-        put("CF", GeographicCoordinate.fromDecimalDegrees(6.7, 20.9));
-        put("CG", GeographicCoordinate.fromDecimalDegrees(-0.75, 15.383330555));
-        put("CH", GeographicCoordinate.fromDecimalDegrees(46.798562, 8.231973));
-        put("CI", GeographicCoordinate.fromDecimalDegrees(8.0, -6.0));
-        put("CK", GeographicCoordinate.fromDecimalDegrees(-21.233333333, -159.783333333));
-        put("CL", GeographicCoordinate.fromDecimalDegrees(-33.0, -71.0));
-        put("CM", GeographicCoordinate.fromDecimalDegrees(7.0, 12.0));
-        put("CN", GeographicCoordinate.fromDecimalDegrees(35.844722222, 103.451944444));
-        put("CO", GeographicCoordinate.fromDecimalDegrees(4.0, -73.25));
-        put("CR", GeographicCoordinate.fromDecimalDegrees(10.0, -84.0));
-        put("CU", GeographicCoordinate.fromDecimalDegrees(22.0, -79.5));
-        put("CV", GeographicCoordinate.fromDecimalDegrees(15.916666666, -24.083333333));
-        put("CW", GeographicCoordinate.fromDecimalDegrees(12.166666666, -68.966666666));
-        put("CX", GeographicCoordinate.fromDecimalDegrees(-10.49, 105.6275));
-        put("CY", GeographicCoordinate.fromDecimalDegrees(35.0, 33.0));
-        put("CZ", GeographicCoordinate.fromDecimalDegrees(49.5, 16.0));
-        put("DE", GeographicCoordinate.fromDecimalDegrees(51.0, 10.0));
-        put("DG", GeographicCoordinate.fromDecimalDegrees(-7.313333333, 72.411111111));
-        put("DJ", GeographicCoordinate.fromDecimalDegrees(11.8, 42.433333));
-        put("DK", GeographicCoordinate.fromDecimalDegrees(56.0, 10.0));
-        put("DM", GeographicCoordinate.fromDecimalDegrees(15.416667, -61.333333));
-        put("DO", GeographicCoordinate.fromDecimalDegrees(18.8, -70.2));
-        put("DZ", GeographicCoordinate.fromDecimalDegrees(28.0, 1.0));
-        put("EC", GeographicCoordinate.fromDecimalDegrees(-1.0, -78.0));
-        put("EE", GeographicCoordinate.fromDecimalDegrees(59.0, 26.0));
-        put("EG", GeographicCoordinate.fromDecimalDegrees(27.0, 29.0));
-        put("EH", GeographicCoordinate.fromDecimalDegrees(25.0, -13.0));
-        put("ER", GeographicCoordinate.fromDecimalDegrees(15.483333, 38.25));
-        put("ES", GeographicCoordinate.fromDecimalDegrees(40.2, -3.5));
-        put("ET", GeographicCoordinate.fromDecimalDegrees(9.0, 40.0));
-        put("FI", GeographicCoordinate.fromDecimalDegrees(65.0, 27.0));
-        put("FJ", GeographicCoordinate.fromDecimalDegrees(-18.0, 178.0));
-        put("FK", GeographicCoordinate.fromDecimalDegrees(-51.73, -59.22));
-        put("FM", GeographicCoordinate.fromDecimalDegrees(6.916666666, 158.183333333));
-        put("FO", GeographicCoordinate.fromDecimalDegrees(61.969944444, -6.844480555));
-        put("FR", GeographicCoordinate.fromDecimalDegrees(47.0, 2.0));
-        put("GA", GeographicCoordinate.fromDecimalDegrees(-0.683330555, 11.5));
-        put("GB", GeographicCoordinate.fromDecimalDegrees(54.6, -2.0));
-        put("GD", GeographicCoordinate.fromDecimalDegrees(12.116667, -61.666667));
-        put("GE", GeographicCoordinate.fromDecimalDegrees(42.0, 44.0));
-        put("GF", GeographicCoordinate.fromDecimalDegrees(3.99886, -52.99994));
-        put("GG", GeographicCoordinate.fromDecimalDegrees(49.45, -2.583333333));
-        put("GH", GeographicCoordinate.fromDecimalDegrees(8.03, -1.08));
-        put("GI", GeographicCoordinate.fromDecimalDegrees(36.14, -5.35));
-        put("GL", GeographicCoordinate.fromDecimalDegrees(72.0, -40.0));
-        put("GM", GeographicCoordinate.fromDecimalDegrees(13.5, -15.5));
-        put("GN", GeographicCoordinate.fromDecimalDegrees(10.0, -11.0));
-        put("GP", GeographicCoordinate.fromDecimalDegrees(16.25, -61.583333333));
-        put("GQ", GeographicCoordinate.fromDecimalDegrees(1.5, 10.0));
-        put("GR", GeographicCoordinate.fromDecimalDegrees(38.5, 23.0));
-        put("GS", GeographicCoordinate.fromDecimalDegrees(-54.25, -36.75));
-        put("GT", GeographicCoordinate.fromDecimalDegrees(15.5, -90.25));
-        put("GU", GeographicCoordinate.fromDecimalDegrees(13.5, 144.8));
-        put("GW", GeographicCoordinate.fromDecimalDegrees(12.0, -15.0));
-        put("GY", GeographicCoordinate.fromDecimalDegrees(5.733333, -59.316667));
-        put("HK", GeographicCoordinate.fromDecimalDegrees(22.278333333, 114.158611111));
-        put("HM", GeographicCoordinate.fromDecimalDegrees(-53.093527777, 73.517));
-        put("HN", GeographicCoordinate.fromDecimalDegrees(14.633333, -86.816667));
-        put("HR", GeographicCoordinate.fromDecimalDegrees(45.25, 15.466667));
-        put("HT", GeographicCoordinate.fromDecimalDegrees(19.0, -72.8));
-        put("HU", GeographicCoordinate.fromDecimalDegrees(47.0, 19.0));
-        put("ID", GeographicCoordinate.fromDecimalDegrees(-2.0, 118.0));
-        put("IE", GeographicCoordinate.fromDecimalDegrees(53.0, -8.0));
-        put("IL", GeographicCoordinate.fromDecimalDegrees(31.0, 35.0));
-        put("IM", GeographicCoordinate.fromDecimalDegrees(54.235, -4.525));
-        put("IN", GeographicCoordinate.fromDecimalDegrees(22.8, 83.0));
-        put("IO", GeographicCoordinate.fromDecimalDegrees(-6.0, 71.5));
-        put("IQ", GeographicCoordinate.fromDecimalDegrees(33.0, 43.0));
-        put("IR", GeographicCoordinate.fromDecimalDegrees(32.0, 53.0));
-        put("IS", GeographicCoordinate.fromDecimalDegrees(65.0, -19.0));
-        put("IT", GeographicCoordinate.fromDecimalDegrees(42.5, 12.5));
-        put("JE", GeographicCoordinate.fromDecimalDegrees(49.19, -2.11));
-        put("JM", GeographicCoordinate.fromDecimalDegrees(18.18, -77.4));
-        put("JO", GeographicCoordinate.fromDecimalDegrees(31.2, 36.5));
-        put("JP", GeographicCoordinate.fromDecimalDegrees(35.0, 136.0));
-        put("KE", GeographicCoordinate.fromDecimalDegrees(0.1, 38.0));
-        put("KG", GeographicCoordinate.fromDecimalDegrees(41.0, 75.0));
-        put("KH", GeographicCoordinate.fromDecimalDegrees(11.57, 104.91));
-        put("KI", GeographicCoordinate.fromDecimalDegrees(1.466666666, 173.033333333));
-        put("KM", GeographicCoordinate.fromDecimalDegrees(-12.3, 43.7));
-        put("KN", GeographicCoordinate.fromDecimalDegrees(17.271666666, -62.666669444));
-        put("KP", GeographicCoordinate.fromDecimalDegrees(40.0, 127.0));
-        put("KR", GeographicCoordinate.fromDecimalDegrees(36.0, 128.0));
-        put("KW", GeographicCoordinate.fromDecimalDegrees(29.166667, 47.6));
-        put("KY", GeographicCoordinate.fromDecimalDegrees(19.5, -80.5));
-        put("KZ", GeographicCoordinate.fromDecimalDegrees(48.0, 68.0));
-        put("LA", GeographicCoordinate.fromDecimalDegrees(18.2, 104.1));
-        put("LB", GeographicCoordinate.fromDecimalDegrees(33.833333, 35.766667));
-        put("LC", GeographicCoordinate.fromDecimalDegrees(13.883333333, -60.966666666));
-        put("LI", GeographicCoordinate.fromDecimalDegrees(47.145, 9.553889));
-        put("LK", GeographicCoordinate.fromDecimalDegrees(7.0, 81.0));
-        put("LR", GeographicCoordinate.fromDecimalDegrees(6.533333, -9.75));
-        put("LS", GeographicCoordinate.fromDecimalDegrees(-29.55, 28.25));
-        put("LT", GeographicCoordinate.fromDecimalDegrees(55.2, 24.0));
-        put("LU", GeographicCoordinate.fromDecimalDegrees(49.77, 6.13));
-        put("LV", GeographicCoordinate.fromDecimalDegrees(57.0, 25.0));
-        put("LY", GeographicCoordinate.fromDecimalDegrees(27.0, 17.0));
-        put("MA", GeographicCoordinate.fromDecimalDegrees(32.0, -6.0));
-        put("MC", GeographicCoordinate.fromDecimalDegrees(43.731111111, 7.42));
-        put("MD", GeographicCoordinate.fromDecimalDegrees(47.25, 28.516667));
-        put("ME", GeographicCoordinate.fromDecimalDegrees(42.766667, 19.216667));
-        put("MF", GeographicCoordinate.fromDecimalDegrees(18.075277777, -63.06));
-        put("MG", GeographicCoordinate.fromDecimalDegrees(-20.0, 47.0));
-        put("MH", GeographicCoordinate.fromDecimalDegrees(9.82, 169.29));
-        put("MK", GeographicCoordinate.fromDecimalDegrees(41.65, 21.716667));
-        put("ML", GeographicCoordinate.fromDecimalDegrees(17.0, -4.0));
-        put("MM", GeographicCoordinate.fromDecimalDegrees(22.0, 96.0));
-        put("MN", GeographicCoordinate.fromDecimalDegrees(46.0, 105.0));
-        put("MO", GeographicCoordinate.fromDecimalDegrees(22.166666666, 113.55));
-        put("MP", GeographicCoordinate.fromDecimalDegrees(16.705, 145.78));
-        put("MQ", GeographicCoordinate.fromDecimalDegrees(14.65, -61.015));
-        put("MR", GeographicCoordinate.fromDecimalDegrees(21.0, -11.0));
-        put("MS", GeographicCoordinate.fromDecimalDegrees(16.75, -62.2));
-        put("MT", GeographicCoordinate.fromDecimalDegrees(35.883333333, 14.5));
-        put("MU", GeographicCoordinate.fromDecimalDegrees(-20.2, 57.5));
-        put("MV", GeographicCoordinate.fromDecimalDegrees(4.18, 73.51));
-        put("MW", GeographicCoordinate.fromDecimalDegrees(-13.0, 34.0));
-        put("MX", GeographicCoordinate.fromDecimalDegrees(23.0, -102.0));
-        put("MY", GeographicCoordinate.fromDecimalDegrees(3.7805111, 102.314361666));
-        put("MZ", GeographicCoordinate.fromDecimalDegrees(-19.0, 35.0));
-        put("NA", GeographicCoordinate.fromDecimalDegrees(-23.0, 17.0));
-        put("NC", GeographicCoordinate.fromDecimalDegrees(-21.25, 165.3));
-        put("NE", GeographicCoordinate.fromDecimalDegrees(17.0, 10.0));
-        put("NF", GeographicCoordinate.fromDecimalDegrees(-29.033333333, 167.949722222));
-        put("NG", GeographicCoordinate.fromDecimalDegrees(9.0, 8.0));
-        put("NI", GeographicCoordinate.fromDecimalDegrees(13.0, -85.0));
-        put("NL", GeographicCoordinate.fromDecimalDegrees(52.316666666, 5.55));
-        put("NL", GeographicCoordinate.fromDecimalDegrees(52.366666666, 4.883333333));
-        put("NO", GeographicCoordinate.fromDecimalDegrees(65.0, 11.0));
-        put("NP", GeographicCoordinate.fromDecimalDegrees(28.0, 84.0));
-        put("NR", GeographicCoordinate.fromDecimalDegrees(-0.5275, 166.935));
-        put("NU", GeographicCoordinate.fromDecimalDegrees(-19.05, -169.916666666));
-        put("NZ", GeographicCoordinate.fromDecimalDegrees(-41.2, 174.0));
-        put("OM", GeographicCoordinate.fromDecimalDegrees(21.0, 57.0));
-        put("PA", GeographicCoordinate.fromDecimalDegrees(8.616667, -80.366667));
-        put("PE", GeographicCoordinate.fromDecimalDegrees(-9.4, -76.0));
-        put("PF", GeographicCoordinate.fromDecimalDegrees(-17.533333333, -149.566666666));
-        put("PG", GeographicCoordinate.fromDecimalDegrees(-6.3, 147.0));
-        put("PH", GeographicCoordinate.fromDecimalDegrees(12.0, 123.0));
-        put("PK", GeographicCoordinate.fromDecimalDegrees(30.0, 71.0));
-        put("PL", GeographicCoordinate.fromDecimalDegrees(52.0, 19.0));
-        put("PM", GeographicCoordinate.fromDecimalDegrees(46.825, -56.275));
-        put("PN", GeographicCoordinate.fromDecimalDegrees(-25.0677812, -130.1045778));
-        put("PR", GeographicCoordinate.fromDecimalDegrees(18.25, -66.5));
-        put("PS", GeographicCoordinate.fromDecimalDegrees(32.0, 35.25));
-        put("PT", GeographicCoordinate.fromDecimalDegrees(38.7, -9.183333333));
-        put("PW", GeographicCoordinate.fromDecimalDegrees(7.466667, 134.55));
-        put("PY", GeographicCoordinate.fromDecimalDegrees(-23.5, -58.0));
-        put("QA", GeographicCoordinate.fromDecimalDegrees(25.269535, 51.212767));
-        put("RE", GeographicCoordinate.fromDecimalDegrees(-21.114444444, 55.5325));
-        put("RO", GeographicCoordinate.fromDecimalDegrees(46.0, 25.0));
-        put("RS", GeographicCoordinate.fromDecimalDegrees(43.95, 20.933333333));
-        put("RU", GeographicCoordinate.fromDecimalDegrees(66.416666666, 94.25));
-        put("RW", GeographicCoordinate.fromDecimalDegrees(-2.0, 30.0));
-        put("SA", GeographicCoordinate.fromDecimalDegrees(23.716667, 44.116667));
-        put("SB", GeographicCoordinate.fromDecimalDegrees(-9.466666666, 159.816666666));
-        put("SC", GeographicCoordinate.fromDecimalDegrees(-7.1, 52.766667));
-        put("SD", GeographicCoordinate.fromDecimalDegrees(15.0, 32.0));
-        put("SE", GeographicCoordinate.fromDecimalDegrees(61.0, 15.0));
-        put("SG", GeographicCoordinate.fromDecimalDegrees(1.3, 103.8));
-        put("SH", GeographicCoordinate.fromDecimalDegrees(-15.9245, -5.7181));
-        put("SI", GeographicCoordinate.fromDecimalDegrees(46.0, 15.0));
-        put("SJ", GeographicCoordinate.fromDecimalDegrees(78.6351661, 21.9939078));
-        put("SK", GeographicCoordinate.fromDecimalDegrees(49.0, 20.0));
-        put("SL", GeographicCoordinate.fromDecimalDegrees(8.5, -12.1));
-        put("SM", GeographicCoordinate.fromDecimalDegrees(43.933333333, 12.466666666));
-        put("SN", GeographicCoordinate.fromDecimalDegrees(14.366667, -14.283333));
-        put("SO", GeographicCoordinate.fromDecimalDegrees(6.0, 47.0));
-        put("SR", GeographicCoordinate.fromDecimalDegrees(4.0, -56.0));
-        put("SS", GeographicCoordinate.fromDecimalDegrees(7.0, 30.0));
-        put("ST", GeographicCoordinate.fromDecimalDegrees(0.316667, 6.6));
-        put("SV", GeographicCoordinate.fromDecimalDegrees(13.668889, -88.866111));
-        put("SX", GeographicCoordinate.fromDecimalDegrees(18.031944444, -63.067777777));
-        put("SY", GeographicCoordinate.fromDecimalDegrees(35.216667, 38.583333));
-        put("SZ", GeographicCoordinate.fromDecimalDegrees(-26.483333, 31.433333));
-        put("TC", GeographicCoordinate.fromDecimalDegrees(21.78, -71.8));
-        put("TD", GeographicCoordinate.fromDecimalDegrees(15.466667, 19.4));
-        put("TF", GeographicCoordinate.fromDecimalDegrees(-43.0, 67.0));
-        put("TG", GeographicCoordinate.fromDecimalDegrees(8.25, 1.183333));
-        put("TH", GeographicCoordinate.fromDecimalDegrees(14.0, 101.0));
-        put("TJ", GeographicCoordinate.fromDecimalDegrees(38.583333, 71.366667));
-        put("TK", GeographicCoordinate.fromDecimalDegrees(-9.166666666, -171.833333333));
-        put("TL", GeographicCoordinate.fromDecimalDegrees(-8.966667, 125.75));
-        put("TM", GeographicCoordinate.fromDecimalDegrees(39.0, 60.0));
-        put("TN", GeographicCoordinate.fromDecimalDegrees(34.0, 10.0));
-        put("TO", GeographicCoordinate.fromDecimalDegrees(-20.587778, -174.810278));
-        put("TR", GeographicCoordinate.fromDecimalDegrees(39.0, 36.0));
-        put("TT", GeographicCoordinate.fromDecimalDegrees(10.666666666, -61.516666666));
-        put("TV", GeographicCoordinate.fromDecimalDegrees(-7.475, 178.005556));
-        put("TW", GeographicCoordinate.fromDecimalDegrees(24.0, 121.0));
-        put("TZ", GeographicCoordinate.fromDecimalDegrees(-6.306944444, 34.853888888));
-        put("UA", GeographicCoordinate.fromDecimalDegrees(49.0, 32.0));
-        put("UG", GeographicCoordinate.fromDecimalDegrees(1.28, 32.39));
-        put("UM", GeographicCoordinate.fromDecimalDegrees(19.3, 166.633333));
-        put("US", GeographicCoordinate.fromDecimalDegrees(39.828175, -98.5795));
-        put("UY", GeographicCoordinate.fromDecimalDegrees(-33.0, -56.0));
-        put("UZ", GeographicCoordinate.fromDecimalDegrees(41.0, 66.0));
-        put("VA", GeographicCoordinate.fromDecimalDegrees(41.904, 12.453));
-        put("VC", GeographicCoordinate.fromDecimalDegrees(12.9, -61.233333333));
-        put("VE", GeographicCoordinate.fromDecimalDegrees(8.0, -67.0));
-        put("VG", GeographicCoordinate.fromDecimalDegrees(18.445, -64.54));
-        put("VI", GeographicCoordinate.fromDecimalDegrees(18.333333, -64.833333));
-        put("VN", GeographicCoordinate.fromDecimalDegrees(16.0, 108.0));
-        put("VU", GeographicCoordinate.fromDecimalDegrees(-16.633330555, 168.016669444));
-        put("WF", GeographicCoordinate.fromDecimalDegrees(-14.30181, -178.10932));
-        put("WS", GeographicCoordinate.fromDecimalDegrees(-13.745, -172.2175));
-        put("YE", GeographicCoordinate.fromDecimalDegrees(15.5, 48.0));
-        put("YT", GeographicCoordinate.fromDecimalDegrees(-12.843055555, 45.138333333));
-        put("YU", GeographicCoordinate.fromDecimalDegrees(44.820555555, 20.462222222));
-        put("ZA", GeographicCoordinate.fromDecimalDegrees(-29.0, 24.0));
-        put("ZM", GeographicCoordinate.fromDecimalDegrees(-14.0, 28.0));
-        put("ZW", GeographicCoordinate.fromDecimalDegrees(-19.0, 30.0));
-    }};
-}
\ No newline at end of file
+class Regions {
+    /*
+    Approximate coordinates of every country (ISO 3166-1 alpha-2 code) and world region (M.49 code). The data comes from
+    Wikidata and is stored in the resource file regions.bin, which is generated by the script "regions.sh". See that
+    script for a description of the format.
+
+    The table is only loaded the first time it is needed: when the location is set to "auto", when the output of
+    /timesync location labels a location with its region, when locations are snapped to the nearest country
+    (snap_locations_to_regions), which builds the nearest-country index, and when the debug log names the region of a
+    player. Codes are stored sorted and packed into integers, so a lookup is a binary search over a primitive array.
+
+    The reverse lookup finds the country whose coordinates are the closest to a location. Countries are kept in a k-d
+    tree over the points of the unit sphere, so the distance doesn't break at the antimeridian and a query visits a
+    few nodes instead of every country. World regions (M.49 codes) are left out: their coordinates are in the middle of
+    whole continents.
+    */
+    static final String RESOURCE = "/regions.bin";
+    private static final int MAGIC = 0x53535247; // "SSRG"
+    private static final int VERSION = 1;
+    private static final int MAX_CODE_LENGTH = 4;
+
+    private Regions() {} // Disallow instantiation
+
+    private static class Table {
+        // Loaded by the JVM on first use
+        static final Table INSTANCE = load();
+
+        final int[] codes;
+        final float[] latitudes;
+        final float[] longitudes;
+
+        Table(int[] codes, float[] latitudes, float[] longitudes) {
+            this.codes = codes;
+            this.latitudes = latitudes;
+            this.longitudes = longitudes;
+        }
+
+        private static Table load() {
+            try (InputStream resource = Regions.class.getResourceAsStream(RESOURCE)) {
+                if (resource == null) throw new IllegalStateException(String.format("Resource %s not found", RESOURCE));
+
+                var in = new DataInputStream(resource);
+                if (in.readInt() != MAGIC || in.readInt() != VERSION) throw new IllegalStateException(String.format("Resource %s is not valid", RESOURCE));
+
+                int count = in.readInt();
+                int[] codes = new int[count];
+                float[] latitudes = new float[count];
+                float[] longitudes = new float[count];
+                for (int i = 0; i < count; i++) codes[i] = in.readInt();
+                for (int i = 0; i < count; i++) latitudes[i] = in.readFloat();
+                for (int i = 0; i < count; i++) longitudes[i] = in.readFloat();
+                return new Table(codes, latitudes, longitudes);
+            } catch (IOException e) {
+                throw new IllegalStateException(String.format("Could not read resource %s", RESOURCE), e);
+            }
+        }
+    }
+
+    private static class CountryIndex {
+        /*
+        Loaded by the JVM on first use. The tree is implicit: the node of a range of the arrays is the element in the
+        middle, the elements before it are on one side of the node and the elements after it on the other side. The
+        axis of the split is the depth of the node modulo 3.
+        */
+        static final CountryIndex INSTANCE = build(Table.INSTANCE);
+
+        final double[][] axes; // x, y and z of each country on the unit sphere
+        final int[] codes;
+        final float[] latitudes;
+        final float[] longitudes;
+
+        CountryIndex(double[][] axes, int[] codes, float[] latitudes, float[] longitudes) {
+            this.axes = axes;
+            this.codes = codes;
+            this.latitudes = latitudes;
+            this.longitudes = longitudes;
+        }
+
+        private static CountryIndex build(Table table) {
+            var countries = new Integer[table.codes.length];
+            int count = 0;
+            for (int i = 0; i < table.codes.length; i++) {
+                if (isCountryCode(table.codes[i])) countries[count++] = i;
+            }
+            countries = Arrays.copyOf(countries, count);
+
+            double[][] points = new double[3][table.codes.length];
+            for (int i = 0; i < table.codes.length; i++) {
+                double latitude = Math.toRadians(table.latitudes[i]);
+                double longitude = Math.toRadians(table.longitudes[i]);
+                points[0][i] = Math.cos(latitude) * Math.cos(longitude);
+                points[1][i] = Math.cos(latitude) * Math.sin(longitude);
+                points[2][i] = Math.sin(latitude);
+            }
+            arrange(countries, points, 0, count, 0);
+
+            var index = new CountryIndex(new double[3][count], new int[count], new float[count], new float[count]);
+            for (int i = 0; i < count; i++) {
+                int country = countries[i];
+                for (int axis = 0; axis < 3; axis++) index.axes[axis][i] = points[axis][country];
+                index.codes[i] = table.codes[country];
+                index.latitudes[i] = table.latitudes[country];
+                index.longitudes[i] = table.longitudes[country];
+            }
+            return index;
+        }
+
+        private static void arrange(Integer[] countries, double[][] points, int low, int high, int depth) {
+            // Only runs once, so sorting each range is good enough
+            if (high - low <= 1) return;
+
+            double[] axis = points[depth % 3];
+            Arrays.sort(countries, low, high, Comparator.comparingDouble((Integer country) -> axis[country]));
+            int middle = (low + high) >>> 1;
+            arrange(countries, points, low, middle, depth + 1);
+            arrange(countries, points, middle + 1, high, depth + 1);
+        }
+
+        int nearest(double x, double y, double z) {
+            return search(0, this.codes.length, 0, x, y, z, -1);
+        }
+
+        private int search(int low, int high, int depth, double x, double y, double z, int best) {
+            if (low >= high) return best;
+
+            int middle = (low + high) >>> 1;
+            if (best < 0 || squaredDistance(middle, x, y, z) < squaredDistance(best, x, y, z)) best = middle;
+
+            // Look first on the side of the query, then on the other side only if it may be closer
+            double[] axis = this.axes[depth % 3];
+            double delta = (depth % 3 == 0 ? x : depth % 3 == 1 ? y : z) - axis[middle];
+            if (delta < 0) {
+                best = search(low, middle, depth + 1, x, y, z, best);
+                if (delta * delta < squaredDistance(best, x, y, z)) best = search(middle + 1, high, depth + 1, x, y, z, best);
+            } else {
+                best = search(middle + 1, high, depth + 1, x, y, z, best);
+                if (delta * delta < squaredDistance(best, x, y, z)) best = search(low, middle, depth + 1, x, y, z, best);
+            }
+            return best;
+        }
+
+        private double squaredDistance(int country, double x, double y, double z) {
+            double dx = this.axes[0][country] - x;
+            double dy = this.axes[1][country] - y;
+            double dz = this.axes[2][country] - z;
+            return dx * dx + dy * dy + dz * dz;
+        }
+    }
+
+    static int size() {
+        return Table.INSTANCE.codes.length;
+    }
+
+    static GeographicCoordinate find(String code) {
+        // Returns the coordinates of the given region, or null if it's unknown
+        int key = packCode(code);
+        if (key == 0) return null;
+
+        var table = Table.INSTANCE;
+        int low = 0;
+        int high = table.codes.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int value = table.codes[middle];
+            if (value < key) {
+                low = middle + 1;
+            } else if (value > key) {
+                high = middle - 1;
+            } else {
+                return GeographicCoordinate.fromDecimalDegrees(table.latitudes[middle], table.longitudes[middle]);
+            }
+        }
+        return null;
+    }
+
+    static GeographicCoordinate getOrDefault(String code, GeographicCoordinate defaultCoordinate) {
+        var coordinate = find(code);
+        return coordinate != null ? coordinate : defaultCoordinate;
+    }
+
+    static int nearestCountry(double latitude, double longitude) {
+        // Index of the country closest to the given location, for countryCode(), countryLatitude() and
+        // countryLongitude(). It doesn't allocate, so it can be used for every player.
+        double latitudeRad = Math.toRadians(latitude);
+        double longitudeRad = Math.toRadians(longitude);
+        return CountryIndex.INSTANCE.nearest(Math.cos(latitudeRad) * Math.cos(longitudeRad), Math.cos(latitudeRad) * Math.sin(longitudeRad), Math.sin(latitudeRad));
+    }
+
+    static int countryCount() {
+        return CountryIndex.INSTANCE.codes.length;
+    }
+
+    static String countryCode(int country) {
+        return unpackCode(CountryIndex.INSTANCE.codes[country]);
+    }
+
+    static double countryLatitude(int country) {
+        return CountryIndex.INSTANCE.latitudes[country];
+    }
+
+    static double countryLongitude(int country) {
+        return CountryIndex.INSTANCE.longitudes[country];
+    }
+
+    static String label(GeographicCoordinate location) {
+        // The location followed by the country closest to it, for messages and logs
+        return String.format("%s (near %s)", location, countryCode(nearestCountry(location.latitude, location.longitude)));
+    }
+
+    private static boolean isCountryCode(int packed) {
+        // ISO 3166-1 alpha-2 codes are two capital letters
+        int first = packed >>> 24;
+        int second = (packed >>> 16) & 0xFF;
+        return first >= 'A' && first <= 'Z' && second >= 'A' && second <= 'Z' && (packed & 0xFFFF) == 0;
+    }
+
+    private static String unpackCode(int packed) {
+        var code = new StringBuilder(MAX_CODE_LENGTH);
+        for (int i = MAX_CODE_LENGTH - 1; i >= 0; i--) {
+            int character = (packed >>> (8 * i)) & 0xFF;
+            if (character != 0) code.append((char) character);
+        }
+        return code.toString();
+    }
+
+    private static int packCode(String code) {
+        // Same packing as in regions.sh. Returns 0 if the code cannot be packed.
+        if (code == null || code.isEmpty() || code.length() > MAX_CODE_LENGTH) return 0;
+
+        int packed = 0;
+        for (int i = 0; i < MAX_CODE_LENGTH; i++) {
+            int character = i < code.length() ? code.charAt(i) : 0;
+            if (character > 0x7F) return 0;
+            packed = (packed << 8) | character;
+        }
+        return packed;
+    }
+}
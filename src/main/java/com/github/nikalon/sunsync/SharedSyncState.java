@@ -0,0 +1,161 @@
+package com.github.nikalon.sunsync;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+class SharedSyncState implements AutoCloseable {
+    /*
+    Synchronization state shared by several servers running on the same host. One of them (the leader) is elected by
+    holding a lock on the shared file, computes the time as usual and publishes it into a small memory-mapped file. The
+    rest of the servers (the followers) just read the published values, so the sky is computed only once per host and
+    all servers show exactly the same sky.
+
+    The file is written using a seqlock: the leader increments the sequence number before and after writing the data,
+    so the sequence number is odd while a write is in progress. Followers read the sequence number, then the data and
+    then the sequence number again. If both sequence numbers are equal and even the data was not modified while reading
+    it. Reading the state is just a few memory reads, no system calls are involved.
+
+    Layout of the file (8-byte aligned longs in native byte order):
+    0   sequence number
+    8   Minecraft time of the day
+    16  Minecraft day
+    24  heartbeat. Time when the leader published the data (milliseconds since the UNIX epoch)
+    */
+    private static final int SEQUENCE_OFFSET = 0;
+    private static final int MINECRAFT_TIME_OFFSET = 8;
+    private static final int MINECRAFT_DAY_OFFSET = 16;
+    private static final int HEARTBEAT_OFFSET = 24;
+    private static final int DATA_SIZE = 32;
+
+    // The lock is taken on a byte past the data, so it never interferes with the readers on any platform
+    private static final long LOCK_POSITION = DATA_SIZE;
+    private static final int MAX_READ_ATTEMPTS = 64;
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private FileLock leaderLock;
+
+    private SharedSyncState(Path path, FileChannel channel, MappedByteBuffer buffer) {
+        this.path = path;
+        this.channel = channel;
+        this.buffer = buffer;
+    }
+
+    static SharedSyncState open(Path path) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+
+        var channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            var buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, DATA_SIZE);
+            return new SharedSyncState(path, channel, buffer);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    Path getPath() {
+        return this.path;
+    }
+
+    boolean isLeader() {
+        return this.leaderLock != null && this.leaderLock.isValid();
+    }
+
+    boolean tryBecomeLeader() throws IOException {
+        // Returns true if this server is the leader. The lock is released by the operating system when the process
+        // holding it dies, so another server can take over.
+        if (isLeader()) return true;
+
+        try {
+            this.leaderLock = this.channel.tryLock(LOCK_POSITION, 1, false);
+        } catch (OverlappingFileLockException e) {
+            // The lock is already held by another plugin instance in this same JVM
+            this.leaderLock = null;
+        }
+        if (this.leaderLock != null) {
+            // A previous leader may have died in the middle of a write and left an odd sequence number behind
+            long sequence = (long) LONGS.getVolatile(this.buffer, SEQUENCE_OFFSET);
+            if ((sequence & 1) != 0) LONGS.setVolatile(this.buffer, SEQUENCE_OFFSET, sequence + 1);
+        }
+
+        return this.leaderLock != null;
+    }
+
+    void publish(long minecraftTime, long minecraftDay, long heartbeatMillis) {
+        // Only the leader is allowed to write
+        if (! isLeader()) return;
+
+        long sequence = (long) LONGS.getVolatile(this.buffer, SEQUENCE_OFFSET);
+        LONGS.setVolatile(this.buffer, SEQUENCE_OFFSET, sequence + 1);
+        LONGS.setVolatile(this.buffer, MINECRAFT_TIME_OFFSET, minecraftTime);
+        LONGS.setVolatile(this.buffer, MINECRAFT_DAY_OFFSET, minecraftDay);
+        LONGS.setVolatile(this.buffer, HEARTBEAT_OFFSET, heartbeatMillis);
+        LONGS.setVolatile(this.buffer, SEQUENCE_OFFSET, sequence + 2);
+    }
+
+    Snapshot read() {
+        // Returns the last published state, or null if it could not be read consistently or nothing was ever published
+        for (int attempt = 0; attempt < MAX_READ_ATTEMPTS; attempt++) {
+            long sequenceBefore = (long) LONGS.getVolatile(this.buffer, SEQUENCE_OFFSET);
+            if ((sequenceBefore & 1) != 0) {
+                // Write in progress
+                Thread.onSpinWait();
+                continue;
+            }
+
+            long minecraftTime = (long) LONGS.getVolatile(this.buffer, MINECRAFT_TIME_OFFSET);
+            long minecraftDay = (long) LONGS.getVolatile(this.buffer, MINECRAFT_DAY_OFFSET);
+            long heartbeatMillis = (long) LONGS.getVolatile(this.buffer, HEARTBEAT_OFFSET);
+
+            long sequenceAfter = (long) LONGS.getVolatile(this.buffer, SEQUENCE_OFFSET);
+            if (sequenceBefore == sequenceAfter) {
+                if (sequenceBefore == 0) return null; // Empty file
+                return new Snapshot(minecraftTime, minecraftDay, heartbeatMillis);
+            }
+        }
+
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (this.leaderLock != null && this.leaderLock.isValid()) {
+                this.leaderLock.release();
+            }
+        } finally {
+            this.leaderLock = null;
+            this.channel.close();
+        }
+    }
+
+    static class Snapshot {
+        public final long minecraftTime;
+        public final long minecraftDay;
+        public final long heartbeatMillis;
+
+        Snapshot(long minecraftTime, long minecraftDay, long heartbeatMillis) {
+            this.minecraftTime = minecraftTime;
+            this.minecraftDay = minecraftDay;
+            this.heartbeatMillis = heartbeatMillis;
+        }
+
+        boolean isStale(long nowMillis, long maxAgeMillis) {
+            return nowMillis - this.heartbeatMillis > maxAgeMillis;
+        }
+    }
+}
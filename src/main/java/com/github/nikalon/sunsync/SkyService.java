@@ -0,0 +1,61 @@
+package com.github.nikalon.sunsync;
+
+import java.util.function.Consumer;
+
+import org.bukkit.event.Event;
+
+class SkyService implements SunSyncService {
+    // Keeps the latest snapshot for other plugins and announces the changes of the sky. Updated from the main thread
+    // after every synchronization. Events are only called when the period of the sky or the Moon phase differ from the
+    // previous snapshot, so each transition is announced once no matter how often the time is synchronized.
+    //
+    // The events of the EventCalendar between two snapshots are announced too. Jumps longer than MAX_EVENT_SPAN_SECONDS
+    // are changes of the clock, not the passing of time, so they don't announce anything.
+    static final long MAX_EVENT_SPAN_SECONDS = 31 * 86400L;
+
+    private final Consumer<Event> eventSink; // PluginManager::callEvent in the plugin
+    private volatile SkySnapshot snapshot;
+    private long transitions;
+
+    SkyService(Consumer<Event> eventSink) {
+        this.eventSink = eventSink;
+    }
+
+    @Override
+    public SkySnapshot getSkySnapshot() {
+        return this.snapshot;
+    }
+
+    long getTransitions() {
+        // Number of events called so far
+        return this.transitions;
+    }
+
+    void update(SkySnapshot next) {
+        var previous = this.snapshot;
+        this.snapshot = next;
+        if (previous == null) return; // Nothing has changed yet
+
+        if (previous.skyPeriod != next.skyPeriod) {
+            this.transitions++;
+            this.eventSink.accept(new SkyTransitionEvent(previous.skyPeriod, next.skyPeriod, next));
+        }
+        if (previous.moonPhaseName != next.moonPhaseName) {
+            this.transitions++;
+            this.eventSink.accept(new MoonPhaseChangeEvent(previous.moonPhaseName, next.moonPhaseName, next));
+        }
+
+        long span = next.epochSecond - previous.epochSecond;
+        if (span > 0 && span <= MAX_EVENT_SPAN_SECONDS) {
+            for (int i = EventCalendar.indexAfter(previous.epochSecond); i < EventCalendar.size() && EventCalendar.epochSecond(i) <= next.epochSecond; i++) {
+                this.transitions++;
+                this.eventSink.accept(new CelestialEvent(EventCalendar.kind(i), EventCalendar.epochSecond(i), next));
+            }
+        }
+    }
+
+    void clear() {
+        // Forgets the last snapshot, so the next one does not call any event
+        this.snapshot = null;
+    }
+}
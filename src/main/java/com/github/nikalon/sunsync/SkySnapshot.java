@@ -0,0 +1,111 @@
+package com.github.nikalon.sunsync;
+
+import com.github.nikalon.sunsync.Sun.GeographicCoordinate;
+import com.github.nikalon.sunsync.Sun.SolarEvents;
+
+public final class SkySnapshot {
+    /*
+    The real sky at the location of the server as of the last synchronization. It's immutable, so other plugins may keep
+    it and read it from any thread. Times are seconds since the UNIX epoch (UTC), or NO_EVENT when the event does not
+    happen today (polar days and nights).
+    */
+    public static final long NO_EVENT = Long.MIN_VALUE;
+
+    public enum SkyPeriod {
+        // From the brightest to the darkest. The Sun is above the horizon during DAY, and less than 6, 12 or 18 degrees
+        // below it during each twilight.
+        DAY,
+        CIVIL_TWILIGHT,
+        NAUTICAL_TWILIGHT,
+        ASTRONOMICAL_TWILIGHT,
+        NIGHT;
+
+        public boolean isDarkerThan(SkyPeriod other) {
+            return this.ordinal() > other.ordinal();
+        }
+    }
+
+    public enum MoonPhase {
+        NEW_MOON,
+        WAXING_CRESCENT,
+        FIRST_QUARTER,
+        WAXING_GIBBOUS,
+        FULL_MOON,
+        WANING_GIBBOUS,
+        LAST_QUARTER,
+        WANING_CRESCENT;
+
+        private static final MoonPhase[] PHASES = values(); // values() copies the array on every call
+
+        static MoonPhase of(double phase) {
+            // Phase as a fraction of the lunar cycle, starting at the new Moon
+            return PHASES[(int) Math.round(Helper.modulo(phase, 1.0) * 8) % 8];
+        }
+    }
+
+    public final long epochSecond;      // Time of the snapshot
+    public final double latitude;       // Degrees
+    public final double longitude;      // Degrees
+    public final long minecraftTime;    // Time of the day given to the worlds, from 0 to 24000
+    public final long minecraftDay;     // Day given to the worlds, which sets the Minecraft Moon phase
+    public final double sunAltitude;    // Altitude of the centre of the Sun in degrees
+    public final SkyPeriod skyPeriod;
+    public final double moonPhase;      // Fraction of the lunar cycle, from 0 (new Moon) to 1
+    public final MoonPhase moonPhaseName;
+
+    // Today's events
+    public final long solarNoon;
+    public final long sunrise;
+    public final long sunset;
+    public final long civilDawn;
+    public final long civilDusk;
+    public final long nauticalDawn;
+    public final long nauticalDusk;
+    public final long astronomicalDawn;
+    public final long astronomicalDusk;
+
+    public final long nextSunriseOrSunset; // NO_EVENT if the Sun does not rise or set in the next day
+
+    SkySnapshot(long epochSecond, GeographicCoordinate location, long minecraftTime, long minecraftDay, double sunAltitude, SkyPeriod skyPeriod, double moonPhase, SolarEvents today, long nextSunriseOrSunset) {
+        this.epochSecond = epochSecond;
+        this.latitude = location.latitude;
+        this.longitude = location.longitude;
+        this.minecraftTime = minecraftTime;
+        this.minecraftDay = minecraftDay;
+        this.sunAltitude = sunAltitude;
+        this.skyPeriod = skyPeriod;
+        this.moonPhase = moonPhase;
+        this.moonPhaseName = MoonPhase.of(moonPhase);
+        this.solarNoon = today.noonEpochSecond;
+        this.sunrise = rise(today, SolarEvents.SUNRISE_AND_SUNSET);
+        this.sunset = set(today, SolarEvents.SUNRISE_AND_SUNSET);
+        this.civilDawn = rise(today, SolarEvents.CIVIL_TWILIGHT);
+        this.civilDusk = set(today, SolarEvents.CIVIL_TWILIGHT);
+        this.nauticalDawn = rise(today, SolarEvents.NAUTICAL_TWILIGHT);
+        this.nauticalDusk = set(today, SolarEvents.NAUTICAL_TWILIGHT);
+        this.astronomicalDawn = rise(today, SolarEvents.ASTRONOMICAL_TWILIGHT);
+        this.astronomicalDusk = set(today, SolarEvents.ASTRONOMICAL_TWILIGHT);
+        this.nextSunriseOrSunset = nextSunriseOrSunset;
+    }
+
+    private static long rise(SolarEvents events, int level) {
+        return events.occurs(level) ? events.riseEpochSecond(level) : NO_EVENT;
+    }
+
+    private static long set(SolarEvents events, int level) {
+        return events.occurs(level) ? events.setEpochSecond(level) : NO_EVENT;
+    }
+
+    public boolean isDaytime() {
+        return this.skyPeriod == SkyPeriod.DAY;
+    }
+
+    public long secondsToNextSunriseOrSunset() {
+        // -1 if there is none in the next day
+        return this.nextSunriseOrSunset == NO_EVENT ? -1 : this.nextSunriseOrSunset - this.epochSecond;
+    }
+
+    public String toString() {
+        return String.format("%s at %d: %s, Sun at %.1f°, %s (%.2f), Minecraft time %d", GeographicCoordinate.fromDecimalDegrees(latitude, longitude), epochSecond, skyPeriod, sunAltitude, moonPhaseName, moonPhase, minecraftTime);
+    }
+}
@@ -0,0 +1,52 @@
+package com.github.nikalon.sunsync;
+
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+
+import com.github.nikalon.sunsync.SkySnapshot.SkyPeriod;
+
+public final class SkyTransitionEvent extends Event {
+    // Called on the main thread once per change of the real sky at the location of the server: sunrise, sunset and the
+    // start and end of each twilight. If several changes happen between two synchronizations only one event is called,
+    // from the old period to the new one.
+    private static final HandlerList HANDLERS = new HandlerList();
+
+    private final SkyPeriod from;
+    private final SkyPeriod to;
+    private final SkySnapshot snapshot;
+
+    SkyTransitionEvent(SkyPeriod from, SkyPeriod to, SkySnapshot snapshot) {
+        this.from = from;
+        this.to = to;
+        this.snapshot = snapshot;
+    }
+
+    public SkyPeriod getFrom() {
+        return from;
+    }
+
+    public SkyPeriod getTo() {
+        return to;
+    }
+
+    public SkySnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public boolean isSunrise() {
+        return to == SkyPeriod.DAY;
+    }
+
+    public boolean isSunset() {
+        return from == SkyPeriod.DAY;
+    }
+
+    @Override
+    public HandlerList getHandlers() {
+        return HANDLERS;
+    }
+
+    public static HandlerList getHandlerList() {
+        return HANDLERS;
+    }
+}
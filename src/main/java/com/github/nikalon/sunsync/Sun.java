@@ -14,15 +14,32 @@ class Sun {
     // UT   Universal Time (this program will assume UTC = UT)
 
     private static final double VERTICAL_SHIFT_SINE = 0.00989061960670350512825686013281; // sine of 0.5667 degrees
+    private static final double SIDEREAL_TO_SOLAR = 0.9972695663;
+    private static final long SECONDS_PER_DAY = 86400;
+    private static final long SIDEREAL_DAY_SECONDS = Math.round(SECONDS_PER_DAY * SIDEREAL_TO_SOLAR);
+
+    // Sine of the altitude of the centre of the Sun at each kind of event returned by solarEvents(). The order matches
+    // the levels defined in SolarEvents.
+    private static final double[] EVENT_ALTITUDE_SINES = {
+        -VERTICAL_SHIFT_SINE,           // Sunrise and sunset
+        Math.sin(Math.toRadians(-6)),   // Civil twilight
+        Math.sin(Math.toRadians(-12)),  // Nautical twilight
+        Math.sin(Math.toRadians(-18)),  // Astronomical twilight
+    };
 
     private Sun() {} // Disallow instantiation
 
     static LocalTime GSTToUT(double GSTHour, int gDay, int gMonth, int gYear) {
-        double julian_date = Helper.GreenwichToJulianDate(gDay, gMonth, gYear);
-        double S = julian_date - 2451545.0;
-        double T = S / 36525.0;
-        double T0 = Helper.modulo((6.697374558 + (2400.051336 * T) + (0.000025862 * Math.pow(T, 2))), 24);
-        double B = Helper.modulo((GSTHour - T0), 24) * 0.9972695663;
+        return GSTToUT(GSTHour, AstronomicalTime.of(gDay, gMonth, gYear));
+    }
+
+    static double GSTToUTHours(double GSTHour, AstronomicalTime time) {
+        double T0 = time.greenwichSiderealTimeAtMidnight;
+        return Helper.modulo((GSTHour - T0), 24) * SIDEREAL_TO_SOLAR;
+    }
+
+    static LocalTime GSTToUT(double GSTHour, AstronomicalTime time) {
+        double B = GSTToUTHours(GSTHour, time);
 
         // Split decimal hours into three integers: hour, minute and second
         double minute_d = (B - ((int) B)); // Get decimal value of hours
@@ -42,7 +59,7 @@ class Sun {
         return LocalTime.of(hour, minute, second);
     }
 
-    static RiseAndSet riseAndSet(EquatorialCoordinate eqCoord, GeographicCoordinate geoCoord, int gDay, int gMonth, int gYear) throws NeverRaisesException, NeverSetsException {
+    static RiseAndSet riseAndSet(EquatorialCoordinate eqCoord, GeographicCoordinate geoCoord, AstronomicalTime time) throws NeverRaisesException, NeverSetsException {
         double alpha_deg = eqCoord.rightAscension;
         double delta_rad = Math.toRadians(eqCoord.declination);
         double phi_rad = Math.toRadians(geoCoord.latitude);
@@ -67,18 +84,18 @@ class Sun {
         double set_GST_hour = Helper.modulo((set_LST - longitude_deg), 24);
 
         // Convert from GST to UT
-        LocalDate date = LocalDate.of(gYear, gMonth, gDay);
-        LocalTime rise_UT = GSTToUT(rise_GST_hour, gDay, gMonth, gYear);
-        LocalTime set_UT = GSTToUT(set_GST_hour, gDay, gMonth, gYear);
+        LocalDate date = time.date();
+        LocalTime rise_UT = GSTToUT(rise_GST_hour, time);
+        LocalTime set_UT = GSTToUT(set_GST_hour, time);
 
         return new RiseAndSet(LocalDateTime.of(date, rise_UT), LocalDateTime.of(date, set_UT));
     }
 
-    static double meanAnomaly(double gDay, int gMonth, int gYear) {
+    static double meanAnomaly(AstronomicalTime time) {
         // TODO: Use TT (Terrestrial Time) for better accuracy when calculating the position of the Sun
 
         // The epoch is January 0.0 2010
-        double D = Helper.GreenwichToJulianDate(gDay, gMonth, gYear) - Helper.GreenwichToJulianDate(0, 1, 2010);
+        double D = time.daysSinceEpoch;
         double N = Helper.modulo(((360 / 365.242191) * D), 360);
 
         double epsilon = 279.557208;
@@ -88,9 +105,9 @@ class Sun {
         return M;
     }
 
-    static double eclipticLongitude(double gDay, int gMonth, int gYear) {
+    static double eclipticLongitude(AstronomicalTime time) {
         // Calculate the position of the Sun at a specified date. The epoch is January 0.0 2010.
-        double D = Helper.GreenwichToJulianDate(gDay, gMonth, gYear) - Helper.GreenwichToJulianDate(0, 1, 2010);
+        double D = time.daysSinceEpoch;
         double N = Helper.modulo(((360 / 365.242191) * D), 360);
 
         double epsilon = 279.557208;
@@ -104,19 +121,53 @@ class Sun {
         return ecliptic_longitude;
     }
 
-    static EquatorialCoordinate sunPositionAtDay(double gDay, int gMonth, int gYear) {
-        double sun_ecliptic_longitude = eclipticLongitude(gDay, gMonth, gYear);
+    static EquatorialCoordinate sunPositionAtDay(AstronomicalTime time) {
+        double sun_ecliptic_longitude = eclipticLongitude(time);
         EclipticCoordinate ecl_coord = new EclipticCoordinate(0, sun_ecliptic_longitude);
-        return ecl_coord.toEquatorial(gDay, gMonth, gYear);
+        return ecl_coord.toEquatorial(time);
     }
 
     static RiseAndSet sunriseAndSunsetTimes(GeographicCoordinate geo_coord, LocalDate date) throws NeverRaisesException, NeverSetsException {
         // Calculates the approximate UTC times of sunrise and sunset (at sea level) given by a geographical location
         // on Earth and a date. The returned times should be correct within a few minutes of the real times. It is not
         // intended to be an exact calculation.
-        double day = ((double) date.getDayOfMonth()) + 0.5;
-        EquatorialCoordinate sun_pos = sunPositionAtDay(day, date.getMonthValue(), date.getYear());
-        return riseAndSet(sun_pos, geo_coord, date.getDayOfMonth(), date.getMonthValue(), date.getYear());
+        // The position of the Sun is taken at midday. The same instant is used to convert sidereal times into UT.
+        AstronomicalTime time = AstronomicalTime.of(date.atTime(12, 0));
+        EquatorialCoordinate sun_pos = sunPositionAtDay(time);
+        return riseAndSet(sun_pos, geo_coord, time);
+    }
+
+    static SolarEvents solarEvents(GeographicCoordinate geo_coord, LocalDate date) {
+        // Calculates the solar noon of the given date and, around it, the sunrise and sunset and the three twilights.
+        // Same model as sunriseAndSunsetTimes(): the position of the Sun is taken at midday and the sidereal times are
+        // converted into UT once, so all the events cost about the same as the sunrise and sunset alone.
+        return latitudeBand(geo_coord.latitude, date).solarEvents(geo_coord.longitude);
+    }
+
+    static LatitudeBand latitudeBand(double latitude, LocalDate date) {
+        // The part of solarEvents() that does not depend on the longitude
+        AstronomicalTime time = AstronomicalTime.of(date.atTime(12, 0));
+        EquatorialCoordinate sun_pos = sunPositionAtDay(time);
+
+        double phi_rad = Math.toRadians(latitude);
+        double delta_rad = Math.toRadians(sun_pos.declination);
+        double sin_phi_sin_delta = Math.sin(phi_rad) * Math.sin(delta_rad);
+        double cos_phi_cos_delta = Math.cos(phi_rad) * Math.cos(delta_rad);
+
+        long[] half_day_seconds = new long[SolarEvents.LEVELS];
+        for (int level = 0; level < SolarEvents.LEVELS; level++) {
+            double hour_angle_cosine = (EVENT_ALTITUDE_SINES[level] - sin_phi_sin_delta) / cos_phi_cos_delta;
+            if (hour_angle_cosine > 1) {
+                half_day_seconds[level] = SolarEvents.ALWAYS_BELOW;
+            } else if (hour_angle_cosine < -1) {
+                half_day_seconds[level] = SolarEvents.ALWAYS_ABOVE;
+            } else {
+                double hour_angle_hours = Math.toDegrees(Math.acos(hour_angle_cosine)) / 15;
+                half_day_seconds[level] = Math.round(hour_angle_hours * SIDEREAL_TO_SOLAR * 3600);
+            }
+        }
+
+        return new LatitudeBand(date, time, sun_pos.rightAscension, sin_phi_sin_delta, cos_phi_cos_delta, half_day_seconds);
     }
 
     static class GeographicCoordinate {
@@ -158,6 +209,135 @@ class Sun {
         }
     }
 
+    static class LatitudeBand {
+        // Solar events of a day along a whole parallel. The length of the day only depends on the latitude and the
+        // date, and the longitude only shifts the events in time: the Sun crosses the meridian when the local sidereal
+        // time equals its right ascension. So the events of any longitude cost one conversion from sidereal time.
+        public final LocalDate date;
+        private final AstronomicalTime time;
+        private final double noonLocalSiderealTime; // In hours
+        private final double rightAscensionRate; // Hours of right ascension per hour of time, 0 to ignore its change
+        private final double sinLatitudeSinDeclination;
+        private final double cosLatitudeCosDeclination;
+        private final long[] morningSeconds; // Shared by all the SolarEvents of this band, which never modify them
+        private final long[] eveningSeconds;
+        private final double[] morningDrift; // Change of morningSeconds per day, null to ignore it
+        private final double[] eveningDrift;
+
+        LatitudeBand(LocalDate date, AstronomicalTime time, double noonLocalSiderealTime, double sinLatitudeSinDeclination, double cosLatitudeCosDeclination, long[] halfDaySeconds) {
+            this(date, time, noonLocalSiderealTime, 0.0, sinLatitudeSinDeclination, cosLatitudeCosDeclination, halfDaySeconds, halfDaySeconds, null, null);
+        }
+
+        LatitudeBand(LocalDate date, AstronomicalTime time, double noonLocalSiderealTime, double rightAscensionRate, double sinLatitudeSinDeclination, double cosLatitudeCosDeclination,
+                long[] morningSeconds, long[] eveningSeconds, double[] morningDrift, double[] eveningDrift) {
+            // The morning and the evening of a level may only differ in their length, they must agree on whether the
+            // level is crossed at all. Everything is given for the noon at the meridian of Greenwich. The rates and
+            // drifts move it to the noon of the other meridians, which happens up to half a day earlier or later.
+            this.date = date;
+            this.time = time;
+            this.noonLocalSiderealTime = noonLocalSiderealTime;
+            this.rightAscensionRate = rightAscensionRate;
+            this.sinLatitudeSinDeclination = sinLatitudeSinDeclination;
+            this.cosLatitudeCosDeclination = cosLatitudeCosDeclination;
+            this.morningSeconds = morningSeconds;
+            this.eveningSeconds = eveningSeconds;
+            this.morningDrift = morningDrift;
+            this.eveningDrift = eveningDrift;
+        }
+
+        SolarEvents solarEvents(double longitude) {
+            // Convert from LST to GST, and from GST to UT
+            double noon_LST_hour = this.noonLocalSiderealTime - this.rightAscensionRate * longitude / 15;
+            double noon_GST_hour = Helper.modulo(noon_LST_hour - longitude / 15, 24);
+            long noon = this.date.toEpochDay() * SECONDS_PER_DAY + Math.round(GSTToUTHours(noon_GST_hour, this.time) * 3600);
+
+            // The conversion gives a time within the sidereal day that starts at 0h UT, which may belong to the day
+            // before or after near the antimeridian. Take the noon closest to the mean solar noon of the given date. The
+            // same sidereal time comes back after a sidereal day, not after a solar day.
+            long mean_noon = this.date.toEpochDay() * SECONDS_PER_DAY + Math.round((12 - longitude / 15) * 3600);
+            if (noon - mean_noon > SECONDS_PER_DAY / 2) noon -= SIDEREAL_DAY_SECONDS;
+            else if (mean_noon - noon > SECONDS_PER_DAY / 2) noon += SIDEREAL_DAY_SECONDS;
+
+            if (this.morningDrift == null) {
+                return new SolarEvents(noon, this.sinLatitudeSinDeclination, this.cosLatitudeCosDeclination, this.morningSeconds, this.eveningSeconds);
+            }
+
+            double days = (noon - mean_noon) / (double) SECONDS_PER_DAY - longitude / 360;
+            return new SolarEvents(noon, this.sinLatitudeSinDeclination, this.cosLatitudeCosDeclination,
+                drifted(this.morningSeconds, this.morningDrift, days), drifted(this.eveningSeconds, this.eveningDrift, days));
+        }
+
+        private static long[] drifted(long[] seconds, double[] drift, double days) {
+            var result = new long[seconds.length];
+            for (int level = 0; level < seconds.length; level++) {
+                result[level] = seconds[level] >= 0 ? Math.max(0, seconds[level] + Math.round(drift[level] * days)) : seconds[level];
+            }
+            return result;
+        }
+    }
+
+    static class SolarEvents {
+        // Events of a day as seconds since the UNIX epoch (UTC). Each level is an altitude of the centre of the Sun:
+        // the Sun rises above it in the morning and sets below it in the evening, or it stays on one side all day.
+        static final int SUNRISE_AND_SUNSET = 0;
+        static final int CIVIL_TWILIGHT = 1;        // -6 degrees
+        static final int NAUTICAL_TWILIGHT = 2;     // -12 degrees
+        static final int ASTRONOMICAL_TWILIGHT = 3; // -18 degrees
+        static final int LEVELS = 4;
+
+        static final long ALWAYS_ABOVE = -1;
+        static final long ALWAYS_BELOW = -2;
+
+        public final long noonEpochSecond;
+        private final double sinLatitudeSinDeclination;
+        private final double cosLatitudeCosDeclination;
+        private final long[] morningSeconds; // Time from the rise to the noon for each level, or ALWAYS_*
+        private final long[] eveningSeconds; // Time from the noon to the set for each level, or ALWAYS_*
+
+        SolarEvents(long noonEpochSecond, double sinLatitudeSinDeclination, double cosLatitudeCosDeclination, long[] morningSeconds, long[] eveningSeconds) {
+            this.noonEpochSecond = noonEpochSecond;
+            this.sinLatitudeSinDeclination = sinLatitudeSinDeclination;
+            this.cosLatitudeCosDeclination = cosLatitudeCosDeclination;
+            this.morningSeconds = morningSeconds;
+            this.eveningSeconds = eveningSeconds;
+        }
+
+        double noonAltitude() {
+            // Degrees
+            return altitude(this.noonEpochSecond);
+        }
+
+        double altitude(long epochSecond) {
+            // Altitude of the centre of the Sun in degrees at the given time, which should be less than 12 hours away
+            // from the noon. The declination of the Sun is the one of the noon.
+            double hour_angle_rad = Math.toRadians((epochSecond - this.noonEpochSecond) / 3600.0 / SIDEREAL_TO_SOLAR * 15);
+            double altitude_sine = this.sinLatitudeSinDeclination + this.cosLatitudeCosDeclination * Math.cos(hour_angle_rad);
+            return Math.toDegrees(Math.asin(Math.max(-1, Math.min(1, altitude_sine))));
+        }
+
+        boolean occurs(int level) {
+            return this.morningSeconds[level] >= 0;
+        }
+
+        boolean isAlwaysAbove(int level) {
+            return this.morningSeconds[level] == ALWAYS_ABOVE;
+        }
+
+        boolean isAlwaysBelow(int level) {
+            return this.morningSeconds[level] == ALWAYS_BELOW;
+        }
+
+        long riseEpochSecond(int level) {
+            // Only valid if occurs(level)
+            return this.noonEpochSecond - this.morningSeconds[level];
+        }
+
+        long setEpochSecond(int level) {
+            // Only valid if occurs(level)
+            return this.noonEpochSecond + this.eveningSeconds[level];
+        }
+    }
+
     static class NeverRaisesException extends Exception {
         public NeverRaisesException() {
             super("The celestial object never raises above the horizon!");
@@ -1,33 +1,51 @@
 package com.github.nikalon.sunsync;
 
+import java.io.IOException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
 import java.time.Clock;
-import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.ZoneOffset;
-import java.util.ArrayList;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
+import org.bukkit.Location;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
 import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.HandlerList;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerBedEnterEvent;
 import org.bukkit.event.player.PlayerCommandPreprocessEvent;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerMoveEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.player.PlayerRespawnEvent;
+import org.bukkit.event.player.PlayerTeleportEvent;
 import org.bukkit.event.server.ServerCommandEvent;
 import org.bukkit.event.world.TimeSkipEvent;
-import org.bukkit.event.world.TimeSkipEvent.SkipReason;
+import org.bukkit.plugin.ServicePriority;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.bukkit.scheduler.BukkitTask;
 
@@ -37,42 +55,40 @@ import com.comphenix.protocol.ProtocolManager;
 import com.comphenix.protocol.events.ListenerPriority;
 import com.comphenix.protocol.events.PacketAdapter;
 import com.comphenix.protocol.events.PacketEvent;
-import com.github.nikalon.sunsync.Sun.NeverRaisesException;
-import com.github.nikalon.sunsync.Sun.NeverSetsException;
-import com.github.nikalon.sunsync.Sun.RiseAndSet;
 
 public class SunSync extends JavaPlugin implements Runnable, Listener {
     private static final long ONE_SECOND_IN_MINECRAFT_TICKS = 20L;
-    private static final long MINECRAFT_DAY_LENGTH_TICKS    = 14000;
-    private static final long MINECRAFT_NIGHT_LENGTH_TICKS  = 10000;
-    private static final long MINECRAFT_DAY_IN_TICKS        = 24000;
-    private static final int  MINECRAFT_TOTAL_MOON_PHASES   = 8;
 
-    // Sunrise time start as seen from the game. We cannot start from day -1000, so we use the next valid sunrise time.
-    private static final long MINECRAFT_SUNRISE_START_TICKS = 23000;
+    private static final double WARP_CLOCK_MIN_SPEED = 1.0;
+    private static final double WARP_CLOCK_MAX_SPEED = 100000.0;
 
-    // Sunset time start as seen from the game
-    private static final long MINECRAFT_SUNSET_START_TICKS  = 37000;
-
-    private static final long MINECRAFT_MIDDAY_TICKS        = 30000;
-    private static final long MINECRAFT_MIDNIGHT_TICKS      = 42000;
-    private static final int  MINECRAFT_NEW_MOON_DAY_START  = 4;
+    private static final int EVENTS_DEFAULT_COUNT = 5;
+    private static final int EVENTS_MAX_COUNT = 20;
+    private static final int DRIFT_MAX_OFFENDERS = 5;
 
     private Configuration configuration;
-    private Clock systemClock;
-    private long currentMinecraftTime;
-    private long currentMinecraftDay;
-    private boolean paused;
+    private TimeSynchronizer timeSynchronizer;
+    private TimeSyncTask syncTask;
+    private TimePacketRewriter timePacketRewriter;
+    private SkyService skyService;
 
     private BukkitTask task;
+    private BukkitTask worldTimeTask; // null unless the worlds are updated a few at a time
+    private WorldTimeScheduler worldTimeScheduler; // null if the time is applied to all worlds at once
     private Logger logger;
     private ProtocolManager protocolManager;
     private PacketAdapter packetPlayOutUpdateTimeListener;
-
-    private LocalDate lastUpdated; // Used to cache sunrise and sunset calculations for a day
-    private RiseAndSet todayEvents;
-    private RiseAndSet yesterdayEvents;
-    private RiseAndSet tomorrowEvents;
+    private PacketAdapter packetPlayOutUpdateTimeMonitor; // Sees the packets after every other plugin
+    private SharedSyncState sharedSyncState; // null if the time is not shared with other servers
+    private volatile GeoIpIndex geoIpIndex; // null until the database is loaded
+    private LocationTimeCache locationTimeCache;
+    private final SyncMetrics metrics = new SyncMetrics();
+    private final DriftMonitor driftMonitor = new DriftMonitor();
+    private MetricsServer metricsServer; // null if the metrics endpoint is disabled
+    private final SyncClock systemClock = new SyncClock(); // Base of every clock given to the synchronization task
+    private PlayerPreferencesStore playerPreferences; // null while the plugin is disabled
+    private final Map<String, Forecast> forecasts = new HashMap<>(); // Last forecast of each command sender
+    private final Set<String> pendingForecasts = new HashSet<>(); // Senders waiting for a forecast
 
     // Parameters used in /timesync command
     private final Hashtable<String, ParameterParser> commandParameters = new Hashtable<String, ParameterParser>(){{
@@ -80,33 +96,24 @@ public class SunSync extends JavaPlugin implements Runnable, Listener {
         put("syncIntervalSec", (sender, args) -> parseSyncIntervalSecCommand(sender, args));
         put("clock", (sender, args) -> parseClockCommand(sender, args));
         put("debugMode", (sender, args) -> parseDebugModeCommand(sender, args));
+        put("moon", (sender, args) -> parseMoonCommand(sender, args));
         put("continue", (sender, args) -> parseContinueCommand(sender));
         put("pause", (sender, args) -> parsePauseCommand(sender));
+        put("sky", (sender, args) -> parseSkyCommand(sender, args));
+        put("forecast", (sender, args) -> parseForecastCommand(sender, args));
+        put("events", (sender, args) -> parseEventsCommand(sender, args));
+        put("drift", (sender, args) -> parseDriftCommand(sender, args));
     }};
-    private List<String> tempParameterSuggestion = new ArrayList<String>(50); // Used as return value for parameter suggestions
-    private final List<String> parameterList = List.of(
-        "location",
-        "syncIntervalSec",
-        "clock",
-        "debugMode"
-    );
-    private final List<String> parameterListDebugMode = List.of(
-        "location",
-        "syncIntervalSec",
-        "clock",
-        "debugMode",
-        "continue",
-        "pause"
-    );
-    private final List <String> locationParameters = List.of("auto");
-    private final List<String> clockParameters = List.of("default");
-    private final List<String> debugModeParameters = List.of("true", "false");
+    private final CommandSuggestions commandSuggestions = new CommandSuggestions();
 
     private void startTimeSynchronizationTask() {
         // Starts the time synchronization task
         stopTimeSynchronizationTask();
         var intervalSecs = configuration.getSynchronizationIntervalSeconds();
         this.task = Bukkit.getScheduler().runTaskTimer(this, this, 0, intervalSecs * ONE_SECOND_IN_MINECRAFT_TICKS);
+        if (this.worldTimeScheduler != null) {
+            this.worldTimeTask = Bukkit.getScheduler().runTaskTimer(this, this.worldTimeScheduler, 1, 1);
+        }
         debugLog("Started time synchronization task");
     }
 
@@ -115,111 +122,167 @@ public class SunSync extends JavaPlugin implements Runnable, Listener {
         if (this.task != null) {
             this.task.cancel();
             this.task = null;
+            if (this.worldTimeTask != null) {
+                this.worldTimeTask.cancel();
+                this.worldTimeTask = null;
+            }
             debugLog("Stopped time synchronization task");
         }
     }
 
     private void synchronizeTime() {
-        // Whenever the term "event" is used it means either the sunrise or sunset in the real world
+        this.syncTask.run();
+    }
 
-        var needsToRecalculateEventsTimes = ! this.paused || this.lastUpdated == null;
-        if (needsToRecalculateEventsTimes) {
-            LocalDateTime now = LocalDateTime.now(systemClock);
-            debugLog(String.format("The time is %s (UTC)", now.toLocalTime()));
+    private void openSharedSyncState() {
+        var file = configuration.getSharedStateFile();
+        if (file.isEmpty()) return;
 
-            try {
-                if (lastUpdated == null || now.toLocalDate().isAfter(lastUpdated)) {
-                    // Calculate sunrise and sunset times and cache it until 23:59:59 (UTC)
-                    lastUpdated = now.toLocalDate();
-                    todayEvents = Sun.sunriseAndSunsetTimes(configuration.getGeographicCoordinates(), now.toLocalDate());
-                    yesterdayEvents = Sun.sunriseAndSunsetTimes(configuration.getGeographicCoordinates(), now.minusDays(1).toLocalDate());
-                    tomorrowEvents = Sun.sunriseAndSunsetTimes(configuration.getGeographicCoordinates(), now.plusDays(1).toLocalDate());
-
-                    debugLog(String.format("Yesterday the Sun rose at %s (UTC), set at %s (UTC)", yesterdayEvents.riseUTCTime, yesterdayEvents.setUTCTime));
-                    debugLog(String.format("Today's events -> rise at %s (UTC), set at %s (UTC)", todayEvents.riseUTCTime, todayEvents.setUTCTime));
-                    debugLog(String.format("Tomorrow's events -> rise at %s (UTC), set at %s (UTC)", tomorrowEvents.riseUTCTime, tomorrowEvents.setUTCTime));
-
-                    // Calculate today's Moon phase and cache it until 23:59:59 (UTC)
-                    var moonPhase = Moon.phase(now);
-                    debugLog(String.format("Today's Moon phase: " + moonPhase));
-
-                    /*
-                    Minecraft has 8 Moon phases according to the wiki (https://minecraft.fandom.com/wiki/Moon#Phases)
-                    Starting from day 0 it goes through the phases as this:
-                    Day 0: Full Moon
-                    Day 1: Waning gibbous
-                    Day 2: Last Quarter
-                    Day 3: Waning Crescent
-                    Day 4: New Moon
-                    Day 5: Waxing crescent
-                    Day 6: First quarter
-                    Day 7: Waxing gibbous
-
-                    What we're doing here is calculate the current real world Moon phase and convert it to the corresponding
-                    Minecraft day defined above. This plugin will always stay in the range of days 0-7 at all times. This
-                    means that as the days go by the Minecraft server will go back and forth in time. That's expected
-                    behaviour for now, because as of Minecraft 1.18-1.19 we have no way to modify the orbit, moonrise
-                    time, moonset time, phase, etc of the Moon directly in the server side.
-                    */
-
-                    // TODO: Match visual appearance of the the Moon. Maybe add a setting for this?
-                    this.currentMinecraftDay = Math.round(Helper.modulo(MINECRAFT_NEW_MOON_DAY_START + (moonPhase * MINECRAFT_TOTAL_MOON_PHASES), 8.0));
-                    debugLog(String.format("Current Minecraft day (for moon phase): " + this.currentMinecraftDay));
+        try {
+            Path path = Path.of(file);
+            if (! path.isAbsolute()) path = getDataFolder().toPath().resolve(path);
 
-                }
-            } catch (NeverRaisesException e) {
-                this.currentMinecraftTime = MINECRAFT_MIDNIGHT_TICKS;
-                this.currentMinecraftTime = this.currentMinecraftTime % MINECRAFT_DAY_IN_TICKS;
-                logger.warning(String.format("The Sun will not rise today. Setting game time to midnight (Minecraft time %d).", this.currentMinecraftTime));
-            } catch (NeverSetsException e) {
-                this.currentMinecraftTime = MINECRAFT_MIDDAY_TICKS;
-                this.currentMinecraftTime = this.currentMinecraftTime % MINECRAFT_DAY_IN_TICKS;
-                logger.warning(String.format("The Sun will not set today. Setting game time to midday (Minecraft time %d).", this.currentMinecraftTime));
+            this.sharedSyncState = SharedSyncState.open(path);
+            this.syncTask.setSharedSyncState(this.sharedSyncState);
+            if (this.sharedSyncState.tryBecomeLeader()) {
+                logger.info(String.format("This server computes the time for all servers sharing %s", path));
+            } else {
+                logger.info(String.format("This server takes the time from the server holding %s", path));
             }
+        } catch (IOException | InvalidPathException e) {
+            logger.severe(String.format("Could not open shared state file \"%s\". The time will not be shared with other servers: %s", file, e.getMessage()));
+            this.sharedSyncState = null;
+            this.syncTask.setSharedSyncState(null);
+        }
+    }
 
-            if (yesterdayEvents == null || todayEvents == null || tomorrowEvents == null) {
-                // Error condition reached. The Sun will not rise and/or set today.
-            } else {
-                // Determine if it's daytime or nighttime
-                LocalDateTime last_event_time;
-                LocalDateTime next_event_time;
-                boolean is_daytime;
-                if (now.isBefore(todayEvents.riseUTCTime)) {
-                    // Nighttime. Last event was yesterday's sunset. Next event is today's sunrise.
-                    is_daytime = false;
-                    last_event_time = yesterdayEvents.setUTCTime;
-                    next_event_time = todayEvents.riseUTCTime;
-                } else if (now.isAfter(todayEvents.setUTCTime)) {
-                    // Nighttime. Last event was today's sunset. Next event is tomorrow's sunrise.
-                    is_daytime = false;
-                    last_event_time = todayEvents.setUTCTime;
-                    next_event_time = tomorrowEvents.riseUTCTime;
-                } else {
-                    // Daytime. Last event was today's sunrise. Next event is today's sunset.
-                    is_daytime = true;
-                    last_event_time = todayEvents.riseUTCTime;
-                    next_event_time = todayEvents.setUTCTime;
-                }
+    private void loadGeoIpDatabase() {
+        // The database may contain millions of ranges, so it's loaded in the background
+        var file = configuration.getGeoIpDatabase();
+        if (file.isEmpty()) return;
 
-                double event_interval_duration = Duration.between(last_event_time, next_event_time).getSeconds();
-                // Time elapsed since the last event
-                double delta_time = Duration.between(last_event_time, now).getSeconds();
+        Bukkit.getScheduler().runTaskAsynchronously(this, () -> {
+            try {
+                Path path = Path.of(file);
+                if (! path.isAbsolute()) path = getDataFolder().toPath().resolve(path);
+
+                long start = System.nanoTime();
+                var index = GeoIpIndex.load(path);
+                logger.info(String.format("Loaded %d IP address ranges from %s in %d ms (%d lines skipped)", index.size(), path, (System.nanoTime() - start) / 1_000_000, index.getSkippedLines()));
+
+                // Locate the players that joined while the database was loading
+                Bukkit.getScheduler().runTask(this, () -> {
+                    this.geoIpIndex = index;
+                    Bukkit.getOnlinePlayers().forEach(this::locatePlayer);
+                });
+            } catch (IOException | InvalidPathException e) {
+                logger.severe(String.format("Could not load IP geolocation database \"%s\". Players will see the sky of the server location: %s", file, e.getMessage()));
+            }
+        });
+    }
 
-                // Apply a linear interpolation between the last and next event times. Then, convert it into a Minecraft time.
-                if (is_daytime) {
-                    this.currentMinecraftTime = (long) ((MINECRAFT_DAY_LENGTH_TICKS / event_interval_duration) * delta_time + MINECRAFT_SUNRISE_START_TICKS);
-                    this.currentMinecraftTime = this.currentMinecraftTime % MINECRAFT_DAY_IN_TICKS;
-                } else {
-                    this.currentMinecraftTime = (long) ((MINECRAFT_NIGHT_LENGTH_TICKS / event_interval_duration) * delta_time + MINECRAFT_SUNSET_START_TICKS);
-                    this.currentMinecraftTime = this.currentMinecraftTime % MINECRAFT_DAY_IN_TICKS;
-                }
+    private void startMetricsServer() {
+        int port = configuration.getMetricsPort();
+        if (port == 0) return;
+
+        try {
+            this.metricsServer = MetricsServer.start(port, this.metrics);
+            logger.info(String.format("Serving metrics at http://127.0.0.1:%d%s", port, MetricsServer.PATH));
+        } catch (IOException e) {
+            logger.severe(String.format("Could not start the metrics endpoint on port %d: %s", port, e.getMessage()));
+        }
+    }
+
+    private void stopMetricsServer() {
+        if (this.metricsServer != null) {
+            this.metricsServer.stop();
+            this.metricsServer = null;
+        }
+    }
+
+    private void locatePlayer(Player player) {
+        locatePlayer(player, player.getLocation());
+    }
+
+    private void locatePlayer(Player player, Location position) {
+        // The location chosen by the player takes precedence over worlds projected onto the globe, which take
+        // precedence over the location of the IP address of the player
+        var preferences = this.playerPreferences == null ? PlayerPreferences.DEFAULT : this.playerPreferences.get(player.getUniqueId());
+        if (preferences.location != null) {
+            this.locationTimeCache.setPlayerLocation(player.getUniqueId(), preferences.location.latitude, preferences.location.longitude, this.syncTask.getClock());
+            if (configuration.getDebugMode()) {
+                debugLog(String.format("Player %s chose the sky of %s", player.getName(), Regions.label(preferences.location)));
+            }
+            return;
+        }
+
+        var projection = position == null ? null : configuration.getWorldProjection(position.getWorld().getName());
+        if (projection != null) {
+            double latitude = projection.latitude(position.getZ());
+            double longitude = projection.longitude(position.getX());
+            this.locationTimeCache.setPlayerLocation(player.getUniqueId(), latitude, longitude, this.syncTask.getClock());
+            if (configuration.getDebugMode()) {
+                String region = Regions.countryCode(Regions.nearestCountry(latitude, longitude));
+                debugLog(String.format("Player %s is at %s, %s (near %s) in world %s", player.getName(), latitude, longitude, region, position.getWorld().getName()));
             }
+            return;
+        }
+
+        var index = this.geoIpIndex;
+        var address = player.getAddress();
+        int range = (index == null || address == null) ? GeoIpIndex.NOT_FOUND : index.find(address.getAddress());
+        if (range == GeoIpIndex.NOT_FOUND) {
+            // The player sees the sky of the server location
+            this.locationTimeCache.removePlayer(player.getUniqueId());
+            if (index != null) debugLog(String.format("No location found for player %s", player.getName()));
+            return;
+        }
+
+        double latitude = index.getLatitude(range);
+        double longitude = index.getLongitude(range);
+        this.locationTimeCache.setPlayerLocation(player.getUniqueId(), latitude, longitude, this.syncTask.getClock());
+        if (configuration.getDebugMode()) {
+            String region = Regions.countryCode(Regions.nearestCountry(latitude, longitude));
+            debugLog(String.format("Player %s located at %s, %s (near %s)", player.getName(), latitude, longitude, region));
         }
+    }
+
+    private void openPlayerPreferences() {
+        this.playerPreferences = new PlayerPreferencesStore(getDataFolder().toPath().resolve("players"), this.logger);
+        this.timePacketRewriter.setPreferences(this.playerPreferences);
+        Bukkit.getOnlinePlayers().forEach(this::loadPlayerPreferences); // After a reload
+    }
+
+    private void loadPlayerPreferences(Player player) {
+        // Read in the background. The player sees the default sky until their preferences are loaded.
+        var store = this.playerPreferences;
+        store.load(player.getUniqueId()).thenAccept((preferences) -> {
+            if (preferences.isDefault() || ! isEnabled()) return;
+            Bukkit.getScheduler().runTask(this, () -> {
+                if (store == this.playerPreferences && player.isOnline()) locatePlayer(player);
+            });
+        });
+    }
 
-        // Synchronize Minecraft time
-        long fullMinecraftTime = this.currentMinecraftTime + (this.currentMinecraftDay * MINECRAFT_DAY_IN_TICKS);
-        Bukkit.getWorlds().forEach((world) -> world.setFullTime(fullMinecraftTime)); // TODO: Select desired worlds in config. Synchronizing all worlds for now...
-        debugLog(String.format("All worlds synchronized to Minecraft time %d", this.currentMinecraftTime));
+    private void closePlayerPreferences() {
+        // Writes the pending changes, so the main thread may wait for the disk once, when the plugin is disabled
+        if (this.playerPreferences == null) return;
+
+        this.timePacketRewriter.setPreferences(null);
+        this.playerPreferences.close();
+        this.playerPreferences = null;
+    }
+
+    private void closeSharedSyncState() {
+        if (this.sharedSyncState == null) return;
+
+        try {
+            this.sharedSyncState.close();
+        } catch (IOException e) {
+            logger.warning(String.format("Could not close shared state file %s: %s", this.sharedSyncState.getPath(), e.getMessage()));
+        }
+        this.sharedSyncState = null;
+        this.syncTask.setSharedSyncState(null);
     }
 
     @Override
@@ -253,21 +316,43 @@ public class SunSync extends JavaPlugin implements Runnable, Listener {
             */
             @Override
             public void onPacketSending(PacketEvent event) {
+                final int WORLD_AGE_FIELD = 0;
                 final int TIME_OF_DAY_FIELD = 1;
                 var fields = event.getPacket().getLongs();
-                var timeOfDay = fields.read(TIME_OF_DAY_FIELD);
-                if (timeOfDay >= 0) {
-                    // The gamerule doDaylightCycle is set to true. Change the sign of the time to make the client
-                    // believe that the gamerule is set to false
-                    fields.write(TIME_OF_DAY_FIELD, -currentMinecraftTime);
+                long rewrittenTime = timePacketRewriter.rewrite(event.getPlayer(), fields.read(WORLD_AGE_FIELD), fields.read(TIME_OF_DAY_FIELD));
+                if (rewrittenTime == TimePacketRewriter.SUPPRESSED) {
+                    event.setCancelled(true);
+                } else if (rewrittenTime != TimePacketRewriter.NOT_REWRITTEN) {
+                    fields.write(TIME_OF_DAY_FIELD, rewrittenTime);
                 }
             }
         };
+        this.packetPlayOutUpdateTimeMonitor = new PacketAdapter(
+            this,
+            ListenerPriority.MONITOR,
+            PacketType.Play.Server.UPDATE_TIME
+        ) {
+            // Records the time that is finally sent to each player, after the listeners of other plugins
+            @Override
+            public void onPacketSending(PacketEvent event) {
+                final int TIME_OF_DAY_FIELD = 1;
+                if (event.isCancelled() || event.getPlayer() == null) return;
+                driftMonitor.recordPacket(event.getPlayer().getUniqueId(), event.getPacket().getLongs().read(TIME_OF_DAY_FIELD));
+            }
+        };
 
         // Load configuration
         saveDefaultConfig();
         FileConfiguration configFile = getConfig();
         this.configuration = new Configuration(this.logger);
+        this.timeSynchronizer = new TimeSynchronizer(this.configuration, this.logger);
+        this.locationTimeCache = new LocationTimeCache(this.configuration, this.metrics, this.logger);
+        this.syncTask = new TimeSyncTask(this.configuration, this.timeSynchronizer, this.locationTimeCache, this.metrics, this.logger, Bukkit::getWorlds);
+        this.timePacketRewriter = new TimePacketRewriter(this.configuration, this.timeSynchronizer, this.locationTimeCache, this.metrics);
+        this.skyService = new SkyService((event) -> getServer().getPluginManager().callEvent(event));
+        this.syncTask.setSkyService(this.skyService);
+        this.syncTask.setDriftMonitor(this.driftMonitor);
+        this.metrics.setDriftMonitor(this.driftMonitor);
 
         // Debug mode
         Object debugVal = configFile.get("debug_mode");
@@ -297,19 +382,149 @@ public class SunSync extends JavaPlugin implements Runnable, Listener {
             logger.severe(String.format("\"synchronization_interval_seconds\" value in config.yml is invalid, using default value. Please, use integer values between %d and %d.", Configuration.getSyncIntervalLowestValidValue(), Configuration.getSyncIntervalHighestValidValue()));
         }
         debugLog(String.format("Synchronization interval set to %d seconds", configuration.getSynchronizationIntervalSeconds()));
+
+        // How the real Sun is mapped into the Minecraft sky
+        String skyMapping = configFile.getString("sky_mapping", configuration.getSkyMapping());
+        if (! configuration.setSkyMapping(skyMapping)) {
+            logger.severe(String.format("\"sky_mapping\" value in config.yml is invalid, using default value. Please, use \"%s\" or \"%s\".", Configuration.SKY_MAPPING_EVENTS, Configuration.SKY_MAPPING_ELEVATION));
+        }
+        debugLog(String.format("Sky mapping set to \"%s\"", configuration.getSkyMapping()));
+
+        // Astronomical calculations
+        double maxErrorMinutes = configFile.getDouble("astronomy_max_error_minutes", configuration.getAstronomyMaxErrorMinutes());
+        if (! configuration.setAstronomyMaxErrorMinutes(maxErrorMinutes)) {
+            logger.severe(String.format("\"astronomy_max_error_minutes\" value in config.yml is invalid, using default value. Please, use values between %.1f and %.1f.", Configuration.getAstronomyMaxErrorMinutesLowestValidValue(), Configuration.getAstronomyMaxErrorMinutesHighestValidValue()));
+        }
+        String engineName = configFile.getString("astronomy_engine", configuration.getAstronomyEngineName());
+        if (! configuration.setAstronomyEngine(engineName)) {
+            var names = AstronomyEngines.available().stream().map(AstronomyEngine::getName).collect(Collectors.joining("\", \""));
+            logger.severe(String.format("\"astronomy_engine\" value in config.yml is invalid, using default value. Please, use \"%s\" or one of \"%s\".", AstronomyEngines.AUTO, names));
+        }
+        var engine = configuration.getAstronomyEngine(); // Calibrated now if it's "auto"
+        var calibration = configuration.getAstronomyCalibration();
+        if (calibration != null) {
+            logger.info(String.format("Astronomy engine calibrated: %s", calibration));
+            if (! calibration.isPreciseEnough) {
+                logger.warning(String.format("No astronomy engine has an error below %.1f minutes. Using the most precise one (%s).", configuration.getAstronomyMaxErrorMinutes(), engine.getName()));
+            }
+        }
+        debugLog(String.format("Using the \"%s\" astronomy engine (error up to %.1f minutes)", engine.getName(), engine.getMaxErrorMinutes()));
+
+        // Time shared with other servers on the same host
+        configuration.setSharedStateFile(configFile.getString("shared_state_file", ""));
+
+        // Java Flight Recorder events
+        Object jfrEventsVal = configFile.get("jfr_events");
+        if (jfrEventsVal == null) {
+            // Set to default value. No action is required.
+        } else if (jfrEventsVal instanceof Boolean) {
+            configuration.setJfrEvents((Boolean) jfrEventsVal);
+        } else {
+            logger.severe("\"jfr_events\" value in config.yml is invalid, using default value. Please, use a boolean value (true or false).");
+        }
+
+        // Time update packets that don't change the sky
+        Object suppressPacketsVal = configFile.get("suppress_redundant_time_packets");
+        if (suppressPacketsVal == null) {
+            // Set to default value. No action is required.
+        } else if (suppressPacketsVal instanceof Boolean) {
+            configuration.setSuppressRedundantTimePackets((Boolean) suppressPacketsVal);
+        } else {
+            logger.severe("\"suppress_redundant_time_packets\" value in config.yml is invalid, using default value. Please, use a boolean value (true or false).");
+        }
+
+        // Worlds updated a few at a time
+        Object staggeredVal = configFile.get("staggered_world_updates");
+        if (staggeredVal == null) {
+            // Set to default value. No action is required.
+        } else if (staggeredVal instanceof Boolean) {
+            configuration.setStaggeredWorldUpdates((Boolean) staggeredVal);
+        } else {
+            logger.severe("\"staggered_world_updates\" value in config.yml is invalid, using default value. Please, use a boolean value (true or false).");
+        }
+
+        long worldUpdatesPerTick = configFile.getLong("world_updates_per_tick", configuration.getWorldUpdatesPerTick());
+        if (! configuration.setWorldUpdatesPerTick(worldUpdatesPerTick)) {
+            logger.severe(String.format("\"world_updates_per_tick\" value in config.yml is invalid, using default value. Please, use integer values between %d and %d.", Configuration.getWorldUpdatesPerTickLowestValidValue(), Configuration.getWorldUpdatesPerTickHighestValidValue()));
+        }
+
+        long worldUpdateBudget = configFile.getLong("world_update_budget_micros", configuration.getWorldUpdateBudgetMicros());
+        if (! configuration.setWorldUpdateBudgetMicros(worldUpdateBudget)) {
+            logger.severe(String.format("\"world_update_budget_micros\" value in config.yml is invalid, using default value. Please, use integer values between %d and %d.", Configuration.getWorldUpdateBudgetMicrosLowestValidValue(), Configuration.getWorldUpdateBudgetMicrosHighestValidValue()));
+        }
+
+        if (configuration.getStaggeredWorldUpdates()) {
+            this.worldTimeScheduler = new WorldTimeScheduler(this.configuration, this.logger);
+            this.worldTimeScheduler.setDriftMonitor(this.driftMonitor);
+            this.syncTask.setWorldTimeScheduler(this.worldTimeScheduler);
+        }
+
+        long keepaliveSeconds = configFile.getLong("time_packet_keepalive_seconds", configuration.getTimePacketKeepaliveSeconds());
+        if (! configuration.setTimePacketKeepaliveSeconds(keepaliveSeconds)) {
+            logger.severe(String.format("\"time_packet_keepalive_seconds\" value in config.yml is invalid, using default value. Please, use integer values between %d and %d.", Configuration.getTimePacketKeepaliveSecondsLowestValidValue(), Configuration.getTimePacketKeepaliveSecondsHighestValidValue()));
+        }
+
+        long jfrPacketSampleRate = configFile.getLong("jfr_packet_sample_rate", configuration.getJfrPacketSampleRate());
+        if (! configuration.setJfrPacketSampleRate(jfrPacketSampleRate)) {
+            logger.severe(String.format("\"jfr_packet_sample_rate\" value in config.yml is invalid, using default value. Please, use integer values between %d and %d.", Configuration.getJfrPacketSampleRateLowestValidValue(), Configuration.getJfrPacketSampleRateHighestValidValue()));
+        }
+
+        // Metrics endpoint
+        long metricsPort = configFile.getLong("metrics_port", configuration.getMetricsPort());
+        if (! configuration.setMetricsPort(metricsPort)) {
+            logger.severe(String.format("\"metrics_port\" value in config.yml is invalid, using default value. Please, use integer values between %d and %d.", Configuration.getMetricsPortLowestValidValue(), Configuration.getMetricsPortHighestValidValue()));
+        }
+
+        // Location of each player from their IP address
+        configuration.setGeoIpDatabase(configFile.getString("geoip_database", ""));
+
+        // Worlds projected onto the globe
+        var projections = configFile.getConfigurationSection("world_projections");
+        if (projections != null) {
+            for (String world : projections.getKeys(false)) {
+                var projection = projections.getConfigurationSection(world);
+                boolean valid = projection != null && configuration.setWorldProjection(
+                    world,
+                    projection.getDouble("blocks_per_degree", -1),
+                    projection.getDouble("origin_latitude", 0.0),
+                    projection.getDouble("origin_longitude", 0.0)
+                );
+                if (valid) {
+                    debugLog(String.format("World %s projected with %s", world, configuration.getWorldProjection(world)));
+                } else {
+                    logger.severe(String.format("\"world_projections.%s\" value in config.yml is invalid, ignoring it. Please, set a positive \"blocks_per_degree\" and a valid \"origin_latitude\" and \"origin_longitude\".", world));
+                }
+            }
+        }
+
+        // Player locations snapped to the closest country
+        Object snapLocationsVal = configFile.get("snap_locations_to_regions");
+        if (snapLocationsVal == null) {
+            // Set to default value. No action is required.
+        } else if (snapLocationsVal instanceof Boolean) {
+            configuration.setSnapLocationsToRegions((Boolean) snapLocationsVal);
+        } else {
+            logger.severe("\"snap_locations_to_regions\" value in config.yml is invalid, using default value. Please, use a boolean value (true or false).");
+        }
     }
 
     @Override
     public void onEnable() {
         this.protocolManager.addPacketListener(this.packetPlayOutUpdateTimeListener);
+        this.protocolManager.addPacketListener(this.packetPlayOutUpdateTimeMonitor);
 
-        systemClock = Clock.systemUTC();
-        this.paused = false;
+        this.syncTask.setClock(this.systemClock);
+        this.syncTask.setPaused(false);
+        openSharedSyncState();
+        loadGeoIpDatabase();
+        startMetricsServer();
+        openPlayerPreferences();
 
         var command = getCommand("timesync");
         command.setExecutor(this);
         command.setTabCompleter(this);
         getServer().getPluginManager().registerEvents(this, this);
+        getServer().getServicesManager().register(SunSyncService.class, this.skyService, this, ServicePriority.Normal);
 
         startTimeSynchronizationTask();
     }
@@ -317,20 +532,37 @@ public class SunSync extends JavaPlugin implements Runnable, Listener {
     @Override
     public void onDisable() {
         this.protocolManager.removePacketListener(this.packetPlayOutUpdateTimeListener);
+        this.protocolManager.removePacketListener(this.packetPlayOutUpdateTimeMonitor);
         stopTimeSynchronizationTask();
+        closeSharedSyncState();
+        stopMetricsServer();
+        closePlayerPreferences();
+        this.forecasts.clear();
+        this.pendingForecasts.clear();
+        this.geoIpIndex = null;
+        getServer().getServicesManager().unregisterAll(this);
+        this.skyService.clear();
         HandlerList.unregisterAll((Listener) this);
     }
 
     @Override
     public void run() {
-        // Task timer callback
+        // Task timer callback. The clients are sampled before the time changes, while they should still show the time
+        // they were sent last.
+        this.driftMonitor.samplePlayers(Bukkit.getOnlinePlayers(), this::intendedPlayerTime);
         synchronizeTime();
     }
 
+    private long intendedPlayerTime(Player player) {
+        var world = player.getWorld();
+        return this.timePacketRewriter.intendedTime(player, world.getGameTime(), world.getTime());
+    }
+
     @Override
     public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
-        // Command /timesync
-        if (sender.isOp()) {
+        // Command /timesync. Players choose their own sky without being operators.
+        boolean isPlayerCommand = sender instanceof Player && args.length >= 1 && args[0].equals("sky");
+        if (sender.isOp() || isPlayerCommand) {
             if (args.length == 0) return false; // Show usage (set in plugin.yml)
 
             var parameter = args[0];
@@ -349,63 +581,28 @@ public class SunSync extends JavaPlugin implements Runnable, Listener {
 
     @Override
     public List<String> onTabComplete(CommandSender sender, Command command, String alias, String[] args) {
-        // Ok, this code is fragile. If I add more parameters and I forget to update this method no suggestions will we
-        // shown. But I don't have 200 commands yet. A more complex solution is not needed for now.
-        this.tempParameterSuggestion.clear();
-
-        if (sender.isOp()) {
-            var searchPattern = "";
-            if (args.length >= 1) {
-                if (args.length == 1) {
-                    searchPattern = args[0];
-                    if (this.configuration.getDebugMode()) {
-                        this.tempParameterSuggestion.addAll(this.parameterListDebugMode);
-                    } else {
-                        this.tempParameterSuggestion.addAll(this.parameterList);
-                    }
-                } else if (args.length == 2 && args[0].equals("location")) {
-                    searchPattern = args[1];
-                    this.tempParameterSuggestion.addAll(this.locationParameters);
-                } else if (args.length == 2 && args[0].equals("clock")) {
-                    searchPattern = args[1];
-                    this.tempParameterSuggestion.addAll(this.clockParameters);
-                } else if (args.length == 2 && args[0].equals("debugMode")) {
-                    searchPattern = args[1];
-                    this.tempParameterSuggestion.addAll(this.debugModeParameters);
-                }
-            }
-
-            // Filter suggestions in the case that the user has already typed any characters
-            if (! searchPattern.isEmpty()) {
-                for (int i = this.tempParameterSuggestion.size() - 1; i >= 0; i--) {
-                    var suggestion = this.tempParameterSuggestion.get(i);
-                    if (! suggestion.startsWith(searchPattern)) {
-                        this.tempParameterSuggestion.remove(i);
-                    }
-                }
-            }
-
+        if (sender.isOp() || sender instanceof Player) {
+            return this.commandSuggestions.suggest(sender.isOp(), this.configuration.getDebugMode(), args);
         }
-
-        return this.tempParameterSuggestion;
+        return List.of();
     }
 
     private void parseLocationCommand(CommandSender sender, List<String> args) {
         if (args.size() == 0) {
             // Get location
-            sender.sendMessage(String.format("Current location is %s", configuration.getGeographicCoordinates()));
+            sender.sendMessage(String.format("Current location is %s", Regions.label(configuration.getGeographicCoordinates())));
         } else {
             // Set location
             String location = String.join(" ", args);
             if (configuration.setLocation(location)) {
                 // Force to recalculate sunrise and sunset times
-                lastUpdated = null;
-                todayEvents = null;
-                yesterdayEvents = null;
-                tomorrowEvents = null;
+                timeSynchronizer.invalidate();
 
                 synchronizeTime();
                 sender.sendMessage(String.format("Location set to %s", configuration.getGeographicCoordinates()));
+                if (this.sharedSyncState != null && ! this.sharedSyncState.isLeader()) {
+                    sender.sendMessage(ChatColor.YELLOW + "This server takes the time from another server on this host. The location will be used only if this server becomes the leader.");
+                }
             } else {
                 sender.sendMessage(ChatColor.RED + "Invalid coordinates. Please, set a valid geographic coordinate or \"auto\"");
             }
@@ -472,14 +669,25 @@ public class SunSync extends JavaPlugin implements Runnable, Listener {
         if (args.size() >= 1) value = args.get(0);
 
         if (value == null) {
-            var time = LocalTime.now(systemClock);
-            sender.sendMessage(String.format("The system time is %s (UTC)", time));
+            var systemClock = this.syncTask.getClock();
+            if (systemClock instanceof WarpClock) {
+                var warpClock = (WarpClock) systemClock;
+                sender.sendMessage(String.format("The system time is %s (UTC), running %s times faster", LocalDateTime.now(systemClock), warpClock.getSpeed()));
+            } else {
+                var time = LocalTime.now(systemClock);
+                sender.sendMessage(String.format("The system time is %s (UTC)", time));
+            }
         } else {
-            // Two possible values: "default" or a time in the format "HH:MM" or "HH:MM:SS"
+            // Three possible values: "default", "warp" or a time in the format "HH:MM" or "HH:MM:SS"
             if (value.equals("default")) {
                 // Resets the fake system clock to the actual system clock
-                systemClock = Clock.systemUTC();
-                sender.sendMessage(String.format("System time set to %s (UTC)", LocalTime.now(systemClock)));
+                this.syncTask.setClock(this.systemClock);
+                sender.sendMessage(String.format("System time set to %s (UTC)", LocalTime.now(this.syncTask.getClock())));
+            } else if (value.equals("warp")) {
+                // Sets a fake system clock that runs faster than the real one. It does not change the system time.
+                if (! parseWarpClockCommand(sender, args.subList(1, args.size()))) {
+                    return;
+                }
             } else {
                 // Sets a fake system clock to a given time (UTC). It does not change the system time.
                 var time = value.split(":");
@@ -515,9 +723,9 @@ public class SunSync extends JavaPlugin implements Runnable, Listener {
                         return;
                     }
 
-                    var now = LocalTime.now(ZoneOffset.UTC);
+                    var now = LocalTime.now(this.systemClock);
                     var then = LocalTime.of(hour, minute, second);
-                    systemClock = Clock.offset(Clock.systemUTC(), Duration.between(now, then));
+                    this.syncTask.setClock(Clock.offset(this.systemClock, Duration.between(now, then)));
 
                     sender.sendMessage(String.format("System time set to %s (UTC)", then));
                 } catch (NumberFormatException e) {
@@ -525,13 +733,249 @@ public class SunSync extends JavaPlugin implements Runnable, Listener {
                 }
             }
 
+            // The new clock may be in the past, so the cached sunrise and sunset times are not valid anymore
+            timeSynchronizer.invalidate();
+            locationTimeCache.invalidate();
             synchronizeTime();
         }
     }
 
+    private boolean parseWarpClockCommand(CommandSender sender, List<String> args) {
+        // Format: warp <speed> [YYYY-MM-DD]. Returns true if the clock was changed.
+        final String usage = String.format("Invalid value. Please, use: /timesync clock warp <speed> [YYYY-MM-DD]. The speed must be a number between %s and %s", WARP_CLOCK_MIN_SPEED, WARP_CLOCK_MAX_SPEED);
+        if (args.size() < 1 || args.size() > 2) {
+            sender.sendMessage(ChatColor.RED + usage);
+            return false;
+        }
+
+        double speed;
+        try {
+            speed = Double.parseDouble(args.get(0));
+        } catch (NumberFormatException e) {
+            sender.sendMessage(ChatColor.RED + usage);
+            return false;
+        }
+
+        if (! (speed >= WARP_CLOCK_MIN_SPEED && speed <= WARP_CLOCK_MAX_SPEED)) {
+            sender.sendMessage(ChatColor.RED + usage);
+            return false;
+        }
+
+        // Starts from the current time unless a date is given
+        Instant start = this.syncTask.getClock().instant();
+        if (args.size() == 2) {
+            try {
+                start = LocalDate.parse(args.get(1)).atStartOfDay(ZoneOffset.UTC).toInstant();
+            } catch (DateTimeParseException e) {
+                sender.sendMessage(ChatColor.RED + usage);
+                return false;
+            }
+        }
+
+        this.syncTask.setClock(new WarpClock(this.systemClock, start, speed));
+        sender.sendMessage(String.format("System time set to %s (UTC), running %s times faster", LocalDateTime.now(this.syncTask.getClock()), speed));
+        return true;
+    }
+
+    private void parseMoonCommand(CommandSender sender, List<String> args) {
+        // Format: moon [YYYY-MM-DD]. Shows the moonrise and moonset of the given date (UTC) or of today.
+        if (args.size() > 1) {
+            sender.sendMessage(ChatColor.RED + "Invalid value. Please, use: /timesync moon [YYYY-MM-DD]");
+            return;
+        }
+
+        LocalDate date = LocalDate.now(this.syncTask.getClock());
+        if (args.size() == 1) {
+            try {
+                date = LocalDate.parse(args.get(0));
+            } catch (DateTimeParseException e) {
+                sender.sendMessage(ChatColor.RED + "Invalid value. Please, use: /timesync moon [YYYY-MM-DD]");
+                return;
+            }
+        }
+
+        var moonEvents = new MoonEvents(configuration.getGeographicCoordinates());
+        moonEvents.compute(date);
+        long rise = moonEvents.getRiseEpochSecond();
+        long set = moonEvents.getSetEpochSecond();
+        if (rise == MoonEvents.NONE && set == MoonEvents.NONE) {
+            if (moonEvents.isAboveHorizonAtStartOfDay()) sender.sendMessage(String.format("The Moon does not set on %s (UTC)", date));
+            else                                         sender.sendMessage(String.format("The Moon does not rise on %s (UTC)", date));
+        } else {
+            sender.sendMessage(String.format("Moonrise on %s: %s. Moonset: %s.", date, formatMoonEvent(rise), formatMoonEvent(set)));
+        }
+        sender.sendMessage(String.format("Moon phase at noon (UTC): %.2f", Moon.phase(date.atTime(12, 0))));
+    }
+
+    private void parseEventsCommand(CommandSender sender, List<String> args) {
+        // Format: events [count]. Shows the next equinoxes, solstices, eclipses and supermoons.
+        int count = EVENTS_DEFAULT_COUNT;
+        if (args.size() == 1) {
+            try {
+                count = Integer.parseInt(args.get(0));
+            } catch (NumberFormatException e) {
+                count = -1;
+            }
+        }
+        if (args.size() > 1 || count < 1 || count > EVENTS_MAX_COUNT) {
+            sender.sendMessage(ChatColor.RED + String.format("Invalid value. Please, use: /timesync events [count], with a count between 1 and %d", EVENTS_MAX_COUNT));
+            return;
+        }
+
+        long now = this.syncTask.getClock().instant().getEpochSecond();
+        int first = EventCalendar.indexAfter(now);
+        if (first == EventCalendar.size()) {
+            sender.sendMessage(String.format("No events are known after %d", EventCalendar.LAST_YEAR));
+            return;
+        }
+
+        sender.sendMessage("Next astronomical events (UTC):");
+        var format = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+        for (int i = first; i < Math.min(first + count, EventCalendar.size()); i++) {
+            long epochSecond = EventCalendar.epochSecond(i);
+            var time = LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+            sender.sendMessage(String.format("%s: %s (in %d days)", format.format(time), EventCalendar.kind(i).getDescription(), (epochSecond - now) / 86400));
+        }
+    }
+
+    private void parseDriftCommand(CommandSender sender, List<String> args) {
+        // Format: drift. Shows how far the worlds and the clients are from the synchronized time.
+        if (args.size() != 0) {
+            sender.sendMessage(ChatColor.RED + "Invalid value. Please, use: /timesync drift");
+            return;
+        }
+
+        sendDrift(sender, "Worlds", this.driftMonitor.getWorldDrift());
+        sendDrift(sender, "Clients", this.driftMonitor.getPlayerDrift());
+
+        var worlds = this.driftMonitor.getWorstWorlds(DRIFT_MAX_OFFENDERS);
+        if (! worlds.isEmpty()) {
+            sender.sendMessage(ChatColor.YELLOW + "Worlds changed outside the plugin: " + worlds.stream().map((entry) -> String.format("%s (%d ticks)", entry.getKey(), entry.getValue())).collect(Collectors.joining(", ")));
+        }
+        var players = this.driftMonitor.getWorstPlayers(DRIFT_MAX_OFFENDERS);
+        if (! players.isEmpty()) {
+            sender.sendMessage(ChatColor.YELLOW + "Players behind: " + players.stream().map((entry) -> String.format("%s (%d ticks)", entry.getKey(), entry.getValue())).collect(Collectors.joining(", ")));
+        }
+        var blockedChanges = this.driftMonitor.getBlockedChanges();
+        if (blockedChanges.isEmpty()) {
+            sender.sendMessage("No changes of the time from outside the plugin");
+        } else {
+            sender.sendMessage("Changes of the time from outside the plugin, cancelled:");
+            for (var changes : blockedChanges.subList(0, Math.min(DRIFT_MAX_OFFENDERS, blockedChanges.size()))) {
+                sender.sendMessage(String.format("%s: %d times, last in world \"%s\" (%+d ticks)", changes.source, changes.count, changes.lastWorld, changes.lastSkipAmount));
+            }
+        }
+    }
+
+    private static void sendDrift(CommandSender sender, String what, DriftMonitor.Samples samples) {
+        if (samples.size() == 0) {
+            sender.sendMessage(String.format("%s: no samples yet", what));
+            return;
+        }
+        long[] drift = samples.percentiles(0.5, 0.9, 0.99, 1);
+        sender.sendMessage(String.format("%s drift over the last %d samples (ticks): p50 %d, p90 %d, p99 %d, max %d", what, samples.size(), drift[0], drift[1], drift[2], drift[3]));
+    }
+
+    private void parseForecastCommand(CommandSender sender, List<String> args) {
+        // The forecast is computed in the background and sent back a page at a time
+        if (args.size() == 0) {
+            sender.sendMessage(ChatColor.RED + String.format("Please, enter a number of days between %d and %d, and optionally a location. Use \"page <n>\" to see the rest of the last forecast.", Forecast.MIN_DAYS, Forecast.MAX_DAYS));
+            return;
+        }
+
+        if (args.get(0).equals("page")) {
+            var forecast = this.forecasts.get(sender.getName());
+            if (forecast == null) {
+                sender.sendMessage(ChatColor.RED + "There is no forecast to show. Please, ask for one first.");
+                return;
+            }
+            int page;
+            try {
+                page = args.size() >= 2 ? Integer.parseInt(args.get(1)) : 1;
+            } catch (NumberFormatException e) {
+                page = -1;
+            }
+            if (page < 1 || page > forecast.getPages()) {
+                sender.sendMessage(ChatColor.RED + String.format("Invalid page. Please, enter a page between 1 and %d", forecast.getPages()));
+                return;
+            }
+            sendForecastPage(sender, forecast, page);
+            return;
+        }
+
+        int days;
+        try {
+            days = Integer.parseInt(args.get(0));
+        } catch (NumberFormatException e) {
+            days = -1;
+        }
+        if (days < Forecast.MIN_DAYS || days > Forecast.MAX_DAYS) {
+            sender.sendMessage(ChatColor.RED + String.format("Invalid number of days. Please, enter a number between %d and %d", Forecast.MIN_DAYS, Forecast.MAX_DAYS));
+            return;
+        }
+
+        var location = configuration.getGeographicCoordinates();
+        if (args.size() >= 2) {
+            location = Configuration.parseCoordinates(String.join(" ", args.subList(1, args.size())));
+            if (location == null) {
+                sender.sendMessage(ChatColor.RED + "Invalid coordinates. Please, set a valid geographic coordinate");
+                return;
+            }
+        }
+
+        if (! this.pendingForecasts.add(sender.getName())) {
+            sender.sendMessage(ChatColor.YELLOW + "Your previous forecast is still being computed");
+            return;
+        }
+
+        final int forecastDays = days;
+        final var forecastLocation = location;
+        final var engine = configuration.getAstronomyEngine();
+        final var firstDate = LocalDate.now(this.syncTask.getClock());
+        Bukkit.getScheduler().runTaskAsynchronously(this, () -> {
+            long start = System.nanoTime();
+            Forecast computed = null;
+            String error = null;
+            try {
+                computed = Forecast.compute(engine, forecastLocation, firstDate, forecastDays);
+                debugLog(String.format("Forecast of %d days computed in %d ms", forecastDays, (System.nanoTime() - start) / 1_000_000));
+            } catch (RuntimeException | LinkageError e) {
+                // A bug in an engine must not leave the sender waiting forever for this forecast.
+                logger.log(Level.WARNING, String.format("Could not compute the forecast with the engine %s", engine.getName()), e);
+                error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            }
+
+            if (! isEnabled()) return;
+            final var forecast = computed;
+            final var forecastError = error;
+            Bukkit.getScheduler().runTask(this, () -> {
+                this.pendingForecasts.remove(sender.getName());
+                if (forecast == null) {
+                    sender.sendMessage(ChatColor.RED + String.format("Could not compute the forecast: %s", forecastError));
+                    return;
+                }
+                this.forecasts.put(sender.getName(), forecast);
+                sendForecastPage(sender, forecast, 1);
+            });
+        });
+    }
+
+    private static void sendForecastPage(CommandSender sender, Forecast forecast, int page) {
+        sender.sendMessage(String.format("Forecast for %s from %s (UTC), page %d of %d:", forecast.location, forecast.firstDate, page, forecast.getPages()));
+        forecast.getPage(page).forEach(sender::sendMessage);
+        if (page < forecast.getPages()) {
+            sender.sendMessage(String.format("Use /timesync forecast page %d to see the next page", page + 1));
+        }
+    }
+
+    private static String formatMoonEvent(long epochSecond) {
+        if (epochSecond == MoonEvents.NONE) return "none";
+        return String.format("%s (UTC)", LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC).toLocalTime());
+    }
+
     private void parseContinueCommand(CommandSender sender) {
-        if (this.paused) {
-            this.paused = false;
+        if (this.syncTask.isPaused()) {
+            this.syncTask.setPaused(false);
             sender.sendMessage("Time synchronization restarted");
         } else {
             sender.sendMessage("Time synchronization is already running!");
@@ -539,20 +983,94 @@ public class SunSync extends JavaPlugin implements Runnable, Listener {
     }
 
     private void parsePauseCommand(CommandSender sender) {
-        if (this.paused) {
+        if (this.syncTask.isPaused()) {
             sender.sendMessage("Time synchronization is already paused!");
         } else {
-            this.paused = true;
+            this.syncTask.setPaused(true);
             sender.sendMessage("Time synchronization paused");
         }
     }
 
+    private void parseSkyCommand(CommandSender sender, List<String> args) {
+        if (! (sender instanceof Player)) {
+            sender.sendMessage(ChatColor.RED + "Only players can choose their own sky");
+            return;
+        }
+
+        var player = (Player) sender;
+        var preferences = this.playerPreferences.get(player.getUniqueId());
+        if (args.size() == 0) {
+            sender.sendMessage(String.format("Your sky: %s", preferences));
+            return;
+        }
+
+        PlayerPreferences newPreferences;
+        var value = args.get(0);
+        if (value.equals("on")) {
+            newPreferences = preferences.withOptOut(false);
+        } else if (value.equals("off")) {
+            // The vanilla day cycle
+            newPreferences = preferences.withOptOut(true);
+        } else if (value.equals("auto")) {
+            newPreferences = preferences.withLocation(null);
+        } else if (value.equals("reset")) {
+            newPreferences = PlayerPreferences.DEFAULT;
+        } else if (value.equals("location")) {
+            var coordinates = args.size() >= 2 ? Configuration.parseCoordinates(String.join(" ", args.subList(1, args.size()))) : null;
+            if (coordinates == null) {
+                sender.sendMessage(ChatColor.RED + "Invalid coordinates. Please, set a valid geographic coordinate");
+                return;
+            }
+            newPreferences = preferences.withLocation(coordinates);
+        } else if (value.equals("offset")) {
+            long ticks;
+            try {
+                ticks = args.size() >= 2 ? Long.parseLong(args.get(1)) : Long.MIN_VALUE;
+            } catch (NumberFormatException e) {
+                ticks = Long.MIN_VALUE;
+            }
+            if (! PlayerPreferences.isValidTimeOffset(ticks)) {
+                sender.sendMessage(ChatColor.RED + String.format("Invalid time offset. Please, enter a number of ticks between %d and %d", PlayerPreferences.getTimeOffsetLowestValidValue(), PlayerPreferences.getTimeOffsetHighestValidValue()));
+                return;
+            }
+            newPreferences = preferences.withTimeOffset((int) ticks);
+        } else {
+            sender.sendMessage(ChatColor.RED + "Invalid value. Please, use on, off, location <coordinates>, auto, offset <ticks> or reset");
+            return;
+        }
+
+        this.playerPreferences.set(player.getUniqueId(), newPreferences);
+        locatePlayer(player); // The chosen location may have changed
+        sender.sendMessage(String.format("Your sky: %s", newPreferences));
+    }
+
     @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
     public void onTimeSkipEvent(TimeSkipEvent event) {
         // This will prevent anything from changing the time, except this plugin itself
-        if (! event.getSkipReason().equals(SkipReason.CUSTOM)) {
-            // FIXME: There should be a way to detect whether this event was fired from this plugin. For now, it will not prevent other plugins from changing the time
-            event.setCancelled(true);
+        if (this.driftMonitor.isApplyingTime()) return;
+        event.setCancelled(true);
+
+        // Changes from other plugins are rare, so looking for the plugin in the call stack is cheap enough
+        String plugin = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE).walk((frames) ->
+            DriftMonitor.findPlugin(frames.map(StackWalker.StackFrame::getDeclaringClass), SunSync::pluginName, getName())
+        );
+        String source = plugin != null ? plugin : String.format("server (%s)", event.getSkipReason().name().toLowerCase(Locale.ROOT));
+        String world = event.getWorld().getName();
+        boolean first = this.driftMonitor.recordBlockedChange(source, world, event.getSkipAmount());
+        if (first && plugin != null) {
+            logger.warning(String.format("The plugin %s tried to change the time of world \"%s\". It will have no effect while the plugin %s is enabled.", plugin, world, getName()));
+        } else {
+            debugLog(String.format("Cancelled a change of the time of world \"%s\" from %s", world, source));
+        }
+    }
+
+    private static String pluginName(Class<?> type) {
+        // Name of the plugin that loaded the class, or null if it's a class of the server
+        try {
+            var plugin = JavaPlugin.getProvidingPlugin(type);
+            return plugin != null ? plugin.getName() : null;
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return null;
         }
     }
 
@@ -577,8 +1095,75 @@ public class SunSync extends JavaPlugin implements Runnable, Listener {
         //
         // But not:
         // - time query
-        String com = command.trim().toLowerCase();
-        return Pattern.matches("/?(minecraft:)?time\\p{javaWhitespace}+(set|add).*", com);
+        //
+        // It runs for every command typed on the server, so it matches "/?(minecraft:)?time\s+(set|add).*" by hand,
+        // ignoring the case, instead of making trimmed and lower case copies of the command for a regular expression.
+        int end = command.length();
+        while (end > 0 && command.charAt(end - 1) <= ' ') end--;
+        int i = 0;
+        while (i < end && command.charAt(i) <= ' ') i++;
+
+        if (i < end && command.charAt(i) == '/') i++;
+        if (command.regionMatches(true, i, "minecraft:", 0, 10)) i += 10;
+        if (! command.regionMatches(true, i, "time", 0, 4)) return false;
+        i += 4;
+
+        int whitespaceStart = i;
+        while (i < end && Character.isWhitespace(command.charAt(i))) i++;
+        if (i == whitespaceStart) return false;
+        if (! command.regionMatches(true, i, "set", 0, 3) && ! command.regionMatches(true, i, "add", 0, 3)) return false;
+
+        // The rest of the command may be anything but a line break
+        for (i += 3; i < end; i++) {
+            char c = command.charAt(i);
+            if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') return false;
+        }
+        return true;
+    }
+
+    @EventHandler
+    public void onPlayerJoinEvent(PlayerJoinEvent event) {
+        locatePlayer(event.getPlayer());
+        loadPlayerPreferences(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerMoveEvent(PlayerMoveEvent event) {
+        // Fired many times per second for every player, so it returns as soon as possible. The cache only recalculates
+        // the time when the player crosses the boundary of a cell.
+        var from = event.getFrom();
+        var to = event.getTo();
+        if (to == null || (from.getBlockX() == to.getBlockX() && from.getBlockZ() == to.getBlockZ())) return;
+
+        var projection = configuration.getWorldProjection(to.getWorld().getName());
+        if (projection != null && this.playerPreferences.get(event.getPlayer().getUniqueId()).location == null) {
+            this.locationTimeCache.setPlayerLocation(event.getPlayer().getUniqueId(), projection.latitude(to.getZ()), projection.longitude(to.getX()), this.syncTask.getClock());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerTeleportEvent(PlayerTeleportEvent event) {
+        if (event.getTo() != null) locatePlayer(event.getPlayer(), event.getTo());
+    }
+
+    @EventHandler
+    public void onPlayerChangedWorldEvent(PlayerChangedWorldEvent event) {
+        this.timePacketRewriter.forgetPlayer(event.getPlayer().getUniqueId());
+        locatePlayer(event.getPlayer());
+    }
+
+    @EventHandler
+    public void onPlayerRespawnEvent(PlayerRespawnEvent event) {
+        this.timePacketRewriter.forgetPlayer(event.getPlayer().getUniqueId());
+    }
+
+    @EventHandler
+    public void onPlayerQuitEvent(PlayerQuitEvent event) {
+        this.locationTimeCache.removePlayer(event.getPlayer().getUniqueId());
+        this.timePacketRewriter.forgetPlayer(event.getPlayer().getUniqueId());
+        this.driftMonitor.forgetPlayer(event.getPlayer().getUniqueId());
+        this.playerPreferences.unload(event.getPlayer().getUniqueId());
+        this.forecasts.remove(event.getPlayer().getName());
     }
 
     @EventHandler(ignoreCancelled = true)
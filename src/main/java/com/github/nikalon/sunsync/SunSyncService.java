@@ -0,0 +1,15 @@
+package com.github.nikalon.sunsync;
+
+public interface SunSyncService {
+    /*
+    Service registered in the Bukkit ServicesManager, so other plugins can share the sky computed by SunSync instead of
+    computing it again or polling the time of the worlds:
+
+        var service = Bukkit.getServicesManager().load(SunSyncService.class);
+        if (service != null && service.getSkySnapshot() != null && service.getSkySnapshot().isDaytime()) { ... }
+
+    Changes of the sky are also announced with SkyTransitionEvent and MoonPhaseChangeEvent.
+    */
+
+    SkySnapshot getSkySnapshot(); // null until the first synchronization
+}
@@ -0,0 +1,167 @@
+package com.github.nikalon.sunsync;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.function.LongSupplier;
+
+class SyncClock extends Clock {
+    /*
+    The clock of the synchronization loop. It counts the time with a monotonic ticker (System.nanoTime) from an instant
+    taken on the wall clock, so the sky doesn't jump when NTP steps the system clock. Every RECONCILE_INTERVAL_NANOS it
+    compares itself with the wall clock:
+
+    - Small differences are slewed: the clock runs up to MAX_SLEW_RATE faster or slower until it catches up. It never
+      goes backwards.
+    - Differences larger than STEP_THRESHOLD_NANOS are stepped at once. The wall clock was set on purpose, or the
+      ticker stopped while the machine was suspended.
+
+    The time is kept in a small immutable state that is replaced at each reconciliation, so reading the clock from any
+    thread is a volatile read and some arithmetic. epochNanos() and epochSecond() don't allocate; instant() is only
+    there for the Clock API.
+
+    The ticker and the wall clock are given to the constructor, so tests and simulations can drive the clock by hand.
+    */
+    static final long RECONCILE_INTERVAL_NANOS = 60_000_000_000L;  // 1 minute
+    static final long STEP_THRESHOLD_NANOS = 60_000_000_000L;      // 1 minute
+    static final double MAX_SLEW_RATE = 0.05;                      // 3 seconds per minute
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final LongSupplier ticker;
+    private final Clock wallClock;
+    private volatile State state;
+    private long steps;
+
+    SyncClock() {
+        this(System::nanoTime, Clock.systemUTC());
+    }
+
+    SyncClock(LongSupplier ticker, Clock wallClock) {
+        this.ticker = ticker;
+        this.wallClock = wallClock;
+        this.state = new State(ticker.getAsLong(), wallEpochNanos(wallClock), 0);
+    }
+
+    long epochNanos() {
+        // Nanoseconds since the UNIX epoch
+        // The state is read first, so the ticker is never behind it
+        var current = this.state;
+        long now = this.ticker.getAsLong();
+        if (now - current.ticker >= RECONCILE_INTERVAL_NANOS) {
+            current = reconcile(now);
+        }
+        return current.epochNanos(now);
+    }
+
+    long epochSecond() {
+        return Math.floorDiv(epochNanos(), NANOS_PER_SECOND);
+    }
+
+    static long epochSecond(Clock clock) {
+        // Seconds since the UNIX epoch from any clock, without allocating for this clock or for the fixed and offset
+        // clocks of java.time. Other clocks may make an Instant.
+        if (clock instanceof SyncClock) return ((SyncClock) clock).epochSecond();
+        return Math.floorDiv(clock.millis(), 1000L);
+    }
+
+    long getPendingCorrectionNanos() {
+        // Difference with the wall clock that has not been slewed yet. Positive if this clock is behind.
+        var current = this.state;
+        long now = this.ticker.getAsLong();
+        return current.correction - current.appliedCorrection(now);
+    }
+
+    synchronized long getSteps() {
+        // Number of times the clock jumped to the wall clock instead of slewing
+        return this.steps;
+    }
+
+    private synchronized State reconcile(long now) {
+        var current = this.state;
+        if (now - current.ticker < RECONCILE_INTERVAL_NANOS) return current; // Another thread did it
+
+        long epochNanos = current.epochNanos(now);
+        long difference = wallEpochNanos(this.wallClock) - epochNanos;
+        State next;
+        if (Math.abs(difference) > STEP_THRESHOLD_NANOS) {
+            next = new State(now, epochNanos + difference, 0);
+            this.steps++;
+        } else {
+            next = new State(now, epochNanos, difference);
+        }
+        this.state = next;
+        return next;
+    }
+
+    private static long wallEpochNanos(Clock clock) {
+        var instant = clock.instant();
+        return instant.getEpochSecond() * NANOS_PER_SECOND + instant.getNano();
+    }
+
+    @Override
+    public long millis() {
+        return Math.floorDiv(epochNanos(), 1_000_000L);
+    }
+
+    @Override
+    public Instant instant() {
+        long nanos = epochNanos();
+        return Instant.ofEpochSecond(Math.floorDiv(nanos, NANOS_PER_SECOND), Math.floorMod(nanos, NANOS_PER_SECOND));
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+        // A view of this clock in another zone. The plugin itself always works in UTC.
+        if (zone.equals(ZoneOffset.UTC)) return this;
+
+        var base = this;
+        return new Clock() {
+            @Override
+            public ZoneId getZone() {
+                return zone;
+            }
+
+            @Override
+            public Clock withZone(ZoneId otherZone) {
+                return base.withZone(otherZone);
+            }
+
+            @Override
+            public Instant instant() {
+                return base.instant();
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SyncClock[%s, %d ns to slew, %d steps]", instant().atOffset(ZoneOffset.UTC), getPendingCorrectionNanos(), getSteps());
+    }
+
+    private static class State {
+        final long ticker;      // Ticker at the last reconciliation
+        final long epochNanos;  // Time of this clock at the last reconciliation
+        final long correction;  // Difference with the wall clock to slew from the last reconciliation on
+
+        State(long ticker, long epochNanos, long correction) {
+            this.ticker = ticker;
+            this.epochNanos = epochNanos;
+            this.correction = correction;
+        }
+
+        long appliedCorrection(long now) {
+            long limit = (long) ((now - this.ticker) * MAX_SLEW_RATE);
+            return Math.max(-limit, Math.min(limit, this.correction));
+        }
+
+        long epochNanos(long now) {
+            return this.epochNanos + (now - this.ticker) + appliedCorrection(now);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.github.nikalon.sunsync;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+class SyncEvents {
+    /*
+    Java Flight Recorder events, so the cost of the plugin shows up in the recordings next to the GC and tick data.
+    Events are only recorded while a recording is running, and their thresholds can be changed from the JFR settings
+    like for any other event, for example:
+
+        -XX:StartFlightRecording:settings=profile,+com.github.nikalon.sunsync.SynchronizeTime#threshold=1ms
+
+    When the option "jfr_events" is false no event object is created at all.
+    */
+    private static final String CATEGORY = "SunSync";
+
+    private SyncEvents() {} // Disallow instantiation
+
+    @Name("com.github.nikalon.sunsync.SynchronizeTime")
+    @Label("Time Synchronization")
+    @Description("A run of the time synchronization task")
+    @Category(CATEGORY)
+    @Threshold("0 ms")
+    @StackTrace(false)
+    static class SynchronizeTime extends Event {
+        @Label("Location")
+        String location;
+
+        @Label("Minecraft Time")
+        long minecraftTime;
+
+        @Label("Recalculated")
+        @Description("False if the cached sunrise and sunset times were used")
+        boolean recalculated;
+
+        @Label("Shared State")
+        @Description("True if the time was taken from another server on this host")
+        boolean sharedState;
+
+        @Label("Worlds")
+        int worlds;
+
+        @Label("Player Locations")
+        @Description("Locations with their own time, shared by nearby players")
+        int playerLocations;
+    }
+
+    @Name("com.github.nikalon.sunsync.AstronomyRecompute")
+    @Label("Astronomy Recompute")
+    @Description("Calculation of the sunrise and sunset times and the Moon phase of a location")
+    @Category(CATEGORY)
+    @Threshold("0 ms")
+    @StackTrace(false)
+    static class AstronomyRecompute extends Event {
+        @Label("Location")
+        String location;
+
+        @Label("Date")
+        String date;
+
+        @Label("Has Events")
+        @Description("False if the Sun never rises or never sets")
+        boolean hasEvents;
+
+        @Label("Minecraft Day")
+        long minecraftDay;
+    }
+
+    @Name("com.github.nikalon.sunsync.DayRollover")
+    @Label("Day Rollover")
+    @Description("A new UTC day started for a location")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static class DayRollover extends Event {
+        @Label("Location")
+        String location;
+
+        @Label("Date")
+        String date;
+
+        @Label("Minecraft Day")
+        long minecraftDay;
+    }
+
+    @Name("com.github.nikalon.sunsync.LocationChange")
+    @Label("Player Location Change")
+    @Description("A player moved to another location cell")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static class LocationChange extends Event {
+        @Label("Player")
+        String player;
+
+        @Label("Latitude")
+        double latitude;
+
+        @Label("Longitude")
+        double longitude;
+
+        @Label("Cache Hit")
+        @Description("False if the time of the new cell had to be calculated")
+        boolean cacheHit;
+    }
+
+    @Name("com.github.nikalon.sunsync.TimePacketRewrite")
+    @Label("Time Packet Rewrite")
+    @Description("A sampled UPDATE_TIME packet rewritten by the plugin")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static class TimePacketRewrite extends Event {
+        @Label("Player")
+        String player;
+
+        @Label("Original Time")
+        long originalTime;
+
+        @Label("Rewritten Time")
+        long rewrittenTime;
+
+        @Label("Player Location")
+        @Description("True if the player sees the sky of their own location")
+        boolean playerLocation;
+
+        @Label("Sample Rate")
+        @Description("Only one of this many packets is recorded")
+        int sampleRate;
+    }
+}
@@ -0,0 +1,153 @@
+package com.github.nikalon.sunsync;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+class SyncMetrics {
+    /*
+    Counters and gauges of the plugin. They are written by the server threads and read by the metrics endpoint from its
+    own thread, so every value is either volatile or a LongAdder. Nothing here touches the Bukkit API.
+    */
+    private static final double NANOS_PER_SECOND = 1e9;
+    private static final double[] DRIFT_QUANTILES = { 0.5, 0.9, 0.99 };
+
+    // Gauges, updated after every synchronization
+    private volatile long minecraftTime;
+    private volatile long minecraftDay;
+    private volatile long secondsUntilNextEvent = -1; // -1 if unknown
+    private volatile int polarState = TimeSynchronizer.POLAR_STATE_NONE;
+    private volatile long lastSyncEpochSecond;
+    private volatile long lastSyncDurationNanos;
+    private volatile int locationCells;
+
+    // Counters
+    private final LongAdder syncs = new LongAdder();
+    private final LongAdder syncDurationNanos = new LongAdder();
+    private final LongAdder recalculations = new LongAdder();
+    private final LongAdder sharedStateReads = new LongAdder();
+    private final LongAdder packetsRewritten = new LongAdder();
+    private final LongAdder packetsSuppressed = new LongAdder();
+    private final LongAdder packetsVanillaSky = new LongAdder();
+    private final LongAdder locationCacheHits = new LongAdder();
+    private final LongAdder locationCacheMisses = new LongAdder();
+
+    private volatile DriftMonitor driftMonitor; // null if the drift is not measured
+
+    void recordSync(TimeSynchronizer synchronizer, long nowEpochSecond, long durationNanos, boolean recalculated, boolean sharedState, int cells) {
+        this.minecraftTime = synchronizer.getMinecraftTime();
+        this.minecraftDay = synchronizer.getMinecraftDay();
+        long nextEvent = synchronizer.getNextEventEpochSecond();
+        this.secondsUntilNextEvent = nextEvent == TimeSynchronizer.NO_EVENT ? -1 : Math.max(0, nextEvent - nowEpochSecond);
+        this.polarState = synchronizer.getPolarState();
+        this.lastSyncEpochSecond = nowEpochSecond;
+        this.lastSyncDurationNanos = durationNanos;
+        this.locationCells = cells;
+
+        this.syncs.increment();
+        this.syncDurationNanos.add(durationNanos);
+        if (recalculated) this.recalculations.increment();
+        if (sharedState) this.sharedStateReads.increment();
+    }
+
+    void recordPacketRewritten() {
+        this.packetsRewritten.increment();
+    }
+
+    void recordPacketSuppressed() {
+        this.packetsSuppressed.increment();
+    }
+
+    void recordPacketVanillaSky() {
+        this.packetsVanillaSky.increment();
+    }
+
+    void recordLocationCacheLookup(boolean hit) {
+        if (hit) this.locationCacheHits.increment();
+        else     this.locationCacheMisses.increment();
+    }
+
+    void setDriftMonitor(DriftMonitor driftMonitor) {
+        this.driftMonitor = driftMonitor;
+    }
+
+    long getPacketsRewritten() {
+        return this.packetsRewritten.sum();
+    }
+
+    long getPacketsSuppressed() {
+        return this.packetsSuppressed.sum();
+    }
+
+    long getPacketsVanillaSky() {
+        return this.packetsVanillaSky.sum();
+    }
+
+    long getLocationCacheMisses() {
+        return this.locationCacheMisses.sum();
+    }
+
+    void writePrometheus(StringBuilder out) {
+        // Prometheus text exposition format, version 0.0.4
+        gauge(out, "sunsync_minecraft_time_ticks", "Minecraft time of day shown by the server", this.minecraftTime);
+        gauge(out, "sunsync_moon_day", "Minecraft day used to show the Moon phase (0 is full Moon, 4 is new Moon)", this.minecraftDay);
+        gauge(out, "sunsync_seconds_until_next_event", "Seconds until the next sunrise or sunset, -1 if there is none", this.secondsUntilNextEvent);
+        gauge(out, "sunsync_polar_night", "1 if the Sun does not rise today at the server location", this.polarState == TimeSynchronizer.POLAR_STATE_NIGHT ? 1 : 0);
+        gauge(out, "sunsync_polar_day", "1 if the Sun does not set today at the server location", this.polarState == TimeSynchronizer.POLAR_STATE_DAY ? 1 : 0);
+        gauge(out, "sunsync_last_sync_timestamp_seconds", "Time of the last synchronization (UNIX time, as seen by the plugin clock)", this.lastSyncEpochSecond);
+        gauge(out, "sunsync_last_sync_duration_seconds", "Duration of the last synchronization", this.lastSyncDurationNanos / NANOS_PER_SECOND);
+        gauge(out, "sunsync_location_cells", "Player locations with their own time", this.locationCells);
+
+        header(out, "sunsync_sync_duration_seconds", "Duration of the synchronizations", "summary");
+        out.append("sunsync_sync_duration_seconds_sum ").append(format(this.syncDurationNanos.sum() / NANOS_PER_SECOND)).append('\n');
+        out.append("sunsync_sync_duration_seconds_count ").append(this.syncs.sum()).append('\n');
+
+        counter(out, "sunsync_recalculations_total", "Synchronizations that recalculated the sunrise and sunset times", this.recalculations.sum());
+        counter(out, "sunsync_shared_state_reads_total", "Synchronizations that took the time from another server on this host", this.sharedStateReads.sum());
+        counter(out, "sunsync_packets_rewritten_total", "Time update packets rewritten by the plugin", this.packetsRewritten.sum());
+        counter(out, "sunsync_packets_suppressed_total", "Time update packets not sent because the client already had that time", this.packetsSuppressed.sum());
+        counter(out, "sunsync_packets_vanilla_sky_total", "Time update packets given the vanilla time for players who opted out of the real sky", this.packetsVanillaSky.sum());
+        counter(out, "sunsync_location_cache_hits_total", "Player location changes into a cell whose time was already known", this.locationCacheHits.sum());
+        counter(out, "sunsync_location_cache_misses_total", "Player location changes into a cell whose time had to be calculated", this.locationCacheMisses.sum());
+
+        var monitor = this.driftMonitor;
+        if (monitor != null) {
+            summary(out, "sunsync_world_drift_ticks", "Ticks between the time of a world and the time last applied to it, over the last samples", monitor.getWorldDrift());
+            summary(out, "sunsync_client_drift_ticks", "Ticks between the time last sent to a player and the time they should see, over the last samples", monitor.getPlayerDrift());
+            counter(out, "sunsync_blocked_time_changes_total", "Changes of the time of a world from outside the plugin that were cancelled", monitor.getBlockedChangeCount());
+        }
+    }
+
+    private static void header(StringBuilder out, String name, String help, String type) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void gauge(StringBuilder out, String name, String help, long value) {
+        header(out, name, help, "gauge");
+        out.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void gauge(StringBuilder out, String name, String help, double value) {
+        header(out, name, help, "gauge");
+        out.append(name).append(' ').append(format(value)).append('\n');
+    }
+
+    private static void counter(StringBuilder out, String name, String help, long value) {
+        header(out, name, help, "counter");
+        out.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void summary(StringBuilder out, String name, String help, DriftMonitor.Samples samples) {
+        header(out, name, help, "summary");
+        long[] values = samples.percentiles(DRIFT_QUANTILES);
+        for (int i = 0; i < values.length; i++) {
+            out.append(name).append("{quantile=\"").append(DRIFT_QUANTILES[i]).append("\"} ").append(values[i]).append('\n');
+        }
+        out.append(name).append("_sum ").append(samples.sum()).append('\n');
+        out.append(name).append("_count ").append(samples.count()).append('\n');
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.9f", value);
+    }
+}
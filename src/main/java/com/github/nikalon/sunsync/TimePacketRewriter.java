@@ -0,0 +1,138 @@
+package com.github.nikalon.sunsync;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+import org.bukkit.entity.Player;
+
+class TimePacketRewriter {
+    // Decides the time written into each outgoing time update packet. It doesn't depend on ProtocolLib, so it can be
+    // driven by the plugin's packet listener or by a simulated server.
+    //
+    // The server sends a time update packet to every player once per second, but a synchronized sky only moves one tick
+    // every 3.6 seconds. With the option "suppress_redundant_time_packets" the last time sent to each player is kept,
+    // and packets that would show a frozen sky at the same time are dropped. One of them is still sent every
+    // "time_packet_keepalive_seconds", so the world age seen by the client doesn't drift.
+    static final long NOT_REWRITTEN = Long.MIN_VALUE; // The packet is sent as it is
+    static final long SUPPRESSED = Long.MIN_VALUE + 1; // The packet is not sent
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final Configuration configuration;
+    private final TimeSynchronizer timeSynchronizer;
+    private final LocationTimeCache locationTimeCache;
+    private final SyncMetrics metrics;
+    private PlayerPreferencesStore preferences; // null if the players can't choose their sky
+    private LongSupplier ticker = System::nanoTime;
+
+    // Time of day and ticker of the last packet sent to each player. Each player's packets are sent from the thread of
+    // their connection, so the arrays are not shared between threads.
+    private final Map<UUID, long[]> lastSent = new ConcurrentHashMap<>();
+
+    // Not atomic. Packets may be sent from several threads, but a lost update only changes which packet is sampled.
+    private long packetCount;
+
+    TimePacketRewriter(Configuration configuration, TimeSynchronizer timeSynchronizer, LocationTimeCache locationTimeCache, SyncMetrics metrics) {
+        this.configuration = configuration;
+        this.timeSynchronizer = timeSynchronizer;
+        this.locationTimeCache = locationTimeCache;
+        this.metrics = metrics;
+    }
+
+    void setPreferences(PlayerPreferencesStore preferences) {
+        this.preferences = preferences;
+    }
+
+    void setTicker(LongSupplier ticker) {
+        // Source of System.nanoTime() for the keepalive of suppressed packets
+        this.ticker = ticker;
+    }
+
+    void forgetPlayer(UUID player) {
+        // The next packet is always sent. Called when the player leaves, or when their client builds a new world
+        // (respawn or change of world) and doesn't know the time anymore.
+        this.lastSent.remove(player);
+    }
+
+    long rewrite(Player player, long worldAge, long timeOfDay) {
+        // Returns the time of day to send to the given player, NOT_REWRITTEN or SUPPRESSED. The player may be null.
+        var playerPreferences = preferencesOf(player);
+        boolean hasPlayerLocation = player != null && locationTimeCache.hasLocation(player.getUniqueId());
+        long rewrittenTime = playerTime(player, playerPreferences, hasPlayerLocation, worldAge, timeOfDay);
+
+        if (configuration.getSuppressRedundantTimePackets() && player != null && isRedundant(player.getUniqueId(), rewrittenTime == NOT_REWRITTEN ? timeOfDay : rewrittenTime)) {
+            metrics.recordPacketSuppressed();
+            return SUPPRESSED;
+        }
+        if (rewrittenTime == NOT_REWRITTEN) return NOT_REWRITTEN;
+        if (playerPreferences.optOut) {
+            // Only the vanilla time is restored, so it's not counted as a rewrite of the plugin
+            metrics.recordPacketVanillaSky();
+            return rewrittenTime;
+        }
+        metrics.recordPacketRewritten();
+
+        if (configuration.getJfrEvents() && ++packetCount % configuration.getJfrPacketSampleRate() == 0) {
+            var rewriteEvent = new SyncEvents.TimePacketRewrite();
+            if (rewriteEvent.shouldCommit()) {
+                rewriteEvent.player = player != null ? player.getName() : null;
+                rewriteEvent.originalTime = timeOfDay;
+                rewriteEvent.rewrittenTime = rewrittenTime;
+                rewriteEvent.playerLocation = hasPlayerLocation;
+                rewriteEvent.sampleRate = configuration.getJfrPacketSampleRate();
+                rewriteEvent.commit();
+            }
+        }
+        return rewrittenTime;
+    }
+
+    long intendedTime(Player player, long worldAge, long timeOfDay) {
+        // Time of day that rewrite() gives to the player for the given time of their world, without recording anything.
+        // NOT_REWRITTEN for players who chose the vanilla sky, whose time is not the plugin's business.
+        var playerPreferences = preferencesOf(player);
+        if (playerPreferences.optOut) return NOT_REWRITTEN;
+        long time = playerTime(player, playerPreferences, locationTimeCache.hasLocation(player.getUniqueId()), worldAge, timeOfDay);
+        return time == NOT_REWRITTEN ? timeOfDay : time;
+    }
+
+    private PlayerPreferences preferencesOf(Player player) {
+        return (player == null || this.preferences == null) ? PlayerPreferences.DEFAULT : this.preferences.get(player.getUniqueId());
+    }
+
+    private long playerTime(Player player, PlayerPreferences playerPreferences, boolean hasPlayerLocation, long worldAge, long timeOfDay) {
+        if (playerPreferences.optOut) {
+            // The worlds hold the synchronized time, but their age keeps counting ticks as the vanilla cycle does. The
+            // sign still tells the client whether the gamerule doDaylightCycle is set to true.
+            return timeOfDay >= 0 ? worldAge : -worldAge;
+        }
+        if (hasPlayerLocation) {
+            // The player sees the sky of their own location
+            return -playerPreferences.applyTimeOffset(locationTimeCache.getFullMinecraftTime(player.getUniqueId(), timeSynchronizer.getFullMinecraftTime()));
+        }
+        if (timeOfDay >= 0 || playerPreferences.timeOffsetTicks != 0) {
+            // The gamerule doDaylightCycle is set to true. Change the sign of the time to make the client believe that
+            // the gamerule is set to false
+            return -playerPreferences.applyTimeOffset(timeSynchronizer.getMinecraftTime());
+        }
+        return NOT_REWRITTEN;
+    }
+
+    private boolean isRedundant(UUID player, long time) {
+        // A negative time freezes the sky of the client, so sending it again changes nothing. A positive time is
+        // always sent: the client moves the Sun by itself and the server corrects it.
+        long now = this.ticker.getAsLong();
+        long[] last = this.lastSent.get(player);
+        if (last == null) {
+            this.lastSent.put(player, new long[] { time, now });
+            return false;
+        }
+
+        if (time < 0 && time == last[0] && now - last[1] < configuration.getTimePacketKeepaliveSeconds() * NANOS_PER_SECOND) {
+            return true;
+        }
+        last[0] = time;
+        last[1] = now;
+        return false;
+    }
+}
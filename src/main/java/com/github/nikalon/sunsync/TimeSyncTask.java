@@ -0,0 +1,171 @@
+package com.github.nikalon.sunsync;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+import org.bukkit.World;
+
+class TimeSyncTask implements Runnable {
+    // The work done every synchronization interval: computes the time and applies it to every world. It doesn't
+    // depend on the Bukkit scheduler or on the server, so it can be driven by the plugin or by a simulated server.
+
+    // The time published by another server is discarded when it's older than this many synchronization intervals
+    private static final long SHARED_STATE_MAX_AGE_SYNC_INTERVALS = 3;
+    private static final long SHARED_STATE_MIN_MAX_AGE_SECONDS   = 30;
+
+    private final Configuration configuration;
+    private final TimeSynchronizer timeSynchronizer;
+    private final LocationTimeCache locationTimeCache;
+    private final SyncMetrics metrics;
+    private final Logger logger;
+    private final Supplier<? extends List<World>> worlds;
+
+    private Clock clock = new SyncClock();
+    private boolean paused;
+    private SharedSyncState sharedSyncState; // null if the time is not shared with other servers
+    private SkyService skyService; // null if the sky is not published to other plugins
+    private WorldTimeScheduler worldTimeScheduler; // null if the time is applied to all worlds at once
+    private DriftMonitor driftMonitor; // null if the drift of the worlds is not measured
+
+    TimeSyncTask(Configuration configuration, TimeSynchronizer timeSynchronizer, LocationTimeCache locationTimeCache, SyncMetrics metrics, Logger logger, Supplier<? extends List<World>> worlds) {
+        this.configuration = configuration;
+        this.timeSynchronizer = timeSynchronizer;
+        this.locationTimeCache = locationTimeCache;
+        this.metrics = metrics;
+        this.logger = logger;
+        this.worlds = worlds;
+    }
+
+    Clock getClock() {
+        return this.clock;
+    }
+
+    void setClock(Clock clock) {
+        this.clock = clock;
+    }
+
+    boolean isPaused() {
+        return this.paused;
+    }
+
+    void setPaused(boolean paused) {
+        this.paused = paused;
+    }
+
+    void setSharedSyncState(SharedSyncState sharedSyncState) {
+        this.sharedSyncState = sharedSyncState;
+    }
+
+    void setSkyService(SkyService skyService) {
+        this.skyService = skyService;
+    }
+
+    void setWorldTimeScheduler(WorldTimeScheduler worldTimeScheduler) {
+        this.worldTimeScheduler = worldTimeScheduler;
+    }
+
+    void setDriftMonitor(DriftMonitor driftMonitor) {
+        this.driftMonitor = driftMonitor;
+    }
+
+    @Override
+    public void run() {
+        long startNanos = System.nanoTime();
+        var event = configuration.getJfrEvents() ? new SyncEvents.SynchronizeTime() : null;
+        if (event != null) event.begin();
+
+        // The clock is read once, so everything is computed for the same instant. It's read as a primitive, so the
+        // synchronization doesn't allocate for it.
+        long nowSeconds = SyncClock.epochSecond(this.clock);
+
+        var needsToRecalculateEventsTimes = ! this.paused || ! this.timeSynchronizer.isSynchronized();
+        boolean usedSharedState = false;
+        if (needsToRecalculateEventsTimes && readSharedSyncState()) {
+            // Another server on this host has already done the work
+            needsToRecalculateEventsTimes = false;
+            usedSharedState = true;
+        }
+
+        if (needsToRecalculateEventsTimes) {
+            if (configuration.getDebugMode()) debugLog(String.format("The time is %s (UTC)", LocalTime.ofSecondOfDay(Math.floorMod(nowSeconds, 86400L))));
+            this.timeSynchronizer.synchronize(nowSeconds);
+
+            if (this.sharedSyncState != null && this.sharedSyncState.isLeader()) {
+                this.sharedSyncState.publish(this.timeSynchronizer.getMinecraftTime(), this.timeSynchronizer.getMinecraftDay(), System.currentTimeMillis());
+            }
+        }
+
+        if (! this.paused && this.locationTimeCache.size() > 0) {
+            this.locationTimeCache.synchronize(nowSeconds);
+        }
+
+        // Synchronize Minecraft time
+        long fullMinecraftTime = this.timeSynchronizer.getFullMinecraftTime();
+        var worlds = this.worlds.get();
+        if (this.worldTimeScheduler != null) {
+            // Applied over the next ticks
+            this.worldTimeScheduler.schedule(worlds, fullMinecraftTime);
+        } else {
+            for (int i = 0; i < worlds.size(); i++) {
+                // TODO: Select desired worlds in config. Synchronizing all worlds for now...
+                if (this.driftMonitor != null) this.driftMonitor.apply(worlds.get(i), fullMinecraftTime);
+                else                           worlds.get(i).setFullTime(fullMinecraftTime);
+            }
+            if (configuration.getDebugMode()) debugLog(String.format("All worlds synchronized to Minecraft time %d", this.timeSynchronizer.getMinecraftTime()));
+        }
+
+        if (this.skyService != null) {
+            this.skyService.update(this.timeSynchronizer.snapshot(nowSeconds));
+        }
+
+        this.metrics.recordSync(this.timeSynchronizer, nowSeconds, System.nanoTime() - startNanos, needsToRecalculateEventsTimes, usedSharedState, this.locationTimeCache.size());
+
+        if (event != null) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.location = this.timeSynchronizer.getLocation().toString();
+                event.minecraftTime = this.timeSynchronizer.getMinecraftTime();
+                event.recalculated = needsToRecalculateEventsTimes;
+                event.sharedState = usedSharedState;
+                event.worlds = worlds.size();
+                event.playerLocations = this.locationTimeCache.size();
+                event.commit();
+            }
+        }
+    }
+
+    private boolean readSharedSyncState() {
+        // Takes the time published by the leader server of this host, if any. Returns true if the time was taken from
+        // the leader.
+        if (this.sharedSyncState == null || this.sharedSyncState.isLeader()) return false;
+
+        var snapshot = this.sharedSyncState.read();
+        long maxAgeSeconds = Math.max(SHARED_STATE_MAX_AGE_SYNC_INTERVALS * configuration.getSynchronizationIntervalSeconds(), SHARED_STATE_MIN_MAX_AGE_SECONDS);
+        if (snapshot != null && ! snapshot.isStale(System.currentTimeMillis(), maxAgeSeconds * 1000)) {
+            this.timeSynchronizer.setMinecraftTime(snapshot.minecraftTime, snapshot.minecraftDay);
+            if (configuration.getDebugMode()) debugLog(String.format("Using Minecraft time %d and day %d published by another server", snapshot.minecraftTime, snapshot.minecraftDay));
+            return true;
+        }
+
+        // The leader is gone or it has not published anything yet. Try to take its place.
+        try {
+            if (this.sharedSyncState.tryBecomeLeader()) {
+                logger.info(String.format("This server now computes the time for all servers sharing %s", this.sharedSyncState.getPath()));
+            }
+        } catch (IOException e) {
+            logger.warning(String.format("Could not lock shared state file %s: %s", this.sharedSyncState.getPath(), e.getMessage()));
+        }
+        return false;
+    }
+
+    private void debugLog(String message) {
+        // Callers that run on every synchronization check the debug mode first, so the message is not even formatted
+        if (configuration.getDebugMode()) {
+            logger.info(String.format("DEBUG: %s", message));
+        }
+    }
+}
@@ -0,0 +1,416 @@
+package com.github.nikalon.sunsync;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.logging.Logger;
+
+import com.github.nikalon.sunsync.Sun.GeographicCoordinate;
+import com.github.nikalon.sunsync.Sun.SolarEvents;
+
+class TimeSynchronizer {
+    // Converts the real world time into Minecraft time. It doesn't depend on Bukkit at all, so it can be driven from
+    // the plugin or from a headless test.
+    static final long MINECRAFT_DAY_LENGTH_TICKS    = 14000;
+    static final long MINECRAFT_NIGHT_LENGTH_TICKS  = 10000;
+    static final long MINECRAFT_DAY_IN_TICKS        = 24000;
+    static final int  MINECRAFT_TOTAL_MOON_PHASES   = 8;
+
+    // Sunrise time start as seen from the game. We cannot start from day -1000, so we use the next valid sunrise time.
+    static final long MINECRAFT_SUNRISE_START_TICKS = 23000;
+
+    // Sunset time start as seen from the game
+    static final long MINECRAFT_SUNSET_START_TICKS  = 37000;
+
+    static final long MINECRAFT_MIDDAY_TICKS        = 30000;
+    static final long MINECRAFT_MIDNIGHT_TICKS      = 42000;
+    static final int  MINECRAFT_NEW_MOON_DAY_START  = 4;
+
+    private static final long SECONDS_PER_DAY = 86400;
+
+    // Returned by getNextEventEpochSecond() when there is no next event
+    static final long NO_EVENT = Long.MIN_VALUE;
+
+    // Returned by getPolarState()
+    static final int POLAR_STATE_NONE  = 0;
+    static final int POLAR_STATE_NIGHT = 1; // The Sun does not rise
+    static final int POLAR_STATE_DAY   = 2; // The Sun does not set
+
+    /*
+    The real time is mapped into Minecraft time through a timeline of anchors: each solar event of yesterday, today and
+    tomorrow is pinned to the Minecraft time at which the Minecraft Sun is at the same elevation, and the time in between
+    is interpolated linearly. Sunrise and sunset keep the anchors this plugin always used (23000 and 13000 ticks), so
+    only dawn and dusk gain detail from the twilights. Solar noon and midnight are pinned to 6000 and 18000 ticks.
+
+    A twilight is skipped when the Sun is below its altitude for less than MIN_DARKNESS_SECONDS, so nights that barely
+    reach it do not race through the Minecraft night.
+
+    With the "elevation" sky mapping the timeline is not used to set the time. The Minecraft Sun is put at the same
+    elevation as the real one instead, reading the Minecraft time from the inverse table of MinecraftSky, so the sky
+    follows the real height of the Sun at any latitude, including the days when it does not rise or does not set.
+    */
+    private static final int EVENT_DAYS = 3;
+    private static final int ANCHORS_PER_DAY = 2 * Sun.SolarEvents.LEVELS + 2; // Rise and set of each level, noon and midnight
+    private static final int ANCHOR_COUNT = EVENT_DAYS * ANCHORS_PER_DAY;
+    private static final long MIN_DARKNESS_SECONDS = 3600;
+    private static final double[] DAWN_TICKS = new double[Sun.SolarEvents.LEVELS];
+    private static final double[] DUSK_TICKS = new double[Sun.SolarEvents.LEVELS];
+    private static final double[] TWILIGHT_ALTITUDES = { 0, -6, -12, -18 }; // Same order as the levels in SolarEvents
+    private static final SkySnapshot.SkyPeriod[] SKY_PERIODS = SkySnapshot.SkyPeriod.values(); // values() copies the array on every call
+    static {
+        DAWN_TICKS[Sun.SolarEvents.SUNRISE_AND_SUNSET] = MINECRAFT_SUNRISE_START_TICKS % MINECRAFT_DAY_IN_TICKS;
+        DUSK_TICKS[Sun.SolarEvents.SUNRISE_AND_SUNSET] = MINECRAFT_SUNSET_START_TICKS % MINECRAFT_DAY_IN_TICKS;
+        for (int level = Sun.SolarEvents.CIVIL_TWILIGHT; level < Sun.SolarEvents.LEVELS; level++) {
+            DAWN_TICKS[level] = MinecraftSky.dawnTicks(TWILIGHT_ALTITUDES[level]) % MINECRAFT_DAY_IN_TICKS;
+            DUSK_TICKS[level] = MinecraftSky.duskTicks(TWILIGHT_ALTITUDES[level]);
+        }
+    }
+
+    private final Configuration configuration;
+    private final Logger logger;
+    private final GeographicCoordinate location; // null to follow the location set in the configuration
+    private final LatitudeBandCache bandCache; // null to calculate the events of this location on its own
+
+    private LocalDate lastUpdated; // Used to cache sunrise and sunset calculations for a day
+    private long lastUpdatedEpochDay; // The same day, so checking it on every synchronization doesn't allocate
+    private boolean hasEvents; // false if the Sun does not rise or does not set around today
+    private int polarState = POLAR_STATE_NONE;
+    private long nextEventEpochSecond = NO_EVENT;
+    private int anchorCount;
+    private final long[] anchorTimes = new long[ANCHOR_COUNT]; // Seconds since the UNIX epoch (UTC), strictly increasing
+    private final double[] anchorTicks = new double[ANCHOR_COUNT]; // Minecraft time of day, from 0 to 24000
+    private final boolean[] anchorIsSunriseOrSunset = new boolean[ANCHOR_COUNT];
+    private final SolarEvents[] days = new SolarEvents[EVENT_DAYS]; // Yesterday, today and tomorrow
+    private LocalDate daysDate; // Date of today in days, null until they are calculated
+
+    private long currentMinecraftTime;
+    private long currentMinecraftDay;
+
+    private MoonEvents moonEvents; // Only used for the debug output. Kept between days to reuse its positions.
+    private GeographicCoordinate moonEventsLocation;
+
+    TimeSynchronizer(Configuration configuration, Logger logger) {
+        this(configuration, logger, null);
+    }
+
+    TimeSynchronizer(Configuration configuration, Logger logger, GeographicCoordinate location) {
+        this(configuration, logger, location, null);
+    }
+
+    TimeSynchronizer(Configuration configuration, Logger logger, GeographicCoordinate location, LatitudeBandCache bandCache) {
+        this.configuration = configuration;
+        this.logger = logger;
+        this.location = location;
+        this.bandCache = bandCache;
+    }
+
+    GeographicCoordinate getLocation() {
+        return this.location != null ? this.location : configuration.getGeographicCoordinates();
+    }
+
+    long getMinecraftTime() {
+        return this.currentMinecraftTime;
+    }
+
+    long getMinecraftDay() {
+        return this.currentMinecraftDay;
+    }
+
+    long getFullMinecraftTime() {
+        return this.currentMinecraftTime + (this.currentMinecraftDay * MINECRAFT_DAY_IN_TICKS);
+    }
+
+    boolean isSynchronized() {
+        return this.lastUpdated != null;
+    }
+
+    int getPolarState() {
+        return this.polarState;
+    }
+
+    long getNextEventEpochSecond() {
+        // Time of the next sunrise or sunset (UTC), as of the last synchronization
+        return this.nextEventEpochSecond;
+    }
+
+    void setMinecraftTime(long minecraftTime, long minecraftDay) {
+        // Used when the time is computed somewhere else
+        this.currentMinecraftTime = minecraftTime;
+        this.currentMinecraftDay = minecraftDay;
+    }
+
+    void invalidate() {
+        // Forces to recalculate sunrise and sunset times
+        this.lastUpdated = null;
+        this.daysDate = null;
+        this.hasEvents = false;
+        this.nextEventEpochSecond = NO_EVENT;
+    }
+
+    void synchronize(LocalDateTime now) {
+        synchronize(now.toEpochSecond(ZoneOffset.UTC));
+    }
+
+    void synchronize(long nowSeconds) {
+        // Whenever the term "event" is used it means either the sunrise or sunset in the real world. The time is given
+        // in seconds since the UNIX epoch (UTC), and dates are only made once a day.
+        long epochDay = Math.floorDiv(nowSeconds, SECONDS_PER_DAY);
+        if (lastUpdated == null || epochDay > lastUpdatedEpochDay) {
+            var now = LocalDateTime.ofEpochSecond(nowSeconds, 0, ZoneOffset.UTC);
+            var recomputeEvent = configuration.getJfrEvents() ? new SyncEvents.AstronomyRecompute() : null;
+            if (recomputeEvent != null) recomputeEvent.begin();
+            boolean isDayRollover = lastUpdated != null;
+
+            // Calculate sunrise and sunset times and cache it until 23:59:59 (UTC)
+            lastUpdated = now.toLocalDate();
+            lastUpdatedEpochDay = epochDay;
+            updateEvents(now.toLocalDate());
+
+            // Calculate today's Moon phase and cache it until 23:59:59 (UTC)
+            var moonPhase = configuration.getAstronomyEngine().moonPhase(AstronomicalTime.of(now));
+            debugLog(String.format("Today's Moon phase: " + moonPhase));
+            if (configuration.getDebugMode()) logMoonEvents(lastUpdated);
+
+            /*
+            Minecraft has 8 Moon phases according to the wiki (https://minecraft.fandom.com/wiki/Moon#Phases)
+            Starting from day 0 it goes through the phases as this:
+            Day 0: Full Moon
+            Day 1: Waning gibbous
+            Day 2: Last Quarter
+            Day 3: Waning Crescent
+            Day 4: New Moon
+            Day 5: Waxing crescent
+            Day 6: First quarter
+            Day 7: Waxing gibbous
+
+            What we're doing here is calculate the current real world Moon phase and convert it to the corresponding
+            Minecraft day defined above. This plugin will always stay in the range of days 0-7 at all times. This
+            means that as the days go by the Minecraft server will go back and forth in time. That's expected
+            behaviour for now, because as of Minecraft 1.18-1.19 we have no way to modify the orbit, moonrise
+            time, moonset time, phase, etc of the Moon directly in the server side.
+            */
+
+            // TODO: Match visual appearance of the the Moon. Maybe add a setting for this?
+            this.currentMinecraftDay = Math.round(Helper.modulo(MINECRAFT_NEW_MOON_DAY_START + (moonPhase * MINECRAFT_TOTAL_MOON_PHASES), 8.0)) % MINECRAFT_TOTAL_MOON_PHASES;
+            debugLog(String.format("Current Minecraft day (for moon phase): " + this.currentMinecraftDay));
+
+            if (recomputeEvent != null) {
+                recomputeEvent.end();
+                if (recomputeEvent.shouldCommit()) {
+                    recomputeEvent.location = getLocation().toString();
+                    recomputeEvent.date = lastUpdated.toString();
+                    recomputeEvent.hasEvents = this.hasEvents;
+                    recomputeEvent.minecraftDay = this.currentMinecraftDay;
+                    recomputeEvent.commit();
+                }
+
+                if (isDayRollover) {
+                    var rolloverEvent = new SyncEvents.DayRollover();
+                    if (rolloverEvent.shouldCommit()) {
+                        rolloverEvent.location = recomputeEvent.location != null ? recomputeEvent.location : getLocation().toString();
+                        rolloverEvent.date = lastUpdated.toString();
+                        rolloverEvent.minecraftDay = this.currentMinecraftDay;
+                        rolloverEvent.commit();
+                    }
+                }
+            }
+        }
+
+        boolean followsElevation = followsElevation();
+        if (followsElevation) {
+            this.currentMinecraftTime = elevationMinecraftTime(nowSeconds);
+        }
+
+        if (! hasEvents) {
+            this.nextEventEpochSecond = NO_EVENT;
+
+            // Error condition reached. The Sun will not rise and/or set today. The time was already set when the events
+            // were calculated.
+            return;
+        }
+
+        // Find the anchors before and after now and interpolate between them
+        int last = -1;
+        for (int i = 0; i < anchorCount && anchorTimes[i] <= nowSeconds; i++) {
+            last = i;
+        }
+
+        if (last < 0 || last + 1 >= anchorCount) {
+            // Cannot happen as long as "now" is within today. Keep the previous time.
+            this.nextEventEpochSecond = NO_EVENT;
+            return;
+        }
+
+        int next = last + 1;
+        this.nextEventEpochSecond = NO_EVENT;
+        for (int i = next; i < anchorCount; i++) {
+            if (anchorIsSunriseOrSunset[i]) {
+                this.nextEventEpochSecond = anchorTimes[i];
+                break;
+            }
+        }
+        if (followsElevation) return;
+
+        double interval_ticks = Helper.modulo(anchorTicks[next] - anchorTicks[last], MINECRAFT_DAY_IN_TICKS);
+        double interval_seconds = anchorTimes[next] - anchorTimes[last];
+        double delta_time = nowSeconds - anchorTimes[last]; // Time elapsed since the last anchor
+        double ticks = anchorTicks[last] + interval_ticks * (delta_time / interval_seconds);
+        this.currentMinecraftTime = ((long) ticks) % MINECRAFT_DAY_IN_TICKS;
+    }
+
+    private void updateEvents(LocalDate today) {
+        computeDays(today);
+        for (int i = 0; i < EVENT_DAYS; i++) {
+            if (days[i].isAlwaysBelow(SolarEvents.SUNRISE_AND_SUNSET)) {
+                this.hasEvents = false;
+                this.polarState = POLAR_STATE_NIGHT;
+                this.currentMinecraftTime = MINECRAFT_MIDNIGHT_TICKS;
+                this.currentMinecraftTime = this.currentMinecraftTime % MINECRAFT_DAY_IN_TICKS;
+                warningLog(followsElevation() ? "The Sun will not rise today. The game time follows its elevation below the horizon."
+                    : String.format("The Sun will not rise today. Setting game time to midnight (Minecraft time %d).", this.currentMinecraftTime));
+                return;
+            } else if (days[i].isAlwaysAbove(SolarEvents.SUNRISE_AND_SUNSET)) {
+                this.hasEvents = false;
+                this.polarState = POLAR_STATE_DAY;
+                this.currentMinecraftTime = MINECRAFT_MIDDAY_TICKS;
+                this.currentMinecraftTime = this.currentMinecraftTime % MINECRAFT_DAY_IN_TICKS;
+                warningLog(followsElevation() ? "The Sun will not set today. The game time follows its elevation above the horizon."
+                    : String.format("The Sun will not set today. Setting game time to midday (Minecraft time %d).", this.currentMinecraftTime));
+                return;
+            }
+        }
+
+        var events = days[1];
+        debugLog(String.format("Today's events -> rise at %s (UTC), noon at %s (UTC), set at %s (UTC)",
+            toUTC(events.riseEpochSecond(SolarEvents.SUNRISE_AND_SUNSET)), toUTC(events.noonEpochSecond), toUTC(events.setEpochSecond(SolarEvents.SUNRISE_AND_SUNSET))));
+        for (int level = SolarEvents.CIVIL_TWILIGHT; level < SolarEvents.LEVELS; level++) {
+            if (events.occurs(level)) {
+                debugLog(String.format("Today's %.0f° twilight -> dawn at %s (UTC), dusk at %s (UTC)", TWILIGHT_ALTITUDES[level], toUTC(events.riseEpochSecond(level)), toUTC(events.setEpochSecond(level))));
+            }
+        }
+
+        this.anchorCount = 0;
+        for (var day : days) {
+            // Deepest twilight whose night is long enough to be shown
+            int deepest = SolarEvents.SUNRISE_AND_SUNSET;
+            while (deepest + 1 < SolarEvents.LEVELS && day.occurs(deepest + 1)
+                    && day.riseEpochSecond(deepest + 1) + SECONDS_PER_DAY - day.setEpochSecond(deepest + 1) >= MIN_DARKNESS_SECONDS) {
+                deepest++;
+            }
+
+            for (int level = deepest; level >= SolarEvents.SUNRISE_AND_SUNSET; level--) {
+                addAnchor(day.riseEpochSecond(level), DAWN_TICKS[level], level == SolarEvents.SUNRISE_AND_SUNSET);
+            }
+            addAnchor(day.noonEpochSecond, MINECRAFT_MIDDAY_TICKS % MINECRAFT_DAY_IN_TICKS, false);
+            for (int level = SolarEvents.SUNRISE_AND_SUNSET; level <= deepest; level++) {
+                addAnchor(day.setEpochSecond(level), DUSK_TICKS[level], level == SolarEvents.SUNRISE_AND_SUNSET);
+            }
+            addAnchor(day.noonEpochSecond + SECONDS_PER_DAY / 2, MINECRAFT_MIDNIGHT_TICKS % MINECRAFT_DAY_IN_TICKS, false);
+        }
+        this.hasEvents = true;
+        this.polarState = POLAR_STATE_NONE;
+    }
+
+    private void addAnchor(long time, double ticks, boolean isSunriseOrSunset) {
+        // Anchors must be strictly increasing. An anchor that would overlap the previous one is dropped.
+        if (anchorCount > 0 && time <= anchorTimes[anchorCount - 1]) return;
+
+        anchorTimes[anchorCount] = time;
+        anchorTicks[anchorCount] = ticks;
+        anchorIsSunriseOrSunset[anchorCount] = isSunriseOrSunset;
+        anchorCount++;
+    }
+
+    private void computeDays(LocalDate today) {
+        var location = getLocation();
+        for (int i = 0; i < EVENT_DAYS; i++) {
+            var date = today.plusDays(i - 1);
+            days[i] = this.bandCache != null ? this.bandCache.solarEvents(location, date) : configuration.getAstronomyEngine().solarEvents(location, date);
+        }
+        this.daysDate = today;
+    }
+
+    private SolarEvents closestDay(long epochSecond) {
+        // The day whose noon is closest to the given time
+        var closest = days[0];
+        for (var day : days) {
+            if (Math.abs(epochSecond - day.noonEpochSecond) < Math.abs(epochSecond - closest.noonEpochSecond)) closest = day;
+        }
+        return closest;
+    }
+
+    SkySnapshot snapshot(long nowSeconds) {
+        // The real sky at the given time. The time of the worlds is the one of the last synchronization. The events are
+        // calculated here if needed, because a server that takes the time from a shared state never synchronizes.
+        long today = Math.floorDiv(nowSeconds, SECONDS_PER_DAY);
+        if (this.daysDate == null || this.daysDate.toEpochDay() != today) computeDays(LocalDate.ofEpochDay(today));
+
+        var closest = closestDay(nowSeconds);
+        var period = SkySnapshot.SkyPeriod.NIGHT;
+        for (int level = SolarEvents.LEVELS - 1; level >= SolarEvents.SUNRISE_AND_SUNSET; level--) {
+            boolean isAbove = closest.isAlwaysAbove(level)
+                || (closest.occurs(level) && closest.riseEpochSecond(level) <= nowSeconds && nowSeconds < closest.setEpochSecond(level));
+            if (isAbove) period = SKY_PERIODS[level];
+        }
+
+        long nextSunriseOrSunset = NO_EVENT;
+        for (var day : days) {
+            // Days are in order, so the first event after now is the next one
+            if (nextSunriseOrSunset != NO_EVENT || ! day.occurs(SolarEvents.SUNRISE_AND_SUNSET)) continue;
+            if (day.riseEpochSecond(SolarEvents.SUNRISE_AND_SUNSET) > nowSeconds) nextSunriseOrSunset = day.riseEpochSecond(SolarEvents.SUNRISE_AND_SUNSET);
+            else if (day.setEpochSecond(SolarEvents.SUNRISE_AND_SUNSET) > nowSeconds) nextSunriseOrSunset = day.setEpochSecond(SolarEvents.SUNRISE_AND_SUNSET);
+        }
+
+        double moonPhase = configuration.getAstronomyEngine().moonPhase(AstronomicalTime.ofEpochSecond(nowSeconds));
+        return new SkySnapshot(nowSeconds, getLocation(), this.currentMinecraftTime, this.currentMinecraftDay, closest.altitude(nowSeconds), period, moonPhase, days[1], nextSunriseOrSunset);
+    }
+
+    private boolean followsElevation() {
+        return Configuration.SKY_MAPPING_ELEVATION.equals(configuration.getSkyMapping());
+    }
+
+    private long elevationMinecraftTime(long nowSeconds) {
+        // Minecraft time at which the Minecraft Sun is at the elevation of the real Sun. The Sun is rising before the
+        // noon that is closest to now and setting after it.
+        var closest = closestDay(nowSeconds);
+        double ticks = MinecraftSky.ticksForElevation(closest.altitude(nowSeconds), nowSeconds < closest.noonEpochSecond);
+        return ((long) ticks) % MINECRAFT_DAY_IN_TICKS;
+    }
+
+    private void logMoonEvents(LocalDate today) {
+        var location = getLocation();
+        if (this.moonEvents == null || this.moonEventsLocation != location) {
+            this.moonEvents = new MoonEvents(location);
+            this.moonEventsLocation = location;
+        }
+
+        this.moonEvents.compute(today);
+        long rise = this.moonEvents.getRiseEpochSecond();
+        long set = this.moonEvents.getSetEpochSecond();
+        if (rise == MoonEvents.NONE && set == MoonEvents.NONE) {
+            debugLog(this.moonEvents.isAboveHorizonAtStartOfDay() ? "The Moon will not set today" : "The Moon will not rise today");
+        } else {
+            debugLog(String.format("Today's Moon events -> rise at %s, set at %s",
+                rise == MoonEvents.NONE ? "none" : toUTC(rise) + " (UTC)", set == MoonEvents.NONE ? "none" : toUTC(set) + " (UTC)"));
+        }
+    }
+
+    private static LocalDateTime toUTC(long epochSecond) {
+        return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+    }
+
+    private void warningLog(String message) {
+        // Only the server's location deserves a warning. Other locations would flood the console.
+        if (this.location == null) {
+            logger.warning(message);
+        } else {
+            debugLog(String.format("%s: %s", this.location, message));
+        }
+    }
+
+    private void debugLog(String message) {
+        if (configuration.getDebugMode()) {
+            logger.info(String.format("DEBUG: %s", message));
+        }
+    }
+}
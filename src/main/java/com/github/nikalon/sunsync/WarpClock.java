@@ -0,0 +1,59 @@
+package com.github.nikalon.sunsync;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+class WarpClock extends Clock {
+    // A clock that starts at a given instant and runs faster (or slower) than the real time. It's used to watch a
+    // whole year of sunrises, sunsets and Moon phases in a few minutes.
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final Clock baseClock;
+    private final Instant baseStart;
+    private final Instant warpStart;
+    private final double speed;
+
+    WarpClock(Clock baseClock, Instant warpStart, double speed) {
+        this.baseClock = baseClock;
+        this.baseStart = baseClock.instant();
+        this.warpStart = warpStart;
+        this.speed = speed;
+    }
+
+    private WarpClock(Clock baseClock, Instant baseStart, Instant warpStart, double speed) {
+        this.baseClock = baseClock;
+        this.baseStart = baseStart;
+        this.warpStart = warpStart;
+        this.speed = speed;
+    }
+
+    double getSpeed() {
+        return this.speed;
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return this.baseClock.getZone();
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+        return new WarpClock(this.baseClock.withZone(zone), this.baseStart, this.warpStart, this.speed);
+    }
+
+    @Override
+    public Instant instant() {
+        Instant now = this.baseClock.instant();
+        long elapsedSeconds = now.getEpochSecond() - this.baseStart.getEpochSecond();
+        long elapsedNanos = now.getNano() - this.baseStart.getNano();
+        double warpedNanos = ((double) elapsedSeconds * NANOS_PER_SECOND + elapsedNanos) * this.speed;
+        return this.warpStart.plusNanos((long) warpedNanos);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("WarpClock[%s, x%s, %s]", this.warpStart.atOffset(ZoneOffset.UTC), this.speed, this.baseClock);
+    }
+}
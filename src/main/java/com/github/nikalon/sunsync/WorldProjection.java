@@ -0,0 +1,56 @@
+package com.github.nikalon.sunsync;
+
+import com.github.nikalon.sunsync.Sun.GeographicCoordinate;
+
+class WorldProjection {
+    /*
+    Equirectangular projection of a Minecraft world onto the globe, used by maps that replicate the Earth. The block
+    X=0, Z=0 is placed at the origin and every blocksPerDegree blocks are one degree of latitude or longitude. As in
+    Minecraft maps, north is towards negative Z and east towards positive X.
+
+    Latitudes are clamped to the poles and longitudes wrap around the antimeridian.
+    */
+    private final double blocksPerDegree;
+    private final double originLatitude;
+    private final double originLongitude;
+
+    private WorldProjection(double blocksPerDegree, double originLatitude, double originLongitude) {
+        this.blocksPerDegree = blocksPerDegree;
+        this.originLatitude = originLatitude;
+        this.originLongitude = originLongitude;
+    }
+
+    static WorldProjection of(double blocksPerDegree, double originLatitude, double originLongitude) {
+        // Returns null if the parameters are not valid
+        if (! (blocksPerDegree > 0.0) || Double.isInfinite(blocksPerDegree)) return null;
+        if (! (originLatitude >= -90.0 && originLatitude <= 90.0)) return null;
+        if (! (originLongitude >= -180.0 && originLongitude <= 180.0)) return null;
+        return new WorldProjection(blocksPerDegree, originLatitude, originLongitude);
+    }
+
+    double getBlocksPerDegree() {
+        return this.blocksPerDegree;
+    }
+
+    GeographicCoordinate getOrigin() {
+        return GeographicCoordinate.fromDecimalDegrees(this.originLatitude, this.originLongitude);
+    }
+
+    double latitude(double z) {
+        double latitude = this.originLatitude - z / this.blocksPerDegree;
+        return Math.max(-90.0, Math.min(90.0, latitude));
+    }
+
+    double longitude(double x) {
+        return Helper.modulo(this.originLongitude + x / this.blocksPerDegree + 180.0, 360.0) - 180.0;
+    }
+
+    GeographicCoordinate toGeographic(double x, double z) {
+        return GeographicCoordinate.fromDecimalDegrees(latitude(z), longitude(x));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s blocks per degree, origin at %s", this.blocksPerDegree, getOrigin());
+    }
+}
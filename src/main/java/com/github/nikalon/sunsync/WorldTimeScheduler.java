@@ -0,0 +1,103 @@
+package com.github.nikalon.sunsync;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Logger;
+
+import org.bukkit.World;
+
+class WorldTimeScheduler implements Runnable {
+    /*
+    Applies the synchronized time to the worlds a few at a time, so servers with hundreds of worlds don't spend a whole
+    tick on it. The synchronization task calls schedule() and this class runs on every tick, applying the time to up
+    to "world_updates_per_tick" worlds or for up to "world_update_budget_micros", whichever comes first. At least one
+    world is updated per tick, so a round always ends.
+
+    Worlds with players go first. Empty worlds go in round-robin order: a round starts with the empty worlds the
+    previous round didn't reach, so no world waits more than one round even if rounds overlap.
+
+    The synchronized time moves one tick every 3.6 seconds, so the worlds updated last are not behind in practice.
+    */
+    private final Configuration configuration;
+    private final Logger logger;
+    private DriftMonitor driftMonitor; // null if the drift of the worlds is not measured
+
+    // Worlds of the current round, in order. Arrays are reused between rounds.
+    private World[] pending = new World[0];
+    private int[] positions = new int[0]; // Position of each empty world in the list of worlds, -1 for worlds with players
+    private boolean[] hasPlayers = new boolean[0];
+    private int size;
+    private int next;
+    private int cursor; // Position in the list of worlds of the first empty world of the next round
+    private long fullTime;
+    private int ticks; // Ticks spent in the current round
+
+    WorldTimeScheduler(Configuration configuration, Logger logger) {
+        this.configuration = configuration;
+        this.logger = logger;
+    }
+
+    void setDriftMonitor(DriftMonitor driftMonitor) {
+        this.driftMonitor = driftMonitor;
+    }
+
+    void schedule(List<? extends World> worlds, long fullTime) {
+        // Starts a new round. The worlds the previous round didn't reach are not forgotten: they go first.
+        int count = worlds.size();
+        if (this.pending.length < count) {
+            this.pending = new World[count];
+            this.positions = new int[count];
+            this.hasPlayers = new boolean[count];
+        }
+        for (int i = 0; i < count; i++) {
+            this.hasPlayers[i] = ! worlds.get(i).getPlayers().isEmpty();
+        }
+
+        Arrays.fill(this.pending, null); // Worlds left from the previous round
+        this.size = 0;
+        for (int i = 0; i < count; i++) {
+            if (this.hasPlayers[i]) add(worlds.get(i), -1);
+        }
+        int start = this.cursor < count ? this.cursor : 0;
+        for (int k = 0; k < count; k++) {
+            int i = (start + k) % count;
+            if (! this.hasPlayers[i]) add(worlds.get(i), i);
+        }
+
+        this.next = 0;
+        this.ticks = 0;
+        this.fullTime = fullTime;
+    }
+
+    private void add(World world, int position) {
+        this.pending[this.size] = world;
+        this.positions[this.size] = position;
+        this.size++;
+    }
+
+    int getPendingWorlds() {
+        return this.size - this.next;
+    }
+
+    @Override
+    public void run() {
+        if (this.next >= this.size) return;
+
+        long start = System.nanoTime();
+        long budgetNanos = configuration.getWorldUpdateBudgetMicros() * 1000L;
+        int limit = configuration.getWorldUpdatesPerTick();
+        for (int updated = 0; updated < limit && this.next < this.size; updated++) {
+            if (this.driftMonitor != null) this.driftMonitor.apply(this.pending[this.next], this.fullTime);
+            else                           this.pending[this.next].setFullTime(this.fullTime);
+            this.pending[this.next] = null;
+            if (this.positions[this.next] >= 0) this.cursor = this.positions[this.next] + 1;
+            this.next++;
+            if (budgetNanos > 0 && System.nanoTime() - start >= budgetNanos) break;
+        }
+        this.ticks++;
+
+        if (this.next == this.size && configuration.getDebugMode()) {
+            logger.info(String.format("DEBUG: %d worlds synchronized to Minecraft time %d in %d ticks", this.size, Math.floorMod(this.fullTime, TimeSynchronizer.MINECRAFT_DAY_IN_TICKS), this.ticks));
+        }
+    }
+}
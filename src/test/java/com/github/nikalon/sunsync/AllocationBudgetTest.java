@@ -0,0 +1,164 @@
+package com.github.nikalon.sunsync;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.github.nikalon.sunsync.Sun.GeographicCoordinate;
+
+public class AllocationBudgetTest {
+    /*
+    Bytes allocated per call by the paths that run all the time, measured after the JIT has compiled them. Paths that
+    run on every tick, packet, command or key typed must not allocate at all, so they don't add to the garbage of
+    servers with hundreds of plugins. Paths that run once per synchronization or once per day have a small budget.
+
+    Each path is measured several times and the best round is taken: the first rounds run interpreted code and the
+    allocations of the JIT compiler threads are not counted.
+    */
+    private static final int CALLS_PER_ROUND = 20_000;
+    private static final int ROUNDS = 15;
+    private static final GeographicCoordinate MADRID = GeographicCoordinate.fromDecimalDegrees(40.4168, -3.7038);
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2023-06-01T10:00:00Z"), ZoneOffset.UTC);
+
+    private static long sink; // Keeps the JIT from removing the measured calls
+
+    private static long bytesPerCall(Runnable path) {
+        var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long before = threads.getThreadAllocatedBytes(thread);
+            for (int i = 0; i < CALLS_PER_ROUND; i++) {
+                path.run();
+            }
+            best = Math.min(best, (threads.getThreadAllocatedBytes(thread) - before) / CALLS_PER_ROUND);
+        }
+        return best;
+    }
+
+    private static void assertBudget(long budgetBytes, String path, Runnable call) {
+        long bytes = bytesPerCall(call);
+        assertTrue(bytes <= budgetBytes, String.format("%s allocates %d bytes per call, over its budget of %d", path, bytes, budgetBytes));
+    }
+
+    @Test
+    void packetRewriteTest(@TempDir Path folder) {
+        var configuration = new Configuration(Logger.getLogger("testLogger"));
+        var synchronizer = new TimeSynchronizer(configuration, Logger.getLogger("testLogger"), MADRID);
+        synchronizer.synchronize(LocalDateTime.now(CLOCK));
+        var locationTimeCache = new LocationTimeCache(configuration, new SyncMetrics(), Logger.getLogger("testLogger"));
+        var rewriter = new TimePacketRewriter(configuration, synchronizer, locationTimeCache, new SyncMetrics());
+
+        var serverPlayer = ServerSimulator.newPlayer(UUID.randomUUID(), "server", () -> null);
+        var locatedPlayer = ServerSimulator.newPlayer(UUID.randomUUID(), "located", () -> null);
+        var optedOutPlayer = ServerSimulator.newPlayer(UUID.randomUUID(), "optedOut", () -> null);
+        locationTimeCache.setPlayerLocation(locatedPlayer.getUniqueId(), -33.87, 151.21, CLOCK);
+
+        try (var preferences = new PlayerPreferencesStore(folder, Logger.getLogger("testLogger"))) {
+            preferences.set(locatedPlayer.getUniqueId(), PlayerPreferences.DEFAULT.withTimeOffset(500));
+            preferences.set(optedOutPlayer.getUniqueId(), PlayerPreferences.DEFAULT.withOptOut(true));
+            rewriter.setPreferences(preferences);
+
+            assertBudget(0, "Packet of a player with the server sky", () -> sink += rewriter.rewrite(serverPlayer, 1000, 6000));
+            assertBudget(0, "Packet of a player with their own location", () -> sink += rewriter.rewrite(locatedPlayer, 1000, 6000));
+            assertBudget(0, "Packet of an opted-out player", () -> sink += rewriter.rewrite(optedOutPlayer, 1000, 6000));
+
+            configuration.setSuppressRedundantTimePackets(true);
+            assertBudget(0, "Packet suppressed because the time didn't change", () -> sink += rewriter.rewrite(serverPlayer, 1000, 6000));
+
+            var driftMonitor = new DriftMonitor();
+            driftMonitor.recordPacket(serverPlayer.getUniqueId(), -6000);
+            assertBudget(0, "Packet seen by the drift monitor", () -> driftMonitor.recordPacket(serverPlayer.getUniqueId(), -6000));
+        }
+    }
+
+    @Test
+    void timeCommandDetectionTest() {
+        assertBudget(0, "Command that changes the time", () -> sink += SunSync.commandChangesGameTime("  /minecraft:TIME set day ") ? 1 : 0);
+        assertBudget(0, "Any other command", () -> sink += SunSync.commandChangesGameTime("/give @p minecraft:clock 1") ? 1 : 0);
+    }
+
+    @Test
+    void tabCompletionTest() {
+        var suggestions = new CommandSuggestions();
+        String[] parameter = { "" };
+        String[] clockValue = { "clock", "w" };
+        String[] skyValue = { "sky", "o" };
+        assertEquals(List.of("warp"), suggestions.suggest(true, false, clockValue));
+
+        assertBudget(0, "Suggestions for the parameter", () -> sink += suggestions.suggest(true, true, parameter).size());
+        assertBudget(0, "Suggestions for a value", () -> sink += suggestions.suggest(true, false, clockValue).size());
+        assertBudget(0, "Suggestions for a player", () -> sink += suggestions.suggest(false, false, skyValue).size());
+    }
+
+    @Test
+    void synchronizationTaskTest() {
+        // Once per synchronization interval
+        var configuration = new Configuration(Logger.getLogger("testLogger"));
+        var synchronizer = new TimeSynchronizer(configuration, Logger.getLogger("testLogger"), MADRID);
+        var locationTimeCache = new LocationTimeCache(configuration, new SyncMetrics(), Logger.getLogger("testLogger"));
+        var task = new TimeSyncTask(configuration, synchronizer, locationTimeCache, new SyncMetrics(), Logger.getLogger("testLogger"), List::of);
+        task.setClock(CLOCK);
+        // Only the JFR event is left, when escape analysis doesn't remove it. The budget doesn't depend on the JIT.
+        assertBudget(64, "Synchronization", task);
+
+        // The snapshot published to other plugins is immutable, so a new one is made every time
+        task.setSkyService(new SkyService((event) -> {}));
+        assertBudget(512, "Synchronization with the sky published to other plugins", task);
+    }
+
+    @Test
+    void astronomyTest() {
+        var configuration = new Configuration(Logger.getLogger("testLogger"));
+        var synchronizer = new TimeSynchronizer(configuration, Logger.getLogger("testLogger"), MADRID);
+        var now = LocalDateTime.now(CLOCK);
+        synchronizer.synchronize(now);
+        var events = Sun.solarEvents(MADRID, now.toLocalDate());
+        var time = AstronomicalTime.of(now);
+
+        // Steady state: the events of the day are already known
+        assertBudget(0, "Synchronization within the same day", () -> { synchronizer.synchronize(now); sink += synchronizer.getMinecraftTime(); });
+        assertBudget(0, "Altitude of the Sun", () -> sink += (long) events.altitude(now.toEpochSecond(ZoneOffset.UTC)));
+        assertBudget(0, "Minecraft time for an elevation", () -> sink += (long) MinecraftSky.ticksForElevation(-4.5, true));
+        assertBudget(0, "Moon phase", () -> sink += (long) (Moon.phase(time) * 8));
+        assertBudget(0, "Closest country", () -> sink += Regions.nearestCountry(MADRID.latitude, MADRID.longitude));
+
+        // Once per day and location
+        for (var engine : AstronomyEngines.available()) {
+            assertBudget(1024, "Solar events of a day with the " + engine.getName() + " engine", () -> sink += engine.solarEvents(MADRID, now.toLocalDate()).noonEpochSecond);
+        }
+    }
+
+    @Test
+    void geoIpTest() throws IOException {
+        // Once per player join. The bytes of the address are copied into a new array.
+        var index = GeoIpIndex.load(new BufferedReader(new StringReader("1.0.0.0,1.255.255.255,40.4168,-3.7038\n200.0.0.0,200.255.255.255,-33.87,151.21\n")));
+        var address = InetAddress.getByName("200.10.20.30");
+        assertTrue(index.find(address) != GeoIpIndex.NOT_FOUND);
+        assertBudget(64, "Location of an IP address", () -> sink += index.find(address));
+    }
+
+    @Test
+    void clockTest() {
+        // As the synchronization task reads them
+        Clock clock = new SyncClock();
+        assertBudget(0, "Time of the synchronization clock", () -> sink += SyncClock.epochSecond(clock));
+        assertBudget(0, "Time of a fixed clock", () -> sink += SyncClock.epochSecond(CLOCK));
+    }
+}
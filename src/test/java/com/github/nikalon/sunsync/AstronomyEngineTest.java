@@ -0,0 +1,110 @@
+package com.github.nikalon.sunsync;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.logging.Logger;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.nikalon.sunsync.Sun.GeographicCoordinate;
+import com.github.nikalon.sunsync.Sun.SolarEvents;
+
+public class AstronomyEngineTest {
+    @Test
+    void enginesAreFoundTest() {
+        assertNotNull(AstronomyEngines.find(ClassicAstronomyEngine.NAME));
+        assertNotNull(AstronomyEngines.find(PreciseAstronomyEngine.NAME));
+        assertNull(AstronomyEngines.find("missing"));
+        assertEquals(AstronomyEngines.available().size(), AstronomyEngines.available().stream().map(AstronomyEngine::getName).distinct().count(), "Engine names must be unique");
+    }
+
+    @Test
+    void classicEngineIsSunAndMoonTest() {
+        var engine = AstronomyEngines.find(ClassicAstronomyEngine.NAME);
+        var location = GeographicCoordinate.fromDecimalDegrees(40.4168, -3.7038);
+        var date = LocalDate.of(2023, 3, 20);
+        var expected = Sun.solarEvents(location, date);
+        var actual = engine.solarEvents(location, date);
+        assertEquals(expected.noonEpochSecond, actual.noonEpochSecond);
+        for (int level = 0; level < SolarEvents.LEVELS; level++) {
+            assertEquals(expected.riseEpochSecond(level), actual.riseEpochSecond(level));
+            assertEquals(expected.setEpochSecond(level), actual.setEpochSecond(level));
+        }
+        var time = AstronomicalTime.of(date.atTime(12, 0));
+        assertEquals(Moon.phase(time), engine.moonPhase(time));
+    }
+
+    @Test
+    void preciseEventsAreOrderedTest() {
+        var engine = AstronomyEngines.find(PreciseAstronomyEngine.NAME);
+        for (double latitude = -60; latitude <= 60; latitude += 15) {
+            for (double longitude = -180; longitude < 180; longitude += 45) {
+                var events = engine.solarEvents(GeographicCoordinate.fromDecimalDegrees(latitude, longitude), LocalDate.of(2023, 11, 5));
+                long previousRise = events.noonEpochSecond;
+                long previousSet = events.noonEpochSecond;
+                for (int level = 0; level < SolarEvents.LEVELS && events.occurs(level); level++) {
+                    assertTrue(events.riseEpochSecond(level) < previousRise, "Dawn must get earlier with each twilight");
+                    assertTrue(events.setEpochSecond(level) > previousSet, "Dusk must get later with each twilight");
+                    previousRise = events.riseEpochSecond(level);
+                    previousSet = events.setEpochSecond(level);
+                }
+            }
+        }
+    }
+
+    @Test
+    void calibrationPicksFastestPreciseEnoughEngineTest() {
+        var loose = AstronomyEngines.calibrate(10.0);
+        assertTrue(loose.isPreciseEnough, loose.toString());
+        assertTrue(loose.nanosPerDay.containsKey(ClassicAstronomyEngine.NAME));
+        assertTrue(loose.nanosPerDay.containsKey(PreciseAstronomyEngine.NAME));
+
+        var tight = AstronomyEngines.calibrate(1.0);
+        assertTrue(tight.isPreciseEnough);
+        assertEquals(PreciseAstronomyEngine.NAME, tight.engine.getName());
+        assertFalse(tight.nanosPerDay.containsKey(ClassicAstronomyEngine.NAME), "Engines that are not precise enough are not timed");
+
+        var impossible = AstronomyEngines.calibrate(0.01);
+        assertFalse(impossible.isPreciseEnough);
+        assertEquals(PreciseAstronomyEngine.NAME, impossible.engine.getName(), "The most precise engine is the fallback");
+    }
+
+    @Test
+    void configurationTest() {
+        var configuration = new Configuration(Logger.getLogger("testLogger"));
+        assertEquals(ClassicAstronomyEngine.NAME, configuration.getAstronomyEngine().getName());
+        assertNull(configuration.getAstronomyCalibration());
+
+        assertFalse(configuration.setAstronomyEngine("missing"));
+        assertTrue(configuration.setAstronomyEngine(PreciseAstronomyEngine.NAME));
+        assertEquals(PreciseAstronomyEngine.NAME, configuration.getAstronomyEngine().getName());
+
+        assertFalse(configuration.setAstronomyMaxErrorMinutes(0));
+        assertTrue(configuration.setAstronomyMaxErrorMinutes(2.0));
+        assertTrue(configuration.setAstronomyEngine(AstronomyEngines.AUTO));
+        assertEquals(PreciseAstronomyEngine.NAME, configuration.getAstronomyEngine().getName());
+        assertNotNull(configuration.getAstronomyCalibration());
+    }
+
+    @Test
+    void bandCacheFollowsEngineTest() {
+        var configuration = new Configuration(Logger.getLogger("testLogger"));
+        var cache = new LatitudeBandCache(configuration);
+        var location = GeographicCoordinate.fromDecimalDegrees(51.5, -0.12);
+        var date = LocalDate.of(2023, 6, 21);
+
+        var classic = cache.solarEvents(location, date);
+        assertTrue(configuration.setAstronomyEngine(PreciseAstronomyEngine.NAME));
+        var precise = cache.solarEvents(location, date);
+        assertEquals(2, cache.getComputedBands(), "Changing the engine must forget the bands of the previous one");
+        assertEquals(1, cache.size());
+        assertSame(configuration.getAstronomyEngine(), AstronomyEngines.find(PreciseAstronomyEngine.NAME));
+        assertTrue(precise.riseEpochSecond(SolarEvents.SUNRISE_AND_SUNSET) != classic.riseEpochSecond(SolarEvents.SUNRISE_AND_SUNSET));
+    }
+}
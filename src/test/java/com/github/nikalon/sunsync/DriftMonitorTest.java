@@ -0,0 +1,160 @@
+package com.github.nikalon.sunsync;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.junit.jupiter.api.Test;
+
+public class DriftMonitorTest {
+    private static class TestWorld {
+        // A world whose time moves on by itself when doDaylightCycle is set to true
+        final UUID uid = UUID.randomUUID();
+        long fullTime;
+        long gameTime;
+        final List<Boolean> applyingTime = new ArrayList<>(); // isApplyingTime() on every call to setFullTime
+        final World world;
+
+        TestWorld(String name, DriftMonitor monitor) {
+            this.world = (World) Proxy.newProxyInstance(World.class.getClassLoader(), new Class<?>[] { World.class }, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "getName":     return name;
+                    case "getUID":      return this.uid;
+                    case "getFullTime": return this.fullTime;
+                    case "getGameTime": return this.gameTime;
+                    case "setFullTime":
+                        this.applyingTime.add(monitor.isApplyingTime());
+                        this.fullTime = (Long) args[0];
+                        return null;
+                    default: throw new UnsupportedOperationException(method.getName());
+                }
+            });
+        }
+
+        void tick(long ticks, boolean doDaylightCycle) {
+            this.gameTime += ticks;
+            if (doDaylightCycle) this.fullTime += ticks;
+        }
+    }
+
+    @Test
+    void percentilesTest() {
+        var samples = new DriftMonitor.Samples(10);
+        assertArrayEquals(new long[] { 0, 0 }, samples.percentiles(0.5, 1));
+
+        for (int value = 1; value <= 20; value++) samples.record(value);
+        assertEquals(10, samples.size(), "Only the last samples are kept");
+        assertEquals(20, samples.count());
+        assertEquals(210, samples.sum());
+        assertArrayEquals(new long[] { 11, 15, 19, 20 }, samples.percentiles(0, 0.5, 0.9, 1));
+    }
+
+    @Test
+    void worldDriftTest() {
+        var monitor = new DriftMonitor();
+        var frozen = new TestWorld("frozen", monitor);
+        var cycling = new TestWorld("cycling", monitor);
+
+        monitor.apply(frozen.world, 1000);
+        monitor.apply(cycling.world, 1000);
+        assertEquals(0, monitor.getWorldDrift().size(), "Nothing to compare with the first time");
+
+        // Both worlds are where they should be, whatever the gamerule doDaylightCycle is
+        frozen.tick(300, false);
+        cycling.tick(300, true);
+        monitor.apply(frozen.world, 1001);
+        monitor.apply(cycling.world, 1001);
+        assertEquals(2, monitor.getWorldDrift().size());
+        assertArrayEquals(new long[] { 0 }, monitor.getWorldDrift().percentiles(1));
+        assertTrue(monitor.getWorstWorlds(5).isEmpty());
+
+        // Something else changes the time of a world
+        frozen.fullTime = 13000;
+        cycling.tick(300, true);
+        monitor.apply(frozen.world, 1002);
+        monitor.apply(cycling.world, 1002);
+        assertArrayEquals(new long[] { 0, 11999 }, monitor.getWorldDrift().percentiles(0.5, 1));
+        assertEquals(List.of(Map.entry("frozen", 11999L)), monitor.getWorstWorlds(5));
+        assertEquals(1002, frozen.fullTime);
+
+        // The world is reported until it doesn't drift anymore
+        monitor.apply(frozen.world, 1003);
+        assertTrue(monitor.getWorstWorlds(5).isEmpty());
+    }
+
+    @Test
+    void applyingTimeTest() {
+        var monitor = new DriftMonitor();
+        var world = new TestWorld("world", monitor);
+        monitor.apply(world.world, 1000);
+        world.world.setFullTime(2000); // Another plugin
+        monitor.apply(world.world, 1000);
+        assertEquals(List.of(true, false, true), world.applyingTime);
+        assertFalse(monitor.isApplyingTime());
+    }
+
+    @Test
+    void playerDriftTest() {
+        var monitor = new DriftMonitor();
+        var synchronizedPlayer = ServerSimulator.newPlayer(UUID.randomUUID(), "synchronized", () -> null);
+        var latePlayer = ServerSimulator.newPlayer(UUID.randomUUID(), "late", () -> null);
+        var optedOutPlayer = ServerSimulator.newPlayer(UUID.randomUUID(), "optedOut", () -> null);
+        var newPlayer = ServerSimulator.newPlayer(UUID.randomUUID(), "new", () -> null);
+        var intended = Map.of(synchronizedPlayer, -6000L, latePlayer, 5L, optedOutPlayer, TimePacketRewriter.NOT_REWRITTEN, newPlayer, -6000L);
+
+        monitor.recordPacket(synchronizedPlayer.getUniqueId(), -6000);
+        monitor.recordPacket(latePlayer.getUniqueId(), -23990); // 15 ticks behind, across midnight
+        monitor.recordPacket(optedOutPlayer.getUniqueId(), 100);
+        monitor.samplePlayers(List.of(synchronizedPlayer, latePlayer, optedOutPlayer, newPlayer), intended::get);
+
+        assertEquals(2, monitor.getPlayerDrift().size(), "Players without packets or with the vanilla sky are not sampled");
+        assertArrayEquals(new long[] { 0, 15 }, monitor.getPlayerDrift().percentiles(0.5, 1));
+        assertEquals(List.of(Map.entry("late", 15L)), monitor.getWorstPlayers(5));
+
+        monitor.forgetPlayer(latePlayer.getUniqueId());
+        assertTrue(monitor.getWorstPlayers(5).isEmpty());
+    }
+
+    @Test
+    void blockedChangesTest() {
+        var monitor = new DriftMonitor();
+        assertTrue(monitor.recordBlockedChange("Essentials", "world", 1000));
+        assertFalse(monitor.recordBlockedChange("Essentials", "world_nether", -500));
+        assertTrue(monitor.recordBlockedChange("server (command)", "world", 6000));
+
+        var changes = monitor.getBlockedChanges();
+        assertEquals(2, changes.size());
+        assertEquals("Essentials", changes.get(0).source);
+        assertEquals(2, changes.get(0).count);
+        assertEquals("world_nether", changes.get(0).lastWorld);
+        assertEquals(-500, changes.get(0).lastSkipAmount);
+        assertEquals(3, monitor.getBlockedChangeCount());
+
+        var metrics = new SyncMetrics();
+        metrics.setDriftMonitor(monitor);
+        var out = new StringBuilder();
+        metrics.writePrometheus(out);
+        assertTrue(out.toString().contains("sunsync_blocked_time_changes_total 3\n"), out.toString());
+        assertTrue(out.toString().contains("sunsync_world_drift_ticks{quantile=\"0.99\"} 0\n"), out.toString());
+    }
+
+    @Test
+    void findPluginTest() {
+        // The call stack of a change of time made by a plugin from an event of this plugin
+        Map<Class<?>, String> plugins = Map.of(SunSync.class, "SunSync", DriftMonitorTest.class, "OtherPlugin");
+        var callStack = List.<Class<?>>of(Object.class, SunSync.class, Thread.class, DriftMonitorTest.class, SunSync.class);
+        assertEquals("OtherPlugin", DriftMonitor.findPlugin(callStack.stream(), plugins::get, "SunSync"));
+        assertNull(DriftMonitor.findPlugin(Stream.of(Object.class, SunSync.class, Thread.class), plugins::get, "SunSync"));
+    }
+}
@@ -0,0 +1,264 @@
+package com.github.nikalon.sunsync;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.nikalon.sunsync.Sun.GeographicCoordinate;
+import com.github.nikalon.sunsync.Sun.NeverRaisesException;
+import com.github.nikalon.sunsync.Sun.NeverSetsException;
+import com.github.nikalon.sunsync.Sun.RiseAndSet;
+import com.github.nikalon.sunsync.Sun.SolarEvents;
+
+public class EphemerisDifferentialTest {
+    // Compares the plugin's astronomical calculations against ReferenceEphemeris over a dense grid of latitudes,
+    // longitudes and dates, using all cores. It fails if the accuracy gets worse than the limits below, so faster
+    // implementations of the same calculations can be checked before they are used.
+
+    // Grid
+    private static final double MIN_LATITUDE = -64.0;
+    private static final double MAX_LATITUDE = 64.0;
+    private static final double LATITUDE_STEP = 2.0;
+    private static final double LONGITUDE_STEP = 15.0;
+    private static final LocalDate FIRST_DATE = LocalDate.of(2022, 1, 1);
+    private static final int DAYS = 3 * 366;
+    private static final int DAY_STEP = 5;
+    private static final int MOON_SAMPLES = 200_000;
+    private static final int SEQUENTIAL_THRESHOLD = 2048;
+
+    // Accuracy limits, in minutes for the sunrise and sunset and in fractions of a lunar cycle for the Moon phase
+    private static final double SUN_EVENT_MAX_P50_ERROR_MINUTES = 2.5;
+    private static final double SUN_EVENT_MAX_P99_ERROR_MINUTES = 7.0;
+    private static final double SUN_EVENT_MAX_ERROR_MINUTES = 12.0;
+    private static final double SUN_EVENT_MAX_POLAR_DISAGREEMENTS = 0.002; // Fraction of the grid
+    private static final double MOON_PHASE_MAX_P99_ERROR = 0.001;
+    private static final double MOON_PHASE_MAX_ERROR = 0.0015;
+
+    interface SunEventCalculator {
+        // Returns the sunrise and sunset times, or throws if the Sun does not rise or set on the given date
+        RiseAndSet sunriseAndSunsetTimes(GeographicCoordinate coordinate, LocalDate date) throws NeverRaisesException, NeverSetsException;
+    }
+
+    interface MoonPhaseCalculator {
+        double phase(LocalDateTime dateTime);
+    }
+
+    // Implementations under test. New implementations of the same calculations should be added here. Every astronomy
+    // engine is tested as well, each one against the error that it declares.
+    private static final List<SunEventCalculator> SUN_EVENT_CALCULATORS = List.of(Sun::sunriseAndSunsetTimes);
+    private static final List<MoonPhaseCalculator> MOON_PHASE_CALCULATORS = List.of(Moon::phase);
+
+    private static SunEventCalculator sunEventCalculator(AstronomyEngine engine) {
+        return (coordinate, date) -> {
+            var events = engine.solarEvents(coordinate, date);
+            if (events.isAlwaysBelow(SolarEvents.SUNRISE_AND_SUNSET)) throw new NeverRaisesException();
+            if (events.isAlwaysAbove(SolarEvents.SUNRISE_AND_SUNSET)) throw new NeverSetsException();
+            return new RiseAndSet(
+                LocalDateTime.ofEpochSecond(events.riseEpochSecond(SolarEvents.SUNRISE_AND_SUNSET), 0, ZoneOffset.UTC),
+                LocalDateTime.ofEpochSecond(events.setEpochSecond(SolarEvents.SUNRISE_AND_SUNSET), 0, ZoneOffset.UTC));
+        };
+    }
+
+    private static MoonPhaseCalculator moonPhaseCalculator(AstronomyEngine engine) {
+        return (dateTime) -> engine.moonPhase(AstronomicalTime.of(dateTime));
+    }
+
+    private static class Errors {
+        double[] values;
+        int count;
+        int disagreements; // One of both says that the Sun never rises or never sets and the other does not
+
+        Errors(int capacity) {
+            this.values = new double[capacity];
+        }
+
+        void add(double value) {
+            if (count == values.length) values = Arrays.copyOf(values, Math.max(16, count * 2));
+            values[count++] = value;
+        }
+
+        Errors merge(Errors other) {
+            var merged = new Errors(this.count + other.count);
+            System.arraycopy(this.values, 0, merged.values, 0, this.count);
+            System.arraycopy(other.values, 0, merged.values, this.count, other.count);
+            merged.count = this.count + other.count;
+            merged.disagreements = this.disagreements + other.disagreements;
+            return merged;
+        }
+
+        double[] sorted() {
+            var sorted = Arrays.copyOf(values, count);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+
+    private static double percentile(double[] sorted, double percentile) {
+        if (sorted.length == 0) return 0.0;
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    private static double circularDistance(double a, double b, double period) {
+        double distance = Helper.modulo(a - b, period);
+        return Math.min(distance, period - distance);
+    }
+
+    private static double minutesOfDay(LocalDateTime time) {
+        return time.getHour() * 60.0 + time.getMinute() + time.getSecond() / 60.0;
+    }
+
+    private static class SunEventSweep extends RecursiveTask<Errors> {
+        private static final long serialVersionUID = 1L;
+
+        private final SunEventCalculator calculator;
+        private final int latitudes;
+        private final int longitudes;
+        private final int from;
+        private final int to;
+
+        SunEventSweep(SunEventCalculator calculator, int latitudes, int longitudes, int from, int to) {
+            this.calculator = calculator;
+            this.latitudes = latitudes;
+            this.longitudes = longitudes;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Errors compute() {
+            if (to - from > SEQUENTIAL_THRESHOLD) {
+                int middle = (from + to) >>> 1;
+                var left = new SunEventSweep(calculator, latitudes, longitudes, from, middle);
+                var right = new SunEventSweep(calculator, latitudes, longitudes, middle, to);
+                left.fork();
+                return right.compute().merge(left.join());
+            }
+
+            var errors = new Errors(2 * (to - from));
+            for (int index = from; index < to; index++) {
+                // Unpack grid index into latitude, longitude and date
+                int latitudeIndex = index % latitudes;
+                int longitudeIndex = (index / latitudes) % longitudes;
+                int dateIndex = index / (latitudes * longitudes);
+
+                double latitude = MIN_LATITUDE + latitudeIndex * LATITUDE_STEP;
+                double longitude = -180.0 + longitudeIndex * LONGITUDE_STEP;
+                LocalDate date = FIRST_DATE.plusDays((long) dateIndex * DAY_STEP);
+
+                double referenceRise = ReferenceEphemeris.sunEventMinutes(latitude, longitude, date, true);
+                double referenceSet = ReferenceEphemeris.sunEventMinutes(latitude, longitude, date, false);
+                boolean referenceHasEvents = ! Double.isNaN(referenceRise) && ! Double.isNaN(referenceSet);
+
+                RiseAndSet events = null;
+                try {
+                    events = calculator.sunriseAndSunsetTimes(GeographicCoordinate.fromDecimalDegrees(latitude, longitude), date);
+                } catch (NeverRaisesException | NeverSetsException ignored) {
+                    // Handled below
+                }
+
+                if ((events != null) != referenceHasEvents) {
+                    errors.disagreements++;
+                } else if (events != null) {
+                    errors.add(circularDistance(minutesOfDay(events.riseUTCTime), referenceRise, 1440.0));
+                    errors.add(circularDistance(minutesOfDay(events.setUTCTime), referenceSet, 1440.0));
+                }
+            }
+            return errors;
+        }
+    }
+
+    private static class MoonPhaseSweep extends RecursiveTask<Errors> {
+        private static final long serialVersionUID = 1L;
+        private static final LocalDateTime FIRST_INSTANT = FIRST_DATE.atStartOfDay();
+        private static final long SECONDS_BETWEEN_SAMPLES = 3 * 366 * 86400L / MOON_SAMPLES;
+
+        private final MoonPhaseCalculator calculator;
+        private final int from;
+        private final int to;
+
+        MoonPhaseSweep(MoonPhaseCalculator calculator, int from, int to) {
+            this.calculator = calculator;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Errors compute() {
+            if (to - from > SEQUENTIAL_THRESHOLD) {
+                int middle = (from + to) >>> 1;
+                var left = new MoonPhaseSweep(calculator, from, middle);
+                var right = new MoonPhaseSweep(calculator, middle, to);
+                left.fork();
+                return right.compute().merge(left.join());
+            }
+
+            var errors = new Errors(to - from);
+            for (int index = from; index < to; index++) {
+                var instant = FIRST_INSTANT.plusSeconds(index * SECONDS_BETWEEN_SAMPLES);
+                double minutes = minutesOfDay(instant);
+                double reference = ReferenceEphemeris.moonPhase(ReferenceEphemeris.julianDate(instant.toLocalDate(), minutes));
+                errors.add(circularDistance(calculator.phase(instant), reference, 1.0));
+            }
+            return errors;
+        }
+    }
+
+    @Test
+    void sunriseAndSunsetAccuracyTest() {
+        var calculators = new ArrayList<>(SUN_EVENT_CALCULATORS);
+        var maxP99 = new ArrayList<Double>();
+        for (int i = 0; i < SUN_EVENT_CALCULATORS.size(); i++) maxP99.add(SUN_EVENT_MAX_P99_ERROR_MINUTES);
+        for (var engine : AstronomyEngines.available()) {
+            calculators.add(sunEventCalculator(engine));
+            maxP99.add(Math.min(engine.getMaxErrorMinutes(), SUN_EVENT_MAX_P99_ERROR_MINUTES));
+        }
+
+        int latitudes = (int) Math.round((MAX_LATITUDE - MIN_LATITUDE) / LATITUDE_STEP) + 1;
+        int longitudes = (int) Math.round(360.0 / LONGITUDE_STEP);
+        int dates = DAYS / DAY_STEP;
+        int gridSize = latitudes * longitudes * dates;
+
+        for (int c = 0; c < calculators.size(); c++) {
+            var calculator = calculators.get(c);
+            var errors = ForkJoinPool.commonPool().invoke(new SunEventSweep(calculator, latitudes, longitudes, 0, gridSize));
+
+            var sorted = errors.sorted();
+            double p50 = percentile(sorted, 50);
+            double p99 = percentile(sorted, 99);
+            double max = percentile(sorted, 100);
+            double disagreements = errors.disagreements / (double) gridSize;
+
+            assertTrue(p50 <= SUN_EVENT_MAX_P50_ERROR_MINUTES, String.format("Median error %.2f min is too high", p50));
+            assertTrue(p99 <= maxP99.get(c), String.format("99th percentile error %.2f min is too high", p99));
+            assertTrue(max <= SUN_EVENT_MAX_ERROR_MINUTES, String.format("Maximum error %.2f min is too high", max));
+            assertTrue(disagreements <= SUN_EVENT_MAX_POLAR_DISAGREEMENTS, String.format("Too many polar disagreements (%.3f%%)", disagreements * 100));
+        }
+    }
+
+    @Test
+    void moonPhaseAccuracyTest() {
+        var calculators = new ArrayList<>(MOON_PHASE_CALCULATORS);
+        for (var engine : AstronomyEngines.available()) calculators.add(moonPhaseCalculator(engine));
+
+        for (var calculator : calculators) {
+            var errors = ForkJoinPool.commonPool().invoke(new MoonPhaseSweep(calculator, 0, MOON_SAMPLES));
+
+            var sorted = errors.sorted();
+            double p99 = percentile(sorted, 99);
+            double max = percentile(sorted, 100);
+
+            assertTrue(p99 <= MOON_PHASE_MAX_P99_ERROR, String.format("99th percentile error %.5f is too high", p99));
+            assertTrue(max <= MOON_PHASE_MAX_ERROR, String.format("Maximum error %.5f is too high", max));
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package com.github.nikalon.sunsync;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.DoubleUnaryOperator;
+
+import com.github.nikalon.sunsync.CelestialEvent.Kind;
+
+class EventCalendarGenerator {
+    /*
+    Finds the events of EventCalendar with the high precision formulas of ReferenceEphemeris and writes them in the
+    format of events.bin:
+
+      int     magic ("SSEV")
+      int     version
+      int     event count
+      int[]   times of the events, sorted, in minutes since the UNIX epoch (UTC)
+      byte[]  kinds of the events, as the ordinal of CelestialEvent.Kind
+
+    All values are big-endian. Times are accurate to a few minutes.
+
+    - Equinoxes and solstices: the apparent longitude of the Sun is a multiple of 90°.
+    - Eclipses: near each new and full Moon, the closest approach of the Moon to the Sun, or to the centre of the shadow
+      of the Earth, is compared with the apparent sizes of the Sun, the Moon and the shadow, as in the classic
+      geocentric method (Meeus, chapter 54). A solar eclipse is total or annular if the axis of the shadow of the Moon
+      touches the Earth. Hybrid eclipses are reported as total or annular.
+    - Supermoons: full Moons closer than SUPERMOON_DISTANCE_KM.
+
+    Run main() to regenerate the resource file: EventCalendarGenerator [file]
+    */
+    static final double SUPERMOON_DISTANCE_KM = 360000;
+    private static final String DEFAULT_FILE = "src/main/resources/events.bin";
+    private static final double UNIX_EPOCH_JULIAN_DATE = 2440587.5;
+    private static final double SCAN_STEP_DAYS = 1.0;
+    private static final double ECLIPSE_SEARCH_DAYS = 0.5; // Around the syzygy, on each side
+    private static final double EARTH_RADIUS_KM = 6378.14;
+    private static final double MOON_RADIUS_KM = 1737.4;
+    private static final double SHADOW_ENLARGEMENT = 1.02; // The atmosphere of the Earth makes its shadow larger
+
+    private EventCalendarGenerator() {} // Disallow instantiation
+
+    static class Event {
+        final double julianDate; // UT
+        final Kind kind;
+
+        Event(double julianDate, Kind kind) {
+            this.julianDate = julianDate;
+            this.kind = kind;
+        }
+
+        long epochMinute() {
+            return Math.round((this.julianDate - UNIX_EPOCH_JULIAN_DATE) * 1440);
+        }
+
+        long epochSecond() {
+            return Math.round((this.julianDate - UNIX_EPOCH_JULIAN_DATE) * 86400);
+        }
+    }
+
+    static List<Event> generate(int firstYear, int lastYear) {
+        double start = ReferenceEphemeris.julianDate(LocalDate.of(firstYear, 1, 1), 0);
+        double end = ReferenceEphemeris.julianDate(LocalDate.of(lastYear + 1, 1, 1), 0);
+        var events = new ArrayList<Event>();
+
+        Kind[] seasons = { Kind.MARCH_EQUINOX, Kind.JUNE_SOLSTICE, Kind.SEPTEMBER_EQUINOX, Kind.DECEMBER_SOLSTICE };
+        for (int i = 0; i < seasons.length; i++) {
+            double longitude = 90.0 * i;
+            for (double jd : roots((t) -> angle(sunLongitude(t) - longitude), start, end)) {
+                events.add(new Event(jd, seasons[i]));
+            }
+        }
+
+        for (double newMoon : roots((t) -> angle(moonLongitude(t) - sunLongitude(t)), start, end)) {
+            var eclipse = solarEclipse(newMoon);
+            if (eclipse != null) events.add(eclipse);
+        }
+        for (double fullMoon : roots((t) -> angle(moonLongitude(t) - sunLongitude(t) - 180), start, end)) {
+            var eclipse = lunarEclipse(fullMoon);
+            if (eclipse != null) events.add(eclipse);
+            if (ReferenceEphemeris.moonDistance(centuries(fullMoon)) < SUPERMOON_DISTANCE_KM) {
+                events.add(new Event(fullMoon, Kind.SUPERMOON));
+            }
+        }
+
+        events.sort(Comparator.comparingDouble((Event event) -> event.julianDate));
+        return events;
+    }
+
+    private static Event solarEclipse(double newMoon) {
+        double greatest = minimum(EventCalendarGenerator::sunMoonSeparation, newMoon - ECLIPSE_SEARCH_DAYS, newMoon + ECLIPSE_SEARCH_DAYS);
+        double T = centuries(greatest);
+        double separation = sunMoonSeparation(greatest);
+        double moonDistance = ReferenceEphemeris.moonDistance(T);
+        double moonParallax = parallax(moonDistance);
+        double sunParallax = sunParallax(T);
+        double moonRadius = Math.toDegrees(Math.asin(MOON_RADIUS_KM / moonDistance));
+        double sunRadius = sunRadius(T);
+
+        // The penumbra of the Moon doesn't reach the Earth
+        if (separation > moonParallax - sunParallax + moonRadius + sunRadius) return null;
+
+        // Distance of the axis of the shadow from the centre of the Earth, in Earth radii
+        double gamma = separation / (moonParallax - sunParallax);
+        if (gamma >= 1) return new Event(greatest, Kind.PARTIAL_SOLAR_ECLIPSE);
+
+        // Seen from where the axis touches the Earth, the Moon is closer than from the centre of the Earth
+        double closestDistance = moonDistance - EARTH_RADIUS_KM * Math.sqrt(1 - gamma * gamma);
+        double apparentMoonRadius = Math.toDegrees(Math.asin(MOON_RADIUS_KM / closestDistance));
+        return new Event(greatest, apparentMoonRadius > sunRadius ? Kind.TOTAL_SOLAR_ECLIPSE : Kind.ANNULAR_SOLAR_ECLIPSE);
+    }
+
+    private static Event lunarEclipse(double fullMoon) {
+        double greatest = minimum(EventCalendarGenerator::shadowMoonSeparation, fullMoon - ECLIPSE_SEARCH_DAYS, fullMoon + ECLIPSE_SEARCH_DAYS);
+        double T = centuries(greatest);
+        double separation = shadowMoonSeparation(greatest);
+        double moonDistance = ReferenceEphemeris.moonDistance(T);
+        double moonParallax = parallax(moonDistance);
+        double moonRadius = Math.toDegrees(Math.asin(MOON_RADIUS_KM / moonDistance));
+        double umbraRadius = SHADOW_ENLARGEMENT * (moonParallax + sunParallax(T) - sunRadius(T));
+        double penumbraRadius = SHADOW_ENLARGEMENT * (moonParallax + sunParallax(T) + sunRadius(T));
+
+        if (separation < umbraRadius - moonRadius) return new Event(greatest, Kind.TOTAL_LUNAR_ECLIPSE);
+        if (separation < umbraRadius + moonRadius) return new Event(greatest, Kind.PARTIAL_LUNAR_ECLIPSE);
+        if (separation < penumbraRadius + moonRadius) return new Event(greatest, Kind.PENUMBRAL_LUNAR_ECLIPSE);
+        return null;
+    }
+
+    private static double sunMoonSeparation(double julianDate) {
+        double T = centuries(julianDate);
+        return separation(ReferenceEphemeris.moonLongitude(T), ReferenceEphemeris.moonLatitude(T), sunLongitude(julianDate), 0);
+    }
+
+    private static double shadowMoonSeparation(double julianDate) {
+        // The centre of the shadow of the Earth is opposite to the Sun
+        double T = centuries(julianDate);
+        return separation(ReferenceEphemeris.moonLongitude(T), ReferenceEphemeris.moonLatitude(T), sunLongitude(julianDate) + 180, 0);
+    }
+
+    private static double separation(double longitude1, double latitude1, double longitude2, double latitude2) {
+        // Angle between two points of the ecliptic sphere, in degrees
+        double beta1 = Math.toRadians(latitude1);
+        double beta2 = Math.toRadians(latitude2);
+        double cosine = Math.sin(beta1) * Math.sin(beta2) + Math.cos(beta1) * Math.cos(beta2) * Math.cos(Math.toRadians(longitude1 - longitude2));
+        return Math.toDegrees(Math.acos(Math.max(-1, Math.min(1, cosine))));
+    }
+
+    private static double parallax(double distanceKm) {
+        return Math.toDegrees(Math.asin(EARTH_RADIUS_KM / distanceKm));
+    }
+
+    private static double sunParallax(double T) {
+        return 8.794 / 3600 / ReferenceEphemeris.sunDistance(T);
+    }
+
+    private static double sunRadius(double T) {
+        return 959.63 / 3600 / ReferenceEphemeris.sunDistance(T);
+    }
+
+    private static double sunLongitude(double julianDate) {
+        return ReferenceEphemeris.sunApparentLongitude(centuries(julianDate));
+    }
+
+    private static double moonLongitude(double julianDate) {
+        return ReferenceEphemeris.moonLongitude(centuries(julianDate));
+    }
+
+    private static double centuries(double julianDate) {
+        // The formulas take Terrestrial Time, events are given in UT
+        double year = 2000 + (julianDate - 2451544.5) / 365.25;
+        return ReferenceEphemeris.julianCenturies(julianDate + ReferenceEphemeris.deltaTSeconds(year) / 86400);
+    }
+
+    private static double angle(double degrees) {
+        // Reduces an angle to the range [-180, 180)
+        return Helper.modulo(degrees + 180, 360) - 180;
+    }
+
+    private static List<Double> roots(DoubleUnaryOperator function, double start, double end) {
+        // Times when an angle that always increases goes through 0. The function wraps around at ±180°, so only the
+        // changes of sign near 0 are roots.
+        var roots = new ArrayList<Double>();
+        double previous = function.applyAsDouble(start);
+        for (double t = start + SCAN_STEP_DAYS; t < end + SCAN_STEP_DAYS; t += SCAN_STEP_DAYS) {
+            double current = function.applyAsDouble(t);
+            if (previous < 0 && current >= 0 && current - previous < 180) {
+                double low = t - SCAN_STEP_DAYS;
+                double high = t;
+                for (int i = 0; i < 40; i++) {
+                    double middle = (low + high) / 2;
+                    if (function.applyAsDouble(middle) < 0) low = middle;
+                    else high = middle;
+                }
+                double root = (low + high) / 2;
+                if (root >= start && root < end) roots.add(root);
+            }
+            previous = current;
+        }
+        return roots;
+    }
+
+    private static double minimum(DoubleUnaryOperator function, double low, double high) {
+        // Golden section search of the minimum of a function with a single minimum in the interval
+        final double RATIO = (Math.sqrt(5) - 1) / 2;
+        double a = high - RATIO * (high - low);
+        double b = low + RATIO * (high - low);
+        double fa = function.applyAsDouble(a);
+        double fb = function.applyAsDouble(b);
+        while (high - low > 1e-6) {
+            if (fa < fb) {
+                high = b;
+                b = a;
+                fb = fa;
+                a = high - RATIO * (high - low);
+                fa = function.applyAsDouble(a);
+            } else {
+                low = a;
+                a = b;
+                fa = fb;
+                b = low + RATIO * (high - low);
+                fb = function.applyAsDouble(b);
+            }
+        }
+        return (low + high) / 2;
+    }
+
+    static void write(List<Event> events, OutputStream output) throws IOException {
+        var out = new DataOutputStream(output);
+        out.writeInt(EventCalendar.MAGIC);
+        out.writeInt(EventCalendar.VERSION);
+        out.writeInt(events.size());
+        for (var event : events) out.writeInt(Math.toIntExact(event.epochMinute()));
+        for (var event : events) out.writeByte(event.kind.ordinal());
+        out.flush();
+    }
+
+    public static void main(String[] args) throws IOException {
+        var file = Path.of(args.length > 0 ? args[0] : DEFAULT_FILE);
+        var events = generate(EventCalendar.FIRST_YEAR, EventCalendar.LAST_YEAR);
+        try (var out = Files.newOutputStream(file)) {
+            write(events, out);
+        }
+        System.out.println(String.format("%d events written to %s", events.size(), file));
+    }
+}
@@ -0,0 +1,102 @@
+package com.github.nikalon.sunsync;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.nikalon.sunsync.CelestialEvent.Kind;
+
+public class EventCalendarTest {
+    // Published times are the greatest eclipse (NASA) and the instant of the equinoxes and solstices (USNO)
+    private static final long TOLERANCE_SECONDS = 10 * 60;
+
+    private static void assertEvent(String expected, Kind kind) {
+        long expectedEpochSecond = Instant.parse(expected).getEpochSecond();
+        int index = EventCalendar.indexAfter(expectedEpochSecond - TOLERANCE_SECONDS);
+        while (index < EventCalendar.size() && EventCalendar.kind(index) != kind && EventCalendar.epochSecond(index) <= expectedEpochSecond + TOLERANCE_SECONDS) {
+            index++; // Several events may be close to each other, such as a supermoon during a lunar eclipse
+        }
+        assertTrue(index < EventCalendar.size(), expected);
+        assertEquals(kind, EventCalendar.kind(index), expected);
+        assertEquals(expectedEpochSecond, EventCalendar.epochSecond(index), TOLERANCE_SECONDS, expected);
+    }
+
+    private static int count(int firstYear, int lastYear, Kind... kinds) {
+        int count = 0;
+        for (int i = 0; i < EventCalendar.size(); i++) {
+            int year = Instant.ofEpochSecond(EventCalendar.epochSecond(i)).atZone(ZoneOffset.UTC).getYear();
+            for (var kind : kinds) {
+                if (year >= firstYear && year <= lastYear && EventCalendar.kind(i) == kind) count++;
+            }
+        }
+        return count;
+    }
+
+    @Test
+    void knownEventsTest() {
+        assertEvent("2000-03-20T07:35:00Z", Kind.MARCH_EQUINOX);
+        assertEvent("2024-06-20T20:51:00Z", Kind.JUNE_SOLSTICE);
+        assertEvent("2024-09-22T12:44:00Z", Kind.SEPTEMBER_EQUINOX);
+        assertEvent("2024-12-21T09:20:00Z", Kind.DECEMBER_SOLSTICE);
+
+        assertEvent("2017-08-21T18:26:40Z", Kind.TOTAL_SOLAR_ECLIPSE);
+        assertEvent("2024-04-08T18:17:16Z", Kind.TOTAL_SOLAR_ECLIPSE);
+        assertEvent("2023-10-14T17:59:39Z", Kind.ANNULAR_SOLAR_ECLIPSE);
+        assertEvent("2022-10-25T11:00:07Z", Kind.PARTIAL_SOLAR_ECLIPSE);
+
+        assertEvent("2022-11-08T10:59:08Z", Kind.TOTAL_LUNAR_ECLIPSE);
+        assertEvent("2025-03-14T06:58:43Z", Kind.TOTAL_LUNAR_ECLIPSE);
+        assertEvent("2023-10-28T20:14:05Z", Kind.PARTIAL_LUNAR_ECLIPSE);
+        assertEvent("2023-05-05T17:22:53Z", Kind.PENUMBRAL_LUNAR_ECLIPSE);
+
+        // The closest full Moon since 1948
+        assertEvent("2016-11-14T13:52:00Z", Kind.SUPERMOON);
+    }
+
+    @Test
+    void twentyFirstCenturyTest() {
+        // NASA lists 224 solar and 228 lunar eclipses from 2001 to 2100. Marginal penumbral eclipses may differ.
+        assertEquals(100, count(2001, 2100, Kind.MARCH_EQUINOX));
+        assertEquals(100, count(2001, 2100, Kind.DECEMBER_SOLSTICE));
+        assertEquals(224, count(2001, 2100, Kind.PARTIAL_SOLAR_ECLIPSE, Kind.ANNULAR_SOLAR_ECLIPSE, Kind.TOTAL_SOLAR_ECLIPSE));
+        int lunarEclipses = count(2001, 2100, Kind.PENUMBRAL_LUNAR_ECLIPSE, Kind.PARTIAL_LUNAR_ECLIPSE, Kind.TOTAL_LUNAR_ECLIPSE);
+        assertTrue(lunarEclipses >= 226 && lunarEclipses <= 230, lunarEclipses + " lunar eclipses");
+        assertEquals(85, count(2001, 2100, Kind.TOTAL_LUNAR_ECLIPSE));
+    }
+
+    @Test
+    void lookupTest() {
+        long eclipse = Instant.parse("2024-04-08T18:17:00Z").getEpochSecond();
+        int index = EventCalendar.indexAfter(eclipse - 1);
+        assertEquals(Kind.TOTAL_SOLAR_ECLIPSE, EventCalendar.kind(index));
+        assertEquals(eclipse, EventCalendar.epochSecond(index));
+        assertEquals(index + 1, EventCalendar.indexAfter(eclipse), "Events are strictly after the given time");
+        assertEquals(index + 1, EventCalendar.indexAfter(eclipse + 59));
+
+        assertEquals(index, EventCalendar.next(Instant.parse("2024-01-01T00:00:00Z").getEpochSecond(), Kind.TOTAL_SOLAR_ECLIPSE));
+        assertEquals(0, EventCalendar.indexAfter(Long.MIN_VALUE));
+        assertEquals(EventCalendar.size(), EventCalendar.indexAfter(Long.MAX_VALUE));
+        assertEquals(-1, EventCalendar.next(Instant.parse("2101-01-01T00:00:00Z").getEpochSecond(), Kind.SUPERMOON));
+
+        for (int i = 1; i < EventCalendar.size(); i++) {
+            assertTrue(EventCalendar.epochSecond(i - 1) <= EventCalendar.epochSecond(i), "Events must be sorted");
+        }
+    }
+
+    @Test
+    void resourceIsUpToDateTest() throws IOException {
+        // Run EventCalendarGenerator.main() after changing how the events are calculated
+        var generated = new ByteArrayOutputStream();
+        EventCalendarGenerator.write(EventCalendarGenerator.generate(EventCalendar.FIRST_YEAR, EventCalendar.LAST_YEAR), generated);
+        try (var resource = EventCalendar.class.getResourceAsStream(EventCalendar.RESOURCE)) {
+            assertArrayEquals(generated.toByteArray(), resource.readAllBytes());
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.github.nikalon.sunsync;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.nikalon.sunsync.Sun.GeographicCoordinate;
+import com.github.nikalon.sunsync.Sun.SolarEvents;
+
+public class ForecastTest {
+    private static final GeographicCoordinate MADRID = GeographicCoordinate.fromDecimalDegrees(40.4168, -3.7038);
+
+    @Test
+    void forecastMatchesEngineTest() {
+        var engine = AstronomyEngines.find(ClassicAstronomyEngine.NAME);
+        var first = LocalDate.of(2024, 1, 1);
+        var forecast = Forecast.compute(engine, MADRID, first, 366);
+
+        assertEquals(366, forecast.size());
+        for (int i = 0; i < forecast.size(); i++) {
+            var day = forecast.getDay(i);
+            var expected = engine.solarEvents(MADRID, first.plusDays(i));
+            assertEquals(first.plusDays(i), day.date, "Days must keep their order");
+            assertEquals(expected.riseEpochSecond(SolarEvents.SUNRISE_AND_SUNSET), day.sunrise);
+            assertEquals(expected.setEpochSecond(SolarEvents.SUNRISE_AND_SUNSET), day.sunset);
+            assertEquals(Moon.phase(first.plusDays(i).atTime(12, 0)), day.moonPhase);
+        }
+    }
+
+    @Test
+    void polarDaysTest() {
+        var engine = AstronomyEngines.find(ClassicAstronomyEngine.NAME);
+        var svalbard = GeographicCoordinate.fromDecimalDegrees(78.22, 15.65);
+
+        var summer = Forecast.compute(engine, svalbard, LocalDate.of(2023, 6, 21), 1).getDay(0);
+        assertEquals(SkySnapshot.NO_EVENT, summer.sunrise);
+        assertTrue(summer.isPolarDay);
+        assertTrue(summer.toString().contains("does not set"));
+
+        var winter = Forecast.compute(engine, svalbard, LocalDate.of(2023, 12, 21), 1).getDay(0);
+        assertEquals(SkySnapshot.NO_EVENT, winter.sunset);
+        assertFalse(winter.isPolarDay);
+    }
+
+    @Test
+    void pagesTest() {
+        var forecast = Forecast.compute(AstronomyEngines.find(ClassicAstronomyEngine.NAME), MADRID, LocalDate.of(2023, 3, 1), 25);
+        assertEquals(3, forecast.getPages());
+        assertEquals(Forecast.LINES_PER_PAGE, forecast.getPage(1).size());
+        assertEquals(5, forecast.getPage(3).size());
+        assertTrue(forecast.getPage(3).get(0).startsWith("2023-03-21"));
+        assertTrue(forecast.getPage(4).isEmpty());
+        assertTrue(forecast.getPage(0).isEmpty());
+
+        assertThrows(IllegalArgumentException.class, () -> Forecast.compute(AstronomyEngines.find(ClassicAstronomyEngine.NAME), MADRID, LocalDate.of(2023, 3, 1), 0));
+    }
+}
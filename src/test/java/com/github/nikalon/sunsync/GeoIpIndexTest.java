@@ -0,0 +1,92 @@
+package com.github.nikalon.sunsync;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.InetAddress;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class GeoIpIndexTest {
+    private static final String DATABASE = String.join("\n",
+        "network_start,network_end,latitude,longitude",
+        "200.0.0.0,200.255.255.255,-34.6,-58.4",       // Ranges above 128.0.0.0 are negative as signed integers
+        "1.0.0.0,1.0.0.255,-27.47,153.02",
+        "\"16909056\",\"16909311\",\"35.68\",\"139.69\"", // 1.2.3.0 - 1.2.3.255 written as quoted integers
+        "::1,::ffff,0,0",                              // IPv6 ranges are skipped
+        "10.0.0.0,10.0.0.255,95.0,0.0"                 // Invalid latitude
+    );
+
+    private static GeoIpIndex load(String csv) throws IOException {
+        return GeoIpIndex.load(new BufferedReader(new StringReader(csv)));
+    }
+
+    @Test
+    void findsRangesTest() throws IOException {
+        var index = load(DATABASE);
+        assertEquals(3, index.size());
+        assertEquals(3, index.getSkippedLines());
+
+        int range = index.find(InetAddress.getByName("1.2.3.4"));
+        assertTrue(range != GeoIpIndex.NOT_FOUND);
+        assertEquals(35.68, index.getLatitude(range), 1e-4);
+        assertEquals(139.69, index.getLongitude(range), 1e-4);
+
+        range = index.find(InetAddress.getByName("200.10.20.30"));
+        assertTrue(range != GeoIpIndex.NOT_FOUND, "Addresses above 128.0.0.0 must be found");
+        assertEquals(-58.4, index.getLongitude(range), 1e-4);
+
+        range = index.find(InetAddress.getByName("1.0.0.0"));
+        assertEquals(-27.47, index.getLatitude(range), 1e-4, "First address of a range is included");
+        range = index.find(InetAddress.getByName("1.0.0.255"));
+        assertEquals(-27.47, index.getLatitude(range), 1e-4, "Last address of a range is included");
+
+        assertEquals(GeoIpIndex.NOT_FOUND, index.find(InetAddress.getByName("1.0.1.0")), "Gap between ranges");
+        assertEquals(GeoIpIndex.NOT_FOUND, index.find(InetAddress.getByName("0.0.0.1")), "Before the first range");
+        assertEquals(GeoIpIndex.NOT_FOUND, index.find(InetAddress.getByName("255.255.255.255")), "After the last range");
+        assertEquals(GeoIpIndex.NOT_FOUND, index.find(InetAddress.getByName("10.0.0.1")), "Skipped range");
+        assertEquals(GeoIpIndex.NOT_FOUND, index.find(InetAddress.getByName("::1")), "IPv6 is not supported");
+    }
+
+    @Test
+    void parseAddressTest() {
+        assertEquals(16909060L, GeoIpIndex.parseAddress("1.2.3.4"));
+        assertEquals(16909060L, GeoIpIndex.parseAddress("16909060"));
+        assertEquals(0xFFFFFFFFL, GeoIpIndex.parseAddress("255.255.255.255"));
+        assertEquals(-1L, GeoIpIndex.parseAddress("256.0.0.1"));
+        assertEquals(-1L, GeoIpIndex.parseAddress("1.2.3"));
+        assertEquals(-1L, GeoIpIndex.parseAddress("4294967296"));
+        assertEquals(-1L, GeoIpIndex.parseAddress("network_start"));
+    }
+
+    @Test
+    void manyRangesTest() throws IOException {
+        // One million adjacent ranges of 256 addresses, written in random order
+        final int RANGES = 1_000_000;
+        var csv = new StringBuilder(RANGES * 40);
+        var random = new Random(42);
+        int[] order = new int[RANGES];
+        for (int i = 0; i < RANGES; i++) order[i] = i;
+        for (int i = RANGES - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = order[i]; order[i] = order[j]; order[j] = swap;
+        }
+        for (int i : order) {
+            long first = 0x10000000L + (long) i * 256;
+            csv.append(first).append(',').append(first + 255).append(',').append(i % 90).append(',').append(i % 180).append('\n');
+        }
+
+        var index = load(csv.toString());
+        assertEquals(RANGES, index.size());
+
+        for (int i = 0; i < 1000; i++) {
+            int range = random.nextInt(RANGES);
+            int found = index.find(0x10000000 + range * 256 + random.nextInt(256));
+            assertEquals(range % 90, index.getLatitude(found), 1e-9);
+        }
+    }
+}
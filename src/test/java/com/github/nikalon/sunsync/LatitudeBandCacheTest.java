@@ -0,0 +1,101 @@
+package com.github.nikalon.sunsync;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.HashSet;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.nikalon.sunsync.Sun.GeographicCoordinate;
+import com.github.nikalon.sunsync.Sun.SolarEvents;
+
+public class LatitudeBandCacheTest {
+    private static void assertSameEvents(SolarEvents expected, SolarEvents actual, String message) {
+        assertEquals(expected.noonEpochSecond, actual.noonEpochSecond, message);
+        for (int level = 0; level < SolarEvents.LEVELS; level++) {
+            assertEquals(expected.occurs(level), actual.occurs(level), message);
+            assertEquals(expected.isAlwaysAbove(level), actual.isAlwaysAbove(level), message);
+            if (expected.occurs(level)) {
+                assertEquals(expected.riseEpochSecond(level), actual.riseEpochSecond(level), message);
+                assertEquals(expected.setEpochSecond(level), actual.setEpochSecond(level), message);
+            }
+        }
+    }
+
+    @Test
+    void sameEventsAsCellsOnTheirOwnTest() {
+        // The centre of every cell gets exactly the events it would get without the cache
+        var cache = new LatitudeBandCache();
+        var date = LocalDate.of(2023, 3, 20);
+        for (double latitude = -89.9; latitude < 90; latitude += 7.3) {
+            for (double longitude = -180; longitude < 180; longitude += 11.1) {
+                var centre = LocationTimeCache.cellCentre(LocationTimeCache.cellKey(latitude, longitude));
+                assertSameEvents(Sun.solarEvents(centre, date), cache.solarEvents(centre, date), centre.toString());
+            }
+        }
+    }
+
+    @Test
+    void oneCalculationPerBandTest() {
+        var cache = new LatitudeBandCache();
+        var date = LocalDate.of(2023, 6, 21);
+        for (int row = 0; row < 10; row++) {
+            for (int column = 0; column < 1000; column++) {
+                var location = GeographicCoordinate.fromDecimalDegrees(40.0 + row * LatitudeBandCache.BAND_SIZE_DEGREES, -180.0 + column * 0.36);
+                cache.solarEvents(location, date);
+            }
+        }
+        assertEquals(10, cache.getComputedBands());
+        assertEquals(10, cache.size());
+    }
+
+    @Test
+    void oldDaysAreForgottenTest() {
+        var cache = new LatitudeBandCache();
+        var location = GeographicCoordinate.fromDecimalDegrees(40.4168, -3.7038);
+        var date = LocalDate.of(2023, 1, 1);
+        for (int day = 0; day < 30; day++) {
+            cache.solarEvents(location, date.plusDays(day));
+        }
+        assertEquals(3, cache.size());
+        assertEquals(30, cache.getComputedBands());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void locationTimeCacheSharesBandsTest() {
+        // Players spread along a parallel share a single calculation per day
+        var logger = Logger.getLogger("testLogger");
+        var locations = new LocationTimeCache(new Configuration(logger), new SyncMetrics(), logger);
+        var clock = Clock.fixed(Instant.parse("2023-06-01T12:00:00Z"), ZoneOffset.UTC);
+        for (int i = 0; i < 500; i++) {
+            locations.setPlayerLocation(new UUID(0, i), 51.5, -180.0 + i * 0.7, clock);
+        }
+        assertEquals(500, locations.size());
+        assertEquals(3, locations.getBandCache().getComputedBands(), "One band for each of yesterday, today and tomorrow");
+    }
+
+    @Test
+    void fewBandsForManyLocationsTest() {
+        final int LOCATIONS = 200_000;
+        var date = LocalDate.of(2023, 1, 1);
+        var cache = new LatitudeBandCache();
+        for (int i = 0; i < LOCATIONS; i++) {
+            var location = GeographicCoordinate.fromDecimalDegrees(40.125 + (i % 10) * 0.25, -180.0 + (i % 10_000) * 0.036);
+            cache.solarEvents(location, date);
+        }
+
+        var bands = new HashSet<Integer>();
+        for (int i = 0; i < 10; i++) bands.add(LatitudeBandCache.band(40.125 + i * 0.25));
+        assertEquals(bands.size(), cache.getComputedBands(), "One band per latitude band, not one per location");
+    }
+}
@@ -0,0 +1,56 @@
+package com.github.nikalon.sunsync;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.logging.Logger;
+
+import org.junit.jupiter.api.Test;
+
+public class MetricsServerTest {
+    @Test
+    void servesPrometheusTextTest() throws IOException {
+        var configuration = new Configuration(Logger.getGlobal());
+        configuration.setLocation("40.4, -3.7");
+        var synchronizer = new TimeSynchronizer(configuration, Logger.getGlobal());
+        var now = LocalDateTime.of(2023, 6, 21, 12, 0);
+        synchronizer.synchronize(now);
+
+        var metrics = new SyncMetrics();
+        metrics.recordSync(synchronizer, now.toEpochSecond(ZoneOffset.UTC), 1_500_000, true, false, 3);
+        metrics.recordPacketRewritten();
+        metrics.recordPacketRewritten();
+
+        var server = MetricsServer.start(0, metrics); // Any free port
+        try {
+            var connection = (HttpURLConnection) new URL(String.format("http://127.0.0.1:%d%s", server.getPort(), MetricsServer.PATH)).openConnection();
+            assertEquals(200, connection.getResponseCode());
+            assertTrue(connection.getContentType().startsWith("text/plain; version=0.0.4"));
+
+            String body;
+            try (var in = connection.getInputStream()) {
+                body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+
+            assertTrue(body.contains("\nsunsync_minecraft_time_ticks " + synchronizer.getMinecraftTime() + "\n"), body);
+            assertTrue(body.contains("\nsunsync_packets_rewritten_total 2\n"), body);
+            assertTrue(body.contains("\nsunsync_sync_duration_seconds_count 1\n"), body);
+            assertTrue(body.contains("\nsunsync_sync_duration_seconds_sum 0.001500000\n"), body);
+            assertTrue(body.contains("\nsunsync_location_cells 3\n"), body);
+            assertTrue(body.contains("\nsunsync_polar_day 0\n"), body);
+
+            // Madrid, midday in June: the Sun sets at about 19:48 UTC
+            long secondsUntilSunset = synchronizer.getNextEventEpochSecond() - now.toEpochSecond(ZoneOffset.UTC);
+            assertTrue(secondsUntilSunset > 7 * 3600 && secondsUntilSunset < 8 * 3600, "Seconds until sunset: " + secondsUntilSunset);
+            assertTrue(body.contains("\nsunsync_seconds_until_next_event " + secondsUntilSunset + "\n"), body);
+        } finally {
+            server.stop();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.github.nikalon.sunsync;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.logging.Logger;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.nikalon.sunsync.Sun.GeographicCoordinate;
+
+public class MinecraftSkyTest {
+    private static final double MAX_TABLE_ERROR_TICKS = 0.05;
+
+    @Test
+    void tableMatchesBisectionTest() {
+        double maxError = 0;
+        for (double elevation = -90; elevation <= 90; elevation += 0.01) {
+            double dusk = MinecraftSky.duskTicks(elevation);
+            double dawn = MinecraftSky.dawnTicks(elevation) % TimeSynchronizer.MINECRAFT_DAY_IN_TICKS;
+            maxError = Math.max(maxError, Math.abs(MinecraftSky.ticksForElevation(elevation, false) - dusk));
+            maxError = Math.max(maxError, Math.abs(MinecraftSky.ticksForElevation(elevation, true) - dawn));
+        }
+        assertTrue(maxError < MAX_TABLE_ERROR_TICKS, String.format("The table is %.4f ticks away from the bisection", maxError));
+    }
+
+    @Test
+    void elevationRoundTripTest() {
+        assertEquals(6000.0, MinecraftSky.ticksForElevation(90, false), 1e-9);
+        assertEquals(18000.0, MinecraftSky.ticksForElevation(-90, true), 1e-9);
+        assertEquals(18000.0, MinecraftSky.ticksForElevation(-120, false), 1e-9); // Clamped
+        for (double elevation = -89.5; elevation < 90; elevation += 0.5) {
+            double dusk = MinecraftSky.ticksForElevation(elevation, false);
+            double dawn = MinecraftSky.ticksForElevation(elevation, true);
+            assertTrue(dusk >= 6000 && dusk <= 18000, "Dusk must be between midday and midnight: " + dusk);
+            assertTrue(dawn >= 18000 || dawn <= 6000, "Dawn must be between midnight and midday: " + dawn);
+            assertEquals(elevation, MinecraftSky.sunElevation(dusk), 0.01);
+            assertEquals(elevation, MinecraftSky.sunElevation(dawn), 0.01);
+        }
+    }
+
+    @Test
+    void elevationMappingFollowsTheSunTest() {
+        // The Minecraft Sun has the elevation of the real Sun all day long
+        var configuration = new Configuration(Logger.getLogger("testLogger"));
+        assertTrue(configuration.setSkyMapping(Configuration.SKY_MAPPING_ELEVATION));
+        var location = GeographicCoordinate.fromDecimalDegrees(40.4168, -3.7038);
+        var synchronizer = new TimeSynchronizer(configuration, Logger.getLogger("testLogger"), location);
+        var date = LocalDate.of(2023, 6, 21);
+        var events = Sun.solarEvents(location, date);
+
+        for (int minute = 0; minute < 24 * 60; minute += 5) {
+            var now = date.atStartOfDay().plusMinutes(minute);
+            synchronizer.synchronize(now);
+            double realElevation = events.altitude(now.toEpochSecond(ZoneOffset.UTC));
+            assertEquals(realElevation, MinecraftSky.sunElevation(synchronizer.getMinecraftTime()), 0.1, now.toString());
+        }
+    }
+
+    @Test
+    void elevationMappingDuringPolarDayTest() {
+        // Tromsø in June: the Sun never sets, but it still goes up and down. Without the elevation mapping the sky would
+        // stay at midday.
+        var configuration = new Configuration(Logger.getLogger("testLogger"));
+        assertTrue(configuration.setSkyMapping(Configuration.SKY_MAPPING_ELEVATION));
+        var synchronizer = new TimeSynchronizer(configuration, Logger.getLogger("testLogger"), GeographicCoordinate.fromDecimalDegrees(69.6492, 18.9553));
+
+        double highest = -90;
+        double lowest = 90;
+        var start = LocalDateTime.of(2023, 6, 21, 0, 0);
+        for (int minute = 0; minute < 24 * 60; minute += 10) {
+            synchronizer.synchronize(start.plusMinutes(minute));
+            double elevation = MinecraftSky.sunElevation(synchronizer.getMinecraftTime());
+            highest = Math.max(highest, elevation);
+            lowest = Math.min(lowest, elevation);
+        }
+        assertEquals(TimeSynchronizer.POLAR_STATE_DAY, synchronizer.getPolarState());
+        assertTrue(lowest > 0, "The Sun must stay above the horizon: " + lowest);
+        assertTrue(highest - lowest > 30, String.format("The Sun must move in the sky, between %.1f° and %.1f°", lowest, highest));
+    }
+}
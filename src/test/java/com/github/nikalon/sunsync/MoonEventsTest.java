@@ -0,0 +1,110 @@
+package com.github.nikalon.sunsync;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.nikalon.sunsync.Sun.GeographicCoordinate;
+
+public class MoonEventsTest {
+    private static final long SCAN_STEP_SECONDS = 30;
+    private static final long MAX_SOLVER_ERROR_SECONDS = 60;
+
+    private static double upperLimbAltitude(double latitude, double longitude, long epochSecond) {
+        // Same definition as MoonEvents, but without any caching or interpolation
+        var time = AstronomicalTime.ofEpochSecond(epochSecond);
+        var position = Moon.position(time);
+        double hourAngle = Math.toRadians((time.greenwichSiderealTime() + longitude / 15.0 - position.rightAscension) * 15.0);
+        double phi = Math.toRadians(latitude);
+        double delta = Math.toRadians(position.declination);
+        double h = Math.asin(Math.sin(phi) * Math.sin(delta) + Math.cos(phi) * Math.cos(delta) * Math.cos(hourAngle));
+        double p = Math.asin(Math.sin(Math.toRadians(position.horizontalParallax)) * Math.cos(h));
+        return Math.toDegrees(h - p) + position.semiDiameter + 0.5667;
+    }
+
+    private static long[] scanEvents(double latitude, double longitude, LocalDate date) {
+        // First rise and first set of the day found by brute force, or MoonEvents.NONE
+        long[] events = { MoonEvents.NONE, MoonEvents.NONE };
+        long start = date.toEpochDay() * 86400L;
+        double previous = upperLimbAltitude(latitude, longitude, start);
+        for (long t = start + SCAN_STEP_SECONDS; t <= start + 86400L; t += SCAN_STEP_SECONDS) {
+            double current = upperLimbAltitude(latitude, longitude, t);
+            int index = previous < 0 && current >= 0 ? 0 : (previous >= 0 && current < 0 ? 1 : -1);
+            if (index >= 0 && events[index] == MoonEvents.NONE) {
+                events[index] = t - SCAN_STEP_SECONDS + Math.round(SCAN_STEP_SECONDS * previous / (previous - current));
+            }
+            previous = current;
+        }
+        return events;
+    }
+
+    @Test
+    void sameEventsAsBruteForceTest() {
+        double[][] locations = { { 40.4168, -3.7038 }, { -33.8688, 151.2093 }, { 64.1466, -21.9426 }, { 0.0, 180.0 } };
+        for (double[] location : locations) {
+            var moonEvents = new MoonEvents(GeographicCoordinate.fromDecimalDegrees(location[0], location[1]));
+            for (int day = 0; day < 30; day++) {
+                var date = LocalDate.of(2023, 3, 1).plusDays(day);
+                moonEvents.compute(date);
+                long[] expected = scanEvents(location[0], location[1], date);
+
+                String message = String.format("%s, %s on %s", location[0], location[1], date);
+                assertEquals(expected[0] == MoonEvents.NONE, moonEvents.getRiseEpochSecond() == MoonEvents.NONE, message);
+                assertEquals(expected[1] == MoonEvents.NONE, moonEvents.getSetEpochSecond() == MoonEvents.NONE, message);
+                if (expected[0] != MoonEvents.NONE) assertEquals(expected[0], moonEvents.getRiseEpochSecond(), MAX_SOLVER_ERROR_SECONDS, message);
+                if (expected[1] != MoonEvents.NONE) assertEquals(expected[1], moonEvents.getSetEpochSecond(), MAX_SOLVER_ERROR_SECONDS, message);
+            }
+        }
+    }
+
+    @Test
+    void consecutiveDaysReuseNodesTest() {
+        var moonEvents = new MoonEvents(GeographicCoordinate.fromDecimalDegrees(40.4168, -3.7038));
+        var date = LocalDate.of(2023, 6, 1);
+
+        moonEvents.compute(date);
+        assertEquals(25, moonEvents.getPositionEvaluations());
+
+        moonEvents.compute(date);
+        assertEquals(25, moonEvents.getPositionEvaluations());
+
+        moonEvents.compute(date.plusDays(1));
+        assertEquals(49, moonEvents.getPositionEvaluations());
+
+        moonEvents.compute(date.plusDays(10));
+        assertEquals(74, moonEvents.getPositionEvaluations());
+        assertEquals(date.plusDays(10), moonEvents.getDate());
+    }
+
+    @Test
+    void moonStaysUpOrDownNearThePoleTest() {
+        // In Longyearbyen the Moon is circumpolar for several days in a row and below the horizon for several more
+        var moonEvents = new MoonEvents(GeographicCoordinate.fromDecimalDegrees(78.2232, 15.6267));
+        int alwaysUp = 0;
+        int alwaysDown = 0;
+        for (int day = 0; day < 30; day++) {
+            moonEvents.compute(LocalDate.of(2023, 1, 1).plusDays(day));
+            if (moonEvents.getRiseEpochSecond() == MoonEvents.NONE && moonEvents.getSetEpochSecond() == MoonEvents.NONE) {
+                if (moonEvents.isAboveHorizonAtStartOfDay()) alwaysUp++;
+                else                                         alwaysDown++;
+            }
+        }
+        assertTrue(alwaysUp > 0, "The Moon should stay up some days");
+        assertTrue(alwaysDown > 0, "The Moon should stay down some days");
+    }
+
+    @Test
+    void tenYearsOfDaysTest() {
+        // Computed one day after another, each day costs the positions of the Moon of one new day
+        final int DAYS = 3650;
+        var moonEvents = new MoonEvents(GeographicCoordinate.fromDecimalDegrees(40.4168, -3.7038));
+        var start = LocalDate.of(2020, 1, 1);
+        for (int day = 0; day < DAYS; day++) {
+            moonEvents.compute(start.plusDays(day));
+        }
+        assertEquals(25 + (DAYS - 1) * 24, moonEvents.getPositionEvaluations());
+    }
+}
@@ -0,0 +1,148 @@
+package com.github.nikalon.sunsync;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.github.nikalon.sunsync.Sun.GeographicCoordinate;
+
+public class PlayerPreferencesStoreTest {
+    @Test
+    void encodingTest() {
+        var preferences = PlayerPreferences.DEFAULT.withOptOut(true).withLocation(GeographicCoordinate.fromDecimalDegrees(-33.87, 151.21)).withTimeOffset(-6000);
+        var data = preferences.encode();
+        assertEquals(PlayerPreferences.ENCODED_SIZE, data.length);
+
+        var decoded = PlayerPreferences.decode(data);
+        assertTrue(decoded.optOut);
+        assertEquals(-33.87, decoded.location.latitude);
+        assertEquals(151.21, decoded.location.longitude);
+        assertEquals(-6000, decoded.timeOffsetTicks);
+
+        data[0] ^= 1;
+        assertNull(PlayerPreferences.decode(data), "Data from other files is rejected");
+        assertNull(PlayerPreferences.decode(new byte[3]));
+    }
+
+    @Test
+    void timeOffsetKeepsTheDayTest() {
+        var preferences = PlayerPreferences.DEFAULT.withTimeOffset(3000);
+        assertEquals(5 * 24000L + 9000, preferences.applyTimeOffset(5 * 24000L + 6000));
+        assertEquals(5 * 24000L + 1000, preferences.applyTimeOffset(5 * 24000L + 22000), "The time of the day wraps around");
+        assertEquals(5 * 24000L + 23000, PlayerPreferences.DEFAULT.withTimeOffset(-2000).applyTimeOffset(5 * 24000L + 1000));
+        assertFalse(PlayerPreferences.isValidTimeOffset(12001));
+    }
+
+    @Test
+    void preferencesSurviveRestartTest(@TempDir Path folder) throws Exception {
+        var player = UUID.randomUUID();
+        var preferences = PlayerPreferences.DEFAULT.withLocation(GeographicCoordinate.fromDecimalDegrees(64.13, -21.9));
+        try (var store = new PlayerPreferencesStore(folder, Logger.getLogger("testLogger"))) {
+            assertSame(PlayerPreferences.DEFAULT, store.load(player).get());
+            store.set(player, preferences);
+            assertSame(preferences, store.get(player), "Changes are visible before they are written");
+        }
+
+        try (var store = new PlayerPreferencesStore(folder, Logger.getLogger("testLogger"))) {
+            assertSame(PlayerPreferences.DEFAULT, store.get(player), "Nothing is read until the player joins");
+            var loaded = store.load(player).get();
+            assertEquals(64.13, loaded.location.latitude);
+            assertEquals(-21.9, loaded.location.longitude);
+            assertEquals(1, store.getReads());
+
+            // Going back to the default preferences removes the file
+            store.set(player, PlayerPreferences.DEFAULT);
+            store.flush();
+            assertFalse(Files.exists(folder.resolve(player + ".dat")));
+        }
+    }
+
+    @Test
+    void changesAreWrittenInBatchesTest(@TempDir Path folder) throws Exception {
+        try (var store = new PlayerPreferencesStore(folder, Logger.getLogger("testLogger"))) {
+            var players = new UUID[50];
+            for (int i = 0; i < players.length; i++) {
+                players[i] = UUID.randomUUID();
+                for (int offset = 1; offset <= 20; offset++) {
+                    store.set(players[i], PlayerPreferences.DEFAULT.withTimeOffset(offset * 100));
+                }
+            }
+            assertEquals(0, store.getWrites(), "Nothing is written when the preferences change");
+            assertEquals(players.length, store.getPendingWrites());
+
+            store.flush();
+            assertEquals(players.length, store.getWrites(), "Each player is written once, with their last change");
+            assertEquals(0, store.getPendingWrites());
+            assertEquals(2000, PlayerPreferences.decode(Files.readAllBytes(folder.resolve(players[0] + ".dat"))).timeOffsetTicks);
+        }
+    }
+
+    @Test
+    void pendingChangesWinOverFileTest(@TempDir Path folder) throws Exception {
+        // A player that leaves and joins again before the next flush keeps their last change
+        var player = UUID.randomUUID();
+        try (var store = new PlayerPreferencesStore(folder, Logger.getLogger("testLogger"))) {
+            store.set(player, PlayerPreferences.DEFAULT.withOptOut(true));
+            store.unload(player);
+            assertSame(PlayerPreferences.DEFAULT, store.get(player));
+
+            assertTrue(store.load(player).get().optOut);
+            assertEquals(0, store.getReads());
+        }
+    }
+
+    @Test
+    void playerLeavesWhileLoadingTest(@TempDir Path folder) throws Exception {
+        // Whichever finishes first, the preferences of a player that left before they were read are not kept
+        var player = UUID.randomUUID();
+        try (var store = new PlayerPreferencesStore(folder, Logger.getLogger("testLogger"))) {
+            store.set(player, PlayerPreferences.DEFAULT.withOptOut(true));
+            store.unload(player);
+
+            var loading = store.load(player);
+            store.unload(player);
+            assertTrue(loading.get().optOut);
+            assertSame(PlayerPreferences.DEFAULT, store.get(player));
+
+            assertTrue(store.load(player).get().optOut, "The player can join again");
+            assertTrue(store.get(player).optOut);
+        }
+    }
+
+    @Test
+    void rewrittenTimeFollowsPreferencesTest(@TempDir Path folder) throws Exception {
+        var configuration = new Configuration(Logger.getLogger("testLogger"));
+        var synchronizer = new TimeSynchronizer(configuration, Logger.getLogger("testLogger"), GeographicCoordinate.fromDecimalDegrees(40.4168, -3.7038));
+        synchronizer.synchronize(LocalDateTime.of(2023, 6, 21, 12, 0));
+        var metrics = new SyncMetrics();
+        var rewriter = new TimePacketRewriter(configuration, synchronizer, new LocationTimeCache(configuration, new SyncMetrics(), Logger.getLogger("testLogger")), metrics);
+        var player = ServerSimulator.newPlayer(UUID.randomUUID(), "player", () -> null);
+        long worldAge = 3 * 24000L + 1234;
+
+        try (var store = new PlayerPreferencesStore(folder, Logger.getLogger("testLogger"))) {
+            rewriter.setPreferences(store);
+            assertEquals(-synchronizer.getMinecraftTime(), rewriter.rewrite(player, worldAge, 500));
+
+            store.set(player.getUniqueId(), PlayerPreferences.DEFAULT.withTimeOffset(1000));
+            assertEquals(-((synchronizer.getMinecraftTime() + 1000) % 24000), rewriter.rewrite(player, worldAge, 500));
+
+            // Opted-out players see the vanilla cycle, with the gamerule doDaylightCycle they would see without the plugin
+            store.set(player.getUniqueId(), PlayerPreferences.DEFAULT.withOptOut(true));
+            assertEquals(worldAge, rewriter.rewrite(player, worldAge, 500));
+            assertEquals(-worldAge, rewriter.rewrite(player, worldAge, -500));
+            assertEquals(2, metrics.getPacketsRewritten(), "Restoring the vanilla time is not a rewrite of the plugin");
+            assertEquals(2, metrics.getPacketsVanillaSky());
+        }
+    }
+}
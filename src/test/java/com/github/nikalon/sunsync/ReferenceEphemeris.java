@@ -0,0 +1,316 @@
+package com.github.nikalon.sunsync;
+
+import java.time.LocalDate;
+
+class ReferenceEphemeris {
+    // High precision reference used to check the accuracy of the astronomical calculations of the plugin. It's only
+    // meant to be used by the tests, so it favours precision over speed.
+    //
+    // Sources: Jean Meeus, Astronomical Algorithms (2nd edition), chapters 10, 15, 25 and 47, and the NOAA solar
+    // calculator, which is based on the same book. ΔT comes from the polynomials of Espenak and Meeus.
+
+    // Altitude of the centre of the Sun at sunrise and sunset: refraction plus the semidiameter of the Sun
+    static final double SUNRISE_ALTITUDE_DEG = -0.833;
+
+    private static final double UNIX_EPOCH_JULIAN_DATE = 2440587.5;
+    private static final double MINUTES_PER_DAY = 1440.0;
+    private static final int SUN_EVENT_ITERATIONS = 4;
+
+    private ReferenceEphemeris() {} // Disallow instantiation
+
+    static double julianDate(LocalDate date, double minutesOfDay) {
+        return UNIX_EPOCH_JULIAN_DATE + date.toEpochDay() + minutesOfDay / MINUTES_PER_DAY;
+    }
+
+    static double julianCenturies(double julianDate) {
+        return (julianDate - 2451545.0) / 36525.0;
+    }
+
+    static double deltaTSeconds(double year) {
+        // Difference between Terrestrial Time, which the positions below are based on, and UT. Measured until 2005,
+        // extrapolated afterwards.
+        if (year < 2005) {
+            double t = year - 2000;
+            return 63.86 + t * (0.3345 + t * (-0.060374 + t * (0.0017275 + t * (0.000651814 + t * 0.00002373599))));
+        } else if (year < 2050) {
+            double t = year - 2000;
+            return 62.92 + t * (0.32217 + t * 0.005589);
+        } else {
+            double u = (year - 1820) / 100;
+            return -20 + 32 * u * u - 0.5628 * (2150 - year);
+        }
+    }
+
+    // ------------------------------------------------------------------------------------------------------------------
+    // Sun
+    // ------------------------------------------------------------------------------------------------------------------
+
+    static double sunGeometricMeanLongitude(double T) {
+        return Helper.modulo(280.46646 + T * (36000.76983 + T * 0.0003032), 360);
+    }
+
+    static double sunMeanAnomaly(double T) {
+        return 357.52911 + T * (35999.05029 - 0.0001537 * T);
+    }
+
+    static double earthOrbitEccentricity(double T) {
+        return 0.016708634 - T * (0.000042037 + 0.0000001267 * T);
+    }
+
+    static double sunApparentLongitude(double T) {
+        double M = Math.toRadians(sunMeanAnomaly(T));
+        double C = Math.sin(M) * (1.914602 - T * (0.004817 + 0.000014 * T))
+                 + Math.sin(2 * M) * (0.019993 - 0.000101 * T)
+                 + Math.sin(3 * M) * 0.000289;
+        double trueLongitude = sunGeometricMeanLongitude(T) + C;
+        double omega = Math.toRadians(125.04 - 1934.136 * T);
+        return trueLongitude - 0.00569 - 0.00478 * Math.sin(omega);
+    }
+
+    static double sunDistance(double T) {
+        // Distance from the Earth to the Sun, in astronomical units
+        double M = Math.toRadians(sunMeanAnomaly(T));
+        double C = Math.sin(M) * (1.914602 - T * (0.004817 + 0.000014 * T))
+                 + Math.sin(2 * M) * (0.019993 - 0.000101 * T)
+                 + Math.sin(3 * M) * 0.000289;
+        double e = earthOrbitEccentricity(T);
+        return 1.000001018 * (1 - e * e) / (1 + e * Math.cos(M + Math.toRadians(C)));
+    }
+
+    static double obliquityCorrected(double T) {
+        double seconds = 21.448 - T * (46.8150 + T * (0.00059 - T * 0.001813));
+        double meanObliquity = 23.0 + (26.0 + (seconds / 60.0)) / 60.0;
+        double omega = Math.toRadians(125.04 - 1934.136 * T);
+        return meanObliquity + 0.00256 * Math.cos(omega);
+    }
+
+    static double sunDeclination(double T) {
+        double epsilon = Math.toRadians(obliquityCorrected(T));
+        double lambda = Math.toRadians(sunApparentLongitude(T));
+        return Math.toDegrees(Math.asin(Math.sin(epsilon) * Math.sin(lambda)));
+    }
+
+    static double equationOfTimeMinutes(double T) {
+        double epsilon = Math.toRadians(obliquityCorrected(T));
+        double L0 = Math.toRadians(sunGeometricMeanLongitude(T));
+        double e = earthOrbitEccentricity(T);
+        double M = Math.toRadians(sunMeanAnomaly(T));
+
+        double y = Math.tan(epsilon / 2.0);
+        y *= y;
+
+        double E = y * Math.sin(2.0 * L0)
+                 - 2.0 * e * Math.sin(M)
+                 + 4.0 * e * y * Math.sin(M) * Math.cos(2.0 * L0)
+                 - 0.5 * y * y * Math.sin(4.0 * L0)
+                 - 1.25 * e * e * Math.sin(2.0 * M);
+        return Math.toDegrees(E) * 4.0;
+    }
+
+    static double sunEventMinutes(double latitude, double longitude, LocalDate date, boolean rise) {
+        return sunEventMinutes(latitude, longitude, date, rise, SUNRISE_ALTITUDE_DEG);
+    }
+
+    static double sunEventMinutes(double latitude, double longitude, LocalDate date, boolean rise, double altitude) {
+        // Returns the UT minute of the day (in the range [0, 1440)) when the centre of the Sun crosses the given
+        // altitude in the morning (rise) or in the evening, in the local solar day centred on the given date. Returns
+        // NaN if the Sun does not cross it that day. The time is refined iteratively using the position of the Sun at
+        // the time of the event itself.
+        double phi = Math.toRadians(latitude);
+        double minutes = 720.0 - 4.0 * longitude;
+        for (int i = 0; i < SUN_EVENT_ITERATIONS; i++) {
+            double T = julianCenturies(julianDate(date, minutes));
+            double delta = Math.toRadians(sunDeclination(T));
+            double cosH = (Math.sin(Math.toRadians(altitude)) - Math.sin(phi) * Math.sin(delta)) / (Math.cos(phi) * Math.cos(delta));
+            if (cosH > 1.0 || cosH < -1.0) return Double.NaN;
+
+            double H = Math.toDegrees(Math.acos(cosH));
+            double noon = 720.0 - 4.0 * longitude - equationOfTimeMinutes(T);
+            minutes = rise ? noon - 4.0 * H : noon + 4.0 * H;
+        }
+
+        return Helper.modulo(minutes, MINUTES_PER_DAY);
+    }
+
+    // ------------------------------------------------------------------------------------------------------------------
+    // Moon
+    // ------------------------------------------------------------------------------------------------------------------
+
+    // Periodic terms for the longitude of the Moon (Meeus, table 47.A). Each row contains the multiples of D, M, M' and
+    // F and the coefficient of the sine in millionths of a degree. Only terms larger than 0.002° are kept.
+    private static final int[][] MOON_LONGITUDE_TERMS = {
+        { 0,  0,  1,  0, 6288774 },
+        { 2,  0, -1,  0, 1274027 },
+        { 2,  0,  0,  0,  658314 },
+        { 0,  0,  2,  0,  213618 },
+        { 0,  1,  0,  0, -185116 },
+        { 0,  0,  0,  2, -114332 },
+        { 2,  0, -2,  0,   58793 },
+        { 2, -1, -1,  0,   57066 },
+        { 2,  0,  1,  0,   53322 },
+        { 2, -1,  0,  0,   45758 },
+        { 0,  1, -1,  0,  -40923 },
+        { 1,  0,  0,  0,  -34720 },
+        { 0,  1,  1,  0,  -30383 },
+        { 2,  0,  0, -2,   15327 },
+        { 0,  0,  1,  2,  -12528 },
+        { 0,  0,  1, -2,   10980 },
+        { 4,  0, -1,  0,   10675 },
+        { 0,  0,  3,  0,   10034 },
+        { 4,  0, -2,  0,    8548 },
+        { 2,  1, -1,  0,   -7888 },
+        { 2,  1,  0,  0,   -6766 },
+        { 1,  0, -1,  0,   -5163 },
+        { 1,  1,  0,  0,    4987 },
+        { 2, -1,  1,  0,    4036 },
+        { 2,  0,  2,  0,    3994 },
+        { 4,  0,  0,  0,    3861 },
+        { 2,  0, -3,  0,    3665 },
+        { 0,  1, -2,  0,   -2689 },
+        { 2,  0, -1,  2,   -2602 },
+        { 2, -1, -2,  0,    2390 },
+        { 1,  0,  1,  0,   -2348 },
+        { 2, -2,  0,  0,    2236 },
+        { 0,  1,  2,  0,   -2120 },
+        { 0,  2,  0,  0,   -2069 },
+    };
+
+    // Periodic terms for the distance of the Moon (Meeus, table 47.A), as the previous table. Coefficients of the
+    // cosine in metres. Only terms larger than 3 km are kept.
+    private static final int[][] MOON_DISTANCE_TERMS = {
+        { 0,  0,  1,  0, -20905355 },
+        { 2,  0, -1,  0,  -3699111 },
+        { 2,  0,  0,  0,  -2955968 },
+        { 0,  0,  2,  0,   -569925 },
+        { 0,  1,  0,  0,     48888 },
+        { 0,  0,  0,  2,     -3149 },
+        { 2,  0, -2,  0,    246158 },
+        { 2, -1, -1,  0,   -152138 },
+        { 2,  0,  1,  0,   -170733 },
+        { 2, -1,  0,  0,   -204586 },
+        { 0,  1, -1,  0,   -129620 },
+        { 1,  0,  0,  0,    108743 },
+        { 0,  1,  1,  0,    104755 },
+        { 2,  0,  0, -2,     10321 },
+        { 0,  0,  1, -2,     79661 },
+        { 4,  0, -1,  0,    -34782 },
+        { 0,  0,  3,  0,    -23210 },
+        { 4,  0, -2,  0,    -21636 },
+        { 2,  1, -1,  0,     24208 },
+        { 2,  1,  0,  0,     30824 },
+        { 1,  0, -1,  0,     -8379 },
+        { 1,  1,  0,  0,    -16675 },
+        { 2, -1,  1,  0,    -12831 },
+        { 2,  0,  2,  0,    -10445 },
+        { 4,  0,  0,  0,    -11650 },
+        { 2,  0, -3,  0,     14403 },
+        { 0,  1, -2,  0,     -7003 },
+        { 2, -1, -2,  0,     10056 },
+        { 1,  0,  1,  0,      6322 },
+        { 2, -2,  0,  0,     -9884 },
+        { 0,  1,  2,  0,      5751 },
+    };
+
+    // Periodic terms for the latitude of the Moon (Meeus, table 47.B), in millionths of a degree. Only terms larger than
+    // 0.0008° are kept.
+    private static final int[][] MOON_LATITUDE_TERMS = {
+        { 0,  0,  0,  1, 5128122 },
+        { 0,  0,  1,  1,  280602 },
+        { 0,  0,  1, -1,  277693 },
+        { 2,  0,  0, -1,  173237 },
+        { 2,  0, -1,  1,   55413 },
+        { 2,  0, -1, -1,   46271 },
+        { 2,  0,  0,  1,   32573 },
+        { 0,  0,  2,  1,   17198 },
+        { 2,  0,  1, -1,    9266 },
+        { 0,  0,  2, -1,    8822 },
+        { 2, -1,  0, -1,    8216 },
+        { 2,  0, -2, -1,    4324 },
+        { 2,  0,  1,  1,    4200 },
+        { 2,  1,  0, -1,   -3359 },
+        { 2, -1, -1,  1,    2463 },
+        { 2, -1,  0,  1,    2211 },
+        { 2, -1, -1, -1,    2065 },
+        { 0,  1, -1, -1,   -1870 },
+        { 4,  0, -1, -1,    1828 },
+        { 0,  1,  0,  1,   -1794 },
+        { 0,  0,  0,  3,   -1749 },
+        { 0,  1, -1,  1,   -1565 },
+        { 1,  0,  0,  1,   -1491 },
+        { 0,  1,  1,  1,   -1475 },
+        { 0,  1,  1, -1,   -1410 },
+        { 0,  1,  0, -1,   -1344 },
+        { 1,  0,  0, -1,   -1335 },
+        { 0,  0,  3,  1,    1107 },
+        { 4,  0,  0, -1,    1021 },
+        { 4,  0, -1,  1,     833 },
+    };
+
+    private static class MoonArguments {
+        // Fundamental arguments of the lunar theory, in degrees, and the eccentricity correction E
+        final double Lp, D, M, Mp, F, E;
+
+        MoonArguments(double T) {
+            this.Lp = 218.3164477 + T * (481267.88123421 + T * (-0.0015786 + T * (1.0 / 538841.0 - T / 65194000.0)));
+            this.D = 297.8501921 + T * (445267.1114034 + T * (-0.0018819 + T * (1.0 / 545868.0 - T / 113065000.0)));
+            this.M = 357.5291092 + T * (35999.0502909 + T * (-0.0001536 + T / 24490000.0));
+            this.Mp = 134.9633964 + T * (477198.8675055 + T * (0.0087414 + T * (1.0 / 69699.0 - T / 14712000.0)));
+            this.F = 93.2720950 + T * (483202.0175233 + T * (-0.0036539 + T * (-1.0 / 3526000.0 + T / 863310000.0)));
+            this.E = 1.0 - T * (0.002516 + 0.0000074 * T);
+        }
+
+        double sum(int[][] terms, boolean cosine) {
+            double sum = 0.0;
+            for (int[] term : terms) {
+                double argument = Math.toRadians(term[0] * this.D + term[1] * this.M + term[2] * this.Mp + term[3] * this.F);
+                double coefficient = term[4];
+                if (Math.abs(term[1]) == 1) coefficient *= this.E;
+                else if (Math.abs(term[1]) == 2) coefficient *= this.E * this.E;
+                sum += coefficient * (cosine ? Math.cos(argument) : Math.sin(argument));
+            }
+            return sum;
+        }
+    }
+
+    static double moonLongitude(double T) {
+        // Geocentric ecliptic longitude of the Moon, in degrees. Nutation is not applied because it cancels out when
+        // the longitude of the Sun is subtracted.
+        var a = new MoonArguments(T);
+        double sum = a.sum(MOON_LONGITUDE_TERMS, false);
+
+        // Action of Venus, Jupiter and the flattening of the Earth
+        double A1 = Math.toRadians(119.75 + 131.849 * T);
+        double A2 = Math.toRadians(53.09 + 479264.290 * T);
+        sum += 3958 * Math.sin(A1) + 1962 * Math.sin(Math.toRadians(a.Lp - a.F)) + 318 * Math.sin(A2);
+
+        return Helper.modulo(a.Lp + sum / 1e6, 360);
+    }
+
+    static double moonLatitude(double T) {
+        // Geocentric ecliptic latitude of the Moon, in degrees
+        var a = new MoonArguments(T);
+        double sum = a.sum(MOON_LATITUDE_TERMS, false);
+
+        double A1 = Math.toRadians(119.75 + 131.849 * T);
+        double A3 = Math.toRadians(313.45 + 481266.484 * T);
+        double Lp = Math.toRadians(a.Lp);
+        double F = Math.toRadians(a.F);
+        double Mp = Math.toRadians(a.Mp);
+        sum += -2235 * Math.sin(Lp) + 382 * Math.sin(A3) + 175 * Math.sin(A1 - F) + 175 * Math.sin(A1 + F)
+             + 127 * Math.sin(Lp - Mp) - 115 * Math.sin(Lp + Mp);
+
+        return sum / 1e6;
+    }
+
+    static double moonDistance(double T) {
+        // Distance between the centres of the Earth and the Moon, in kilometres
+        return 385000.56 + new MoonArguments(T).sum(MOON_DISTANCE_TERMS, true) / 1000;
+    }
+
+    static double moonPhase(double julianDate) {
+        // Same definition as Moon.phase(): elongation of the Moon from the Sun as a fraction of a full turn. The
+        // aberration of the Sun is already included in its apparent longitude.
+        double T = julianCenturies(julianDate);
+        return Helper.modulo(moonLongitude(T) - sunApparentLongitude(T), 360.0) / 360.0;
+    }
+}
@@ -0,0 +1,111 @@
+package com.github.nikalon.sunsync;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Clock;
+import java.util.Random;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.nikalon.sunsync.Sun.GeographicCoordinate;
+
+public class RegionsTest {
+    // Coordinates are stored as floats
+    private static final double TOLERANCE = 1e-5;
+
+    @Test
+    void findsCountriesAndRegionsTest() {
+        assertEquals(462, Regions.size());
+
+        var spain = Regions.find("ES");
+        assertEquals(40.2, spain.latitude, TOLERANCE);
+        assertEquals(-3.5, spain.longitude, TOLERANCE);
+
+        var unitedStates = Regions.find("US");
+        assertEquals(39.828175, unitedStates.latitude, TOLERANCE);
+        assertEquals(-98.5795, unitedStates.longitude, TOLERANCE);
+
+        // M.49 code
+        var africa = Regions.find("002");
+        assertEquals(21.09375, africa.latitude, TOLERANCE);
+        assertEquals(7.1881, africa.longitude, TOLERANCE);
+
+        // Wikidata has two coordinates for the Netherlands. The last one is kept.
+        assertEquals(4.883333333, Regions.find("NL").longitude, TOLERANCE);
+    }
+
+    @Test
+    void unknownRegionsTest() {
+        assertNull(Regions.find("XX"));
+        assertNull(Regions.find("es"));
+        assertNull(Regions.find(""));
+        assertNull(Regions.find(null));
+        assertNull(Regions.find("TOOLONG"));
+        assertNull(Regions.find("É"));
+
+        var defaultCoordinate = GeographicCoordinate.defaultCoordinate();
+        assertEquals(defaultCoordinate, Regions.getOrDefault("XX", defaultCoordinate));
+    }
+
+    private static double greatCircleDistance(double latitude1, double longitude1, double latitude2, double longitude2) {
+        double phi1 = Math.toRadians(latitude1);
+        double phi2 = Math.toRadians(latitude2);
+        double a = Math.pow(Math.sin((phi2 - phi1) / 2), 2) + Math.cos(phi1) * Math.cos(phi2) * Math.pow(Math.sin(Math.toRadians(longitude2 - longitude1) / 2), 2);
+        return 2 * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    @Test
+    void nearestCountryTest() {
+        assertEquals("ES", Regions.countryCode(Regions.nearestCountry(40.4168, -3.7038)));
+        assertEquals("JP", Regions.countryCode(Regions.nearestCountry(35.6762, 139.6503)));
+
+        // Across the antimeridian: Fiji is at 178°E
+        assertEquals("FJ", Regions.countryCode(Regions.nearestCountry(-17.8, -179.9)));
+
+        // Continents and other M.49 regions are never returned
+        for (int country = 0; country < Regions.countryCount(); country++) {
+            assertEquals(2, Regions.countryCode(country).length());
+        }
+
+        var madrid = GeographicCoordinate.fromDecimalDegrees(40.4168, -3.7038);
+        assertTrue(Regions.label(madrid).endsWith("(near ES)"));
+    }
+
+    @Test
+    void nearestCountryMatchesBruteForceTest() {
+        var random = new Random(46);
+        for (int i = 0; i < 10_000; i++) {
+            double latitude = Math.toDegrees(Math.asin(2 * random.nextDouble() - 1));
+            double longitude = 360 * random.nextDouble() - 180;
+
+            double closest = Double.MAX_VALUE;
+            for (int country = 0; country < Regions.countryCount(); country++) {
+                closest = Math.min(closest, greatCircleDistance(latitude, longitude, Regions.countryLatitude(country), Regions.countryLongitude(country)));
+            }
+            int found = Regions.nearestCountry(latitude, longitude);
+            double distance = greatCircleDistance(latitude, longitude, Regions.countryLatitude(found), Regions.countryLongitude(found));
+            assertEquals(closest, distance, 1e-9, String.format("Wrong country for %s, %s", latitude, longitude));
+        }
+    }
+
+    @Test
+    void snappedLocationsShareCellsTest() {
+        var configuration = new Configuration(Logger.getLogger("RegionsTest"));
+        configuration.setSnapLocationsToRegions(true);
+        var cache = new LocationTimeCache(configuration, new SyncMetrics(), Logger.getLogger("RegionsTest"));
+        var clock = Clock.systemUTC();
+
+        // Madrid, Toledo and Cuenca. Barcelona would be closer to Andorra.
+        cache.setPlayerLocation(UUID.randomUUID(), 40.4168, -3.7038, clock);
+        cache.setPlayerLocation(UUID.randomUUID(), 39.8628, -4.0273, clock);
+        cache.setPlayerLocation(UUID.randomUUID(), 40.0704, -2.1374, clock);
+        assertEquals(1, cache.size());
+
+        cache.setPlayerLocation(UUID.randomUUID(), 48.8566, 2.3522, clock); // Paris
+        assertEquals(2, cache.size());
+    }
+}
@@ -0,0 +1,397 @@
+package com.github.nikalon.sunsync;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Proxy;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+class ServerSimulator {
+    /*
+    A headless server that drives the synchronization task and the time packet rewriting of SunSync, so their cost can
+    be measured with any number of worlds and players without a real Spigot server.
+
+    Worlds and players are dynamic proxies that only implement the methods SunSync calls. The scheduler runs the
+    synchronization task every synchronization interval, like the Bukkit scheduler does, and every second each player
+    receives a time update packet, like vanilla servers do. The clock is simulated too: each tick advances it 50 ms
+    times the clock speed, so whole days can be replayed in a few seconds.
+
+    Players in the projected world walk around and relocate themselves when they change block, like
+    SunSync.onPlayerMoveEvent() does. Other players may have a fixed location, as if it came from their IP address.
+
+    The allocations include the boxing done by the proxies (one Long per call to World.setFullTime() or World.getTime()).
+
+    Run main() to try other loads: ServerSimulator [worlds] [players] [seconds]
+    */
+    static final int TICKS_PER_SECOND = 20;
+    static final long TIME_UPDATE_PERIOD_TICKS = 20;
+    static final String PROJECTED_WORLD = "earth";
+    static final double BLOCKS_PER_DEGREE = 100;
+    static final double WALKING_SPEED_BLOCKS_PER_TICK = 4.3 / TICKS_PER_SECOND;
+
+    final Configuration configuration;
+    final TimeSynchronizer timeSynchronizer;
+    final LocationTimeCache locationTimeCache;
+    final SyncMetrics metrics;
+    final TimeSyncTask syncTask;
+    final TimePacketRewriter packetRewriter;
+    final Scheduler scheduler = new Scheduler();
+
+    private final SimulatedClock clock;
+    private final List<World> worlds = new ArrayList<>();
+    private final Player[] players;
+    private final Location[] positions;
+    private final double[] headings; // In radians, only for players in the projected world
+    private final Random random;
+
+    // Statistics of the current run
+    private long[] tickNanos = new long[0];
+    private long syncRuns;
+    private long syncNanos;
+    private long packets;
+    private long packetsRewritten;
+    private long packetsSuppressed;
+    private long packetsLeftPositive;
+    private long packetNanos;
+    private long moves;
+
+    ServerSimulator(int worldCount, int playerCount, double projectedPlayers, double locatedPlayers, Instant start, double clockSpeed, long seed) {
+        var logger = Logger.getLogger("SunSyncSimulator");
+        this.random = new Random(seed);
+        this.clock = new SimulatedClock(start, clockSpeed);
+
+        this.configuration = new Configuration(logger);
+        this.configuration.setLocation("40.4168 -3.7038");
+        this.configuration.setWorldProjection(PROJECTED_WORLD, BLOCKS_PER_DEGREE, 0.0, 0.0);
+        this.metrics = new SyncMetrics();
+        this.timeSynchronizer = new TimeSynchronizer(this.configuration, logger);
+        this.locationTimeCache = new LocationTimeCache(this.configuration, this.metrics, logger);
+        this.syncTask = new TimeSyncTask(this.configuration, this.timeSynchronizer, this.locationTimeCache, this.metrics, logger, () -> this.worlds);
+        this.syncTask.setClock(this.clock);
+        this.packetRewriter = new TimePacketRewriter(this.configuration, this.timeSynchronizer, this.locationTimeCache, this.metrics);
+        this.packetRewriter.setTicker(this.clock::serverNanos);
+
+        var projectedWorld = newWorld(PROJECTED_WORLD, () -> playersIn(PROJECTED_WORLD));
+        this.worlds.add(projectedWorld);
+        for (int i = 1; i < worldCount; i++) {
+            final var name = "world_" + i;
+            this.worlds.add(newWorld(name, () -> playersIn(name)));
+        }
+
+        this.players = new Player[playerCount];
+        this.positions = new Location[playerCount];
+        this.headings = new double[playerCount];
+        for (int i = 0; i < playerCount; i++) {
+            final int index = i;
+            double kind = this.random.nextDouble();
+            if (kind < projectedPlayers) {
+                // Somewhere between 60°S and 60°N
+                double x = (this.random.nextDouble() * 360 - 180) * BLOCKS_PER_DEGREE;
+                double z = (this.random.nextDouble() * 120 - 60) * BLOCKS_PER_DEGREE;
+                this.positions[i] = new Location(projectedWorld, x, 64, z);
+                this.headings[i] = this.random.nextDouble() * 2 * Math.PI;
+            } else {
+                var world = worldCount > 1 ? this.worlds.get(1 + this.random.nextInt(worldCount - 1)) : projectedWorld;
+                this.positions[i] = new Location(world, 0, 64, 0);
+                this.headings[i] = Double.NaN;
+            }
+            this.players[i] = newPlayer(new UUID(seed, i), "player_" + i, () -> this.positions[index]);
+
+            if (kind < projectedPlayers) {
+                relocate(i);
+            } else if (kind < projectedPlayers + locatedPlayers) {
+                this.locationTimeCache.setPlayerLocation(this.players[i].getUniqueId(), this.random.nextDouble() * 120 - 60, this.random.nextDouble() * 360 - 180, this.clock);
+            }
+        }
+
+        long syncPeriodTicks = this.configuration.getSynchronizationIntervalSeconds() * TICKS_PER_SECOND;
+        this.scheduler.runTaskTimer(this::runSyncTask, 0, syncPeriodTicks);
+        this.scheduler.runTaskTimer(this::sendTimePackets, 0, TIME_UPDATE_PERIOD_TICKS);
+        this.scheduler.runTaskTimer(this::movePlayers, 0, 1);
+    }
+
+    WorldTimeScheduler staggerWorldUpdates() {
+        // Applies the time to a few worlds on each tick, as SunSync does with the option "staggered_world_updates"
+        var worldTimeScheduler = new WorldTimeScheduler(this.configuration, Logger.getLogger("SunSyncSimulator"));
+        this.syncTask.setWorldTimeScheduler(worldTimeScheduler);
+        this.scheduler.runTaskTimer(worldTimeScheduler, 1, 1);
+        return worldTimeScheduler;
+    }
+
+    Report run(int ticks) {
+        this.tickNanos = new long[ticks];
+        this.syncRuns = 0;
+        this.syncNanos = 0;
+        this.packets = 0;
+        this.packetsRewritten = 0;
+        this.packetsSuppressed = 0;
+        this.packetsLeftPositive = 0;
+        this.packetNanos = 0;
+        this.moves = 0;
+
+        var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < ticks; i++) {
+            long start = System.nanoTime();
+            this.scheduler.tick();
+            this.clock.tick();
+            this.tickNanos[i] = System.nanoTime() - start;
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+
+        return new Report(this.worlds.size(), this.players.length, this.tickNanos, this.syncRuns, this.syncNanos, this.packets,
+            this.packetsRewritten, this.packetsSuppressed, this.packetsLeftPositive, this.packetNanos, this.moves, allocated, this.locationTimeCache.size());
+    }
+
+    List<World> getWorlds() {
+        return this.worlds;
+    }
+
+    Player getPlayer(int index) {
+        return this.players[index];
+    }
+
+    Clock getClock() {
+        return this.clock;
+    }
+
+    private void runSyncTask() {
+        long start = System.nanoTime();
+        this.syncTask.run();
+        this.syncNanos += System.nanoTime() - start;
+        this.syncRuns++;
+    }
+
+    private void sendTimePackets() {
+        long start = System.nanoTime();
+        for (var player : this.players) {
+            // Worlds keep the gamerule doDaylightCycle set to true, so the server sends positive times
+            var world = player.getLocation().getWorld();
+            long timeOfDay = world.getTime();
+            long sent = this.packetRewriter.rewrite(player, world.getGameTime(), timeOfDay);
+            if (sent == TimePacketRewriter.SUPPRESSED) {
+                this.packetsSuppressed++;
+                this.packets++;
+                continue;
+            } else if (sent == TimePacketRewriter.NOT_REWRITTEN) {
+                sent = timeOfDay;
+            } else {
+                this.packetsRewritten++;
+            }
+            if (sent > 0) this.packetsLeftPositive++;
+            this.packets++;
+        }
+        this.packetNanos += System.nanoTime() - start;
+    }
+
+    private List<Player> playersIn(String world) {
+        var players = new ArrayList<Player>();
+        for (int i = 0; i < this.players.length; i++) {
+            if (this.positions[i] != null && this.positions[i].getWorld().getName().equals(world)) players.add(this.players[i]);
+        }
+        return players;
+    }
+
+    private void movePlayers() {
+        for (int i = 0; i < this.players.length; i++) {
+            if (Double.isNaN(this.headings[i])) continue;
+
+            var from = this.positions[i];
+            var to = new Location(from.getWorld(), from.getX() + WALKING_SPEED_BLOCKS_PER_TICK * Math.cos(this.headings[i]), from.getY(), from.getZ() + WALKING_SPEED_BLOCKS_PER_TICK * Math.sin(this.headings[i]));
+            this.positions[i] = to;
+            this.moves++;
+
+            // Same filter as SunSync.onPlayerMoveEvent()
+            if (from.getBlockX() != to.getBlockX() || from.getBlockZ() != to.getBlockZ()) relocate(i);
+        }
+    }
+
+    private void relocate(int index) {
+        var position = this.positions[index];
+        var projection = this.configuration.getWorldProjection(position.getWorld().getName());
+        if (projection != null) {
+            this.locationTimeCache.setPlayerLocation(this.players[index].getUniqueId(), projection.latitude(position.getZ()), projection.longitude(position.getX()), this.clock);
+        }
+    }
+
+    static World newWorld(String name) {
+        return newWorld(name, List::of);
+    }
+
+    static World newWorld(String name, Supplier<List<Player>> players) {
+        final var uid = UUID.nameUUIDFromBytes(name.getBytes());
+        final long[] fullTime = { 0 };
+        return (World) Proxy.newProxyInstance(World.class.getClassLoader(), new Class<?>[] { World.class }, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getName":     return name;
+                case "getUID":      return uid;
+                case "getFullTime": return fullTime[0];
+                case "getTime":     return Math.floorMod(fullTime[0], TimeSynchronizer.MINECRAFT_DAY_IN_TICKS);
+                case "getGameTime": return fullTime[0]; // The simulated worlds only age when they are synchronized
+                case "setFullTime": fullTime[0] = (Long) args[0]; return null;
+                case "getPlayers":  return players.get();
+                case "hashCode":    return System.identityHashCode(proxy);
+                case "equals":      return proxy == args[0];
+                case "toString":    return "World " + name;
+                default:            throw new UnsupportedOperationException("Not simulated: World." + method.getName());
+            }
+        });
+    }
+
+    static Player newPlayer(UUID uuid, String name, java.util.function.Supplier<Location> location) {
+        return (Player) Proxy.newProxyInstance(Player.class.getClassLoader(), new Class<?>[] { Player.class }, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getUniqueId": return uuid;
+                case "getName":     return name;
+                case "getLocation": return location.get();
+                case "getWorld":    return location.get().getWorld();
+                case "getAddress":  return null;
+                case "isOp":        return false;
+                case "sendMessage": return null;
+                case "hashCode":    return uuid.hashCode();
+                case "equals":      return proxy == args[0];
+                case "toString":    return "Player " + name;
+                default:            throw new UnsupportedOperationException("Not simulated: Player." + method.getName());
+            }
+        });
+    }
+
+    static class Scheduler {
+        // Stand-in for the Bukkit scheduler. Tasks run on the calling thread, in the order they were scheduled.
+        private final List<Runnable> tasks = new ArrayList<>();
+        private final List<long[]> timings = new ArrayList<>(); // Next tick and period of each task
+        private long currentTick;
+
+        void runTaskTimer(Runnable task, long delayTicks, long periodTicks) {
+            this.tasks.add(task);
+            this.timings.add(new long[] { this.currentTick + delayTicks, Math.max(1, periodTicks) });
+        }
+
+        void tick() {
+            for (int i = 0; i < this.tasks.size(); i++) {
+                var timing = this.timings.get(i);
+                if (timing[0] <= this.currentTick) {
+                    this.tasks.get(i).run();
+                    timing[0] += timing[1];
+                }
+            }
+            this.currentTick++;
+        }
+
+        long getCurrentTick() {
+            return this.currentTick;
+        }
+    }
+
+    static class SimulatedClock extends Clock {
+        // Advances a fixed amount of time per tick
+        private final Instant start;
+        private final long nanosPerTick;
+        private long ticks;
+
+        SimulatedClock(Instant start, double speed) {
+            this.start = start;
+            this.nanosPerTick = Math.round(1_000_000_000L / TICKS_PER_SECOND * speed);
+        }
+
+        void tick() {
+            this.ticks++;
+        }
+
+        long serverNanos() {
+            // Time elapsed on the server, which doesn't depend on the speed of the clock
+            return this.ticks * (1_000_000_000L / TICKS_PER_SECOND);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return this.start.plusNanos(this.ticks * this.nanosPerTick);
+        }
+    }
+
+    static class Report {
+        final int worlds;
+        final int players;
+        final long ticks;
+        final double averageTickMicros;
+        final double p99TickMicros;
+        final double maxTickMicros;
+        final long syncRuns;
+        final double averageSyncMicros;
+        final long packets;
+        final long packetsRewritten;
+        final long packetsSuppressed;
+        final long packetsLeftPositive;
+        final double packetsPerSecond;
+        final long moves;
+        final long allocatedBytes;
+        final int playerLocations;
+
+        Report(int worlds, int players, long[] tickNanos, long syncRuns, long syncNanos, long packets, long packetsRewritten,
+                long packetsSuppressed, long packetsLeftPositive, long packetNanos, long moves, long allocatedBytes, int playerLocations) {
+            var sorted = tickNanos.clone();
+            Arrays.sort(sorted);
+            this.worlds = worlds;
+            this.players = players;
+            this.ticks = sorted.length;
+            this.averageTickMicros = Arrays.stream(sorted).average().orElse(0) / 1000.0;
+            this.p99TickMicros = sorted.length == 0 ? 0 : sorted[(int) (0.99 * (sorted.length - 1))] / 1000.0;
+            this.maxTickMicros = sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1000.0;
+            this.syncRuns = syncRuns;
+            this.averageSyncMicros = syncRuns == 0 ? 0 : syncNanos / 1000.0 / syncRuns;
+            this.packets = packets;
+            this.packetsRewritten = packetsRewritten;
+            this.packetsSuppressed = packetsSuppressed;
+            this.packetsLeftPositive = packetsLeftPositive;
+            this.packetsPerSecond = packetNanos == 0 ? 0 : packets * 1e9 / packetNanos;
+            this.moves = moves;
+            this.allocatedBytes = allocatedBytes;
+            this.playerLocations = playerLocations;
+        }
+
+        double allocatedBytesPerTick() {
+            return this.ticks == 0 ? 0 : (double) this.allocatedBytes / this.ticks;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d worlds, %d players, %d ticks: tick %.1f µs average, %.1f µs p99, %.1f µs max; "
+                + "%d synchronizations of %.1f µs; %d packets (%d rewritten, %d suppressed) at %.0f packets/s; %d moves; %d player locations; "
+                + "%.0f bytes allocated per tick",
+                worlds, players, ticks, averageTickMicros, p99TickMicros, maxTickMicros, syncRuns, averageSyncMicros,
+                packets, packetsRewritten, packetsSuppressed, packetsPerSecond, moves, playerLocations, allocatedBytesPerTick());
+        }
+    }
+
+    public static void main(String[] args) {
+        int worlds = args.length > 0 ? Integer.parseInt(args[0]) : 300;
+        int players = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 600;
+
+        var simulator = new ServerSimulator(worlds, players, 0.3, 0.3, Instant.parse("2023-06-01T00:00:00Z"), 60, 1);
+        simulator.run(10 * TICKS_PER_SECOND); // Warm up
+        System.out.println(simulator.run(seconds * TICKS_PER_SECOND));
+    }
+}
@@ -0,0 +1,86 @@
+package com.github.nikalon.sunsync;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+
+import org.junit.jupiter.api.Test;
+
+public class ServerSimulatorTest {
+    private static final Instant START = Instant.parse("2023-06-01T00:00:00Z");
+
+    @Test
+    void loadTest() {
+        // 300 worlds and 1000 players during 5 minutes, with the clock running 60 times faster
+        final int TICKS = 5 * 60 * ServerSimulator.TICKS_PER_SECOND;
+        var simulator = new ServerSimulator(300, 1000, 0.3, 0.3, START, 60, 1);
+        simulator.run(ServerSimulator.TICKS_PER_SECOND * 10); // Warm up
+        var report = simulator.run(TICKS);
+
+        long syncPeriodTicks = simulator.configuration.getSynchronizationIntervalSeconds() * ServerSimulator.TICKS_PER_SECOND;
+        assertEquals(TICKS / syncPeriodTicks, report.syncRuns, report.toString());
+        assertEquals(1000L * TICKS / ServerSimulator.TIME_UPDATE_PERIOD_TICKS, report.packets, report.toString());
+        assertEquals(report.packets, report.packetsRewritten, "Every packet must be rewritten while doDaylightCycle is true");
+        assertEquals(0, report.packetsLeftPositive, "No player may receive a positive time");
+        assertTrue(report.playerLocations > 0);
+
+        long fullTime = simulator.timeSynchronizer.getFullMinecraftTime();
+        for (var world : simulator.getWorlds()) {
+            assertEquals(fullTime, world.getFullTime(), world.getName());
+        }
+    }
+
+    @Test
+    void redundantPacketsTest() {
+        // Real time: the sky moves one tick every 3.6 seconds, and it is synchronized every 5 seconds
+        final int TICKS = 5 * 60 * ServerSimulator.TICKS_PER_SECOND;
+        var simulator = new ServerSimulator(10, 100, 0.0, 0.5, START, 1, 3);
+        simulator.configuration.setSuppressRedundantTimePackets(true);
+        var report = simulator.run(TICKS);
+
+        assertEquals(100L * TICKS / ServerSimulator.TIME_UPDATE_PERIOD_TICKS, report.packets, report.toString());
+        assertEquals(report.packets, report.packetsRewritten + report.packetsSuppressed, report.toString());
+        assertEquals(report.packetsSuppressed, simulator.metrics.getPacketsSuppressed());
+        assertTrue(report.packetsSuppressed > report.packets * 3 / 4, "Most packets repeat the time of the previous one");
+        assertEquals(0, report.packetsLeftPositive, "No player may receive a positive time");
+    }
+
+    @Test
+    void keepalivePacketsTest() {
+        // A stopped clock: only the first packet and the keepalives are sent
+        final int SECONDS = 5 * 60;
+        var simulator = new ServerSimulator(2, 10, 0.0, 0.0, START, 0, 4);
+        simulator.configuration.setSuppressRedundantTimePackets(true);
+        simulator.configuration.setTimePacketKeepaliveSeconds(30);
+        var report = simulator.run(SECONDS * ServerSimulator.TICKS_PER_SECOND);
+
+        assertEquals(10 * SECONDS / 30, report.packetsRewritten);
+
+        // A player that respawns gets the time again, between two keepalives
+        assertEquals(10, simulator.run(5 * ServerSimulator.TICKS_PER_SECOND).packetsRewritten);
+        simulator.packetRewriter.forgetPlayer(simulator.getPlayer(0).getUniqueId());
+        assertEquals(1, simulator.run(ServerSimulator.TICKS_PER_SECOND).packetsRewritten);
+    }
+
+    @Test
+    void replayDaysTest() {
+        // Three days in one hour of simulated ticks: every world goes through day and night
+        final int TICKS = 3 * 24 * ServerSimulator.TICKS_PER_SECOND;
+        var simulator = new ServerSimulator(10, 50, 0.5, 0.5, START, 3600, 2);
+        var world = simulator.getWorlds().get(0);
+
+        boolean sawDay = false;
+        boolean sawNight = false;
+        for (int i = 0; i < TICKS; i += ServerSimulator.TICKS_PER_SECOND) {
+            simulator.run(ServerSimulator.TICKS_PER_SECOND);
+            long timeOfDay = world.getTime();
+            if (timeOfDay < 12000) sawDay = true;
+            if (timeOfDay >= 14000 && timeOfDay < 22000) sawNight = true;
+        }
+
+        assertTrue(sawDay, "The simulated worlds never saw the day");
+        assertTrue(sawNight, "The simulated worlds never saw the night");
+        assertTrue(simulator.metrics.getLocationCacheMisses() > 0, "Walking players must change location");
+    }
+}
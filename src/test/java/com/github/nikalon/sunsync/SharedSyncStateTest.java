@@ -0,0 +1,54 @@
+package com.github.nikalon.sunsync;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class SharedSyncStateTest {
+    @Test
+    void followerReadsWhatLeaderPublishesTest(@TempDir Path folder) throws IOException {
+        var file = folder.resolve("shared.dat");
+        try (var leader = SharedSyncState.open(file); var follower = SharedSyncState.open(file)) {
+            assertTrue(leader.tryBecomeLeader());
+            assertFalse(follower.tryBecomeLeader(), "Only one instance can be the leader");
+
+            assertNull(follower.read(), "Nothing has been published yet");
+
+            leader.publish(18000, 4, 1000L);
+            var snapshot = follower.read();
+            assertNotNull(snapshot);
+            assertEquals(18000, snapshot.minecraftTime);
+            assertEquals(4, snapshot.minecraftDay);
+            assertEquals(1000L, snapshot.heartbeatMillis);
+
+            // Followers are not allowed to write
+            follower.publish(0, 0, 2000L);
+            assertEquals(18000, follower.read().minecraftTime);
+        }
+    }
+
+    @Test
+    void followerTakesOverWhenLeaderIsClosedTest(@TempDir Path folder) throws IOException {
+        var file = folder.resolve("shared.dat");
+        try (var follower = SharedSyncState.open(file)) {
+            var leader = SharedSyncState.open(file);
+            assertTrue(leader.tryBecomeLeader());
+            leader.publish(6000, 0, 1000L);
+            leader.close();
+
+            assertTrue(follower.read().isStale(100_000L, 30_000L));
+            assertTrue(follower.tryBecomeLeader());
+            follower.publish(7000, 1, 100_000L);
+            assertEquals(7000, follower.read().minecraftTime);
+            assertFalse(follower.read().isStale(100_000L, 30_000L));
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.github.nikalon.sunsync;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+import org.bukkit.event.Event;
+import org.junit.jupiter.api.Test;
+
+import com.github.nikalon.sunsync.SkySnapshot.SkyPeriod;
+import com.github.nikalon.sunsync.Sun.GeographicCoordinate;
+
+public class SkyServiceTest {
+    private static final GeographicCoordinate MADRID = GeographicCoordinate.fromDecimalDegrees(40.4168, -3.7038);
+
+    private static List<Event> replay(GeographicCoordinate location, LocalDateTime start, long seconds, long stepSeconds) {
+        var events = new ArrayList<Event>();
+        var service = new SkyService(events::add);
+        var synchronizer = new TimeSynchronizer(new Configuration(Logger.getLogger("testLogger")), Logger.getLogger("testLogger"), location);
+        for (long t = 0; t < seconds; t += stepSeconds) {
+            var now = start.plusSeconds(t);
+            synchronizer.synchronize(now);
+            service.update(synchronizer.snapshot(now.toEpochSecond(ZoneOffset.UTC)));
+        }
+        return events;
+    }
+
+    @Test
+    void oneEventPerTransitionTest() {
+        // Every twilight starts and ends once a day, however often the time is synchronized
+        var start = LocalDateTime.of(2023, 3, 20, 0, 0);
+        for (long step : new long[] { 5, 60, 600 }) {
+            var events = replay(MADRID, start, 86400, step);
+            var transitions = events.stream().filter((e) -> e instanceof SkyTransitionEvent).map((e) -> (SkyTransitionEvent) e).toList();
+            assertEquals(8, transitions.size(), "Synchronizing every " + step + " seconds");
+            assertEquals(1, transitions.stream().filter(SkyTransitionEvent::isSunrise).count());
+            assertEquals(1, transitions.stream().filter(SkyTransitionEvent::isSunset).count());
+            for (var transition : transitions) {
+                assertTrue(transition.getFrom() != transition.getTo());
+            }
+        }
+    }
+
+    @Test
+    void moonPhaseChangesTest() {
+        // A lunar cycle goes through the eight phases
+        var events = replay(MADRID, LocalDateTime.of(2023, 1, 1, 0, 0), 30 * 86400L, 3600);
+        var changes = events.stream().filter((e) -> e instanceof MoonPhaseChangeEvent).map((e) -> (MoonPhaseChangeEvent) e).toList();
+        assertEquals(8, changes.size());
+        for (var change : changes) {
+            assertEquals((change.getFrom().ordinal() + 1) % 8, change.getTo().ordinal(), "Phases must follow each other");
+        }
+    }
+
+    @Test
+    void celestialEventsTest() {
+        // The total solar eclipse of 2024-04-08 and the supermoon of 2024-09-18, which was also a partial lunar eclipse
+        var april = replay(MADRID, LocalDateTime.of(2024, 4, 8, 0, 0), 86400, 600).stream().filter((e) -> e instanceof CelestialEvent).map((e) -> (CelestialEvent) e).toList();
+        assertEquals(1, april.size());
+        assertEquals(CelestialEvent.Kind.TOTAL_SOLAR_ECLIPSE, april.get(0).getKind());
+        assertTrue(april.get(0).getKind().isEclipse());
+        assertTrue(april.get(0).getEpochSecond() <= april.get(0).getSnapshot().epochSecond);
+
+        var september = replay(MADRID, LocalDateTime.of(2024, 9, 17, 12, 0), 86400, 3600).stream().filter((e) -> e instanceof CelestialEvent).map((e) -> ((CelestialEvent) e).getKind()).toList();
+        assertEquals(List.of(CelestialEvent.Kind.SUPERMOON, CelestialEvent.Kind.PARTIAL_LUNAR_ECLIPSE), september);
+    }
+
+    @Test
+    void clockJumpsDoNotCallCelestialEventsTest() {
+        var events = new ArrayList<Event>();
+        var service = new SkyService(events::add);
+        var synchronizer = new TimeSynchronizer(new Configuration(Logger.getLogger("testLogger")), Logger.getLogger("testLogger"), MADRID);
+        for (var time : new LocalDateTime[] { LocalDateTime.of(2000, 1, 1, 0, 0), LocalDateTime.of(2050, 1, 1, 0, 0), LocalDateTime.of(2024, 1, 1, 0, 0) }) {
+            synchronizer.synchronize(time);
+            service.update(synchronizer.snapshot(time.toEpochSecond(ZoneOffset.UTC)));
+        }
+        assertTrue(events.stream().noneMatch((e) -> e instanceof CelestialEvent));
+    }
+
+    @Test
+    void snapshotTest() {
+        var service = new SkyService((event) -> {});
+        assertNull(service.getSkySnapshot());
+
+        var synchronizer = new TimeSynchronizer(new Configuration(Logger.getLogger("testLogger")), Logger.getLogger("testLogger"), MADRID);
+        var noon = LocalDateTime.of(2023, 6, 21, 12, 0);
+        synchronizer.synchronize(noon);
+        service.update(synchronizer.snapshot(noon.toEpochSecond(ZoneOffset.UTC)));
+
+        var snapshot = service.getSkySnapshot();
+        assertTrue(snapshot.isDaytime());
+        assertTrue(snapshot.sunrise < snapshot.solarNoon && snapshot.solarNoon < snapshot.sunset);
+        assertTrue(snapshot.astronomicalDawn < snapshot.nauticalDawn && snapshot.nauticalDawn < snapshot.civilDawn && snapshot.civilDawn < snapshot.sunrise);
+        assertEquals(snapshot.sunset, snapshot.nextSunriseOrSunset);
+        assertTrue(snapshot.secondsToNextSunriseOrSunset() > 0);
+        assertTrue(snapshot.sunAltitude > 60, "The Sun is high at noon in June: " + snapshot.sunAltitude);
+        assertEquals(synchronizer.getMinecraftTime(), snapshot.minecraftTime);
+    }
+
+    @Test
+    void polarNightSnapshotTest() {
+        // Also without synchronizing, as a server that takes the time from a shared state
+        var synchronizer = new TimeSynchronizer(new Configuration(Logger.getLogger("testLogger")), Logger.getLogger("testLogger"), GeographicCoordinate.fromDecimalDegrees(78.22, 15.65));
+        var snapshot = synchronizer.snapshot(LocalDateTime.of(2023, 12, 21, 12, 0).toEpochSecond(ZoneOffset.UTC));
+        assertEquals(SkySnapshot.NO_EVENT, snapshot.sunrise);
+        assertEquals(SkySnapshot.NO_EVENT, snapshot.nextSunriseOrSunset);
+        assertEquals(-1, snapshot.secondsToNextSunriseOrSunset());
+        assertTrue(snapshot.skyPeriod.isDarkerThan(SkyPeriod.DAY));
+    }
+}
@@ -0,0 +1,133 @@
+package com.github.nikalon.sunsync;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.nikalon.sunsync.Sun.GeographicCoordinate;
+import com.github.nikalon.sunsync.Sun.NeverRaisesException;
+import com.github.nikalon.sunsync.Sun.NeverSetsException;
+import com.github.nikalon.sunsync.Sun.SolarEvents;
+
+public class SolarEventsTest {
+    private static final double[] TWILIGHT_ALTITUDES = { -6, -12, -18 };
+    private static final double MAX_P99_TWILIGHT_ERROR_MINUTES = 8.0;
+    private static final double MAX_SIDEREAL_DRIFT_MINUTES = 4.0;
+
+    private static double minutesOfDay(long epochSecond) {
+        return Math.floorMod(epochSecond, 86400L) / 60.0;
+    }
+
+    private static double circularDistance(double a, double b) {
+        double distance = Helper.modulo(a - b, 1440.0);
+        return Math.min(distance, 1440.0 - distance);
+    }
+
+    @Test
+    void sameSunriseAndSunsetAsRiseAndSetTest() throws NeverRaisesException, NeverSetsException {
+        for (double latitude = -60; latitude <= 60; latitude += 10) {
+            for (double longitude = -180; longitude < 180; longitude += 30) {
+                var location = GeographicCoordinate.fromDecimalDegrees(latitude, longitude);
+                for (int day = 0; day < 365; day += 7) {
+                    var date = LocalDate.of(2023, 1, 1).plusDays(day);
+                    var expected = Sun.sunriseAndSunsetTimes(location, date);
+                    var events = Sun.solarEvents(location, date);
+
+                    double rise = minutesOfDay(events.riseEpochSecond(SolarEvents.SUNRISE_AND_SUNSET));
+                    double set = minutesOfDay(events.setEpochSecond(SolarEvents.SUNRISE_AND_SUNSET));
+                    double expectedRise = minutesOfDay(expected.riseUTCTime.toEpochSecond(ZoneOffset.UTC));
+                    double expectedSet = minutesOfDay(expected.setUTCTime.toEpochSecond(ZoneOffset.UTC));
+                    // riseAndSet() wraps each event into the sidereal day that starts at 0h UT on its own, so an event near
+                    // the wrap may be one sidereal drift (3.9 minutes) away from the one measured from the solar noon
+                    assertTrue(circularDistance(rise, expectedRise) < MAX_SIDEREAL_DRIFT_MINUTES, String.format("%s on %s: sunrise %.2f, expected %.2f", location, date, rise, expectedRise));
+                    assertTrue(circularDistance(set, expectedSet) < MAX_SIDEREAL_DRIFT_MINUTES, String.format("%s on %s: sunset %.2f, expected %.2f", location, date, set, expectedSet));
+                }
+            }
+        }
+    }
+
+    @Test
+    void eventsAreOrderedTest() {
+        var events = Sun.solarEvents(GeographicCoordinate.fromDecimalDegrees(40.4168, -3.7038), LocalDate.of(2023, 3, 20));
+        long previous = Long.MIN_VALUE;
+        for (int level = SolarEvents.LEVELS - 1; level >= 0; level--) {
+            assertTrue(events.occurs(level));
+            assertTrue(events.riseEpochSecond(level) > previous);
+            previous = events.riseEpochSecond(level);
+        }
+        assertTrue(events.noonEpochSecond > previous);
+        previous = events.noonEpochSecond;
+        for (int level = 0; level < SolarEvents.LEVELS; level++) {
+            assertTrue(events.setEpochSecond(level) > previous);
+            previous = events.setEpochSecond(level);
+        }
+
+        // Madrid is 3.7° west of Greenwich (15 minutes) and the equation of time adds 7 minutes more in March
+        assertEquals(12 * 60 + 22, minutesOfDay(events.noonEpochSecond), 5.0);
+        assertEquals(90 - 40.4168, events.noonAltitude(), 1.0);
+
+        // Tromsø in June: the Sun never sets and it's never dark
+        var polarDay = Sun.solarEvents(GeographicCoordinate.fromDecimalDegrees(69.6492, 18.9553), LocalDate.of(2023, 6, 21));
+        assertTrue(polarDay.isAlwaysAbove(SolarEvents.SUNRISE_AND_SUNSET));
+        assertTrue(polarDay.isAlwaysAbove(SolarEvents.ASTRONOMICAL_TWILIGHT));
+
+        // Tromsø in December: the Sun never rises but there is civil twilight at noon
+        var polarNight = Sun.solarEvents(GeographicCoordinate.fromDecimalDegrees(69.6492, 18.9553), LocalDate.of(2023, 12, 21));
+        assertTrue(polarNight.isAlwaysBelow(SolarEvents.SUNRISE_AND_SUNSET));
+        assertTrue(polarNight.occurs(SolarEvents.CIVIL_TWILIGHT));
+    }
+
+    @Test
+    void twilightAccuracyTest() {
+        var errors = new double[400_000];
+        int count = 0;
+        for (double latitude = -60; latitude <= 60; latitude += 4) {
+            for (double longitude = -180; longitude < 180; longitude += 20) {
+                var location = GeographicCoordinate.fromDecimalDegrees(latitude, longitude);
+                for (int day = 0; day < 365; day += 5) {
+                    var date = LocalDate.of(2023, 1, 1).plusDays(day);
+                    var events = Sun.solarEvents(location, date);
+                    for (int i = 0; i < TWILIGHT_ALTITUDES.length; i++) {
+                        int level = SolarEvents.CIVIL_TWILIGHT + i;
+                        double referenceDawn = ReferenceEphemeris.sunEventMinutes(latitude, longitude, date, true, TWILIGHT_ALTITUDES[i]);
+                        double referenceDusk = ReferenceEphemeris.sunEventMinutes(latitude, longitude, date, false, TWILIGHT_ALTITUDES[i]);
+                        if (! events.occurs(level) || Double.isNaN(referenceDawn) || Double.isNaN(referenceDusk)) continue;
+
+                        errors[count++] = circularDistance(minutesOfDay(events.riseEpochSecond(level)), referenceDawn);
+                        errors[count++] = circularDistance(minutesOfDay(events.setEpochSecond(level)), referenceDusk);
+                    }
+                }
+            }
+        }
+
+        var sorted = Arrays.copyOf(errors, count);
+        Arrays.sort(sorted);
+        double p99 = sorted[(int) (0.99 * (count - 1))];
+        assertTrue(p99 <= MAX_P99_TWILIGHT_ERROR_MINUTES, String.format("99th percentile error %.2f min over %d events is too high (max %.2f min)", p99, count, sorted[count - 1]));
+    }
+
+    @Test
+    void minecraftTwilightAnchorsTest() {
+        // The Minecraft Sun is at the horizon at about 12785 ticks, and it's above it between dawn and dusk
+        assertEquals(0.0, MinecraftSky.sunElevation(MinecraftSky.duskTicks(0)), 1e-6);
+        assertEquals(90.0, MinecraftSky.sunElevation(6000), 1e-9);
+        assertEquals(-90.0, MinecraftSky.sunElevation(18000), 1e-9);
+
+        double previousDusk = 13000; // Sunset anchor
+        double previousDawn = 23000; // Sunrise anchor
+        for (double altitude : TWILIGHT_ALTITUDES) {
+            double dusk = MinecraftSky.duskTicks(altitude);
+            double dawn = MinecraftSky.dawnTicks(altitude);
+            assertTrue(dusk > previousDusk && dusk < 18000, "Dusk anchors must follow the sunset anchor: " + dusk);
+            assertTrue(dawn < previousDawn && dawn > 18000, "Dawn anchors must precede the sunrise anchor: " + dawn);
+            assertEquals(altitude, MinecraftSky.sunElevation(dawn), 1e-6);
+            previousDusk = dusk;
+            previousDawn = dawn;
+        }
+    }
+}
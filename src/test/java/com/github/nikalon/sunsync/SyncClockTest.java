@@ -0,0 +1,118 @@
+package com.github.nikalon.sunsync;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import org.junit.jupiter.api.Test;
+
+public class SyncClockTest {
+    private static final Instant START = Instant.parse("2023-06-01T10:00:00Z");
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private static class ManualClock extends Clock {
+        Instant now;
+
+        ManualClock(Instant now) {
+            this.now = now;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return this.now;
+        }
+    }
+
+    private static class Machine {
+        // A ticker and a wall clock that advance together, unless the wall clock is set by hand
+        final long[] ticker = { 123_456_789L }; // Any origin, as System.nanoTime()
+        final ManualClock wallClock = new ManualClock(START);
+        final SyncClock clock = new SyncClock(() -> this.ticker[0], this.wallClock);
+
+        void advance(long seconds) {
+            this.ticker[0] += seconds * NANOS_PER_SECOND;
+            this.wallClock.now = this.wallClock.now.plusSeconds(seconds);
+        }
+    }
+
+    private static long epochNanos(Instant instant) {
+        return instant.getEpochSecond() * NANOS_PER_SECOND + instant.getNano();
+    }
+
+    @Test
+    void followsWallClockTest() {
+        var machine = new Machine();
+        assertEquals(START, machine.clock.instant());
+
+        for (int i = 0; i < 100; i++) {
+            machine.advance(17);
+            assertEquals(machine.wallClock.now, machine.clock.instant());
+            assertEquals(machine.wallClock.now.getEpochSecond(), machine.clock.epochSecond());
+            assertEquals(machine.wallClock.now.toEpochMilli(), machine.clock.millis());
+        }
+        assertEquals(0, machine.clock.getSteps());
+    }
+
+    @Test
+    void smallCorrectionsAreSlewedTest() {
+        // NTP steps the wall clock 30 seconds back. The sky keeps moving forward and catches up slowly.
+        var machine = new Machine();
+        machine.advance(10);
+        machine.wallClock.now = machine.wallClock.now.minusSeconds(30);
+        assertEquals(START.plusSeconds(10), machine.clock.instant(), "Nothing changes until the next reconciliation");
+
+        double minimumStepNanos = NANOS_PER_SECOND * (1 - SyncClock.MAX_SLEW_RATE);
+        long previous = machine.clock.epochNanos();
+        long secondsToCatchUp = 0;
+        while (machine.clock.epochNanos() != epochNanos(machine.wallClock.now)) {
+            machine.advance(1);
+            long now = machine.clock.epochNanos();
+            assertTrue(now > previous, "The clock must never go backwards");
+            assertTrue(now - previous >= minimumStepNanos, "The clock must not slow down more than the slew rate");
+            previous = now;
+            secondsToCatchUp++;
+        }
+        // One minute until the first reconciliation, and 30 seconds at 5% take 10 minutes
+        assertTrue(secondsToCatchUp >= 600 && secondsToCatchUp <= 780, "Caught up in " + secondsToCatchUp + " seconds");
+        assertEquals(0, machine.clock.getPendingCorrectionNanos());
+        assertEquals(0, machine.clock.getSteps());
+    }
+
+    @Test
+    void largeCorrectionsAreSteppedTest() {
+        // The machine was suspended for two hours: the ticker stopped, but the wall clock did not
+        var machine = new Machine();
+        machine.advance(30);
+        machine.wallClock.now = machine.wallClock.now.plus(Duration.ofHours(2));
+        machine.advance(SyncClock.RECONCILE_INTERVAL_NANOS / NANOS_PER_SECOND);
+
+        assertEquals(machine.wallClock.now, machine.clock.instant());
+        assertEquals(1, machine.clock.getSteps());
+    }
+
+    @Test
+    void offsetAndWarpClocksTest() {
+        // The clock overrides of /timesync clock are built on top of it
+        var machine = new Machine();
+        var offset = Clock.offset(machine.clock, Duration.ofHours(-3));
+        var warp = new WarpClock(machine.clock, Instant.parse("2023-01-01T00:00:00Z"), 1000.0);
+        machine.advance(86);
+        assertEquals(START.plusSeconds(86).minus(Duration.ofHours(3)), offset.instant());
+        assertEquals(Instant.parse("2023-01-01T23:53:20Z"), warp.instant());
+    }
+}
@@ -0,0 +1,63 @@
+package com.github.nikalon.sunsync;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.logging.Logger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+public class SyncEventsTest {
+    private static long countEvents(Path file, String name) throws IOException {
+        return RecordingFile.readAllEvents(file).stream().map(RecordedEvent::getEventType).filter((type) -> type.getName().equals(name)).count();
+    }
+
+    @Test
+    void recomputeAndRolloverEventsAreRecordedTest(@TempDir Path folder) throws IOException {
+        var configuration = new Configuration(Logger.getGlobal());
+        configuration.setLocation("40.4, -3.7");
+        var synchronizer = new TimeSynchronizer(configuration, Logger.getGlobal());
+        var file = folder.resolve("recording.jfr");
+
+        try (var recording = new Recording()) {
+            recording.enable("com.github.nikalon.sunsync.AstronomyRecompute");
+            recording.enable("com.github.nikalon.sunsync.DayRollover");
+            recording.start();
+
+            var now = LocalDateTime.of(2023, 6, 21, 12, 0);
+            synchronizer.synchronize(now);
+            synchronizer.synchronize(now.plusMinutes(1)); // Cached
+            synchronizer.synchronize(now.plusDays(1));    // Next day
+            recording.stop();
+            recording.dump(file);
+        }
+
+        assertEquals(2, countEvents(file, "com.github.nikalon.sunsync.AstronomyRecompute"), "Only the first synchronization of each day recalculates");
+        assertEquals(1, countEvents(file, "com.github.nikalon.sunsync.DayRollover"));
+    }
+
+    @Test
+    void noEventsWhenDisabledTest(@TempDir Path folder) throws IOException {
+        var configuration = new Configuration(Logger.getGlobal());
+        configuration.setJfrEvents(false);
+        var synchronizer = new TimeSynchronizer(configuration, Logger.getGlobal());
+        var file = folder.resolve("recording.jfr");
+
+        try (var recording = new Recording()) {
+            recording.enable("com.github.nikalon.sunsync.AstronomyRecompute");
+            recording.start();
+            synchronizer.synchronize(LocalDateTime.of(2023, 6, 21, 12, 0));
+            recording.stop();
+            recording.dump(file);
+        }
+
+        assertEquals(0, countEvents(file, "com.github.nikalon.sunsync.AstronomyRecompute"));
+    }
+}
@@ -0,0 +1,51 @@
+package com.github.nikalon.sunsync;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import org.junit.jupiter.api.Test;
+
+public class WarpClockTest {
+    private static class ManualClock extends Clock {
+        Instant now;
+
+        ManualClock(Instant now) {
+            this.now = now;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return this.now;
+        }
+    }
+
+    @Test
+    void warpClockRunsFasterThanBaseClockTest() {
+        var baseClock = new ManualClock(Instant.parse("2023-06-01T10:00:00Z"));
+        var clock = new WarpClock(baseClock, Instant.parse("2023-01-01T00:00:00Z"), 1000.0);
+        assertEquals(Instant.parse("2023-01-01T00:00:00Z"), clock.instant());
+
+        // 86.4 real seconds are a whole day at 1000x
+        baseClock.now = baseClock.now.plus(Duration.ofMillis(86_400));
+        assertEquals(Instant.parse("2023-01-02T00:00:00Z"), clock.instant());
+
+        // A whole year takes less than 9 hours
+        baseClock.now = baseClock.now.plus(Duration.ofMillis(86_400 * 364));
+        assertEquals(Instant.parse("2024-01-01T00:00:00Z"), clock.instant());
+    }
+}
@@ -0,0 +1,77 @@
+package com.github.nikalon.sunsync;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import org.junit.jupiter.api.Test;
+
+public class WorldProjectionTest {
+    @Test
+    void projectionTest() {
+        var projection = WorldProjection.of(1000, 40.0, -3.0);
+        assertEquals(40.0, projection.latitude(0), 1e-9);
+        assertEquals(-3.0, projection.longitude(0), 1e-9);
+
+        // North is towards negative Z and east towards positive X
+        assertEquals(41.0, projection.latitude(-1000), 1e-9);
+        assertEquals(-2.0, projection.longitude(1000), 1e-9);
+
+        // Latitudes are clamped and longitudes wrap around
+        assertEquals(90.0, projection.latitude(-1_000_000), 1e-9);
+        assertEquals(-90.0, projection.latitude(1_000_000), 1e-9);
+        assertEquals(177.0, projection.longitude(-180_000), 1e-9);
+        assertEquals(-177.0, projection.longitude(180_000 + 6_000), 1e-9);
+
+        assertNull(WorldProjection.of(0, 0, 0));
+        assertNull(WorldProjection.of(-1, 0, 0));
+        assertNull(WorldProjection.of(1000, 91, 0));
+        assertNull(WorldProjection.of(1000, 0, 181));
+    }
+
+    @Test
+    void playersShareCellsTest() {
+        var cache = new LocationTimeCache(new Configuration(Logger.getGlobal()), new SyncMetrics(), Logger.getGlobal());
+        var clock = Clock.fixed(Instant.parse("2023-06-21T12:00:00Z"), ZoneOffset.UTC);
+        var projection = WorldProjection.of(1000, 40.0, -3.0);
+        var alice = UUID.randomUUID();
+        var bob = UUID.randomUUID();
+
+        assertTrue(cache.setPlayerLocation(alice, projection.latitude(10), projection.longitude(10), clock));
+        assertTrue(cache.setPlayerLocation(bob, projection.latitude(20), projection.longitude(20), clock));
+        assertEquals(1, cache.size(), "Players in the same cell share the calculations");
+
+        // Walking inside the cell does not recalculate anything
+        assertFalse(cache.setPlayerLocation(alice, projection.latitude(200), projection.longitude(200), clock));
+
+        // Crossing the boundary of the cell does
+        assertTrue(cache.setPlayerLocation(alice, projection.latitude(300), projection.longitude(300), clock));
+        assertEquals(2, cache.size());
+
+        // The centres of both cells are 0.25 degrees of longitude apart, which is one minute of solar time
+        long fallback = -1;
+        assertTrue(cache.getFullMinecraftTime(alice, fallback) != cache.getFullMinecraftTime(bob, fallback));
+
+        cache.removePlayer(alice);
+        assertEquals(1, cache.size(), "Unused cells are removed");
+        assertEquals(fallback, cache.getFullMinecraftTime(alice, fallback));
+
+        // A cell is kept while any of its players is left
+        assertTrue(cache.setPlayerLocation(alice, projection.latitude(10), projection.longitude(10), clock));
+        assertTrue(cache.setPlayerLocation(bob, projection.latitude(300), projection.longitude(300), clock));
+        assertTrue(cache.setPlayerLocation(bob, projection.latitude(20), projection.longitude(20), clock));
+        assertEquals(1, cache.size());
+        cache.removePlayer(bob);
+        assertEquals(1, cache.size());
+        assertTrue(cache.getFullMinecraftTime(alice, fallback) != fallback);
+        cache.removePlayer(alice);
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,124 @@
+package com.github.nikalon.sunsync;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.junit.jupiter.api.Test;
+
+public class WorldTimeSchedulerTest {
+    private static List<World> newWorlds(int count, int... occupied) {
+        var player = ServerSimulator.newPlayer(UUID.randomUUID(), "player", () -> null);
+        var worlds = new ArrayList<World>();
+        for (int i = 0; i < count; i++) {
+            boolean hasPlayers = false;
+            for (int index : occupied) hasPlayers |= index == i;
+            worlds.add(ServerSimulator.newWorld("world_" + i, hasPlayers ? () -> List.of(player) : List::of));
+        }
+        return worlds;
+    }
+
+    private static WorldTimeScheduler newScheduler(int updatesPerTick, int budgetMicros) {
+        var configuration = new Configuration(Logger.getLogger("testLogger"));
+        configuration.setWorldUpdatesPerTick(updatesPerTick);
+        configuration.setWorldUpdateBudgetMicros(budgetMicros);
+        return new WorldTimeScheduler(configuration, Logger.getLogger("testLogger"));
+    }
+
+    @Test
+    void worldsWithPlayersGoFirstTest() {
+        var worlds = newWorlds(300, 150, 299);
+        var scheduler = newScheduler(10, 0);
+        scheduler.schedule(worlds, 6000);
+        assertEquals(300, scheduler.getPendingWorlds());
+
+        scheduler.run();
+        assertEquals(290, scheduler.getPendingWorlds());
+        assertEquals(6000, worlds.get(150).getFullTime());
+        assertEquals(6000, worlds.get(299).getFullTime());
+        assertEquals(6000, worlds.get(7).getFullTime());
+        assertEquals(0, worlds.get(8).getFullTime());
+
+        for (int tick = 1; tick < 30; tick++) scheduler.run();
+        assertEquals(0, scheduler.getPendingWorlds());
+        for (var world : worlds) assertEquals(6000, world.getFullTime(), world.getName());
+    }
+
+    @Test
+    void roundRobinTest() {
+        // The synchronization interval is shorter than a round: the worlds left behind go first in the next round
+        var worlds = newWorlds(300);
+        var scheduler = newScheduler(10, 0);
+        scheduler.schedule(worlds, 1000);
+        for (int tick = 0; tick < 5; tick++) scheduler.run();
+
+        scheduler.schedule(worlds, 2000);
+        for (int tick = 0; tick < 25; tick++) scheduler.run();
+        assertEquals(1000, worlds.get(0).getFullTime());
+        assertEquals(1000, worlds.get(49).getFullTime());
+        assertEquals(2000, worlds.get(50).getFullTime());
+        assertEquals(2000, worlds.get(299).getFullTime());
+
+        for (int tick = 0; tick < 5; tick++) scheduler.run();
+        for (var world : worlds) assertEquals(2000, world.getFullTime(), world.getName());
+    }
+
+    @Test
+    void timeBudgetTest() {
+        // Worlds that take 200 µs to update, with a budget of 500 µs per tick
+        var slowWorld = (World) Proxy.newProxyInstance(World.class.getClassLoader(), new Class<?>[] { World.class }, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getPlayers":  return List.<Player>of();
+                case "setFullTime":
+                    long end = System.nanoTime() + 200_000;
+                    while (System.nanoTime() < end) Thread.onSpinWait();
+                    return null;
+                default: throw new UnsupportedOperationException(method.getName());
+            }
+        });
+        var worlds = new ArrayList<World>();
+        for (int i = 0; i < 100; i++) worlds.add(slowWorld);
+
+        var scheduler = newScheduler(100, 500);
+        scheduler.schedule(worlds, 6000);
+        int ticks = 0;
+        while (scheduler.getPendingWorlds() > 0) {
+            int before = scheduler.getPendingWorlds();
+            scheduler.run();
+            int updated = before - scheduler.getPendingWorlds();
+            assertTrue(updated >= 1 && updated <= 3, updated + " worlds updated in one tick");
+            ticks++;
+        }
+        assertTrue(ticks >= 34, "Updated in " + ticks + " ticks");
+    }
+
+    @Test
+    void flatTickCostTest() {
+        // 300 worlds synchronized every 5 seconds: no tick updates more than 10 of them
+        var simulator = new ServerSimulator(300, 100, 0.0, 0.0, Instant.parse("2023-06-01T00:00:00Z"), 1, 5);
+        simulator.configuration.setWorldUpdatesPerTick(10);
+        simulator.configuration.setWorldUpdateBudgetMicros(0);
+        var scheduler = simulator.staggerWorldUpdates();
+        simulator.run(1);
+        assertEquals(300, scheduler.getPendingWorlds(), "The synchronization itself doesn't update any world");
+
+        for (int tick = 0; tick < 30; tick++) {
+            int before = scheduler.getPendingWorlds();
+            simulator.run(1);
+            assertTrue(before - scheduler.getPendingWorlds() <= 10);
+        }
+        assertEquals(0, scheduler.getPendingWorlds());
+        long fullTime = simulator.timeSynchronizer.getFullMinecraftTime();
+        for (var world : simulator.getWorlds()) {
+            assertEquals(fullTime, world.getFullTime(), world.getName());
+        }
+    }
+}
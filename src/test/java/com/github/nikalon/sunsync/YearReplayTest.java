@@ -0,0 +1,82 @@
+package com.github.nikalon.sunsync;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.junit.jupiter.api.Test;
+
+public class YearReplayTest {
+    // Replays every minute of a whole year through the same time synchronization that the plugin runs, checking that
+    // the Minecraft time never goes backwards and stays within a Minecraft day.
+    private static final int YEAR = 2023;
+    private static final long MINUTES_PER_YEAR = 365L * 24 * 60;
+
+    // At most 10000 ticks of night in the shortest night of the year (about 5 hours at 60° of latitude)
+    private static final long MAX_TICKS_PER_MINUTE = 100;
+
+    private static Logger quietLogger() {
+        // The synchronization warns every day the Sun doesn't rise or set, which happens for weeks near the poles
+        var logger = Logger.getLogger("YearReplayTest");
+        logger.setLevel(Level.OFF);
+        return logger;
+    }
+
+    private static void replayYear(String location, boolean checkMonotonic) {
+        var configuration = new Configuration(quietLogger());
+        assertTrue(configuration.setLocation(location));
+        var synchronizer = new TimeSynchronizer(configuration, quietLogger());
+
+        var start = LocalDateTime.of(YEAR, 1, 1, 0, 0);
+        long previousTime = -1;
+        for (long minute = 0; minute < MINUTES_PER_YEAR; minute++) {
+            var now = start.plusMinutes(minute);
+            synchronizer.synchronize(now);
+            long time = synchronizer.getMinecraftTime();
+            long day = synchronizer.getMinecraftDay();
+
+            assertTrue(time >= 0 && time < TimeSynchronizer.MINECRAFT_DAY_IN_TICKS, String.format("%s at %s: time %d out of bounds", location, now, time));
+            assertTrue(day >= 0 && day < TimeSynchronizer.MINECRAFT_TOTAL_MOON_PHASES, String.format("%s at %s: day %d out of bounds", location, now, day));
+
+            if (checkMonotonic && previousTime >= 0) {
+                // Time of the day only moves forwards, wrapping around at the end of the Minecraft day
+                long advance = Math.floorMod(time - previousTime, TimeSynchronizer.MINECRAFT_DAY_IN_TICKS);
+                assertTrue(advance <= MAX_TICKS_PER_MINUTE, String.format("%s at %s: time jumped from %d to %d", location, now, previousTime, time));
+            }
+            previousTime = time;
+        }
+    }
+
+    @Test
+    void replayYearAtMidLatitudeTest() {
+        replayYear("40.4168, -3.7038", true); // Madrid
+    }
+
+    @Test
+    void replayYearAtWesternLongitudeTest() {
+        replayYear("37.7749, -122.4194", true); // San Francisco
+    }
+
+    @Test
+    void replayYearAtEasternLongitudeTest() {
+        replayYear("35.6762, 139.6503", true); // Tokyo
+    }
+
+    @Test
+    void replayYearAtSouthernHemisphereTest() {
+        replayYear("-33.8688, 151.2093", true); // Sydney
+    }
+
+    @Test
+    void replayYearAtEquatorTest() {
+        replayYear("-0.1807, -78.4678", true); // Quito
+    }
+
+    @Test
+    void replayYearWithPolarDaysAndNightsTest() {
+        // The Sun does not rise or set for weeks. The time is fixed in the meantime, so it only must stay in bounds.
+        replayYear("69.6492, 18.9553", false); // Tromsø
+    }
+}